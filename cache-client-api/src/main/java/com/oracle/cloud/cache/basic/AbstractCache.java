@@ -18,22 +18,63 @@
 
 package com.oracle.cloud.cache.basic;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.oracle.cloud.cache.ServerCacheMetrics;
+import com.oracle.cloud.cache.basic.io.Serializer;
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
+import com.oracle.cloud.cache.basic.options.EarlyExpiry;
+import com.oracle.cloud.cache.basic.options.EventDelivery;
 import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.ExpiryJitter;
 import com.oracle.cloud.cache.basic.options.GetOption;
+import com.oracle.cloud.cache.basic.options.HotKeys;
+import com.oracle.cloud.cache.basic.options.KeyPrefix;
+import com.oracle.cloud.cache.basic.options.NegativeCaching;
+import com.oracle.cloud.cache.basic.options.PageSize;
 import com.oracle.cloud.cache.basic.options.PutOption;
 import com.oracle.cloud.cache.basic.options.RemoveOption;
 import com.oracle.cloud.cache.basic.options.ReplaceOption;
+import com.oracle.cloud.cache.basic.options.Retry;
 import com.oracle.cloud.cache.basic.options.Return;
+import com.oracle.cloud.cache.basic.options.ScanOption;
+import com.oracle.cloud.cache.basic.options.Timeout;
 import com.oracle.cloud.cache.basic.options.ValueType;
+import com.oracle.cloud.cache.basic.options.WriteBehind;
 import com.oracle.cloud.cache.metrics.CacheMetrics;
+import com.oracle.cloud.cache.metrics.HotKey;
+import com.oracle.cloud.cache.metrics.HotKeyTracker;
+import com.oracle.cloud.cache.processors.EntryProcessor;
 import com.oracle.cloud.cache.util.Options;
 
 /**                                        
@@ -46,6 +87,22 @@ import com.oracle.cloud.cache.util.Options;
  */
 public abstract class AbstractCache<V> implements Cache<V>
 {
+    /**
+     * The maximum number of retries that may be issued in a burst.
+     */
+    private static final int MAX_RETRY_BURST = 10;
+
+    /**
+     * The attempts and backoff for optimistically applying a function to a remote entry
+     * that is being updated concurrently.
+     */
+    private static final Retry CONTENTION_RETRY = Retry.of(8, Duration.ofMillis(1), Duration.ofMillis(50), 1.0);
+
+    /**
+     * The remaining time-to-live of an entry for which it is not known.
+     */
+    protected static final long UNKNOWN_TTL = 0L;
+
     /**
      * Cache name.
      */
@@ -71,6 +128,83 @@ public abstract class AbstractCache<V> implements Cache<V>
      */
     private final CacheLoader<V> cacheLoader;
 
+    /**
+     * The {@link HotKeyTracker} for the cache or null if hot-key tracking is disabled.
+     */
+    private final HotKeyTracker hotKeys;
+
+    /**
+     * The recently missed keys, or null if negative caching is disabled.
+     */
+    private final NegativeCache negativeCache;
+
+    /**
+     * The option for refreshing entries before they expire, or null if it is disabled.
+     */
+    private final EarlyExpiry earlyExpiry;
+
+    /**
+     * The option for shortening the time-to-live of written entries, or null if it is disabled.
+     */
+    private final ExpiryJitter expiryJitter;
+
+    /**
+     * The moving average of the time taken by the cache loader, in nanoseconds.
+     */
+    private volatile long loadNanos;
+
+    /**
+     * The queue of changes to write to the {@link CacheWriter}, if one is configured.
+     */
+    private final WriteBehindQueue<V> writeBehind;
+
+    /**
+     * The {@link CacheWriter} changes are written to synchronously, or null if there is
+     * no writer or changes are written behind.
+     */
+    private final CacheWriter<V> writeThrough;
+
+    /**
+     * The budget limiting the rate of retries, created on first use.
+     */
+    private volatile RequestBudget retryBudget;
+
+    /**
+     * The circuit breaker state for the cache, or null if the circuit breaker is disabled.
+     */
+    private final Circuit circuit;
+
+    /**
+     * The cache serving gets while the circuit is open, or null if there is no fallback.
+     */
+    private final LocalCache<V> fallback;
+
+    /**
+     * The policy for unconditional writes while the circuit is open.
+     */
+    private final CircuitBreaker.WritePolicy writePolicy;
+
+    /**
+     * The writes queued while the circuit was open, or null if writes are not queued.
+     */
+    private final BlockingQueue<Supplier<?>> pendingWrites;
+
+    /**
+     * Indicates if the queued writes are being replayed.
+     */
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    /**
+     * The listeners for changes to the cache.
+     */
+    private final CopyOnWriteArrayList<CacheListener<? super V>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The queue of events to deliver to the listeners asynchronously, or null if events
+     * are delivered synchronously.
+     */
+    private final EventDispatcher<V> eventDispatcher;
+
 
     /**
      * Constructor for AbstractCache based upon cache name and {@link CacheOption}s.
@@ -78,15 +212,86 @@ public abstract class AbstractCache<V> implements Cache<V>
      * @param cacheName  cache name
      * @param options    options to apply to the cache
      */
+    protected AbstractCache(String         cacheName,
+                            CacheOption... options)
+    {
+        this(cacheName, null, options);
+    }
+
+
+    /**
+     * Constructor for AbstractCache based upon cache name and {@link CacheOption}s, for
+     * implementations that access a remote cache, and so support a {@link CircuitBreaker}.
+     *
+     * @param cacheName  cache name
+     * @param breaker    the circuit breaker used unless one is specified by the options,
+     *                   or null if the cache does not support a circuit breaker
+     * @param options    options to apply to the cache
+     */
     @SuppressWarnings("unchecked")
     protected AbstractCache(String         cacheName,
+                            CircuitBreaker breaker,
                             CacheOption... options)
     {
-        this.cacheName   = cacheName;
-        this.metrics     = createMetrics();
-        this.options     = Options.from(CacheOption.class, options);
-        this.valueClass  = (Class<V>) this.options.get(ValueType.class).getType();
-        this.cacheLoader = this.options.get(CacheLoader.class);
+        HotKeys                 hotKeys;
+        NegativeCaching         negativeCaching;
+        EarlyExpiry             earlyExpiry;
+        ExpiryJitter            expiryJitter;
+        Iterator<CacheWriter>   writers;
+        CacheWriter<V>          writer;
+        WriteBehind             writeBehind;
+        EventDelivery           eventDelivery;
+        CircuitBreaker          circuitBreaker;
+
+        this.cacheName     = cacheName;
+        this.options       = Options.from(CacheOption.class, options);
+        this.valueClass    = (Class<V>) this.options.get(ValueType.class).getType();
+        this.cacheLoader   = this.options.get(CacheLoader.class);
+        hotKeys            = this.options.get(HotKeys.class);
+        this.hotKeys       = hotKeys.isEnabled() ? new HotKeyTracker(hotKeys) : null;
+        negativeCaching    = this.options.get(NegativeCaching.class);
+        this.negativeCache = negativeCaching.isEnabled() ? new NegativeCache(negativeCaching) : null;
+        earlyExpiry        = this.options.get(EarlyExpiry.class);
+        this.earlyExpiry   = earlyExpiry.isEnabled() ? earlyExpiry : null;
+        expiryJitter       = this.options.get(ExpiryJitter.class);
+        this.expiryJitter  = expiryJitter.isEnabled() ? expiryJitter : null;
+        writers            = this.options.getInstancesOf(CacheWriter.class).iterator();
+        writer             = writers.hasNext() ? writers.next() : null;
+        writeBehind        = this.options.get(WriteBehind.class);
+
+        this.writeBehind   = writer != null && writeBehind.isEnabled()
+                             ? new WriteBehindQueue<V>(cacheName,
+                                                       writer,
+                                                       writeBehind,
+                                                       this::registerFlush,
+                                                       this::registerWriteFailure)
+                             : null;
+        this.writeThrough  = writeBehind.isEnabled() ? null : writer;
+        eventDelivery      = this.options.get(EventDelivery.class);
+
+        this.eventDispatcher = eventDelivery.isAsynchronous()
+                               ? new EventDispatcher<V>(cacheName,
+                                                        eventDelivery,
+                                                        this::deliver,
+                                                        this::registerDroppedEvent)
+                               : null;
+        circuitBreaker       = breaker == null
+                               ? CircuitBreaker.disabled()
+                               : this.options.get(CircuitBreaker.class, breaker);
+        this.circuit         = circuitBreaker.isEnabled() ? new Circuit(circuitBreaker) : null;
+        this.writePolicy     = circuitBreaker.isEnabled()
+                               ? circuitBreaker.getWritePolicy()
+                               : CircuitBreaker.WritePolicy.FAIL;
+        this.fallback        = circuitBreaker.isEnabled() && circuitBreaker.getFallbackCapacity() > 0
+                               ? new LocalCache<>(cacheName,
+                                                  null,
+                                                  ValueType.of(valueClass),
+                                                  Capacity.of(circuitBreaker.getFallbackCapacity()))
+                               : null;
+        this.pendingWrites   = writePolicy == CircuitBreaker.WritePolicy.QUEUE
+                               ? new ArrayBlockingQueue<>(circuitBreaker.getMaxQueuedWrites())
+                               : null;
+        this.metrics         = createMetrics();
     }
 
 
@@ -94,11 +299,46 @@ public abstract class AbstractCache<V> implements Cache<V>
      * Returns the value in the cache identified by the specified key. Returns
      * null if the cache contains no mapping for this key.
      *
-     * @param key  the cache key
+     * @param key      the cache key
+     * @param timeout  the timeout for the operation
      *
      * @return the value associated with the specified key
      */
-    protected abstract V get(String key);
+    protected abstract V get(String  key,
+                             Timeout timeout);
+
+
+    /**
+     * Returns the value in the cache identified by the specified key, together with
+     * the version of the entry. Returns null if the cache contains no mapping for this key.
+     *
+     * @param key      the cache key
+     * @param timeout  the timeout for the operation
+     *
+     * @return the value and version associated with the specified key
+     */
+    protected abstract Versioned<V> getWithVersion(String  key,
+                                                   Timeout timeout);
+
+
+    /**
+     * Returns the value in the cache identified by the specified key, together with the
+     * remaining time-to-live of the entry. This is used to refresh entries before they
+     * expire; by default the time-to-live is not known.
+     *
+     * @param key      the cache key
+     * @param timeout  the timeout for the operation
+     *
+     * @return the cache value and the remaining time-to-live of the entry, or null if
+     *         the cache contains no mapping for the key
+     */
+    protected Expiring<V> getExpiring(String  key,
+                                      Timeout timeout)
+    {
+        V value = get(key, timeout);
+
+        return value == null ? null : new Expiring<>(value, UNKNOWN_TTL);
+    }
 
 
     /**
@@ -109,13 +349,15 @@ public abstract class AbstractCache<V> implements Cache<V>
      * @param value       the value to associate with the specified key
      * @param expiry      time-to-live for the cache entry
      * @param returnOld  flag specifying whether to return previous value
+     * @param timeout     the timeout for the operation
      *
      * @return the previous value, if {@code returnOld} is true; {@code null} otherwise
      */
     protected abstract V put(String  key,
                              V       value,
                              Expiry  expiry,
-                             boolean returnOld);
+                             boolean returnOld,
+                             Timeout timeout);
 
 
     /**
@@ -126,6 +368,7 @@ public abstract class AbstractCache<V> implements Cache<V>
      * @param value       the value to associate with the specified key
      * @param expiry      time-to-live for the cache entry
      * @param returnOld  flag specifying whether to return previous value
+     * @param timeout     the timeout for the operation
      *
      * @return the current value, if {@code returnOld} is true and there is a value
      *         associated with the specified key; {@code null} otherwise
@@ -133,7 +376,8 @@ public abstract class AbstractCache<V> implements Cache<V>
     protected abstract V putIfAbsent(String  key,
                                      V       value,
                                      Expiry  expiry,
-                                     boolean returnOld);
+                                     boolean returnOld,
+                                     Timeout timeout);
 
 
     /**
@@ -144,6 +388,7 @@ public abstract class AbstractCache<V> implements Cache<V>
      * @param value       the value to associate with the specified key
      * @param expiry      time-to-live for the cache entry
      * @param returnOld  flag specifying whether to return previous value
+     * @param timeout     the timeout for the operation
      *
      * @return the previous value, if {@code returnOld} is true and there is a value
      *         associated with the specified key; {@code null} otherwise
@@ -151,7 +396,8 @@ public abstract class AbstractCache<V> implements Cache<V>
     protected abstract V replace(String  key,
                                  V       value,
                                  Expiry  expiry,
-                                 boolean returnOld);
+                                 boolean returnOld,
+                                 Timeout timeout);
 
 
     /**
@@ -162,13 +408,34 @@ public abstract class AbstractCache<V> implements Cache<V>
      * @param valueOld  the value to match against the current cached value
      * @param valueNew  the value to associate with the specified key
      * @param expiry    time-to-live for the cache entry
+     * @param timeout   the timeout for the operation
      *
      * @return a boolean specifying whether the value was replaced
      */
-    protected abstract boolean replaceValue(String key,
-                                            V      valueOld,
-                                            V      valueNew,
-                                            Expiry expiry);
+    protected abstract boolean replaceValue(String  key,
+                                            V       valueOld,
+                                            V       valueNew,
+                                            Expiry  expiry,
+                                            Timeout timeout);
+
+
+    /**
+     * Replaces the entry for the specified key if its current version is the
+     * specified version.
+     *
+     * @param key       the cache key
+     * @param version   the version the entry must have to be replaced
+     * @param valueNew  the value to associate with the specified key
+     * @param expiry    time-to-live for the cache entry
+     * @param timeout   the timeout for the operation
+     *
+     * @return a boolean specifying whether the value was replaced
+     */
+    protected abstract boolean replaceVersion(String  key,
+                                              long    version,
+                                              V       valueNew,
+                                              Expiry  expiry,
+                                              Timeout timeout);
 
 
     /**
@@ -176,26 +443,106 @@ public abstract class AbstractCache<V> implements Cache<V>
      *
      * @param key         the cache key
      * @param returnOld  flag specifying whether to return previous value
+     * @param timeout     the timeout for the operation
      *
      * @return the previous value, if {@code returnOld} is true and there is a value
      *         associated with the specified key; {@code null} otherwise
      */
     protected abstract V remove(String  key,
-                                boolean returnOld);
+                                boolean returnOld,
+                                Timeout timeout);
 
 
     /**
      * Removes the entry for the specified key if the key is currently
      * mapped to the specified value.
      *
-     * @param key    the cache key
-     * @param value  the value to match against the current cached value
+     * @param key      the cache key
+     * @param value    the value to match against the current cached value
+     * @param timeout  the timeout for the operation
      *
      * @return the previous value, if {@code returnOld} is true and there is a value
      *         associated with the specified key; {@code null} otherwise
      */
-    protected abstract boolean removeValue(String key,
-                                           V      value);
+    protected abstract boolean removeValue(String  key,
+                                           V       value,
+                                           Timeout timeout);
+
+
+    /**
+     * Removes the entry for the specified key if its current version is the
+     * specified version.
+     *
+     * @param key      the cache key
+     * @param version  the version the entry must have to be removed
+     * @param timeout  the timeout for the operation
+     *
+     * @return a boolean specifying whether the entry was removed
+     */
+    protected abstract boolean removeVersion(String  key,
+                                             long    version,
+                                             Timeout timeout);
+
+
+    /**
+     * Atomically applies the specified processor to the entry for the specified key,
+     * if present.
+     *
+     * @param key        the cache key
+     * @param processor  the processor to apply
+     * @param expiry     time-to-live for the cache entry, if its value is changed
+     * @param timeout    the timeout for the operation
+     *
+     * @return a boolean specifying whether the value was changed
+     */
+    protected abstract boolean process(String         key,
+                                       EntryProcessor processor,
+                                       Expiry         expiry,
+                                       Timeout        timeout);
+
+
+    /**
+     * Atomically adds the specified delta to the numeric value for the specified key,
+     * treating a missing value as zero.
+     *
+     * @param key      the cache key
+     * @param delta    the value to add
+     * @param expiry   time-to-live for the cache entry
+     * @param timeout  the timeout for the operation
+     *
+     * @return the updated value
+     */
+    protected abstract long add(String  key,
+                                long    delta,
+                                Expiry  expiry,
+                                Timeout timeout);
+
+
+    /**
+     * Clears all entries from the cache.
+     *
+     * @param timeout  the timeout for the operation
+     */
+    protected abstract void clear(Timeout timeout);
+
+
+    /**
+     * Opens a scan of the entries in the cache whose keys start with the specified prefix,
+     * resuming after the page with the specified cursor. Pages should be fetched lazily,
+     * as they are iterated, and each page other than the last should carry a non-empty
+     * cursor from which the scan may be resumed.
+     *
+     * @param prefix    the prefix of the keys, or empty to return every entry
+     * @param pageSize  the maximum number of entries in each page
+     * @param cursor    the cursor of the last page received, or empty to start from the beginning
+     * @param timeout   the time remaining for the scan
+     *
+     * @return the pages of entries, which are closed once they are no longer required
+     */
+    protected abstract Pages<V> scan(String  prefix,
+                                     int     pageSize,
+                                     byte[]  cursor,
+                                     Timeout timeout);
 
 
     /**
@@ -212,10 +559,24 @@ public abstract class AbstractCache<V> implements Cache<V>
     {
         // get options for use in cache loader on miss
         Options<GetOption> opts      = Options.from(GetOption.class, options);
-        Expiry             expiry    = opts.get(Expiry.class, this.options.get(Expiry.class, Expiry.never()));
+        Expiry             expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout            timeout   = opts.get(Timeout.class, getDefaultTimeout());
         long               startTime = System.nanoTime();
 
-        V                  value     = get(key);
+        recordAccess(key);
+
+        if (negativeCache != null && negativeCache.isMissing(key))
+        {
+            // the key was recently missed, so neither the cache nor the cache loader is asked again
+            registerMiss(startTime);
+            registerNegativeHit();
+
+            return null;
+        }
+
+        long               stamp     = negativeCache == null ? 0L : negativeCache.stamp();
+        Expiring<V>        entry     = read(key, expiry, timeout);
+        V                  value     = entry == null ? null : entry.getValue();
 
         if (value == null)
         {
@@ -225,44 +586,221 @@ public abstract class AbstractCache<V> implements Cache<V>
             // issue request to cache loader if one exists
             if (cacheLoader != null)
             {
-                startTime = System.nanoTime();
-                value     = cacheLoader.load(key);
-                registerLoad(startTime);
+                value = load(key);
 
                 if (value != null)
                 {
-                    V currentValue = putIfAbsent(key, value, expiry, Return.oldValue());
-
-                    return currentValue == null ? value : currentValue;
+                    try
+                    {
+                        // the value came from the loader, so it is cached without being written back
+                        // to the cache writer, or counted as a put
+                        V loaded       = value;
+                        V currentValue = invoke(() -> putIfAbsent(key, loaded, expiry, true, timeout));
+
+                        return currentValue == null ? value : currentValue;
+                    }
+                    catch (CircuitOpenException e)
+                    {
+                        // the loaded value is still valid, even though it could not be cached
+                        return value;
+                    }
                 }
             }
 
+            if (negativeCache != null)
+            {
+                negativeCache.recordMiss(key, stamp);
+            }
+
             return null;
         }
         else
         {
             registerHit(startTime);
 
+            return isExpiringEarly(entry) ? refresh(key, value, expiry, timeout) : value;
+        }
+    }
+
+
+    /**
+     * Loads the value for the specified key using the {@link CacheLoader}.
+     *
+     * @param key  the key to load
+     *
+     * @return the loaded value, or null if there is none
+     */
+    private V load(String key)
+    {
+        long startTime = System.nanoTime();
+        V    value     = cacheLoader.load(key);
+        long duration  = duration(startTime);
+
+        registerLoad(startTime);
+
+        long average = loadNanos;
+
+        loadNanos = average == 0L ? duration : average + (duration - average) / 8;
+
+        return value;
+    }
+
+
+    /**
+     * Determines if the specified entry should be refreshed before it expires, with a
+     * probability that rises as it approaches its expiry, and with the time taken to load
+     * a value, as configured by the {@link EarlyExpiry} option.
+     *
+     * @param entry  the entry that was read
+     *
+     * @return true if the entry should be refreshed
+     */
+    private boolean isExpiringEarly(Expiring<V> entry)
+    {
+        if (earlyExpiry == null || cacheLoader == null || entry.getTtl() <= 0)
+        {
+            return false;
+        }
+
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap    = -loadNanos * earlyExpiry.getBeta() * Math.log(random);
+
+        return TimeUnit.MILLISECONDS.toNanos(entry.getTtl()) <= gap;
+    }
+
+
+    /**
+     * Refreshes the entry for the specified key by loading its value, before it expires.
+     * If the value cannot be loaded or put, the value that was read is still valid.
+     *
+     * @param key      the key to refresh
+     * @param value    the value that was read
+     * @param expiry   time-to-live for the refreshed entry
+     * @param timeout  the timeout for the operation
+     *
+     * @return the refreshed value, or the value that was read if it could not be refreshed
+     */
+    private V refresh(String  key,
+                      V       value,
+                      Expiry  expiry,
+                      Timeout timeout)
+    {
+        try
+        {
+            V loaded = load(key);
+
+            if (loaded == null)
+            {
+                return value;
+            }
+
+            invoke(() -> put(key, loaded, expiry, false, timeout));
+            registerEarlyRefresh();
+
+            return loaded;
+        }
+        catch (RuntimeException e)
+        {
             return value;
         }
     }
 
 
+    @Override
+    public Versioned<V> getWithVersion(String       key,
+                                       GetOption... options)
+    {
+        Options<GetOption> opts      = Options.from(GetOption.class, options);
+        Timeout            timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long               startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        // versions are assigned by the server, so a versioned value is never served by the fallback
+        Versioned<V>       versioned = invoke("get", timeout, t -> getWithVersion(key, t));
+
+        if (versioned == null)
+        {
+            registerMiss(startTime);
+        }
+        else
+        {
+            registerHit(startTime);
+        }
+
+        return versioned;
+    }
+
+
     @Override
     public V put(String       key,
                  V            value,
                  PutOption... options)
     {
         Options<PutOption> opts      = Options.from(PutOption.class, options);
-        Expiry             expiry    = opts.get(Expiry.class, this.options.get(Expiry.class, Expiry.never()));
+        Expiry             expiry    = expiry(opts.get(Expiry.class, null));
         boolean            returnOld = opts.get(Return.class).value();
+        boolean            fetchOld  = returnOld || writeThrough != null;
+        Timeout            timeout   = opts.get(Timeout.class, getDefaultTimeout());
         long               startTime = System.nanoTime();
 
-        V                  oldValue  = put(key, value, expiry, returnOld);
+        recordAccess(key);
+
+        V                  oldValue  = write(() -> invoke("put", timeout, t -> put(key, value, expiry, fetchOld, t)),
+                                             f -> f.put(key, value, expiry, false, timeout),
+                                             true);
 
         registerPut(startTime);
+        written(key, value, oldValue, expiry, timeout);
+
+        return returnOld ? oldValue : null;
+    }
 
-        return oldValue;
+
+    @Override
+    public void putAll(Map<String, ? extends V> entries,
+                       PutOption...             options)
+    {
+        Options<PutOption> opts      = Options.from(PutOption.class, options);
+        Expiry             expiry    = expiry(opts.get(Expiry.class, null));
+        boolean            fetchOld  = writeThrough != null;
+        Timeout            timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        Map<String, V>     oldValues = new LinkedHashMap<>();
+
+        for (Map.Entry<String, ? extends V> entry : entries.entrySet())
+        {
+            String key       = entry.getKey();
+            V      value     = entry.getValue();
+            long   startTime = System.nanoTime();
+
+            recordAccess(key);
+
+            V      oldValue  = write(() -> invoke("put", timeout, t -> put(key, value, expiry, fetchOld, t)),
+                                     f -> f.put(key, value, expiry, false, timeout),
+                                     true);
+
+            registerPut(startTime);
+            oldValues.put(key, oldValue);
+
+            if (negativeCache != null)
+            {
+                negativeCache.invalidate(key);
+            }
+        }
+
+        if (writeBehind != null)
+        {
+            entries.forEach(writeBehind::enqueue);
+        }
+        else if (writeThrough != null)
+        {
+            writeThrough(() -> writeThrough.writeAll(entries),
+                         () -> oldValues.forEach((key, oldValue) -> rollback(key,
+                                                                             entries.get(key),
+                                                                             oldValue,
+                                                                             expiry,
+                                                                             timeout)));
+        }
     }
 
 
@@ -272,15 +810,27 @@ public abstract class AbstractCache<V> implements Cache<V>
                          PutOption... options)
     {
         Options<PutOption> opts         = Options.from(PutOption.class, options);
-        Expiry             expiry       = opts.get(Expiry.class, this.options.get(Expiry.class, Expiry.never()));
+        Expiry             expiry       = expiry(opts.get(Expiry.class, null));
         boolean            returnOld    = opts.get(Return.class).value();
+        boolean            fetchOld     = returnOld || hasWriter();
+        Timeout            timeout      = opts.get(Timeout.class, getDefaultTimeout());
         long               startTime    = System.nanoTime();
 
-        V                  currentValue = putIfAbsent(key, value, expiry, returnOld);
+        recordAccess(key);
+
+        V                  currentValue = write(() -> invoke(() -> putIfAbsent(key, value, expiry, fetchOld, timeout)),
+                                                f -> f.remove(key, false, timeout),
+                                                false);
 
         registerPut(startTime);
 
-        return currentValue;
+        // the current value is fetched when there is a writer, to determine whether the value was put
+        if (currentValue == null)
+        {
+            written(key, value, null, expiry, timeout);
+        }
+
+        return returnOld ? currentValue : null;
     }
 
 
@@ -290,16 +840,28 @@ public abstract class AbstractCache<V> implements Cache<V>
                      ReplaceOption... options)
     {
         Options<ReplaceOption> opts      = Options.from(ReplaceOption.class, options);
-        Expiry                 expiry    = opts.get(Expiry.class, this.options.get(Expiry.class, Expiry.never()));
+        Expiry                 expiry    = expiry(opts.get(Expiry.class, null));
         boolean                returnOld = opts.get(Return.class).value();
+        boolean                fetchOld  = returnOld || hasWriter();
+        Timeout                timeout   = opts.get(Timeout.class, getDefaultTimeout());
 
         long                   startTime = System.nanoTime();
 
-        V                      oldValue  = replace(key, value, expiry, returnOld);
+        recordAccess(key);
+
+        V                      oldValue  = write(() -> invoke(() -> replace(key, value, expiry, fetchOld, timeout)),
+                                                 f -> f.remove(key, false, timeout),
+                                                 false);
 
         registerPut(startTime);
 
-        return oldValue;
+        // the old value is fetched when there is a writer, to determine whether the value was replaced
+        if (oldValue != null)
+        {
+            written(key, value, oldValue, expiry, timeout);
+        }
+
+        return returnOld ? oldValue : null;
     }
 
 
@@ -310,13 +872,60 @@ public abstract class AbstractCache<V> implements Cache<V>
                            ReplaceOption... options)
     {
         Options<ReplaceOption> opts      = Options.from(ReplaceOption.class, options);
-        Expiry                 expiry    = opts.get(Expiry.class, this.options.get(Expiry.class, Expiry.never()));
+        Expiry                 expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout                timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long                   startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        boolean                replaced  = write(() -> invoke(() -> replaceValue(key,
+                                                                                 valueOld,
+                                                                                 valueNew,
+                                                                                 expiry,
+                                                                                 timeout)),
+                                                 f -> f.remove(key, false, timeout),
+                                                 false);
+
+        registerPut(startTime);
+
+        if (replaced)
+        {
+            written(key, valueNew, valueOld, expiry, timeout);
+        }
+
+        return replaced;
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           Versioned<V>     expected,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        Options<ReplaceOption> opts      = Options.from(ReplaceOption.class, options);
+        Expiry                 expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout                timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long                   version   = expected.getVersion();
         long                   startTime = System.nanoTime();
 
-        boolean                replaced = replaceValue(key, valueOld, valueNew, expiry);
+        recordAccess(key);
+
+        boolean                replaced  = write(() -> invoke(() -> replaceVersion(key,
+                                                                                   version,
+                                                                                   valueNew,
+                                                                                   expiry,
+                                                                                   timeout)),
+                                                 f -> f.remove(key, false, timeout),
+                                                 false);
 
         registerPut(startTime);
 
+        if (replaced)
+        {
+            written(key, valueNew, expected.getValue(), expiry, timeout);
+        }
+
         return replaced;
     }
 
@@ -327,13 +936,25 @@ public abstract class AbstractCache<V> implements Cache<V>
     {
         Options<RemoveOption> opts      = Options.from(RemoveOption.class, options);
         boolean               returnOld = opts.get(Return.class).value();
+        boolean               fetchOld  = returnOld || writeThrough != null;
+        Timeout               timeout   = opts.get(Timeout.class, getDefaultTimeout());
         long                  startTime = System.nanoTime();
 
-        V                     oldValue  = remove(key, returnOld);
+        recordAccess(key);
+
+        V                     oldValue  = write(() -> invoke("remove", timeout, t -> remove(key, fetchOld, t)),
+                                                f -> f.remove(key, false, timeout),
+                                                true);
 
         registerRemove(startTime);
 
-        return oldValue;
+        // when changes are written through, the old value is fetched, so a missing key is not deleted
+        if (oldValue != null || writeThrough == null)
+        {
+            written(key, null, oldValue, this.options.get(Expiry.class, Expiry.never()), timeout);
+        }
+
+        return returnOld ? oldValue : null;
     }
 
 
@@ -342,60 +963,1264 @@ public abstract class AbstractCache<V> implements Cache<V>
                           V               value,
                           RemoveOption... options)
     {
-        long    startTime = System.nanoTime();
+        Options<RemoveOption> opts      = Options.from(RemoveOption.class, options);
+        Timeout               timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long                  startTime = System.nanoTime();
+
+        recordAccess(key);
 
-        boolean fRemoved = removeValue(key, value);
+        boolean               fRemoved  = write(() -> invoke(() -> removeValue(key, value, timeout)),
+                                                f -> f.remove(key, false, timeout),
+                                                false);
 
         registerRemove(startTime);
 
+        if (fRemoved)
+        {
+            written(key, null, value, this.options.get(Expiry.class, Expiry.never()), timeout);
+        }
+
         return fRemoved;
     }
 
 
     @Override
-    public CacheMetrics getMetrics()
+    public boolean remove(String          key,
+                          Versioned<V>    expected,
+                          RemoveOption... options)
     {
-        return new CacheMetrics(getCacheName(), metrics);
-    }
+        Options<RemoveOption> opts      = Options.from(RemoveOption.class, options);
+        Timeout               timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long                  version   = expected.getVersion();
+        long                  startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        boolean               fRemoved  = write(() -> invoke(() -> removeVersion(key, version, timeout)),
+                                                f -> f.remove(key, false, timeout),
+                                                false);
+
+        registerRemove(startTime);
+
+        if (fRemoved)
+        {
+            written(key, null, expected.getValue(), this.options.get(Expiry.class, Expiry.never()), timeout);
+        }
+
+        return fRemoved;
+    }
+
+
+    @Override
+    public boolean process(String           key,
+                           EntryProcessor   processor,
+                           ReplaceOption... options)
+    {
+        Options<ReplaceOption> opts      = Options.from(ReplaceOption.class, options);
+        Expiry                 expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout                timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long                   startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        boolean                changed   = write(() -> invoke(() -> process(key, processor, expiry, timeout)),
+                                                 f -> f.remove(key, false, timeout),
+                                                 false);
+
+        registerPut(startTime);
+
+        if (changed && negativeCache != null)
+        {
+            negativeCache.invalidate(key);
+        }
+
+        return changed;
+    }
+
+
+    @Override
+    public V computeIfAbsent(String                        key,
+                             Function<String, ? extends V> mappingFunction,
+                             PutOption...                  options)
+    {
+        Options<PutOption>  opts      = Options.from(PutOption.class, options);
+        Expiry              expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout             timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        Object[]            computed  = new Object[1];
+        Function<String, V> function  = k -> {
+            V valueNew = mappingFunction.apply(k);
+
+            computed[0] = valueNew;
+
+            return valueNew;
+        };
+        long                startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        V                   value     = write(() -> invoke(() -> computeIfAbsent(key, function, expiry, timeout)),
+                                              f -> f.remove(key, false, timeout),
+                                              false);
+
+        registerPut(startTime);
+
+        // the value is only written if it was computed by this call, rather than already present
+        if (value != null && value == computed[0])
+        {
+            written(key, value, null, expiry, timeout);
+        }
+
+        return value;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V computeIfPresent(String                                     key,
+                              BiFunction<String, ? super V, ? extends V> remappingFunction,
+                              ReplaceOption...                           options)
+    {
+        Options<ReplaceOption>   opts      = Options.from(ReplaceOption.class, options);
+        Expiry                   expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout                  timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        boolean[]                applied   = new boolean[1];
+        Object[]                 previous  = new Object[1];
+        BiFunction<String, V, V> function  = (k, v) -> {
+            applied[0]  = true;
+            previous[0] = v;
+
+            return remappingFunction.apply(k, v);
+        };
+        long                     startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        V                        value     = write(() -> invoke(() -> computeIfPresent(key, function, expiry, timeout)),
+                                                   f -> f.remove(key, false, timeout),
+                                                   false);
+
+        registerPut(startTime);
+
+        if (applied[0])
+        {
+            written(key, value, (V) previous[0], expiry, timeout);
+        }
+
+        return value;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V merge(String                                        key,
+                   V                                             value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                   PutOption...                                  options)
+    {
+        Options<PutOption>  opts      = Options.from(PutOption.class, options);
+        Expiry              expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout             timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        Object[]            previous  = new Object[1];
+        BiFunction<V, V, V> function  = (v, vNew) -> {
+            previous[0] = v;
+
+            return remappingFunction.apply(v, vNew);
+        };
+        long                startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        V                   valueNew  = write(() -> invoke(() -> merge(key, value, function, expiry, timeout)),
+                                              f -> f.remove(key, false, timeout),
+                                              false);
+
+        registerPut(startTime);
+        written(key, valueNew, (V) previous[0], expiry, timeout);
+
+        return valueNew;
+    }
+
+
+    /**
+     * Computes and inserts the value for the specified key if it is not present. The
+     * default implementation relies on {@link #putIfAbsent(String, Object, Expiry, boolean, Timeout)}
+     * to resolve races, so the function may be invoked by several concurrent callers,
+     * but only one computed value is stored.
+     *
+     * @param key              the cache key
+     * @param mappingFunction  the function to compute a value
+     * @param expiry           time-to-live for the cache entry
+     * @param timeout          the timeout for each operation against the cache
+     *
+     * @return the current (existing or computed) value, or null if the computed value is null
+     */
+    protected V computeIfAbsent(String                        key,
+                                Function<String, ? extends V> mappingFunction,
+                                Expiry                        expiry,
+                                Timeout                       timeout)
+    {
+        V value = get(key, timeout);
+
+        if (value != null)
+        {
+            return value;
+        }
+
+        value = mappingFunction.apply(key);
+
+        if (value == null)
+        {
+            return null;
+        }
+
+        V existing = putIfAbsent(key, value, expiry, true, timeout);
+
+        return existing == null ? value : existing;
+    }
+
+
+    /**
+     * Computes a new value for the specified key if it is present. The default
+     * implementation reads the entry with its version and updates it only if the
+     * version is unchanged, retrying with a backoff if it is not.
+     *
+     * @param key                the cache key
+     * @param remappingFunction  the function to compute a value
+     * @param expiry             time-to-live for the cache entry
+     * @param timeout            the timeout for each operation against the cache
+     *
+     * @return the new value, or null if none
+     *
+     * @throws ConcurrentModificationException if the entry is updated concurrently on every attempt
+     */
+    protected V computeIfPresent(String                                     key,
+                                 BiFunction<String, ? super V, ? extends V> remappingFunction,
+                                 Expiry                                     expiry,
+                                 Timeout                                    timeout)
+    {
+        for (int i = 1; ; i++)
+        {
+            Versioned<V> current = getWithVersion(key, timeout);
+
+            if (current == null)
+            {
+                return null;
+            }
+
+            V value = remappingFunction.apply(key, current.getValue());
+
+            if (update(key, current.getVersion(), value, expiry, timeout))
+            {
+                return value;
+            }
+
+            awaitContention(key, i);
+        }
+    }
+
+
+    /**
+     * Inserts the specified value for the specified key if it is not present, or
+     * merges it with the existing value. The default implementation reads the entry
+     * with its version and updates it only if the version is unchanged, retrying with
+     * a backoff if it is not.
+     *
+     * @param key                the cache key
+     * @param value              the value to insert or merge
+     * @param remappingFunction  the function to merge the existing value with the value
+     * @param expiry             time-to-live for the cache entry
+     * @param timeout            the timeout for each operation against the cache
+     *
+     * @return the new value, or null if none
+     *
+     * @throws ConcurrentModificationException if the entry is updated concurrently on every attempt
+     */
+    protected V merge(String                                        key,
+                      V                                             value,
+                      BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                      Expiry                                        expiry,
+                      Timeout                                       timeout)
+    {
+        for (int i = 1; ; i++)
+        {
+            Versioned<V> current = getWithVersion(key, timeout);
+
+            if (current == null)
+            {
+                if (putIfAbsent(key, value, expiry, true, timeout) == null)
+                {
+                    return value;
+                }
+            }
+            else
+            {
+                V valueNew = remappingFunction.apply(current.getValue(), value);
+
+                if (update(key, current.getVersion(), valueNew, expiry, timeout))
+                {
+                    return valueNew;
+                }
+            }
+
+            awaitContention(key, i);
+        }
+    }
+
+
+    /**
+     * Returns the expiry for an operation, which is the specified expiry or, if none is
+     * specified, the expiry for the cache, shortened as configured by the {@link ExpiryJitter}
+     * option.
+     *
+     * @param expiry  the expiry specified for the operation, or null if none is specified
+     *
+     * @return the expiry for the operation
+     */
+    private Expiry expiry(Expiry expiry)
+    {
+        Expiry result = expiry == null ? this.options.get(Expiry.class, Expiry.never()) : expiry;
+
+        return expiryJitter == null ? result : expiryJitter.apply(result, ThreadLocalRandom.current().nextDouble());
+    }
+
+
+    /**
+     * Returns true if changes made through the cache are written to a {@link CacheWriter}.
+     *
+     * @return true if a cache writer is configured
+     */
+    private boolean hasWriter()
+    {
+        return writeBehind != null || writeThrough != null;
+    }
+
+
+    /**
+     * Records a change made through the cache, so that any miss recorded for the key
+     * is forgotten, and the change is written to the {@link CacheWriter}, if one is
+     * configured. When changes are written through, the change is written before
+     * returning, and rolled back if the write fails.
+     *
+     * @param key       the key that was changed
+     * @param value     the new value, or null if the entry was removed
+     * @param oldValue  the previous value, or null if there was none
+     * @param expiry    time-to-live for the entry, if it is restored
+     * @param timeout   the timeout for rolling back the change
+     */
+    private void written(String  key,
+                         V       value,
+                         V       oldValue,
+                         Expiry  expiry,
+                         Timeout timeout)
+    {
+        if (negativeCache != null && value != null)
+        {
+            negativeCache.invalidate(key);
+        }
+
+        if (writeBehind != null)
+        {
+            writeBehind.enqueue(key, value);
+        }
+        else if (writeThrough != null)
+        {
+            writeThrough(value == null ? () -> writeThrough.delete(key) : () -> writeThrough.write(key, value),
+                         () -> rollback(key, value, oldValue, expiry, timeout));
+        }
+    }
+
+
+    /**
+     * Writes changes to the {@link CacheWriter}, rolling back the changes made to
+     * the cache if the writer fails.
+     *
+     * @param write     the write to the cache writer
+     * @param rollback  the rollback of the changes made to the cache
+     *
+     * @throws RuntimeException the exception thrown by the cache writer
+     */
+    private void writeThrough(Runnable write,
+                              Runnable rollback)
+    {
+        long startTime = System.nanoTime();
+
+        try
+        {
+            write.run();
+        }
+        catch (RuntimeException e)
+        {
+            try
+            {
+                rollback.run();
+            }
+            catch (RuntimeException eRollback)
+            {
+                e.addSuppressed(eRollback);
+            }
+
+            throw e;
+        }
+        finally
+        {
+            registerWrite(startTime);
+        }
+    }
+
+
+    /**
+     * Restores the previous value of an entry, unless the entry has been changed
+     * concurrently since it was updated to the specified value.
+     *
+     * @param key       the key that was changed
+     * @param value     the value the entry was changed to, or null if it was removed
+     * @param oldValue  the previous value to restore, or null to remove the entry
+     * @param expiry    time-to-live for the restored entry
+     * @param timeout   the timeout for the operation
+     */
+    private void rollback(String  key,
+                          V       value,
+                          V       oldValue,
+                          Expiry  expiry,
+                          Timeout timeout)
+    {
+        if (value == null)
+        {
+            if (oldValue != null)
+            {
+                invoke(() -> putIfAbsent(key, oldValue, expiry, false, timeout));
+            }
+        }
+        else if (oldValue == null)
+        {
+            invoke(() -> removeValue(key, value, timeout));
+        }
+        else
+        {
+            invoke(() -> replaceValue(key, value, oldValue, expiry, timeout));
+        }
+    }
+
+
+    /**
+     * Replaces or, if the new value is null, removes the entry for the specified key
+     * if its current version is the specified version.
+     *
+     * @param key       the cache key
+     * @param version   the version the entry must have to be updated
+     * @param valueNew  the new value, or null to remove the entry
+     * @param expiry    time-to-live for the cache entry
+     * @param timeout   the timeout for the operation
+     *
+     * @return true if the entry was updated
+     */
+    private boolean update(String  key,
+                           long    version,
+                           V       valueNew,
+                           Expiry  expiry,
+                           Timeout timeout)
+    {
+        return valueNew == null
+               ? removeVersion(key, version, timeout)
+               : replaceVersion(key, version, valueNew, expiry, timeout);
+    }
+
+
+    /**
+     * Records a failed optimistic update of the entry for the specified key, and
+     * waits for a backoff before the next attempt.
+     *
+     * @param key      the cache key
+     * @param attempt  the number of the attempt that failed, starting from 1
+     *
+     * @throws ConcurrentModificationException if no more attempts may be made
+     */
+    private void awaitContention(String key,
+                                 int    attempt)
+    {
+        if (attempt >= CONTENTION_RETRY.getMaxAttempts())
+        {
+            throw new ConcurrentModificationException("Entry for key " + key + " in cache " + cacheName
+                                                      + " was updated concurrently on " + attempt + " attempts");
+        }
+
+        registerRetry("compute");
+
+        LockSupport.parkNanos(backoff(CONTENTION_RETRY, attempt));
+    }
+
+
+    /**
+     * Atomically adds the specified delta to the counter identified by the specified
+     * key. This is exposed publicly by {@link CounterCache} implementations. Updates are
+     * not idempotent, so they are never retried.
+     *
+     * @param key      the key which identifies the counter
+     * @param delta    the value to add, which may be negative
+     * @param options  the options for this operation
+     *
+     * @return the updated value of the counter
+     */
+    @SuppressWarnings("unchecked")
+    protected long addAndGet(String       key,
+                             long         delta,
+                             PutOption... options)
+    {
+        Options<PutOption> opts      = Options.from(PutOption.class, options);
+        Expiry             expiry    = expiry(opts.get(Expiry.class, null));
+        Timeout            timeout   = opts.get(Timeout.class, getDefaultTimeout());
+        long               startTime = System.nanoTime();
+
+        recordAccess(key);
+
+        long               value     = write(() -> invoke(() -> add(key, delta, expiry, timeout)),
+                                             f -> f.remove(key, false, timeout),
+                                             false);
+
+        registerPut(startTime);
+        written(key, (V) Long.valueOf(value), (V) Long.valueOf(value - delta), expiry, timeout);
+
+        return value;
+    }
+
+
+    @Override
+    public void clear()
+    {
+        Timeout timeout = getDefaultTimeout();
+
+        if (negativeCache != null)
+        {
+            negativeCache.clear();
+        }
+
+        write(() -> invoke("clear",
+                           timeout,
+                           t -> {
+                               clear(t);
+
+                               return null;
+                           }),
+              f -> f.clear(timeout),
+              true);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the current page of entries is held in memory. If fetching a page fails with a
+     * transient error, and retries are enabled, the scan is resumed after the last page
+     * received, rather than restarted.
+     * </p>
+     */
+    @Override
+    public Stream<Map.Entry<String, V>> scan(ScanOption... options)
+    {
+        Options<ScanOption> opts = Options.from(ScanOption.class, options);
+        Scan                scan = new Scan(opts.get(KeyPrefix.class).getPrefix(),
+                                            opts.get(PageSize.class).getEntries(),
+                                            opts.get(Timeout.class, getDefaultTimeout()));
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.NONNULL), false)
+                .onClose(scan::close);
+    }
+
+
+    @Override
+    public void addListener(CacheListener<? super V> listener)
+    {
+        if (listener == null)
+        {
+            throw new NullPointerException("listener must not be null");
+        }
+
+        synchronized (listeners)
+        {
+            if (listeners.isEmpty())
+            {
+                subscribe();
+            }
+
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+
+    @Override
+    public void removeListener(CacheListener<? super V> listener)
+    {
+        synchronized (listeners)
+        {
+            if (listeners.remove(listener) && listeners.isEmpty())
+            {
+                unsubscribe();
+            }
+        }
+    }
+
+
+    /**
+     * Starts receiving the changes made to the cache by other clients, once the first
+     * listener is registered. By default, nothing needs to be done, as every change is
+     * made through this cache.
+     *
+     * @throws UnsupportedOperationException if the cache cannot receive changes
+     */
+    protected void subscribe()
+    {
+    }
+
+
+    /**
+     * Stops receiving the changes made to the cache by other clients, once the last
+     * listener is removed.
+     */
+    protected void unsubscribe()
+    {
+    }
+
+
+    /**
+     * Removes every listener, once the changes made to the cache can no longer be received,
+     * and notifies each of them of the error. A listener registered later subscribes again.
+     *
+     * @param error  the error which ended the delivery of changes
+     */
+    protected void failListeners(Throwable error)
+    {
+        List<CacheListener<? super V>> failed;
+
+        synchronized (listeners)
+        {
+            if (listeners.isEmpty())
+            {
+                return;
+            }
+
+            failed = new ArrayList<>(listeners);
+
+            listeners.clear();
+            unsubscribe();
+        }
+
+        for (CacheListener<? super V> listener : failed)
+        {
+            try
+            {
+                listener.onError(error);
+            }
+            catch (RuntimeException e)
+            {
+                metrics.counter("listener-failures").inc();
+            }
+        }
+    }
+
+
+    /**
+     * Indicates if any listeners are registered, so that events need to be created.
+     *
+     * @return true if any listeners are registered
+     */
+    protected boolean hasListeners()
+    {
+        return !listeners.isEmpty();
+    }
+
+
+    /**
+     * Delivers the specified event to the registered listeners, either synchronously or by
+     * queueing it, depending on the {@link EventDelivery} option.
+     *
+     * @param event  the event
+     */
+    protected void dispatch(CacheEvent<V> event)
+    {
+        if (eventDispatcher == null)
+        {
+            deliver(event);
+        }
+        else
+        {
+            eventDispatcher.offer(event);
+        }
+    }
+
+
+    /**
+     * Delivers the specified event to the registered listeners. A failure of a listener is
+     * counted, and does not prevent the event from being delivered to the other listeners.
+     *
+     * @param event  the event
+     */
+    private void deliver(CacheEvent<V> event)
+    {
+        for (CacheListener<? super V> listener : listeners)
+        {
+            try
+            {
+                listener.onEvent(event);
+            }
+            catch (RuntimeException e)
+            {
+                metrics.counter("listener-failures").inc();
+            }
+        }
+    }
+
+
+    @Override
+    public CacheMetrics getMetrics()
+    {
+        return new CacheMetrics(getCacheName(), metrics);
+    }
+
+
+    @Override
+    public void resetMetrics()
+    {
+        metrics = createMetrics();
+    }
+
+
+    /**
+     * Returns the cache name.
+     *
+     * @return the cache name.
+     */
+    protected String getCacheName()
+    {
+        return cacheName;
+    }
+
+
+    /**
+     * Returns the specified cache options with a {@link ValueType} option for the
+     * specified type appended, so that it overrides any {@link ValueType} option
+     * already present.
+     *
+     * @param type     the value type
+     * @param options  the cache options
+     *
+     * @return the cache options with the value type
+     */
+    static CacheOption[] withValueType(Class<?>       type,
+                                       CacheOption... options)
+    {
+        CacheOption[] result = Arrays.copyOf(options, options.length + 1);
+
+        result[options.length] = ValueType.of(type);
+
+        return result;
+    }
+
+
+    /**
+     * Returns the value class for the cache.
+     *
+     * @return the value class for the cache
+     */
+    protected Class<V> getValueClass()
+    {
+        return valueClass;
+    }
+
+
+    /**
+     * Returns the {@link Serializer} to use for the values of the cache. A serializer
+     * specified as a cache option is used if present. Otherwise, binary values are
+     * passed through unencoded by a {@link Serializer#binary() binary serializer},
+     * and any other values use the specified default serializer.
+     *
+     * @param serializerDefault the serializer to use if none is specified for the cache
+     * @return the serializer for the cache
+     */
+    protected Serializer getSerializer(Serializer serializerDefault)
+    {
+        Serializer serializer = options.get(Serializer.class, null);
+
+        if (serializer != null)
+        {
+            return serializer;
+        }
+
+        return options.get(ValueType.class).isBinary() ? Serializer.binary() : serializerDefault;
+    }
+
+
+    /**
+     * Returns the options for the cache.
+     *
+     * @return the options for the cache.
+     */
+    protected Options<CacheOption> getOptions()
+    {
+        return options;
+    }
+
+
+    /**
+     * Returns the {@link MetricRegistry} recording the client-side metrics for the cache.
+     *
+     * @return the {@link MetricRegistry} for the cache
+     */
+    protected MetricRegistry getMetricRegistry()
+    {
+        return metrics;
+    }
+
+
+    /**
+     * Returns the timeout to apply to operations that do not specify one. By default
+     * this is the {@link Timeout} cache option, if specified.
+     *
+     * @return the default timeout for operations
+     */
+    protected Timeout getDefaultTimeout()
+    {
+        return options.get(Timeout.class);
+    }
+
+
+    /**
+     * Returns the policy for retrying idempotent operations. By default this is the
+     * {@link Retry} cache option, if specified.
+     *
+     * @return the retry policy
+     */
+    protected Retry getRetry()
+    {
+        return options.get(Retry.class);
+    }
+
+
+    /**
+     * Determines if the specified exception indicates a transient failure, such that
+     * an idempotent operation may succeed if it is retried.
+     *
+     * @param e  the exception thrown by the operation
+     *
+     * @return true if the exception indicates a transient failure
+     */
+    protected boolean isTransient(RuntimeException e)
+    {
+        return false;
+    }
+
+
+    /**
+     * Determines if the specified exception indicates that an operation timed out.
+     *
+     * @param e  the exception thrown by the operation
+     *
+     * @return true if the exception indicates a timeout
+     */
+    protected boolean isTimeout(RuntimeException e)
+    {
+        return false;
+    }
+
+
+    /**
+     * Invokes an operation against the underlying cache, recording any timeout and,
+     * if the circuit breaker is enabled, the outcome of the operation.
+     *
+     * @param operation  the operation to invoke
+     * @param <T>        the type of the result
+     *
+     * @return the result of the operation
+     *
+     * @throws CircuitOpenException if the circuit breaker is open
+     */
+    protected <T> T invoke(Supplier<T> operation)
+    {
+        Circuit circuit = this.circuit;
+
+        if (circuit != null && !circuit.tryAcquire())
+        {
+            registerRejected();
+
+            throw new CircuitOpenException(cacheName);
+        }
+
+        long startTime = System.nanoTime();
+
+        try
+        {
+            T result = operation.get();
+
+            if (circuit != null)
+            {
+                circuit.onSuccess(duration(startTime));
+                replayWrites();
+            }
+
+            return result;
+        }
+        catch (RuntimeException e)
+        {
+            boolean timeout = isTimeout(e);
+
+            if (timeout)
+            {
+                registerTimeout();
+            }
+
+            if (circuit != null)
+            {
+                if (timeout || isTransient(e))
+                {
+                    circuit.onFailure();
+                }
+                else
+                {
+                    circuit.onSuccess(duration(startTime));
+                }
+            }
+
+            throw e;
+        }
+    }
+
+
+    /**
+     * Gets the value for the specified key, updating the fallback cache with the result,
+     * or reading the value from the fallback cache while the circuit is open.
+     *
+     * @param key      the cache key
+     * @param expiry   the expiry for values held by the fallback cache
+     * @param timeout  the timeout for the operation
+     *
+     * @return the value associated with the specified key
+     */
+    private Expiring<V> read(String  key,
+                             Expiry  expiry,
+                             Timeout timeout)
+    {
+        if (circuit == null)
+        {
+            return invoke("get", timeout, t -> readEntry(key, t));
+        }
+
+        try
+        {
+            Expiring<V> entry = invoke("get", timeout, t -> readEntry(key, t));
+
+            if (fallback != null)
+            {
+                if (entry == null)
+                {
+                    fallback.remove(key, false, timeout);
+                }
+                else
+                {
+                    fallback.put(key, entry.getValue(), expiry, false, timeout);
+                }
+            }
+
+            return entry;
+        }
+        catch (CircuitOpenException e)
+        {
+            if (fallback == null)
+            {
+                throw e;
+            }
+
+            V value = fallback.get(key, timeout);
+
+            return value == null ? null : new Expiring<>(value, UNKNOWN_TTL);
+        }
+    }
+
+
+    /**
+     * Reads the entry for the specified key, including its remaining time-to-live only
+     * if it is needed to refresh the entry before it expires.
+     *
+     * @param key      the cache key
+     * @param timeout  the timeout for the operation
+     *
+     * @return the entry, or null if the cache contains no mapping for the key
+     */
+    private Expiring<V> readEntry(String  key,
+                                  Timeout timeout)
+    {
+        if (earlyExpiry != null && cacheLoader != null)
+        {
+            return getExpiring(key, timeout);
+        }
+
+        V value = get(key, timeout);
+
+        return value == null ? null : new Expiring<>(value, UNKNOWN_TTL);
+    }
+
+
+    /**
+     * Invokes a write against the underlying cache, applying it to the fallback cache
+     * too. While the circuit is open, unconditional writes are dropped or queued as per
+     * the write policy, and conditional writes fail. Unconditional writes made while queued
+     * writes remain to be replayed are queued behind them, if there is room, so that they
+     * are not overwritten by older values.
+     *
+     * @param operation      the write to invoke
+     * @param local          applies the write to the fallback cache
+     * @param unconditional  true if the write may be dropped or queued
+     * @param <T>            the type of the result
+     *
+     * @return the result of the write, or null if it was dropped or queued
+     */
+    private <T> T write(Supplier<T>             operation,
+                        Consumer<LocalCache<V>> local,
+                        boolean                 unconditional)
+    {
+        if (circuit == null)
+        {
+            return operation.get();
+        }
+
+        if (unconditional && pendingWrites != null && !pendingWrites.isEmpty() && pendingWrites.offer(operation))
+        {
+            if (fallback != null)
+            {
+                local.accept(fallback);
+            }
+
+            replayWrites();
+
+            return null;
+        }
+
+        try
+        {
+            T result = operation.get();
+
+            if (fallback != null)
+            {
+                local.accept(fallback);
+            }
+
+            return result;
+        }
+        catch (CircuitOpenException e)
+        {
+            if (!unconditional || writePolicy == CircuitBreaker.WritePolicy.FAIL
+                || (writePolicy == CircuitBreaker.WritePolicy.QUEUE && !pendingWrites.offer(operation)))
+            {
+                throw e;
+            }
+
+            if (fallback != null)
+            {
+                local.accept(fallback);
+            }
+
+            return null;
+        }
+    }
+
+
+    /**
+     * Starts replaying the writes queued while the circuit was open, on a background
+     * thread, unless there are none or they are already being replayed. This is called
+     * once an operation succeeds, so that callers never wait for, nor fail because of,
+     * the writes of others.
+     */
+    private void replayWrites()
+    {
+        if (pendingWrites == null || pendingWrites.isEmpty() || !replaying.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        Thread thread = new Thread(this::runReplay, "CircuitBreaker-" + cacheName);
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Replays the queued writes until there are none left or one fails with a transport
+     * error, which is left queued until the next operation succeeds.
+     */
+    private void runReplay()
+    {
+        boolean replayed;
+
+        do
+        {
+            try
+            {
+                replayed = applyQueuedWrites();
+            }
+            finally
+            {
+                replaying.set(false);
+            }
+        }
+        // a write may have been queued after the queue was found empty
+        while (replayed && !pendingWrites.isEmpty() && replaying.compareAndSet(false, true));
+    }
+
+
+    /**
+     * Applies the queued writes in order. A queued write rejected by the server is
+     * discarded, while one that fails with a transport error is kept.
+     *
+     * @return true if every queued write was applied or discarded
+     */
+    private boolean applyQueuedWrites()
+    {
+        Supplier<?> write;
+
+        while ((write = pendingWrites.peek()) != null)
+        {
+            try
+            {
+                write.get();
+            }
+            catch (RuntimeException e)
+            {
+                if (e instanceof CircuitOpenException || isTransient(e) || isTimeout(e))
+                {
+                    return false;
+                }
+            }
+
+            pendingWrites.remove();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Invokes an idempotent operation against the underlying cache, retrying it after
+     * a transient failure as per the {@link #getRetry() retry policy}. Each attempt
+     * is given the time remaining until the operation timeout, and no attempt is made
+     * once it has elapsed.
+     *
+     * @param name       the name of the operation, used to record retries
+     * @param timeout    the timeout for the operation
+     * @param operation  the operation to invoke, given the timeout for each attempt
+     * @param <T>        the type of the result
+     *
+     * @return the result of the operation
+     */
+    protected <T> T invoke(String               name,
+                           Timeout              timeout,
+                           Function<Timeout, T> operation)
+    {
+        Retry retry = getRetry();
+
+        if (!retry.isEnabled())
+        {
+            return invoke(() -> operation.apply(timeout));
+        }
+
+        RequestBudget budget    = getRetryBudget(retry);
+        long          startTime = System.nanoTime();
+        Timeout       attempt   = timeout;
+
+        budget.onRequest();
+
+        for (int i = 1; ; i++)
+        {
+            Timeout attemptTimeout = attempt;
 
+            try
+            {
+                return invoke(() -> operation.apply(attemptTimeout));
+            }
+            catch (RuntimeException e)
+            {
+                if (i >= retry.getMaxAttempts() || !isTransient(e))
+                {
+                    throw e;
+                }
 
-    @Override
-    public void resetMetrics()
-    {
-        metrics = createMetrics();
-    }
+                long backoff   = backoff(retry, i);
+                long remaining = timeout.isEnabled()
+                                 ? TimeUnit.MILLISECONDS.toNanos(timeout.getTimeout()) - duration(startTime) - backoff
+                                 : Long.MAX_VALUE;
 
+                if (remaining <= 0 || !budget.tryAcquire())
+                {
+                    throw e;
+                }
 
-    /**
-     * Returns the cache name.
-     *
-     * @return the cache name.
-     */
-    protected String getCacheName()
-    {
-        return cacheName;
+                registerRetry(name);
+
+                try
+                {
+                    TimeUnit.NANOSECONDS.sleep(backoff);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw e;
+                }
+
+                if (timeout.isEnabled())
+                {
+                    remaining = TimeUnit.MILLISECONDS.toNanos(timeout.getTimeout()) - duration(startTime);
+                    attempt   = Timeout.of(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)),
+                                           TimeUnit.MILLISECONDS);
+                }
+            }
+        }
     }
 
 
     /**
-     * Returns the value class for the cache.
+     * Returns the backoff before the specified retry, chosen at random between zero and
+     * the exponentially increasing backoff ceiling.
      *
-     * @return the value class for the cache
+     * @param retry    the retry policy
+     * @param attempt  the number of attempts made so far
+     *
+     * @return the backoff in nanoseconds
      */
-    protected Class<V> getValueClass()
+    private static long backoff(Retry retry,
+                                int   attempt)
     {
-        return valueClass;
+        long initial = retry.getInitialBackoff().toNanos();
+        long max     = retry.getMaxBackoff().toNanos();
+        long ceiling = attempt > 62 || initial > (max >> (attempt - 1)) ? max : initial << (attempt - 1);
+
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
     }
 
 
     /**
-     * Returns the options for the cache.
+     * Returns the budget limiting the rate of retries for the specified retry policy.
      *
-     * @return the options for the cache.
+     * @param retry  the retry policy
+     *
+     * @return the retry budget
      */
-    protected Options<CacheOption> getOptions()
+    private RequestBudget getRetryBudget(Retry retry)
     {
-        return options;
+        RequestBudget budget = retryBudget;
+
+        if (budget == null)
+        {
+            synchronized (this)
+            {
+                budget = retryBudget;
+
+                if (budget == null)
+                {
+                    budget = retryBudget = new RequestBudget(retry.getMaxRatio(), MAX_RETRY_BURST);
+                }
+            }
+        }
+
+        return budget;
     }
 
 
@@ -413,15 +2238,59 @@ public abstract class AbstractCache<V> implements Cache<V>
         metrics.register("put", new Timer());
         metrics.register("remove", new Timer());
         metrics.register("load", new Timer());
+        metrics.register("write", new Timer());
         metrics.register("hit", new Counter());
         metrics.register("miss", new Counter());
+        metrics.register("negative-hit", new Counter());
+        metrics.register("early-refresh", new Counter());
+        metrics.register("timeout", new Counter());
+        metrics.register("hedge", new Counter());
+        metrics.register("hedge-won", new Counter());
+        metrics.register("get-retries", new Counter());
+        metrics.register("put-retries", new Counter());
+        metrics.register("remove-retries", new Counter());
+        metrics.register("clear-retries", new Counter());
+        metrics.register("compute-retries", new Counter());
+        metrics.register("scan-retries", new Counter());
+        metrics.register("listener-failures", new Counter());
+        metrics.register("listener-dropped", new Counter());
+        metrics.register("subscription-failures", new Counter());
+        metrics.register("listener-queue", (Gauge<Long>) () -> eventDispatcher == null ? 0L : eventDispatcher.size());
+        metrics.register("write-behind-flush", new Timer());
+        metrics.register("write-behind-failures", new Counter());
+        metrics.register("write-behind-queue", (Gauge<Long>) () -> writeBehind == null ? 0L : writeBehind.size());
+        metrics.register("rejected", new Counter());
+        metrics.register("disk-hit", new Counter());
+        metrics.register("disk-compactions", new Counter());
+        metrics.register("disk-compacted-bytes", new Counter());
+        metrics.register("disk-compaction-time", new Counter());
+        metrics.register("snapshot-failures", new Counter());
         metrics.register("count", (Gauge<Long>) () -> getServerMetrics().getCount());
         metrics.register("size", (Gauge<Long>) () -> getServerMetrics().getSize());
 
+        if (hotKeys != null)
+        {
+            metrics.register("hot-keys", (Gauge<List<HotKey>>) hotKeys::getHotKeys);
+        }
+
         return metrics;
     }
 
 
+    /**
+     * Records an access to the specified key, if hot-key tracking is enabled.
+     *
+     * @param key  the key that was accessed
+     */
+    protected void recordAccess(String key)
+    {
+        if (hotKeys != null)
+        {
+            hotKeys.record(key);
+        }
+    }
+
+
     /**
      * Registers a hit on the cache.
      *
@@ -450,6 +2319,24 @@ public abstract class AbstractCache<V> implements Cache<V>
     }
 
 
+    /**
+     * Registers a miss answered from the recently missed keys, without asking the cache.
+     */
+    protected void registerNegativeHit()
+    {
+        metrics.counter("negative-hit").inc();
+    }
+
+
+    /**
+     * Registers an entry refreshed before it expired.
+     */
+    protected void registerEarlyRefresh()
+    {
+        metrics.counter("early-refresh").inc();
+    }
+
+
     /**
      * Registers a put on the cache.
      *
@@ -483,6 +2370,135 @@ public abstract class AbstractCache<V> implements Cache<V>
     }
 
 
+    /**
+     * Registers an operation timeout on the cache.
+     */
+    protected void registerTimeout()
+    {
+        metrics.counter("timeout").inc();
+    }
+
+
+    /**
+     * Registers a retry of an operation on the cache.
+     *
+     * @param name  the name of the operation
+     */
+    protected void registerRetry(String name)
+    {
+        metrics.counter(name + "-retries").inc();
+    }
+
+
+    /**
+     * Registers an operation rejected because the circuit breaker was open.
+     */
+    protected void registerRejected()
+    {
+        metrics.counter("rejected").inc();
+    }
+
+
+    /**
+     * Registers a change, or a batch of changes, written through to the {@link CacheWriter}.
+     *
+     * @param startTime  the start time of the write
+     */
+    protected void registerWrite(long startTime)
+    {
+        metrics.timer("write").update(duration(startTime), TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Registers a batch of changes written behind to the {@link CacheWriter}.
+     *
+     * @param startTime  the start time of the batch
+     */
+    protected void registerFlush(long startTime)
+    {
+        metrics.timer("write-behind-flush").update(duration(startTime), TimeUnit.NANOSECONDS);
+    }
+
+
+    /**
+     * Registers a batch of changes that failed to be written to the {@link CacheWriter}.
+     */
+    protected void registerWriteFailure()
+    {
+        metrics.counter("write-behind-failures").inc();
+    }
+
+
+    /**
+     * Registers an event that was dropped because the queue of events to deliver was full.
+     */
+    protected void registerDroppedEvent()
+    {
+        metrics.counter("listener-dropped").inc();
+    }
+
+
+    /**
+     * Registers a get served from an entry that had been evicted to disk.
+     */
+    protected void registerDiskHit()
+    {
+        metrics.counter("disk-hit").inc();
+    }
+
+
+    /**
+     * Registers a compaction of the entries evicted to disk.
+     *
+     * @param startTime  the start time of the compaction
+     * @param bytes      the number of bytes copied by the compaction
+     */
+    protected void registerCompaction(long startTime,
+                                      long bytes)
+    {
+        metrics.counter("disk-compactions").inc();
+        metrics.counter("disk-compacted-bytes").inc(bytes);
+        metrics.counter("disk-compaction-time").inc(duration(startTime));
+    }
+
+
+    /**
+     * Registers a subscription to the changes made to the cache which was refused.
+     */
+    protected void registerSubscriptionFailure()
+    {
+        metrics.counter("subscription-failures").inc();
+    }
+
+
+    /**
+     * Registers a snapshot of the cache that could not be written or restored.
+     */
+    protected void registerSnapshotFailure()
+    {
+        metrics.counter("snapshot-failures").inc();
+    }
+
+
+    /**
+     * Registers a hedged request issued by the cache.
+     */
+    protected void registerHedge()
+    {
+        metrics.counter("hedge").inc();
+    }
+
+
+    /**
+     * Registers a hedged request that completed before the request it hedged.
+     */
+    protected void registerHedgeWon()
+    {
+        metrics.counter("hedge-won").inc();
+    }
+
+
     /**
      * Calculates duration based on start time.
      *
@@ -494,4 +2510,299 @@ public abstract class AbstractCache<V> implements Cache<V>
     {
         return Math.max(0, System.nanoTime() - startTime);
     }
+
+
+    /**
+     * A value read from a cache, together with the remaining time-to-live of its entry.
+     *
+     * @param <V> the type of the value
+     */
+    protected static final class Expiring<V>
+    {
+        /**
+         * The value.
+         */
+        private final V value;
+
+        /**
+         * The remaining time-to-live in milliseconds.
+         */
+        private final long ttl;
+
+
+        /**
+         * Constructs an Expiring value.
+         *
+         * @param value  the value
+         * @param ttl    the remaining time-to-live of the entry in milliseconds, -1 if the
+         *               entry never expires, or {@link #UNKNOWN_TTL} if it is not known
+         */
+        protected Expiring(V    value,
+                           long ttl)
+        {
+            this.value = value;
+            this.ttl   = ttl;
+        }
+
+
+        /**
+         * Returns the value.
+         *
+         * @return the value
+         */
+        protected V getValue()
+        {
+            return value;
+        }
+
+
+        /**
+         * Returns the remaining time-to-live of the entry in milliseconds.
+         *
+         * @return the remaining time-to-live, -1 if the entry never expires, or
+         *         {@link #UNKNOWN_TTL} if it is not known
+         */
+        protected long getTtl()
+        {
+            return ttl;
+        }
+    }
+
+
+    /**
+     * A page of the entries returned by a scan.
+     *
+     * @param <V> the type of the values
+     */
+    protected static final class Page<V>
+    {
+        /**
+         * The entries in the page.
+         */
+        private final List<Map.Entry<String, V>> entries;
+
+        /**
+         * The cursor from which to resume the scan after this page.
+         */
+        private final byte[] cursor;
+
+
+        /**
+         * Constructs a Page.
+         *
+         * @param entries  the entries in the page
+         * @param cursor   the cursor from which to resume the scan after this page, or empty
+         *                 if it is the last page
+         */
+        protected Page(List<Map.Entry<String, V>> entries,
+                       byte[]                     cursor)
+        {
+            this.entries = entries;
+            this.cursor  = cursor;
+        }
+
+
+        /**
+         * Returns the entries in the page.
+         *
+         * @return the entries
+         */
+        protected List<Map.Entry<String, V>> getEntries()
+        {
+            return entries;
+        }
+
+
+        /**
+         * Returns the cursor from which to resume the scan after this page.
+         *
+         * @return the cursor, or empty if it is the last page
+         */
+        protected byte[] getCursor()
+        {
+            return cursor;
+        }
+    }
+
+
+    /**
+     * The pages of entries returned by a scan, which are fetched as they are iterated.
+     *
+     * @param <V> the type of the values
+     */
+    protected interface Pages<V> extends Iterator<Page<V>>, AutoCloseable
+    {
+        /**
+         * Releases the scan, abandoning any pages that have not been fetched.
+         */
+        @Override
+        void close();
+    }
+
+
+    /**
+     * Iterates over the entries returned by a scan, fetching a page at a time, and
+     * resuming the scan from the cursor of the last page received if fetching a page
+     * fails with a transient error.
+     */
+    private class Scan implements Iterator<Map.Entry<String, V>>
+    {
+        /**
+         * The prefix of the keys.
+         */
+        private final String prefix;
+
+        /**
+         * The maximum number of entries in each page.
+         */
+        private final int pageSize;
+
+        /**
+         * The timeout for the entire scan.
+         */
+        private final Timeout timeout;
+
+        /**
+         * The time at which the scan started.
+         */
+        private final long startTime = System.nanoTime();
+
+        /**
+         * The cursor of the last page received.
+         */
+        private byte[] cursor = new byte[0];
+
+        /**
+         * The pages being fetched, or null if the scan must be (re)opened.
+         */
+        private Pages<V> pages;
+
+        /**
+         * The entries of the current page.
+         */
+        private Iterator<Map.Entry<String, V>> entries = Collections.emptyIterator();
+
+        /**
+         * Indicates that the last page has been received.
+         */
+        private boolean done;
+
+
+        /**
+         * Constructs a Scan.
+         *
+         * @param prefix    the prefix of the keys
+         * @param pageSize  the maximum number of entries in each page
+         * @param timeout   the timeout for the entire scan
+         */
+        private Scan(String  prefix,
+                     int     pageSize,
+                     Timeout timeout)
+        {
+            this.prefix   = prefix;
+            this.pageSize = pageSize;
+            this.timeout  = timeout;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            while (!entries.hasNext())
+            {
+                if (done)
+                {
+                    return false;
+                }
+
+                // the timeout applies to the entire scan, so retries stop once it has elapsed
+                Page<V> page = invoke("scan", remaining(), this::nextPage);
+
+                if (page == null || page.getCursor().length == 0)
+                {
+                    done = true;
+                    close();
+                }
+
+                if (page != null)
+                {
+                    entries = page.getEntries().iterator();
+                    cursor  = page.getCursor();
+                }
+            }
+
+            return true;
+        }
+
+
+        @Override
+        public Map.Entry<String, V> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            return entries.next();
+        }
+
+
+        /**
+         * Releases the scan.
+         */
+        private void close()
+        {
+            if (pages != null)
+            {
+                pages.close();
+                pages = null;
+            }
+        }
+
+
+        /**
+         * Fetches the next page, opening the scan after the last page received if necessary.
+         *
+         * @param timeout  the time remaining for the scan
+         *
+         * @return the next page, or null if there are no more pages
+         */
+        private Page<V> nextPage(Timeout timeout)
+        {
+            try
+            {
+                if (pages == null)
+                {
+                    pages = scan(prefix, pageSize, cursor, timeout);
+                }
+
+                return pages.hasNext() ? pages.next() : null;
+            }
+            catch (RuntimeException e)
+            {
+                // the scan is resumed from the cursor of the last page received
+                close();
+
+                throw e;
+            }
+        }
+
+
+        /**
+         * Returns the time remaining for the scan.
+         *
+         * @return the time remaining, or no timeout if the scan is not limited
+         */
+        private Timeout remaining()
+        {
+            if (!timeout.isEnabled())
+            {
+                return timeout;
+            }
+
+            long remaining = timeout.getTimeout() - TimeUnit.NANOSECONDS.toMillis(duration(startTime));
+
+            return Timeout.of(Math.max(1, remaining), TimeUnit.MILLISECONDS);
+        }
+    }
 }
@@ -18,12 +18,21 @@
 
 package com.oracle.cloud.cache.basic;
 
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
 import com.oracle.cloud.cache.basic.options.GetOption;
+import com.oracle.cloud.cache.basic.options.KeyPrefix;
+import com.oracle.cloud.cache.basic.options.PageSize;
 import com.oracle.cloud.cache.basic.options.PutOption;
 import com.oracle.cloud.cache.basic.options.RemoveOption;
 import com.oracle.cloud.cache.basic.options.ReplaceOption;
 import com.oracle.cloud.cache.basic.options.Return;
+import com.oracle.cloud.cache.basic.options.ScanOption;
 import com.oracle.cloud.cache.metrics.CacheMetrics;
+import com.oracle.cloud.cache.processors.EntryProcessor;
 
 /**
  * An interface that defines the operations that can be
@@ -47,6 +56,20 @@ public interface Cache<V>
           GetOption... options);
 
 
+    /**
+     * Returns the value in the cache identified by the specified key, together with
+     * the version of the entry. Returns null if the cache contains no mapping for this key.
+     * Unlike {@link #get(String, GetOption...)}, the {@link CacheLoader} is not used.
+     *
+     * @param key     the key which identifies the cache entry
+     * @param options the options for this operation
+     * @return the cache value and its version
+     * @throws NullPointerException if the specified key is null
+     */
+    Versioned<V> getWithVersion(String       key,
+                                GetOption... options);
+
+
     /**
      * Associates the specified value with the specified key. If the cache
      * previously contained a value for this key, the old value is replaced.
@@ -62,6 +85,22 @@ public interface Cache<V>
           PutOption... options);
 
 
+    /**
+     * Associates each of the specified values with its key. If a {@link CacheWriter}
+     * is configured, the entries are written to it in a single batch. By default, each
+     * entry is put individually.
+     *
+     * @param entries the entries to put
+     * @param options the options for this operation
+     * @throws NullPointerException if any of the specified keys or values is null
+     */
+    default void putAll(Map<String, ? extends V> entries,
+                        PutOption...             options)
+    {
+        entries.forEach((key, value) -> put(key, value, options));
+    }
+
+
     /**
      * If the specified key is not already associated with a value (or is mapped
      * to null), associates it with the given value.
@@ -110,6 +149,100 @@ public interface Cache<V>
                     ReplaceOption... options);
 
 
+    /**
+     * Replaces the entry for the specified key if it has not been updated since
+     * the specified versioned value was read using {@link #getWithVersion(String, GetOption...)}.
+     * Only the version is sent to be compared, rather than the value.
+     *
+     * @param key      the key which identifies the cache entry
+     * @param expected the versioned value previously read for the key
+     * @param valueNew the new cache entry value
+     * @param options  the options for this operation
+     * @return true if the entry was replaced
+     * @throws NullPointerException if the specified value or key is null
+     */
+    boolean replace(String           key,
+                    Versioned<V>     expected,
+                    V                valueNew,
+                    ReplaceOption... options);
+
+
+    /**
+     * Atomically applies the specified {@link EntryProcessor} to the entry for the
+     * specified key, if present. The processor is applied where the entry is stored,
+     * so that only the processor, rather than the value, is sent.
+     *
+     * @param key       the key which identifies the cache entry
+     * @param processor the processor to apply
+     * @param options   the options for this operation
+     * @return true if the entry was present and its value was changed
+     * @throws NullPointerException if the specified processor or key is null
+     * @throws IllegalStateException if the processor cannot be applied to the value
+     */
+    boolean process(String           key,
+                    EntryProcessor   processor,
+                    ReplaceOption... options);
+
+
+    /**
+     * If the specified key is not already associated with a value, attempts to compute
+     * its value using the specified mapping function and enters it into the cache,
+     * unless it is null. This is performed atomically, so concurrent callers observe
+     * the same value, although a remote cache may invoke the function more than once.
+     *
+     * @param key             the key which identifies the cache entry
+     * @param mappingFunction the function to compute a value
+     * @param options         the options for this operation
+     * @return the current (existing or computed) value associated with the key, or
+     *         null if the computed value is null
+     * @throws NullPointerException if the specified key or function is null
+     */
+    V computeIfAbsent(String                        key,
+                      Function<String, ? extends V> mappingFunction,
+                      PutOption...                  options);
+
+
+    /**
+     * If the value for the specified key is present, attempts to compute a new value
+     * given the key and its current value, removing the entry if the new value is null.
+     * The function is applied to the current value atomically; a remote cache applies it
+     * optimistically and invokes it again if the entry is concurrently updated.
+     *
+     * @param key               the key which identifies the cache entry
+     * @param remappingFunction the function to compute a value
+     * @param options           the options for this operation
+     * @return the new value associated with the key, or null if none
+     * @throws NullPointerException if the specified key or function is null
+     * @throws java.util.ConcurrentModificationException if a remote cache entry is
+     *         updated concurrently on every attempt to apply the function
+     */
+    V computeIfPresent(String                                     key,
+                       BiFunction<String, ? super V, ? extends V> remappingFunction,
+                       ReplaceOption...                           options);
+
+
+    /**
+     * If the specified key is not already associated with a value, associates it with
+     * the specified value. Otherwise, replaces the value with the result of the specified
+     * remapping function, or removes the entry if the result is null. The function is
+     * applied to the current value atomically; a remote cache applies it optimistically
+     * and invokes it again if the entry is concurrently updated.
+     *
+     * @param key               the key which identifies the cache entry
+     * @param value             the value to associate with the key, or to merge with the existing value
+     * @param remappingFunction the function to merge the existing value with the specified value
+     * @param options           the options for this operation
+     * @return the new value associated with the key, or null if none
+     * @throws NullPointerException if the specified key, value or function is null
+     * @throws java.util.ConcurrentModificationException if a remote cache entry is
+     *         updated concurrently on every attempt to apply the function
+     */
+    V merge(String                                        key,
+            V                                             value,
+            BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+            PutOption...                                  options);
+
+
     /**
      * Removes the mapping for a key from this cache if it is present.
      *
@@ -137,12 +270,65 @@ public interface Cache<V>
                    RemoveOption... options);
 
 
+    /**
+     * Removes the entry for the specified key if it has not been updated since
+     * the specified versioned value was read using {@link #getWithVersion(String, GetOption...)}.
+     * Only the version is sent to be compared, rather than the value.
+     *
+     * @param key      the key which identifies the cache entry
+     * @param expected the versioned value previously read for the key
+     * @param options  the options for this operation
+     * @return true if the entry was removed from the cache
+     * @throws NullPointerException if the specified versioned value or key is null
+     */
+    boolean remove(String          key,
+                   Versioned<V>    expected,
+                   RemoveOption... options);
+
+
     /**
      * Clears all entries from the cache.
      */
     void clear();
 
 
+    /**
+     * Returns a stream of the entries in the cache, optionally restricted to the keys
+     * starting with a {@link KeyPrefix}. The entries are fetched lazily, a {@link PageSize}
+     * at a time, as the stream is consumed, so that a cache of any size may be walked
+     * without holding its contents in memory. The iteration is weakly consistent: entries
+     * added, updated or removed during the scan may or may not be reflected in it.
+     * <p>
+     * The stream should be closed if it is not consumed entirely, so that the scan is released.
+     * </p>
+     *
+     * @param options the options for this operation
+     * @return a stream of the entries in the cache
+     */
+    Stream<Map.Entry<String, V>> scan(ScanOption... options);
+
+
+    /**
+     * Registers a listener for the changes made to the entries of the cache. For a remote
+     * cache, this subscribes to the changes made by every client, which are pushed by the
+     * server, until the last listener is removed. Registering a listener that is already
+     * registered has no effect.
+     *
+     * @param listener the listener to register
+     * @throws NullPointerException if the specified listener is null
+     * @throws UnsupportedOperationException if the cache cannot deliver changes
+     */
+    void addListener(CacheListener<? super V> listener);
+
+
+    /**
+     * Removes a listener registered using {@link #addListener(CacheListener)}.
+     *
+     * @param listener the listener to remove
+     */
+    void removeListener(CacheListener<? super V> listener);
+
+
     /**
      * Returns the metrics associated with this cache.
      *
@@ -0,0 +1,147 @@
+/*
+ * File: CacheEvent.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+/**
+ * A change made to the entries of a cache, delivered to a {@link CacheListener}.
+ * <p>
+ * Events for a local cache carry the value of the entry: the new value for a created or
+ * updated entry, and the old value for a removed, expired or evicted entry. The events of a remote cache are
+ * pushed by the server to invalidate entries held elsewhere, so they carry only the key.
+ * </p>
+ *
+ * @param <V> the type of the value
+ */
+public class CacheEvent<V>
+{
+    /**
+     * The type of change.
+     */
+    public enum Type
+    {
+        /**
+         * An entry was created.
+         */
+        CREATED,
+
+        /**
+         * The value of an entry was updated.
+         */
+        UPDATED,
+
+        /**
+         * An entry was removed.
+         */
+        REMOVED,
+
+        /**
+         * An entry expired.
+         */
+        EXPIRED,
+
+        /**
+         * An entry was evicted to keep the cache within its capacity.
+         */
+        EVICTED,
+
+        /**
+         * Every entry was removed. The event has no key.
+         */
+        CLEARED,
+
+        /**
+         * Some changes may not have been delivered, for example because the connection to the
+         * server was lost for too long, so any entry may have changed. The event has no key.
+         */
+        RESET
+    }
+
+    /**
+     * The type of change.
+     */
+    private final Type type;
+
+    /**
+     * The key of the changed entry, or null if the change applies to every entry.
+     */
+    private final String key;
+
+    /**
+     * The value of the entry, or null if it is not known.
+     */
+    private final V value;
+
+
+    /**
+     * Constructs a CacheEvent.
+     *
+     * @param type   the type of change
+     * @param key    the key of the changed entry, or null if the change applies to every entry
+     * @param value  the value of the entry, or null if it is not known
+     */
+    public CacheEvent(Type   type,
+                      String key,
+                      V      value)
+    {
+        this.type  = type;
+        this.key   = key;
+        this.value = value;
+    }
+
+
+    /**
+     * Returns the type of change.
+     *
+     * @return the type of change
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Returns the key of the changed entry.
+     *
+     * @return the key, or null if the change applies to every entry
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+
+    /**
+     * Returns the value of the entry: the new value if the entry was created or updated,
+     * or the old value if it was removed.
+     *
+     * @return the value, or null if it is not known
+     */
+    public V getValue()
+    {
+        return value;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "CacheEvent{" + "type=" + type + ", key=" + key + ", value=" + value + '}';
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * File: CacheListener.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+/**
+ * A listener for the changes made to the entries of a cache, registered using
+ * {@link Cache#addListener(CacheListener)}. Listeners should return quickly, as they
+ * may be called by the thread making the change, or by the thread receiving changes
+ * from the server. An exception thrown by a listener is counted in the cache metrics,
+ * and does not affect other listeners or the change.
+ *
+ * Example:
+ * <pre>
+ * cache.addListener(event -&gt; index.remove(event.getKey()));
+ * </pre>
+ *
+ * @param <V> the type of the values
+ */
+@FunctionalInterface
+public interface CacheListener<V>
+{
+    /**
+     * Called for each change made to the cache.
+     *
+     * @param event  the change
+     */
+    void onEvent(CacheEvent<? extends V> event);
+
+
+    /**
+     * Called if the changes made by other clients can no longer be received, for example
+     * because the server does not support them, or refuses them to this client. The
+     * listener is removed before it is called, and receives no further events. By default,
+     * nothing is done.
+     *
+     * @param error  the error which ended the delivery of changes
+     */
+    default void onError(Throwable error)
+    {
+    }
+}
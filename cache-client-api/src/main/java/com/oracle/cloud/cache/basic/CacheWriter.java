@@ -0,0 +1,128 @@
+/*
+ * File: CacheWriter.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+
+/**
+ * <p>
+ * A CacheWriter allows changes made through a cache to be propagated (from the client)
+ * to an underlying store, such as a database, and is the counterpart of a {@link CacheLoader}.
+ * </p>
+ * <p>
+ * By default, changes are written through: each change is written before the cache operation
+ * returns, and the change made to the cache is rolled back if the writer throws an exception,
+ * which is then rethrown. Entries put using {@link Cache#putAll} are written in a single batch.
+ * </p>
+ * <p>
+ * With the {@link com.oracle.cloud.cache.basic.options.WriteBehind} option, changed keys are
+ * queued, repeated changes to the same key are coalesced, and the changes are written in
+ * batches by a background thread. Changes made by entry processors and by clearing the cache
+ * are not written.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ * Cache&lt;User&gt; cache = session.getCache("users",
+ *                          ValueType.of(User.class),
+ *                          CacheWriter.of((key, user) -&gt; db.save(user), key -&gt; db.delete(key)),
+ *                          WriteBehind.of(100, Duration.ofSeconds(1)));
+ * </pre>
+ *
+ * @param <V> the type of values written
+ */
+public interface CacheWriter<V> extends CacheOption
+{
+    /**
+     * Writes the specified value for the specified key to the underlying store.
+     *
+     * @param key    the key
+     * @param value  the value
+     */
+    void write(String key,
+               V      value);
+
+
+    /**
+     * Deletes the value for the specified key from the underlying store.
+     *
+     * @param key  the key
+     */
+    void delete(String key);
+
+
+    /**
+     * Writes the specified entries to the underlying store. Implementations should
+     * override this method to write the entries in a single batch, if the store supports it.
+     *
+     * @param entries  the entries to write
+     */
+    default void writeAll(Map<String, ? extends V> entries)
+    {
+        entries.forEach(this::write);
+    }
+
+
+    /**
+     * Deletes the values for the specified keys from the underlying store. Implementations
+     * should override this method to delete the values in a single batch, if the store
+     * supports it.
+     *
+     * @param keys  the keys to delete
+     */
+    default void deleteAll(Collection<String> keys)
+    {
+        keys.forEach(this::delete);
+    }
+
+
+    /**
+     * Helper method to create a CacheWriter from functions that write and delete values.
+     *
+     * @param writer   the function to write a value
+     * @param deleter  the function to delete a value
+     * @param <V>      the type of values written
+     * @return the cache writer
+     */
+    static <V> CacheWriter<V> of(BiConsumer<String, V> writer,
+                                 Consumer<String>      deleter)
+    {
+        return new CacheWriter<V>()
+        {
+            @Override
+            public void write(String key,
+                              V      value)
+            {
+                writer.accept(key, value);
+            }
+
+
+            @Override
+            public void delete(String key)
+            {
+                deleter.accept(key);
+            }
+        };
+    }
+}
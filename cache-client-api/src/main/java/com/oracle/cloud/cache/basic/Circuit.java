@@ -0,0 +1,264 @@
+/*
+ * File: Circuit.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
+
+/**
+ * The state machine of a {@link CircuitBreaker}.
+ * <p>
+ * While closed, the outcome of each request is recorded in a ring covering the most
+ * recent window of requests, and the circuit opens once the number of failures in a
+ * full window reaches the configured failure rate. Once the open duration has
+ * elapsed the circuit becomes half-open and lets a fixed number of probe requests
+ * through, closing if all of them succeed and re-opening if any of them fail.
+ * </p>
+ */
+class Circuit
+{
+    /**
+     * The states of a circuit.
+     */
+    enum State
+    {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * The circuit breaker configuration.
+     */
+    private final CircuitBreaker config;
+
+    /**
+     * The duration in nanoseconds after which a request is considered slow, or
+     * {@link Long#MAX_VALUE} if requests are never slow.
+     */
+    private final long slowCallNanos;
+
+    /**
+     * The number of failures in a full window at which the circuit opens.
+     */
+    private final int maxFailures;
+
+    /**
+     * The outcomes of the most recent requests, true indicating a failure.
+     */
+    private final boolean[] outcomes;
+
+    /**
+     * The index in {@link #outcomes} of the next outcome.
+     */
+    private int next;
+
+    /**
+     * The number of outcomes recorded in the current window.
+     */
+    private int calls;
+
+    /**
+     * The number of failures in the current window.
+     */
+    private int failures;
+
+    /**
+     * The current state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * The time, as per {@link System#nanoTime()}, until which the circuit stays open.
+     */
+    private long openUntil;
+
+    /**
+     * The number of probe requests let through while half-open.
+     */
+    private int probesIssued;
+
+    /**
+     * The number of probe requests that succeeded while half-open.
+     */
+    private int probesSucceeded;
+
+
+    /**
+     * Constructs a closed Circuit.
+     *
+     * @param config  the circuit breaker configuration
+     */
+    Circuit(CircuitBreaker config)
+    {
+        this.config        = config;
+        this.slowCallNanos = config.getSlowCallDuration().isZero()
+                             ? Long.MAX_VALUE : config.getSlowCallDuration().toNanos();
+        this.maxFailures   = Math.max(1, (int) Math.ceil(config.getFailureRate() * config.getWindow()));
+        this.outcomes      = new boolean[config.getWindow()];
+    }
+
+
+    /**
+     * Determines if a request may be sent, counting it as a probe if the circuit is half-open.
+     *
+     * @return true if the request may be sent
+     */
+    synchronized boolean tryAcquire()
+    {
+        if (state == State.OPEN && System.nanoTime() - openUntil >= 0)
+        {
+            state           = State.HALF_OPEN;
+            probesIssued    = 0;
+            probesSucceeded = 0;
+        }
+
+        switch (state)
+        {
+        case CLOSED :
+            return true;
+
+        case HALF_OPEN :
+            if (probesIssued < config.getProbes())
+            {
+                probesIssued++;
+
+                return true;
+            }
+
+            return false;
+
+        default :
+            return false;
+        }
+    }
+
+
+    /**
+     * Records a request that completed, whether successfully or with an error that does
+     * not indicate a problem with the transport or server.
+     *
+     * @param duration  the duration of the request in nanoseconds
+     */
+    synchronized void onSuccess(long duration)
+    {
+        record(duration >= slowCallNanos);
+    }
+
+
+    /**
+     * Records a request that failed with a transport error or timeout.
+     */
+    synchronized void onFailure()
+    {
+        record(true);
+    }
+
+
+    /**
+     * Indicates if the circuit is closed.
+     *
+     * @return true if the circuit is closed
+     */
+    synchronized boolean isClosed()
+    {
+        return state == State.CLOSED;
+    }
+
+
+    /**
+     * Returns the current state of the circuit.
+     *
+     * @return the current state
+     */
+    synchronized State getState()
+    {
+        return state;
+    }
+
+
+    /**
+     * Records the outcome of a request, transitioning state as required.
+     *
+     * @param failed  true if the request failed or was slow
+     */
+    private void record(boolean failed)
+    {
+        switch (state)
+        {
+        case CLOSED :
+            if (calls == outcomes.length)
+            {
+                failures -= outcomes[next] ? 1 : 0;
+            }
+            else
+            {
+                calls++;
+            }
+
+            outcomes[next] = failed;
+            failures       += failed ? 1 : 0;
+            next           = (next + 1) % outcomes.length;
+
+            if (calls == outcomes.length && failures >= maxFailures)
+            {
+                open();
+            }
+
+            break;
+
+        case HALF_OPEN :
+            if (failed)
+            {
+                open();
+            }
+            else if (++probesSucceeded >= config.getProbes())
+            {
+                close();
+            }
+
+            break;
+
+        default :
+            // requests that were in flight when the circuit opened are ignored
+            break;
+        }
+    }
+
+
+    /**
+     * Opens the circuit.
+     */
+    private void open()
+    {
+        state     = State.OPEN;
+        openUntil = System.nanoTime() + config.getOpenDuration().toNanos();
+    }
+
+
+    /**
+     * Closes the circuit, starting a new window.
+     */
+    private void close()
+    {
+        state    = State.CLOSED;
+        next     = 0;
+        calls    = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * File: CircuitOpenException.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+/**
+ * Thrown when a cache operation is rejected without being sent to the server,
+ * because the {@link com.oracle.cloud.cache.basic.options.CircuitBreaker circuit breaker}
+ * for the cache is open.
+ */
+public class CircuitOpenException extends RuntimeException
+{
+    /**
+     * Constructs a CircuitOpenException for the specified cache.
+     *
+     * @param cacheName  the name of the cache
+     */
+    public CircuitOpenException(String cacheName)
+    {
+        super("Circuit breaker for cache " + cacheName + " is open");
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * File: CounterCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import com.oracle.cloud.cache.basic.options.PutOption;
+
+/**
+ * A view of a cache whose values are counters, which may be updated atomically
+ * without first reading the current value. Each update is a single operation
+ * against the cache, so counters remain correct and cheap to update under
+ * contention. A key without a value is treated as a counter with a value of zero.
+ */
+public interface CounterCache extends Cache<Long>
+{
+    /**
+     * Atomically adds the specified delta to the counter identified by the specified key.
+     *
+     * @param key     the key which identifies the counter
+     * @param delta   the value to add, which may be negative
+     * @param options the options for this operation
+     * @return the updated value of the counter
+     * @throws NullPointerException if the specified key is null
+     */
+    long addAndGet(String       key,
+                   long         delta,
+                   PutOption... options);
+
+
+    /**
+     * Atomically increments the counter identified by the specified key by one.
+     *
+     * @param key     the key which identifies the counter
+     * @param options the options for this operation
+     * @return the updated value of the counter
+     * @throws NullPointerException if the specified key is null
+     */
+    default long incrementAndGet(String       key,
+                                 PutOption... options)
+    {
+        return addAndGet(key, 1L, options);
+    }
+
+
+    /**
+     * Atomically decrements the counter identified by the specified key by one.
+     *
+     * @param key     the key which identifies the counter
+     * @param options the options for this operation
+     * @return the updated value of the counter
+     * @throws NullPointerException if the specified key is null
+     */
+    default long decrementAndGet(String       key,
+                                 PutOption... options)
+    {
+        return addAndGet(key, -1L, options);
+    }
+}
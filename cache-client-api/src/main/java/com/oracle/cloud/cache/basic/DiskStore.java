@@ -0,0 +1,833 @@
+/*
+ * File: DiskStore.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import com.oracle.cloud.cache.basic.options.Overflow;
+
+/**
+ * A store of the serialized entries evicted from a {@link LocalCache}, which are appended
+ * to a log file by a background thread, and located using an index held in memory.
+ * <p>
+ * Writing an entry never blocks: the entry is queued, and is read from the queue until it
+ * has been written, or dropped if the queue is full. Reads of written entries are positional
+ * reads of the log, which do not block each other or the background thread, other than
+ * while the log is replaced by a compacted log. The log is compacted by the background thread,
+ * which copies the entries that have not been removed to a new log, once the proportion of
+ * the log held by removed entries reaches the compaction ratio.
+ * </p>
+ */
+final class DiskStore
+{
+    /**
+     * Indicates no expiry.
+     */
+    private static final long NO_EXPIRY = -1L;
+
+    /**
+     * The maximum number of entries written in a batch.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * The prefix of the names of the log files.
+     */
+    private final Path file;
+
+    /**
+     * The maximum size of the entries in the log, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * The proportion of the log held by removed entries at which it is compacted.
+     */
+    private final double compactionRatio;
+
+    /**
+     * The maximum number of queued entries.
+     */
+    private final int maxQueue;
+
+    /**
+     * The name of the background thread.
+     */
+    private final String threadName;
+
+    /**
+     * Called with the key and value of each entry that is dropped.
+     */
+    private final BiConsumer<String, byte[]> onDrop;
+
+    /**
+     * Called with the start time and number of bytes copied by each compaction.
+     */
+    private final BiConsumer<Long, Long> onCompaction;
+
+    /**
+     * The index of the entries, by key.
+     */
+    private final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<>();
+
+    /**
+     * The entries waiting to be written, in the order they were queued.
+     */
+    private final ArrayDeque<Map.Entry<String, Entry>> pending = new ArrayDeque<>();
+
+    /**
+     * The lock guarding the queued entries.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when an entry is queued.
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * The lock held to read the log, and to close it once it has been compacted.
+     */
+    private final ReentrantReadWriteLock logLock = new ReentrantReadWriteLock();
+
+    /**
+     * The log the entries are appended to.
+     */
+    private volatile Log log;
+
+    /**
+     * The number of logs created.
+     */
+    private int generation;
+
+    /**
+     * The background thread, started when the first entry is queued.
+     */
+    private Thread writer;
+
+
+    /**
+     * Constructs a DiskStore, creating an empty log.
+     *
+     * @param cacheName     the name of the cache whose entries are stored
+     * @param config        the overflow configuration
+     * @param onDrop        called with the key and value of each entry that is dropped
+     * @param onCompaction  called with the start time and number of bytes copied by each compaction
+     *
+     * @throws IOException if the log cannot be created
+     */
+    DiskStore(String                     cacheName,
+              Overflow                   config,
+              BiConsumer<String, byte[]> onDrop,
+              BiConsumer<Long, Long>     onCompaction) throws IOException
+    {
+        this.file            = config.getFile();
+        this.maxSize         = config.getMaxSize();
+        this.compactionRatio = config.getCompactionRatio();
+        this.maxQueue        = config.getMaxQueue();
+        this.threadName      = "DiskStore-" + cacheName;
+        this.onDrop          = onDrop;
+        this.onCompaction    = onCompaction;
+        this.log             = createLog();
+    }
+
+
+    /**
+     * Queues an entry to be written, replacing any entry for the same key.
+     *
+     * @param key         the key
+     * @param value       the serialized value
+     * @param expiry      the absolute expiry time, or -1 if the entry does not expire
+     * @param idleExpiry  the absolute time at which the entry expires unless it is read, or -1
+     * @param version     the version of the entry
+     *
+     * @return the entry, or null if it was dropped because the queue is full
+     */
+    Entry write(String key,
+                byte[] value,
+                long   expiry,
+                long   idleExpiry,
+                long   version)
+    {
+        Entry entry = new Entry(null, 0L, value.length, value, expiry, idleExpiry, version);
+
+        lock.lock();
+
+        try
+        {
+            if (pending.size() >= maxQueue)
+            {
+                return null;
+            }
+
+            release(index.put(key, entry));
+            pending.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+            notEmpty.signal();
+
+            if (writer == null)
+            {
+                writer = new Thread(this::run, threadName);
+                writer.setDaemon(true);
+                writer.start();
+            }
+
+            return entry;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Indicates if there is an entry for the specified key.
+     *
+     * @param key  the key
+     *
+     * @return true if there is an entry for the key
+     */
+    boolean contains(String key)
+    {
+        return index.containsKey(key);
+    }
+
+
+    /**
+     * Removes and returns the entry for the specified key.
+     *
+     * @param key  the key
+     *
+     * @return the entry, with its value, or null if there is no entry for the key or it
+     *         could not be read
+     */
+    Entry take(String key)
+    {
+        logLock.readLock().lock();
+
+        try
+        {
+            Entry entry = index.remove(key);
+
+            release(entry);
+
+            return entry == null ? null : entry.load();
+        }
+        finally
+        {
+            logLock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Removes the specified entry, unless it has been replaced.
+     *
+     * @param key    the key
+     * @param entry  the entry
+     */
+    void discard(String key,
+                 Entry  entry)
+    {
+        if (index.remove(key, entry))
+        {
+            release(entry);
+        }
+    }
+
+
+    /**
+     * Removes every entry.
+     */
+    void clear()
+    {
+        index.forEach(this::discard);
+    }
+
+
+    /**
+     * Returns the stored entries, with their values, without removing them. The stream is
+     * weakly consistent: entries changed while it is consumed may or may not be reflected in it.
+     *
+     * @return the entries
+     */
+    Stream<Map.Entry<String, Entry>> entries()
+    {
+        return index.keySet().stream()
+                .<Map.Entry<String, Entry>>map(key -> {
+                    logLock.readLock().lock();
+
+                    try
+                    {
+                        Entry entry = index.get(key);
+
+                        entry = entry == null ? null : entry.load();
+
+                        return entry == null ? null : new AbstractMap.SimpleImmutableEntry<>(key, entry);
+                    }
+                    finally
+                    {
+                        logLock.readLock().unlock();
+                    }
+                })
+                .filter(entry -> entry != null);
+    }
+
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return the number of entries
+     */
+    int size()
+    {
+        return index.size();
+    }
+
+
+    /**
+     * Writes batches of entries, and compacts the log when required, until the thread is interrupted.
+     */
+    private void run()
+    {
+        try
+        {
+            while (true)
+            {
+                List<Map.Entry<String, Entry>> batch = take();
+
+                try
+                {
+                    append(batch);
+
+                    Log current = log;
+
+                    if (current.garbage.get() > 0 && current.garbage.get() >= compactionRatio * current.size)
+                    {
+                        compact();
+                    }
+                }
+                catch (IOException e)
+                {
+                    // the entries that could not be written are dropped, and compaction is retried later
+                    batch.forEach(entry -> {
+                        if (index.remove(entry.getKey(), entry.getValue()))
+                        {
+                            onDrop.accept(entry.getKey(), entry.getValue().value);
+                        }
+                    });
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Waits until an entry is queued, and removes a batch of entries from the queue.
+     *
+     * @return the batch of entries
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private List<Map.Entry<String, Entry>> take() throws InterruptedException
+    {
+        lock.lock();
+
+        try
+        {
+            while (pending.isEmpty())
+            {
+                notEmpty.await();
+            }
+
+            List<Map.Entry<String, Entry>> batch = new ArrayList<>(Math.min(pending.size(), BATCH_SIZE));
+
+            while (!pending.isEmpty() && batch.size() < BATCH_SIZE)
+            {
+                batch.add(pending.poll());
+            }
+
+            return batch;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Appends the queued entries that have not since been removed or replaced to the log,
+     * with a single write, dropping those that do not fit.
+     *
+     * @param batch  the queued entries
+     *
+     * @throws IOException if the entries cannot be written
+     */
+    private void append(List<Map.Entry<String, Entry>> batch) throws IOException
+    {
+        Log              log     = this.log;
+        List<String>     keys    = new ArrayList<>(batch.size());
+        List<Entry>      queued  = new ArrayList<>(batch.size());
+        List<Entry>      written = new ArrayList<>(batch.size());
+        List<ByteBuffer> buffers = new ArrayList<>(batch.size());
+        long             live    = log.size - log.garbage.get();
+        long             length  = 0L;
+
+        for (Map.Entry<String, Entry> pending : batch)
+        {
+            String key   = pending.getKey();
+            Entry  entry = pending.getValue();
+
+            if (index.get(key) != entry)
+            {
+                // removed or replaced since it was queued
+                continue;
+            }
+
+            if (live + length + entry.length > maxSize)
+            {
+                if (index.remove(key, entry))
+                {
+                    onDrop.accept(key, entry.value);
+                }
+
+                continue;
+            }
+
+            keys.add(key);
+            queued.add(entry);
+            written.add(entry.at(log, log.size + length));
+            buffers.add(ByteBuffer.wrap(entry.value));
+            length += entry.length;
+        }
+
+        log.append(buffers.toArray(new ByteBuffer[buffers.size()]), length);
+
+        for (int i = 0; i < keys.size(); i++)
+        {
+            if (!index.replace(keys.get(i), queued.get(i), written.get(i)))
+            {
+                log.garbage.addAndGet(written.get(i).length);
+            }
+        }
+    }
+
+
+    /**
+     * Copies the entries in the log that have not been removed or expired to a new log,
+     * which replaces it.
+     *
+     * @throws IOException if the entries cannot be copied
+     */
+    private void compact() throws IOException
+    {
+        long         start   = System.nanoTime();
+        long         current = System.currentTimeMillis();
+        Log          source  = log;
+        Log          target  = createLog();
+        List<String> keys    = new ArrayList<>();
+        List<Entry>  entries = new ArrayList<>();
+        long         copied  = 0L;
+
+        try
+        {
+            for (Map.Entry<String, Entry> indexed : index.entrySet())
+            {
+                String key   = indexed.getKey();
+                Entry  entry = indexed.getValue();
+
+                if (entry.log != source)
+                {
+                    continue;
+                }
+
+                if (entry.isExpired(current))
+                {
+                    discard(key, entry);
+                    continue;
+                }
+
+                Entry moved = entry.at(target, target.size);
+
+                target.append(new ByteBuffer[] {ByteBuffer.wrap(source.read(entry.position, entry.length))},
+                              entry.length);
+                copied += entry.length;
+
+                if (index.replace(key, entry, moved))
+                {
+                    keys.add(key);
+                    entries.add(entry);
+                }
+                else
+                {
+                    target.garbage.addAndGet(entry.length);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            // the entries copied so far are restored to the source, which remains open
+            for (int i = 0; i < keys.size(); i++)
+            {
+                Entry entry = entries.get(i);
+
+                index.computeIfPresent(keys.get(i), (key, moved) -> moved.log == target ? entry : moved);
+            }
+
+            target.close();
+
+            throw e;
+        }
+
+        logLock.writeLock().lock();
+
+        try
+        {
+            log = target;
+            source.close();
+        }
+        finally
+        {
+            logLock.writeLock().unlock();
+        }
+
+        onCompaction.accept(start, copied);
+    }
+
+
+    /**
+     * Accounts for the space of an entry that has been removed from the index.
+     *
+     * @param entry  the entry, or null
+     */
+    private static void release(Entry entry)
+    {
+        if (entry != null && entry.log != null)
+        {
+            entry.log.garbage.addAndGet(entry.length);
+        }
+    }
+
+
+    /**
+     * Creates a new, empty log.
+     *
+     * @return the log
+     *
+     * @throws IOException if the log cannot be created
+     */
+    private Log createLog() throws IOException
+    {
+        return new Log(file.resolveSibling(file.getFileName() + "." + generation++));
+    }
+
+
+    /**
+     * An append-only log file, which is deleted when it is closed or the JVM exits.
+     */
+    private static final class Log
+    {
+        /**
+         * The channel for the file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * The number of bytes written to the log, which is only changed by the background thread.
+         */
+        private volatile long size;
+
+        /**
+         * The number of bytes held by entries that have been removed.
+         */
+        private final AtomicLong garbage = new AtomicLong();
+
+
+        /**
+         * Creates a Log, replacing any existing file.
+         *
+         * @param path  the path of the file
+         *
+         * @throws IOException if the file cannot be created
+         */
+        private Log(Path path) throws IOException
+        {
+            this.channel = FileChannel.open(path,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.TRUNCATE_EXISTING,
+                                            StandardOpenOption.READ,
+                                            StandardOpenOption.WRITE,
+                                            StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+
+        /**
+         * Appends the specified buffers to the log.
+         *
+         * @param buffers  the buffers
+         * @param length   the total number of bytes in the buffers
+         *
+         * @throws IOException if the buffers cannot be written
+         */
+        private void append(ByteBuffer[] buffers,
+                            long         length) throws IOException
+        {
+            for (long written = 0L; written < length; )
+            {
+                written += channel.write(buffers);
+            }
+
+            size += length;
+        }
+
+
+        /**
+         * Reads the specified bytes from the log.
+         *
+         * @param position  the position of the first byte
+         * @param length    the number of bytes
+         *
+         * @return the bytes
+         *
+         * @throws IOException if the bytes cannot be read
+         */
+        private byte[] read(long position,
+                            int  length) throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+
+            while (buffer.hasRemaining())
+            {
+                if (channel.read(buffer, position + buffer.position()) < 0)
+                {
+                    throw new EOFException("Truncated overflow log");
+                }
+            }
+
+            return buffer.array();
+        }
+
+
+        /**
+         * Closes and deletes the log.
+         */
+        private void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                // the file is deleted when the JVM exits
+            }
+        }
+    }
+
+
+    /**
+     * An entry of the store, whose value is either held in memory, while it is queued
+     * to be written, or in the log.
+     */
+    static final class Entry
+    {
+        /**
+         * The log holding the value, or null if the value is held in memory.
+         */
+        private final Log log;
+
+        /**
+         * The position of the value in the log.
+         */
+        private final long position;
+
+        /**
+         * The length of the value.
+         */
+        private final int length;
+
+        /**
+         * The value, or null if it is held in the log.
+         */
+        private final byte[] value;
+
+        /**
+         * The absolute expiry time, or -1 if the entry does not expire.
+         */
+        private final long expiry;
+
+        /**
+         * The absolute time at which the entry expires unless it is read, or -1.
+         */
+        private final long idleExpiry;
+
+        /**
+         * The version of the entry.
+         */
+        private final long version;
+
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param log         the log holding the value, or null if the value is held in memory
+         * @param position    the position of the value in the log
+         * @param length      the length of the value
+         * @param value       the value, or null if it is held in the log
+         * @param expiry      the absolute expiry time, or -1 if the entry does not expire
+         * @param idleExpiry  the absolute time at which the entry expires unless it is read, or -1
+         * @param version     the version of the entry
+         */
+        private Entry(Log    log,
+                      long   position,
+                      int    length,
+                      byte[] value,
+                      long   expiry,
+                      long   idleExpiry,
+                      long   version)
+        {
+            this.log        = log;
+            this.position   = position;
+            this.length     = length;
+            this.value      = value;
+            this.expiry     = expiry;
+            this.idleExpiry = idleExpiry;
+            this.version    = version;
+        }
+
+
+        /**
+         * Returns the value.
+         *
+         * @return the value, or null if it is held in the log
+         */
+        byte[] getValue()
+        {
+            return value;
+        }
+
+
+        /**
+         * Returns the absolute expiry time.
+         *
+         * @return the expiry time, or -1 if the entry does not expire
+         */
+        long getExpiry()
+        {
+            return expiry;
+        }
+
+
+        /**
+         * Returns the absolute time at which the entry expires unless it is read.
+         *
+         * @return the idle expiry time, or -1 if the entry does not expire when idle
+         */
+        long getIdleExpiry()
+        {
+            return idleExpiry;
+        }
+
+
+        /**
+         * Returns the version.
+         *
+         * @return the version
+         */
+        long getVersion()
+        {
+            return version;
+        }
+
+
+        /**
+         * Indicates if the entry has expired.
+         *
+         * @param current  the current time, in milliseconds
+         *
+         * @return true if the entry has expired
+         */
+        boolean isExpired(long current)
+        {
+            return (expiry != NO_EXPIRY && expiry < current) || (idleExpiry != NO_EXPIRY && idleExpiry < current);
+        }
+
+
+        /**
+         * Returns a copy of this entry whose value is held at the specified position of a log.
+         *
+         * @param log       the log
+         * @param position  the position of the value in the log
+         *
+         * @return the entry
+         */
+        private Entry at(Log  log,
+                         long position)
+        {
+            return new Entry(log, position, length, null, expiry, idleExpiry, version);
+        }
+
+
+        /**
+         * Returns this entry with its value, reading it from the log if necessary. The
+         * read lock of the store must be held.
+         *
+         * @return the entry, or null if the value could not be read
+         */
+        private Entry load()
+        {
+            if (value != null)
+            {
+                return this;
+            }
+
+            try
+            {
+                return new Entry(null, 0L, length, log.read(position, length), expiry, idleExpiry, version);
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+        }
+    }
+}
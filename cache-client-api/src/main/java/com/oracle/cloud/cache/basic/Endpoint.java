@@ -0,0 +1,217 @@
+/*
+ * File: Endpoint.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.cloud.cache.basic.options.OutlierEjection;
+import com.oracle.cloud.cache.metrics.EndpointHealth;
+
+/**
+ * The health of one of the endpoints of a {@link FailoverSession}, as configured by the
+ * {@link OutlierEjection} option.
+ * <p>
+ * The latency of the endpoint is an exponentially-weighted moving average of the
+ * durations of successful requests. An ejected endpoint becomes available again once
+ * the ejection duration has elapsed, and is ejected again if it is still unhealthy.
+ * </p>
+ */
+class Endpoint
+{
+    /**
+     * The name of the endpoint.
+     */
+    private final String name;
+
+    /**
+     * The session to the endpoint.
+     */
+    private final Session session;
+
+    /**
+     * The outlier ejection configuration.
+     */
+    private final OutlierEjection config;
+
+    /**
+     * The moving average latency in nanoseconds, or zero if no request has completed.
+     */
+    private volatile long latency;
+
+    /**
+     * The time, as per {@link System#nanoTime()}, until which the endpoint is ejected.
+     */
+    private volatile long ejectedUntil = System.nanoTime();
+
+    /**
+     * The number of consecutive failed requests.
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * The number of requests sent to the endpoint.
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The number of failed requests.
+     */
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * The number of times the endpoint has been ejected.
+     */
+    private final AtomicLong ejections = new AtomicLong();
+
+
+    /**
+     * Constructs a healthy Endpoint.
+     *
+     * @param name     the name of the endpoint
+     * @param session  the session to the endpoint
+     * @param config   the outlier ejection configuration
+     */
+    Endpoint(String          name,
+             Session         session,
+             OutlierEjection config)
+    {
+        this.name    = name;
+        this.session = session;
+        this.config  = config;
+    }
+
+
+    /**
+     * Returns the name of the endpoint.
+     *
+     * @return the name of the endpoint
+     */
+    String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Returns the session to the endpoint.
+     *
+     * @return the session
+     */
+    Session getSession()
+    {
+        return session;
+    }
+
+
+    /**
+     * Returns the moving average latency of the endpoint.
+     *
+     * @return the latency in nanoseconds, or zero if no request has completed
+     */
+    long getLatency()
+    {
+        return latency;
+    }
+
+
+    /**
+     * Determines if requests may be sent to the endpoint, as it is not ejected.
+     *
+     * @return true if the endpoint is available
+     */
+    boolean isAvailable()
+    {
+        return System.nanoTime() - ejectedUntil >= 0;
+    }
+
+
+    /**
+     * Records a request that completed, whether successfully or with an error that does
+     * not indicate a problem with the endpoint.
+     *
+     * @param duration  the duration of the request in nanoseconds
+     */
+    void onSuccess(long duration)
+    {
+        long current = latency;
+
+        // an exponentially-weighted moving average, weighting each request by 1/8
+        latency = current == 0 ? Math.max(1L, duration) : current + (duration - current) / 8;
+
+        requests.incrementAndGet();
+        consecutiveFailures.set(0);
+    }
+
+
+    /**
+     * Records a request that failed with a transport error or timeout, ejecting the
+     * endpoint once the configured number of consecutive requests have failed. As the
+     * count is only reset by a successful request, an endpoint that fails again once its
+     * ejection has elapsed is ejected again straight away.
+     */
+    void onFailure()
+    {
+        requests.incrementAndGet();
+        failures.incrementAndGet();
+
+        if (consecutiveFailures.incrementAndGet() >= config.getConsecutiveFailures())
+        {
+            eject();
+        }
+    }
+
+
+    /**
+     * Ejects the endpoint for the configured duration.
+     */
+    synchronized void eject()
+    {
+        if (isAvailable())
+        {
+            ejectedUntil = System.nanoTime() + config.getEjectionDuration().toNanos();
+
+            ejections.incrementAndGet();
+        }
+    }
+
+
+    /**
+     * Returns the health of the endpoint, for reporting in metrics.
+     *
+     * @return the health of the endpoint
+     */
+    EndpointHealth getHealth()
+    {
+        return new EndpointHealth(name,
+                                  isAvailable(),
+                                  latency / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                                  requests.get(),
+                                  failures.get(),
+                                  ejections.get());
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Endpoint{" + "name=" + name + ", latency=" + latency + ", available=" + isAvailable() + '}';
+    }
+}
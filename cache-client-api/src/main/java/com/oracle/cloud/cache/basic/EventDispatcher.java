@@ -0,0 +1,228 @@
+/*
+ * File: EventDispatcher.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.oracle.cloud.cache.basic.options.EventDelivery;
+
+/**
+ * A bounded queue of events that are delivered to the listeners of a cache in batches
+ * by a background thread. Queueing an event never blocks: when the queue is full, the
+ * event is dropped, and a {@link CacheEvent.Type#RESET} event is queued once there is
+ * space again.
+ *
+ * @param <V> the type of values in the events
+ */
+class EventDispatcher<V>
+{
+    /**
+     * The maximum number of events delivered in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum number of queued events.
+     */
+    private final int maxQueue;
+
+    /**
+     * The name of the background thread.
+     */
+    private final String threadName;
+
+    /**
+     * Called to deliver each event.
+     */
+    private final Consumer<CacheEvent<V>> delivery;
+
+    /**
+     * Called when an event is dropped.
+     */
+    private final Runnable onDrop;
+
+    /**
+     * The queued events, in the order they were queued.
+     */
+    private final ArrayDeque<CacheEvent<V>> pending = new ArrayDeque<>();
+
+    /**
+     * The lock guarding the queued events.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when an event is queued.
+     */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * Indicates that events have been dropped since the last {@link CacheEvent.Type#RESET} event was queued.
+     */
+    private boolean overflowed;
+
+    /**
+     * The background thread, started when the first event is queued.
+     */
+    private Thread deliverer;
+
+
+    /**
+     * Constructs an EventDispatcher.
+     *
+     * @param cacheName  the name of the cache whose events are queued
+     * @param config     the event delivery configuration
+     * @param delivery   called to deliver each event
+     * @param onDrop     called when an event is dropped
+     */
+    EventDispatcher(String                  cacheName,
+                    EventDelivery           config,
+                    Consumer<CacheEvent<V>> delivery,
+                    Runnable                onDrop)
+    {
+        this.batchSize  = config.getBatchSize();
+        this.maxQueue   = config.getMaxQueue();
+        this.threadName = "EventDispatcher-" + cacheName;
+        this.delivery   = delivery;
+        this.onDrop     = onDrop;
+    }
+
+
+    /**
+     * Queues an event for delivery, or drops it if the queue is full.
+     *
+     * @param event  the event
+     */
+    void offer(CacheEvent<V> event)
+    {
+        lock.lock();
+
+        try
+        {
+            if (overflowed || pending.size() >= maxQueue)
+            {
+                overflowed = true;
+                onDrop.run();
+
+                return;
+            }
+
+            pending.add(event);
+            notEmpty.signal();
+
+            if (deliverer == null)
+            {
+                deliverer = new Thread(this::run, threadName);
+                deliverer.setDaemon(true);
+                deliverer.start();
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns the number of queued events.
+     *
+     * @return the number of queued events
+     */
+    int size()
+    {
+        lock.lock();
+
+        try
+        {
+            return pending.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Delivers batches of events until the thread is interrupted.
+     */
+    private void run()
+    {
+        try
+        {
+            while (true)
+            {
+                take().forEach(delivery);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Waits until an event is queued, and removes a batch of events from the queue. If
+     * events were dropped, a {@link CacheEvent.Type#RESET} event is queued after the
+     * events that were queued before them.
+     *
+     * @return the batch of events
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private List<CacheEvent<V>> take() throws InterruptedException
+    {
+        lock.lock();
+
+        try
+        {
+            while (pending.isEmpty())
+            {
+                notEmpty.await();
+            }
+
+            List<CacheEvent<V>> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+
+            while (!pending.isEmpty() && batch.size() < batchSize)
+            {
+                batch.add(pending.poll());
+            }
+
+            if (overflowed)
+            {
+                pending.add(new CacheEvent<>(CacheEvent.Type.RESET, null, null));
+                overflowed = false;
+            }
+
+            return batch;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+}
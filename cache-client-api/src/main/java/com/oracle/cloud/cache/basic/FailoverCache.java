@@ -0,0 +1,492 @@
+/*
+ * File: FailoverCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.oracle.cloud.cache.basic.options.GetOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
+import com.oracle.cloud.cache.basic.options.RemoveOption;
+import com.oracle.cloud.cache.basic.options.ReplaceOption;
+import com.oracle.cloud.cache.basic.options.ScanOption;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import com.oracle.cloud.cache.metrics.EndpointHealth;
+import com.oracle.cloud.cache.processors.EntryProcessor;
+
+/**
+ * An implementation of the {@link Cache} interface which sends each request to the
+ * fastest healthy endpoint of a {@link FailoverSession}. The idempotent operations, which
+ * are get, put, unconditional remove and clear, fail over to the next fastest endpoint when
+ * a request fails with a transport error or timeout, while other operations fail, as they
+ * may already have been applied.
+ * <p>
+ * The metrics of the cache combine the counts recorded for all endpoints, with the get,
+ * put and remove timings measured across endpoints, and include the number of failovers
+ * and the health of each endpoint.
+ * </p>
+ * <p>
+ * A listener is registered with the cache on the preferred endpoint at the time, and is
+ * not moved if that endpoint later fails.
+ * </p>
+ *
+ * @param <V> value type for the cache
+ */
+public class FailoverCache<V> implements Cache<V>
+{
+    /**
+     * Cache name.
+     */
+    private final String cacheName;
+
+    /**
+     * The session providing the endpoints.
+     */
+    private final FailoverSession session;
+
+    /**
+     * The function opening the cache on an endpoint.
+     */
+    private final Function<Session, ? extends Cache<V>> opener;
+
+    /**
+     * The caches opened on each endpoint.
+     */
+    private final ConcurrentHashMap<Endpoint, Cache<V>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * The cache each registered listener is registered with.
+     */
+    private final ConcurrentHashMap<CacheListener<? super V>, Cache<V>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * The {@link MetricRegistry} recording the timings across endpoints and the failovers.
+     */
+    private volatile MetricRegistry metrics = createMetrics();
+
+
+    /**
+     * Constructs a FailoverCache.
+     *
+     * @param cacheName  cache name
+     * @param session    the session providing the endpoints
+     * @param opener     the function opening the cache on an endpoint
+     */
+    FailoverCache(String                                cacheName,
+                  FailoverSession                       session,
+                  Function<Session, ? extends Cache<V>> opener)
+    {
+        this.cacheName = cacheName;
+        this.session   = session;
+        this.opener    = opener;
+    }
+
+
+    @Override
+    public V get(String       key,
+                 GetOption... options)
+    {
+        return timed("get", () -> invoke(true, cache -> cache.get(key, options)));
+    }
+
+
+    @Override
+    public Versioned<V> getWithVersion(String       key,
+                                       GetOption... options)
+    {
+        return timed("get", () -> invoke(true, cache -> cache.getWithVersion(key, options)));
+    }
+
+
+    @Override
+    public V put(String       key,
+                 V            value,
+                 PutOption... options)
+    {
+        return timed("put", () -> invoke(true, cache -> cache.put(key, value, options)));
+    }
+
+
+    @Override
+    public void putAll(Map<String, ? extends V> entries,
+                       PutOption...             options)
+    {
+        timed("put", () -> invoke(true, cache -> {
+            cache.putAll(entries, options);
+
+            return null;
+        }));
+    }
+
+
+    @Override
+    public V putIfAbsent(String       key,
+                         V            value,
+                         PutOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.putIfAbsent(key, value, options)));
+    }
+
+
+    @Override
+    public V replace(String           key,
+                     V                value,
+                     ReplaceOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.replace(key, value, options)));
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           V                valueOld,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.replace(key, valueOld, valueNew, options)));
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           Versioned<V>     expected,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.replace(key, expected, valueNew, options)));
+    }
+
+
+    @Override
+    public boolean process(String           key,
+                           EntryProcessor   processor,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.process(key, processor, options)));
+    }
+
+
+    @Override
+    public V computeIfAbsent(String                        key,
+                             Function<String, ? extends V> mappingFunction,
+                             PutOption...                  options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.computeIfAbsent(key, mappingFunction, options)));
+    }
+
+
+    @Override
+    public V computeIfPresent(String                                     key,
+                              BiFunction<String, ? super V, ? extends V> remappingFunction,
+                              ReplaceOption...                           options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.computeIfPresent(key, remappingFunction, options)));
+    }
+
+
+    @Override
+    public V merge(String                                        key,
+                   V                                             value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                   PutOption...                                  options)
+    {
+        return timed("put", () -> invoke(false, cache -> cache.merge(key, value, remappingFunction, options)));
+    }
+
+
+    @Override
+    public V remove(String          key,
+                    RemoveOption... options)
+    {
+        return timed("remove", () -> invoke(true, cache -> cache.remove(key, options)));
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          V               value,
+                          RemoveOption... options)
+    {
+        return timed("remove", () -> invoke(false, cache -> cache.remove(key, value, options)));
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          Versioned<V>    expected,
+                          RemoveOption... options)
+    {
+        return timed("remove", () -> invoke(false, cache -> cache.remove(key, expected, options)));
+    }
+
+
+    @Override
+    public void clear()
+    {
+        invoke(true, cache -> {
+            cache.clear();
+
+            return null;
+        });
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The scan is served by the preferred endpoint. As its pages are fetched lazily, it
+     * does not fail over once started, and is not recorded in the latency of the endpoint,
+     * although a cache that retries transient failures resumes the scan on the same endpoint.
+     * </p>
+     */
+    @Override
+    public Stream<Map.Entry<String, V>> scan(ScanOption... options)
+    {
+        return cache(session.select().get(0)).scan(options);
+    }
+
+
+    @Override
+    public void addListener(CacheListener<? super V> listener)
+    {
+        if (listener == null)
+        {
+            throw new NullPointerException("listener must not be null");
+        }
+
+        listeners.computeIfAbsent(listener, l -> {
+            Cache<V> cache = cache(session.select().get(0));
+
+            cache.addListener(l);
+
+            return cache;
+        });
+    }
+
+
+    @Override
+    public void removeListener(CacheListener<? super V> listener)
+    {
+        Cache<V> cache = listeners.remove(listener);
+
+        if (cache != null)
+        {
+            cache.removeListener(listener);
+        }
+    }
+
+
+    /**
+     * Returns the metrics of all endpoints combined: the counts recorded for each endpoint
+     * are summed, the get, put and remove timings are measured across endpoints, and the
+     * entry count and size are those reported by the preferred endpoint. The load and write
+     * timings are not included.
+     *
+     * @return a {@link CacheMetrics} object containing the requested metrics
+     */
+    @Override
+    public CacheMetrics getMetrics()
+    {
+        MetricRegistry       combined = new MetricRegistry();
+        CacheMetrics         server   = invoke(true, Cache::getMetrics);
+        List<EndpointHealth> health   = session.getEndpointHealth();
+
+        combined.registerAll(metrics);
+
+        caches.values().forEach(cache -> {
+            if (cache instanceof AbstractCache)
+            {
+                ((AbstractCache<V>) cache).getMetricRegistry()
+                    .getCounters()
+                    .forEach((name, counter) -> combined.counter(name).inc(counter.getCount()));
+            }
+        });
+
+        combined.register("count", (Gauge<Long>) server::getCount);
+        combined.register("size", (Gauge<Long>) server::getSize);
+        combined.register("endpoints", (Gauge<List<EndpointHealth>>) () -> health);
+
+        return new CacheMetrics(cacheName, combined);
+    }
+
+
+    @Override
+    public void resetMetrics()
+    {
+        metrics = createMetrics();
+        caches.values().forEach(Cache::resetMetrics);
+    }
+
+
+    /**
+     * Applies the specified operation to the cache on the preferred endpoint, recording
+     * the outcome against the endpoint. If the request fails with a transport error or
+     * timeout, and the operation is idempotent, it is applied to the next endpoint in
+     * order of preference, until it succeeds or all endpoints have failed.
+     *
+     * @param idempotent  true if the operation may be applied more than once
+     * @param operation   the operation
+     * @param <R>         the result type of the operation
+     * @return the result of the operation
+     * @throws RuntimeException the failure of the last endpoint tried, with the failures of
+     *         any other endpoints suppressed
+     */
+    <R> R invoke(boolean               idempotent,
+                 Function<Cache<V>, R> operation)
+    {
+        RuntimeException failure = null;
+
+        for (Endpoint endpoint : session.select())
+        {
+            Cache<V> cache     = cache(endpoint);
+            long     startTime = System.nanoTime();
+
+            if (failure != null)
+            {
+                metrics.counter("failover").inc();
+            }
+
+            try
+            {
+                R result = operation.apply(cache);
+
+                endpoint.onSuccess(System.nanoTime() - startTime);
+
+                return result;
+            }
+            catch (RuntimeException e)
+            {
+                if (!isFailure(cache, e))
+                {
+                    // the endpoint is healthy, but the operation failed
+                    endpoint.onSuccess(System.nanoTime() - startTime);
+
+                    throw e;
+                }
+
+                endpoint.onFailure();
+
+                if (failure != null)
+                {
+                    e.addSuppressed(failure);
+                }
+
+                failure = e;
+
+                if (!idempotent)
+                {
+                    break;
+                }
+            }
+        }
+
+        throw failure;
+    }
+
+
+    /**
+     * Performs the specified operation, recording its duration.
+     *
+     * @param operation  the name of the timer recording the operation
+     * @param action     the operation
+     * @param <R>        the result type of the operation
+     * @return the result of the operation
+     */
+    <R> R timed(String      operation,
+                Supplier<R> action)
+    {
+        Timer.Context context = metrics.timer(operation).time();
+
+        try
+        {
+            return action.get();
+        }
+        finally
+        {
+            context.stop();
+        }
+    }
+
+
+    /**
+     * Determines if the specified exception, thrown by a request to the specified cache,
+     * indicates a problem with the endpoint rather than with the request.
+     *
+     * @param cache  the cache the request was sent to
+     * @param e      the exception
+     * @return true if the exception indicates a transport error or timeout
+     */
+    private boolean isFailure(Cache<V>         cache,
+                              RuntimeException e)
+    {
+        if (e instanceof CircuitOpenException)
+        {
+            return true;
+        }
+
+        if (cache instanceof AbstractCache)
+        {
+            AbstractCache<V> abstractCache = (AbstractCache<V>) cache;
+
+            return abstractCache.isTransient(e) || abstractCache.isTimeout(e);
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Returns the cache on the specified endpoint, opening it if necessary.
+     *
+     * @param endpoint  the endpoint
+     * @return the cache on the endpoint
+     */
+    private Cache<V> cache(Endpoint endpoint)
+    {
+        return caches.computeIfAbsent(endpoint, e -> opener.apply(e.getSession()));
+    }
+
+
+    /**
+     * Creates the {@link MetricRegistry} recording the timings across endpoints and the
+     * failovers.
+     *
+     * @return the {@link MetricRegistry}
+     */
+    private static MetricRegistry createMetrics()
+    {
+        MetricRegistry metrics = new MetricRegistry();
+
+        metrics.register("get", new Timer());
+        metrics.register("put", new Timer());
+        metrics.register("remove", new Timer());
+        metrics.register("failover", new Counter());
+
+        return metrics;
+    }
+}
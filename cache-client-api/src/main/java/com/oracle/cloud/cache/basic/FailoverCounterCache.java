@@ -0,0 +1,54 @@
+/*
+ * File: FailoverCounterCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.function.Function;
+
+import com.oracle.cloud.cache.basic.options.PutOption;
+
+/**
+ * An implementation of the {@link CounterCache} interface which sends each request to
+ * the fastest healthy endpoint of a {@link FailoverSession}. Updates to counters are not
+ * idempotent, so they do not fail over.
+ */
+public class FailoverCounterCache extends FailoverCache<Long> implements CounterCache
+{
+    /**
+     * Constructs a FailoverCounterCache.
+     *
+     * @param cacheName  cache name
+     * @param session    the session providing the endpoints
+     * @param opener     the function opening the cache of counters on an endpoint
+     */
+    FailoverCounterCache(String                          cacheName,
+                         FailoverSession                 session,
+                         Function<Session, CounterCache> opener)
+    {
+        super(cacheName, session, opener);
+    }
+
+
+    @Override
+    public long addAndGet(String       key,
+                          long         delta,
+                          PutOption... options)
+    {
+        return timed("put", () -> invoke(false, cache -> ((CounterCache) cache).addAndGet(key, delta, options)));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * File: FailoverSession.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.OutlierEjection;
+import com.oracle.cloud.cache.basic.options.SessionOption;
+import com.oracle.cloud.cache.metrics.EndpointHealth;
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An implementation of a {@link Session} over the sessions to several endpoints of the
+ * same cache service, each of which serves all of the entries. Each request is sent to
+ * the healthy endpoint with the lowest average latency, and idempotent requests that fail
+ * with a transport error or timeout fail over to the next fastest endpoint.
+ * <p>
+ * The health of each endpoint is checked at the interval configured by the
+ * {@link OutlierEjection} option, by reading a key from a cache opened through the
+ * session, which also keeps the latency of endpoints that receive no other requests up
+ * to date. Endpoints are ejected after consecutive failures, or when their latency is an
+ * outlier, and the health of each endpoint is reported in the metrics of each cache.
+ * If all endpoints are ejected, requests are sent to them regardless.
+ * </p>
+ *
+ * @see FailoverSessionProvider
+ */
+public class FailoverSession implements Session
+{
+    /**
+     * The key read to check the health of an endpoint.
+     */
+    private static final String HEALTH_CHECK_KEY = "health-check";
+
+    /**
+     * The latency, in nanoseconds, below which an endpoint is never an outlier, so that
+     * endpoints are not ejected because of insignificant differences.
+     */
+    private static final long MIN_OUTLIER_LATENCY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The number of sessions, used to name the threads that check the health of endpoints.
+     */
+    private static final AtomicInteger SESSIONS = new AtomicInteger();
+
+    /**
+     * The endpoints.
+     */
+    private final List<Endpoint> endpoints;
+
+    /**
+     * The outlier ejection configuration.
+     */
+    private final OutlierEjection config;
+
+    /**
+     * The executor checking the health of endpoints.
+     */
+    private final ScheduledExecutorService healthChecker;
+
+    /**
+     * The name of the cache read to check the health of endpoints, or null until a cache
+     * has been opened.
+     */
+    private volatile String healthCheckCache;
+
+    /**
+     * The cache read to check the health of each endpoint, which is only accessed by the
+     * health checker.
+     */
+    private final Map<Endpoint, Cache<String>> healthCheckCaches = new HashMap<>();
+
+
+    /**
+     * Constructs a FailoverSession over the sessions to the specified endpoints.
+     *
+     * @param endpoints  the sessions to each endpoint, by name
+     * @param options    the session options
+     */
+    public FailoverSession(Map<String, ? extends Session> endpoints,
+                           SessionOption...               options)
+    {
+        if (endpoints.isEmpty())
+        {
+            throw new IllegalArgumentException("at least one endpoint is required");
+        }
+
+        int session = SESSIONS.incrementAndGet();
+
+        this.config        = Options.from(SessionOption.class, options).get(OutlierEjection.class);
+        this.endpoints     = Collections.unmodifiableList(endpoints.entrySet()
+                                                          .stream()
+                                                          .map(e -> new Endpoint(e.getKey(), e.getValue(), config))
+                                                          .collect(Collectors.toList()));
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "FailoverSession-" + session);
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        long interval = config.getCheckInterval().toNanos();
+
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+
+    @Override
+    public <V> Cache<V> getCache(String         cacheName,
+                                 CacheOption... options)
+    {
+        opened(cacheName);
+
+        return new FailoverCache<>(cacheName, this, session -> session.<V>getCache(cacheName, options));
+    }
+
+
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        opened(cacheName);
+
+        return new FailoverCounterCache(cacheName, this, session -> session.getCounterCache(cacheName, options));
+    }
+
+
+    /**
+     * Returns the health of each endpoint.
+     *
+     * @return the health of each endpoint, in the order the endpoints were specified
+     */
+    public List<EndpointHealth> getEndpointHealth()
+    {
+        return endpoints.stream().map(Endpoint::getHealth).collect(Collectors.toList());
+    }
+
+
+    /**
+     * Returns the endpoints a request should be sent to, in order of preference: the
+     * available endpoints, fastest first, or all endpoints if none is available.
+     *
+     * @return the endpoints to try
+     */
+    List<Endpoint> select()
+    {
+        List<Endpoint> available = new ArrayList<>(endpoints.size());
+
+        for (Endpoint endpoint : endpoints)
+        {
+            if (endpoint.isAvailable())
+            {
+                available.add(endpoint);
+            }
+        }
+
+        if (available.isEmpty())
+        {
+            available.addAll(endpoints);
+        }
+
+        // endpoints without a measured latency sort first, so that they are measured
+        available.sort(Comparator.comparingLong(Endpoint::getLatency));
+
+        return available;
+    }
+
+
+    /**
+     * Returns all endpoints.
+     *
+     * @return the endpoints
+     */
+    List<Endpoint> getEndpoints()
+    {
+        return endpoints;
+    }
+
+
+    /**
+     * Checks the health of each endpoint by reading a key, and then ejects the available
+     * endpoints whose latency is an outlier.
+     */
+    synchronized void checkHealth()
+    {
+        String cacheName = healthCheckCache;
+
+        if (cacheName != null)
+        {
+            for (Endpoint endpoint : endpoints)
+            {
+                long startTime = System.nanoTime();
+
+                try
+                {
+                    healthCheckCaches.computeIfAbsent(endpoint, e -> e.getSession().getCache(cacheName))
+                                     .getWithVersion(HEALTH_CHECK_KEY);
+                    endpoint.onSuccess(System.nanoTime() - startTime);
+                }
+                catch (RuntimeException e)
+                {
+                    endpoint.onFailure();
+                }
+            }
+        }
+
+        ejectOutliers();
+    }
+
+
+    /**
+     * Ejects the available endpoints whose latency is more than the configured factor of
+     * the latency of the fastest available endpoint, which is never ejected.
+     */
+    void ejectOutliers()
+    {
+        long fastest = Long.MAX_VALUE;
+
+        for (Endpoint endpoint : endpoints)
+        {
+            if (endpoint.isAvailable() && endpoint.getLatency() > 0)
+            {
+                fastest = Math.min(fastest, endpoint.getLatency());
+            }
+        }
+
+        if (fastest == Long.MAX_VALUE)
+        {
+            return;
+        }
+
+        double threshold = Math.max(MIN_OUTLIER_LATENCY, fastest * config.getLatencyFactor());
+
+        for (Endpoint endpoint : endpoints)
+        {
+            if (endpoint.isAvailable() && endpoint.getLatency() > threshold)
+            {
+                endpoint.eject();
+            }
+        }
+    }
+
+
+    /**
+     * Records that the specified cache has been opened, so that the first cache opened
+     * is used to check the health of endpoints.
+     *
+     * @param cacheName  the name of the cache
+     */
+    private void opened(String cacheName)
+    {
+        if (healthCheckCache == null)
+        {
+            healthCheckCache = cacheName;
+        }
+    }
+}
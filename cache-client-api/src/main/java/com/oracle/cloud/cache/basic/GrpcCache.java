@@ -19,12 +19,41 @@
 package com.oracle.cloud.cache.basic;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.ByteString;
 import com.oracle.cloud.cache.ServerCacheMetrics;
 import com.oracle.cloud.cache.basic.io.Serializer;
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
 import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.Hedging;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.Retry;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.processors.EntryProcessor;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.StreamObserver;
 
 /**
  * An implementation of the {@link Cache} interface which uses
@@ -36,6 +65,41 @@ import com.oracle.cloud.cache.basic.options.Expiry;
  */
 public class GrpcCache<V> extends AbstractCache<V>
 {
+    /**
+     * The minimum number of recorded gets before the hedge delay is derived from them.
+     */
+    private static final long MIN_HEDGE_SAMPLES = 100;
+
+    /**
+     * The interval, in nanoseconds, at which the hedge delay is recalculated.
+     */
+    private static final long HEDGE_DELAY_REFRESH = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The maximum number of hedged requests that may be issued in a burst.
+     */
+    private static final int MAX_HEDGE_BURST = 10;
+
+    /**
+     * The initial delay, in milliseconds, before a broken subscription is reconnected.
+     */
+    private static final long MIN_RECONNECT_DELAY = 100;
+
+    /**
+     * The maximum delay, in milliseconds, before a broken subscription is reconnected.
+     */
+    private static final long MAX_RECONNECT_DELAY = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Indicates that the cache handle has not been resolved yet.
+     */
+    private static final int UNRESOLVED = -1;
+
+    /**
+     * Indicates that the cache is identified by name, as the server does not support handles.
+     */
+    private static final int NO_HANDLE = 0;
+
     /**
      * The {@link GrpcSession} to use.
      */
@@ -51,6 +115,69 @@ public class GrpcCache<V> extends AbstractCache<V>
      */
     private final Serializer serializer;
 
+    /**
+     * The default timeout for operations against the cache.
+     */
+    private final Timeout timeout;
+
+    /**
+     * The policy for retrying idempotent operations against the cache.
+     */
+    private final Retry retry;
+
+    /**
+     * The hedging configuration for gets.
+     */
+    private final Hedging hedging;
+
+    /**
+     * The idle expiry for entries in the cache.
+     */
+    private final IdleExpiry idleExpiry;
+
+    /**
+     * The asynchronous client for gets that may be hedged, or null if hedging is disabled.
+     */
+    private final CacheGrpc.CacheFutureStub primaryClient;
+
+    /**
+     * The asynchronous client for hedged gets, or null if hedging is disabled.
+     */
+    private final CacheGrpc.CacheFutureStub hedgeClient;
+
+    /**
+     * The budget limiting the rate of hedged gets, or null if hedging is disabled.
+     */
+    private final RequestBudget hedgeBudget;
+
+    /**
+     * The latencies of the gets issued to the server, from which the hedge delay is derived.
+     * Unlike the "get" metric, these exclude the gets answered without a request, such as
+     * negative cache hits and fallbacks, which would otherwise pull the delay towards zero.
+     */
+    private final Timer remoteGets = new Timer();
+
+    /**
+     * The handle identifying the cache in requests, {@link #NO_HANDLE} if the cache is
+     * identified by name, or {@link #UNRESOLVED}.
+     */
+    private volatile int handle = UNRESOLVED;
+
+    /**
+     * The current hedge delay in nanoseconds, or -1 if there are too few samples to derive it.
+     */
+    private volatile long hedgeDelay = -1;
+
+    /**
+     * The time, as per {@link System#nanoTime()}, after which the hedge delay is recalculated.
+     */
+    private volatile long hedgeDelayExpiry = System.nanoTime();
+
+    /**
+     * The subscription to the changes made to the cache, or null while no listeners are registered.
+     */
+    private Subscription subscription;
+
 
     /**
      * Constructs a GrpcCache given a cache, session and options.
@@ -64,23 +191,40 @@ public class GrpcCache<V> extends AbstractCache<V>
               GrpcSession    grpcSession,
               CacheOption... options)
     {
-        super(cacheName, options);
+        super(cacheName, grpcSession.getOptions().get(CircuitBreaker.class), options);
 
         this.grpcSession = grpcSession;
-        this.serializer  = getOptions().get(Serializer.class, grpcSession.getOptions().get(Serializer.class));
+        this.serializer  = getSerializer(grpcSession.getOptions().get(Serializer.class));
         this.client      = CacheGrpc.newBlockingStub(grpcSession.getChannel());
+        this.timeout     = getOptions().get(Timeout.class, grpcSession.getOptions().get(Timeout.class));
+        this.hedging     = getOptions().get(Hedging.class, grpcSession.getOptions().get(Hedging.class));
+        this.retry       = getOptions().get(Retry.class, grpcSession.getOptions().get(Retry.class));
+        this.idleExpiry  = getOptions().get(IdleExpiry.class);
+
+        if (hedging.isEnabled())
+        {
+            primaryClient = CacheGrpc.newFutureStub(grpcSession.getChannel());
+            hedgeClient   = CacheGrpc.newFutureStub(grpcSession.getHedgeChannel());
+            hedgeBudget   = new RequestBudget(hedging.getMaxRatio(), MAX_HEDGE_BURST);
+        }
+        else
+        {
+            primaryClient = null;
+            hedgeClient   = null;
+            hedgeBudget   = null;
+        }
     }
 
 
     @Override
-    protected V get(String key)
+    protected V get(String  key,
+                    Timeout timeout)
     {
         try
         {
-            CacheRpc.GetResponse response   = client.get(CacheProtocol.getRequest(getCacheName(), key));
-            ByteString           byteString = response.getValue();
+            ByteString byteString = getResponse(key, timeout).getValue();
 
-            return serializer.deserialize(byteString.toByteArray(), getValueClass());
+            return deserialize(byteString);
         }
         catch (IOException e)
         {
@@ -89,21 +233,96 @@ public class GrpcCache<V> extends AbstractCache<V>
     }
 
 
+    @Override
+    protected Expiring<V> getExpiring(String  key,
+                                      Timeout timeout)
+    {
+        try
+        {
+            CacheRpc.GetResponse response = getResponse(key, timeout);
+            V                    value    = deserialize(response.getValue());
+
+            return value == null ? null : new Expiring<>(value, response.getTtl());
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Returns the time-to-live with which to write an entry, which is limited to the idle
+     * timeout if idle expiry is enabled, so that the server expires the entry unless it is
+     * read within that time.
+     *
+     * @param expiry  the expiry for the entry
+     *
+     * @return the time-to-live in milliseconds
+     */
+    private long ttl(Expiry expiry)
+    {
+        return idleExpiry.limit(expiry.getExpiry());
+    }
+
+
+    /**
+     * Deserializes a value received from the server. The serializer reads the value in
+     * place, through a read-only view of its bytes, so that a binary value is not copied.
+     *
+     * @param bytes  the serialized value
+     *
+     * @return the value, or null if the value is empty
+     *
+     * @throws IOException if the value cannot be deserialized
+     */
+    private V deserialize(ByteString bytes) throws IOException
+    {
+        return serializer.deserialize(bytes.asReadOnlyByteBuffer(), getValueClass());
+    }
+
+
+    /**
+     * Issues a get request for the specified key, hedging it if enabled.
+     *
+     * @param key      the cache key
+     * @param timeout  the timeout for the operation
+     *
+     * @return the response
+     */
+    private CacheRpc.GetResponse getResponse(String  key,
+                                             Timeout timeout)
+    {
+        boolean touch = idleExpiry.isEnabled();
+
+        return call(h -> CacheProtocol.getRequest(h, key, touch),
+                    () -> CacheProtocol.getRequest(getCacheName(), key, touch),
+                    request -> hedging.isEnabled() ? hedgedGet(request, timeout) : client(timeout).get(request),
+                    timeout);
+    }
+
+
     @Override
     protected V put(String  key,
                     V       value,
                     Expiry  expiry,
-                    boolean returnOld)
+                    boolean returnOld,
+                    Timeout timeout)
     {
         try
         {
-            CacheRpc.PutResponse response = client.put(CacheProtocol.putRequest(getCacheName(),
+            byte[]               bytes    = serializer.serialize(value);
+            long                 ttl      = ttl(expiry);
+            CacheRpc.PutResponse response = call(h -> CacheProtocol.putRequest(h, key, bytes, ttl, returnOld),
+                                                 () -> CacheProtocol.putRequest(getCacheName(),
                                                                                 key,
-                                                                                serializer.serialize(value),
-                                                                                expiry.getExpiry(),
-                                                                                returnOld));
+                                                                                bytes,
+                                                                                ttl,
+                                                                                returnOld),
+                                                 request -> client(timeout).put(request),
+                                                 timeout);
 
-            return returnOld ? serializer.deserialize(response.getValue().toByteArray(), getValueClass()) : null;
+            return returnOld ? deserialize(response.getValue()) : null;
         }
         catch (IOException e)
         {
@@ -116,21 +335,27 @@ public class GrpcCache<V> extends AbstractCache<V>
     protected V putIfAbsent(String  key,
                             V       value,
                             Expiry  expiry,
-                            boolean returnOld)
+                            boolean returnOld,
+                            Timeout timeout)
     {
         try
         {
-            CacheRpc.PutResponse response = client.putIfAbsent(CacheProtocol.putRequest(getCacheName(),
-                                                                                        key,
-                                                                                        serializer.serialize(value),
-                                                                                        expiry.getExpiry(),
-                                                                                        returnOld));
+            byte[]               bytes    = serializer.serialize(value);
+            long                 ttl      = ttl(expiry);
+            CacheRpc.PutResponse response = call(h -> CacheProtocol.putRequest(h, key, bytes, ttl, returnOld),
+                                                 () -> CacheProtocol.putRequest(getCacheName(),
+                                                                                key,
+                                                                                bytes,
+                                                                                ttl,
+                                                                                returnOld),
+                                                 request -> client(timeout).putIfAbsent(request),
+                                                 timeout);
 
             ByteString byteString = response.getValue();
 
             return returnOld
                    && byteString != null
-                   && byteString.size() > 0 ? serializer.deserialize(byteString.toByteArray(), getValueClass()) : null;
+                   && byteString.size() > 0 ? deserialize(byteString) : null;
         }
         catch (IOException e)
         {
@@ -143,17 +368,26 @@ public class GrpcCache<V> extends AbstractCache<V>
     protected V replace(String  key,
                         V       value,
                         Expiry  expiry,
-                        boolean returnOld)
+                        boolean returnOld,
+                        Timeout timeout)
     {
         try
         {
-            CacheRpc.ReplaceResponse response = client.replace(CacheProtocol.replaceRequest(getCacheName(),
-                                                                                            key,
-                                                                                            serializer.serialize(value),
-                                                                                            expiry.getExpiry(),
-                                                                                            returnOld));
+            byte[]                   bytes    = serializer.serialize(value);
+            CacheRpc.ReplaceResponse response = call(h -> CacheProtocol.replaceRequest(h,
+                                                                                       key,
+                                                                                       bytes,
+                                                                                       ttl(expiry),
+                                                                                       returnOld),
+                                                     () -> CacheProtocol.replaceRequest(getCacheName(),
+                                                                                        key,
+                                                                                        bytes,
+                                                                                        ttl(expiry),
+                                                                                        returnOld),
+                                                     request -> client(timeout).replace(request),
+                                                     timeout);
 
-            return returnOld ? serializer.deserialize(response.getValue().toByteArray(), getValueClass()) : null;
+            return returnOld ? deserialize(response.getValue()) : null;
         }
         catch (IOException e)
         {
@@ -163,19 +397,28 @@ public class GrpcCache<V> extends AbstractCache<V>
 
 
     @Override
-    protected boolean replaceValue(String key,
-                                   V      valueOld,
-                                   V      valueNew,
-                                   Expiry expiry)
+    protected boolean replaceValue(String  key,
+                                   V       valueOld,
+                                   V       valueNew,
+                                   Expiry  expiry,
+                                   Timeout timeout)
     {
         try
         {
-            CacheRpc.ReplaceValueResponse response =
-                client.replaceValue(CacheProtocol.replaceValueRequest(getCacheName(),
-                                                                      key,
-                                                                      serializer.serialize(valueOld),
-                                                                      serializer.serialize(valueNew),
-                                                                      expiry.getExpiry()));
+            byte[]                        bytesOld = serializer.serialize(valueOld);
+            byte[]                        bytesNew = serializer.serialize(valueNew);
+            CacheRpc.ReplaceValueResponse response = call(h -> CacheProtocol.replaceValueRequest(h,
+                                                                                                 key,
+                                                                                                 bytesOld,
+                                                                                                 bytesNew,
+                                                                                                 ttl(expiry)),
+                                                          () -> CacheProtocol.replaceValueRequest(getCacheName(),
+                                                                                                  key,
+                                                                                                  bytesOld,
+                                                                                                  bytesNew,
+                                                                                                  ttl(expiry)),
+                                                          request -> client(timeout).replaceValue(request),
+                                                          timeout);
 
             return response.getSuccess();
         }
@@ -188,15 +431,17 @@ public class GrpcCache<V> extends AbstractCache<V>
 
     @Override
     protected V remove(String  key,
-                       boolean returnOld)
+                       boolean returnOld,
+                       Timeout timeout)
     {
         try
         {
-            CacheRpc.RemoveResponse response = client.remove(CacheProtocol.removeRequest(getCacheName(),
-                                                                                         key,
-                                                                                         returnOld));
+            CacheRpc.RemoveResponse response = call(h -> CacheProtocol.removeRequest(h, key, returnOld),
+                                                    () -> CacheProtocol.removeRequest(getCacheName(), key, returnOld),
+                                                    request -> client(timeout).remove(request),
+                                                    timeout);
 
-            return returnOld ? serializer.deserialize(response.getValue().toByteArray(), getValueClass()) : null;
+            return returnOld ? deserialize(response.getValue()) : null;
         }
         catch (IOException e)
         {
@@ -206,14 +451,19 @@ public class GrpcCache<V> extends AbstractCache<V>
 
 
     @Override
-    protected boolean removeValue(String key,
-                                  V      value)
+    protected boolean removeValue(String  key,
+                                  V       value,
+                                  Timeout timeout)
     {
         try
         {
-            CacheRpc.RemoveValueResponse response = client.removeValue(CacheProtocol.removeValueRequest(getCacheName(),
-                                                                                                        key,
-                                                                                                        serializer.serialize(value)));
+            byte[]                       bytes    = serializer.serialize(value);
+            CacheRpc.RemoveValueResponse response = call(h -> CacheProtocol.removeValueRequest(h, key, bytes),
+                                                         () -> CacheProtocol.removeValueRequest(getCacheName(),
+                                                                                                key,
+                                                                                                bytes),
+                                                         request -> client(timeout).removeValue(request),
+                                                         timeout);
 
             return response.getSuccess();
         }
@@ -224,18 +474,832 @@ public class GrpcCache<V> extends AbstractCache<V>
     }
 
 
+    @Override
+    protected Versioned<V> getWithVersion(String  key,
+                                          Timeout timeout)
+    {
+        try
+        {
+            boolean                    touch    = idleExpiry.isEnabled();
+            CacheRpc.VersionedResponse response = call(h -> CacheProtocol.getRequest(h, key, touch),
+                                                       () -> CacheProtocol.getRequest(getCacheName(), key, touch),
+                                                       request -> client(timeout).getVersioned(request),
+                                                       timeout);
+
+            return response.getVersion() == 0
+                   ? null
+                   : new Versioned<>(deserialize(response.getValue()),
+                                     response.getVersion());
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean replaceVersion(String  key,
+                                     long    version,
+                                     V       valueNew,
+                                     Expiry  expiry,
+                                     Timeout timeout)
+    {
+        try
+        {
+            byte[]                        bytes    = serializer.serialize(valueNew);
+            long                          ttl      = ttl(expiry);
+            CacheRpc.ReplaceValueResponse response = call(h -> CacheProtocol.replaceVersionRequest(h,
+                                                                                                   key,
+                                                                                                   version,
+                                                                                                   bytes,
+                                                                                                   ttl),
+                                                          () -> CacheProtocol.replaceVersionRequest(getCacheName(),
+                                                                                                    key,
+                                                                                                    version,
+                                                                                                    bytes,
+                                                                                                    ttl),
+                                                          request -> client(timeout).replaceVersion(request),
+                                                          timeout);
+
+            return response.getSuccess();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean removeVersion(String  key,
+                                    long    version,
+                                    Timeout timeout)
+    {
+        CacheRpc.RemoveValueResponse response = call(h -> CacheProtocol.removeVersionRequest(h, key, version),
+                                                     () -> CacheProtocol.removeVersionRequest(getCacheName(),
+                                                                                              key,
+                                                                                              version),
+                                                     request -> client(timeout).removeVersion(request),
+                                                     timeout);
+
+        return response.getSuccess();
+    }
+
+
+    @Override
+    protected boolean process(String         key,
+                              EntryProcessor processor,
+                              Expiry         expiry,
+                              Timeout        timeout)
+    {
+        byte[]                        bytes    = processor.toBytes();
+        long                          ttl      = ttl(expiry);
+        CacheRpc.ReplaceValueResponse response = call(h -> CacheProtocol.processRequest(h, key, bytes, ttl),
+                                                      () -> CacheProtocol.processRequest(getCacheName(),
+                                                                                         key,
+                                                                                         bytes,
+                                                                                         ttl),
+                                                      request -> client(timeout).process(request),
+                                                      timeout);
+
+        return response.getSuccess();
+    }
+
+
+    @Override
+    protected long add(String  key,
+                       long    delta,
+                       Expiry  expiry,
+                       Timeout timeout)
+    {
+        long                 ttl      = ttl(expiry);
+        CacheRpc.AddResponse response = call(h -> CacheProtocol.addRequest(h, key, delta, ttl),
+                                             () -> CacheProtocol.addRequest(getCacheName(), key, delta, ttl),
+                                             request -> client(timeout).add(request),
+                                             timeout);
+
+        return response.getValue();
+    }
+
+
     @Override
     protected ServerCacheMetrics getServerMetrics()
     {
-        CacheRpc.MetricsResponse response = client.getMetrics(CacheProtocol.metricsRequest(getCacheName()));
+        CacheRpc.MetricsResponse response = call(CacheProtocol::metricsRequest,
+                                                 () -> CacheProtocol.metricsRequest(getCacheName()),
+                                                 request -> client(timeout).getMetrics(request),
+                                                 timeout);
 
         return new ServerCacheMetrics(response.getCount(), response.getSize());
     }
 
 
     @Override
-    public void clear()
+    protected void clear(Timeout timeout)
+    {
+        call(CacheProtocol::clearRequest,
+             () -> CacheProtocol.clearRequest(getCacheName()),
+             request -> client(timeout).clear(request),
+             timeout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The pages are streamed by a single call, which identifies the cache by name. The
+     * next page is only requested from the server once the previous one has been taken,
+     * so at most one page is buffered by the client.
+     * </p>
+     */
+    @Override
+    protected Pages<V> scan(String  prefix,
+                            int     pageSize,
+                            byte[]  cursor,
+                            Timeout timeout)
+    {
+        CacheRpc.ScanRequest       request  = CacheProtocol.scanRequest(getCacheName(), prefix, pageSize, cursor);
+        Context.CancellableContext context  = Context.current().withCancellation();
+        Context                    previous = context.attach();
+
+        try
+        {
+            // the call is bound to the context, so that closing the pages cancels it
+            return new GrpcPages(client(timeout).scan(request), context);
+        }
+        finally
+        {
+            context.detach(previous);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The changes are streamed by a single call, which identifies the cache by name and is
+     * reconnected, with an increasing delay, whenever it is broken. The stream resumes after
+     * the last change received, or delivers a {@link CacheEvent.Type#RESET} event if changes
+     * may have been missed. The events carry only the key of the changed entry.
+     * </p>
+     * <p>
+     * If the server rejects the call with a status that retrying cannot change, such as
+     * {@link Status.Code#UNIMPLEMENTED} or {@link Status.Code#PERMISSION_DENIED}, the call is
+     * not reconnected: the failure is counted, and the listeners are removed and notified
+     * through {@link CacheListener#onError(Throwable)}.
+     * </p>
+     */
+    @Override
+    protected void subscribe()
     {
-        client.clear(CacheProtocol.clearRequest(getCacheName()));
+        subscription = new Subscription();
+
+        subscription.connect();
+    }
+
+
+    @Override
+    protected void unsubscribe()
+    {
+        subscription.close();
+
+        subscription = null;
+    }
+
+
+    @Override
+    protected Timeout getDefaultTimeout()
+    {
+        return timeout;
+    }
+
+
+    @Override
+    protected Retry getRetry()
+    {
+        return retry;
+    }
+
+
+    @Override
+    protected boolean isTimeout(RuntimeException e)
+    {
+        return e instanceof StatusRuntimeException
+               && ((StatusRuntimeException) e).getStatus().getCode() == Status.Code.DEADLINE_EXCEEDED;
+    }
+
+
+    @Override
+    protected boolean isTransient(RuntimeException e)
+    {
+        if (e instanceof StatusRuntimeException)
+        {
+            Status.Code code = ((StatusRuntimeException) e).getStatus().getCode();
+
+            return code == Status.Code.UNAVAILABLE || code == Status.Code.ABORTED
+                   || code == Status.Code.RESOURCE_EXHAUSTED;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Issues a request that identifies the cache by its handle, if the server supports
+     * handles, or by its name otherwise. If the server no longer recognizes the handle
+     * (for example, because it has restarted), the handle is resolved again and the
+     * request is re-issued using the cache name.
+     *
+     * @param byHandle  creates the request using the cache handle
+     * @param byName    creates the request using the cache name
+     * @param rpc       issues the request
+     * @param timeout   the timeout for the operation
+     * @param <R>       the type of the request
+     * @param <T>       the type of the response
+     *
+     * @return the response
+     */
+    private <R, T> T call(IntFunction<R> byHandle,
+                          Supplier<R>    byName,
+                          Function<R, T> rpc,
+                          Timeout        timeout)
+    {
+        int handle = getHandle(timeout);
+
+        if (handle == NO_HANDLE)
+        {
+            return rpc.apply(byName.get());
+        }
+
+        try
+        {
+            return rpc.apply(byHandle.apply(handle));
+        }
+        catch (StatusRuntimeException e)
+        {
+            if (e.getStatus().getCode() != Status.Code.FAILED_PRECONDITION)
+            {
+                throw e;
+            }
+
+            this.handle = UNRESOLVED;
+
+            return rpc.apply(byName.get());
+        }
+    }
+
+
+    /**
+     * Returns the handle identifying the cache in requests, resolving it if necessary.
+     *
+     * @param timeout  the timeout for the operation
+     *
+     * @return the handle, or {@link #NO_HANDLE} if the cache should be identified by name
+     */
+    private int getHandle(Timeout timeout)
+    {
+        int handle = this.handle;
+
+        if (handle == UNRESOLVED)
+        {
+            try
+            {
+                handle = client(timeout).open(CacheProtocol.openRequest(getCacheName())).getHandle();
+            }
+            catch (StatusRuntimeException e)
+            {
+                if (e.getStatus().getCode() != Status.Code.UNIMPLEMENTED)
+                {
+                    throw e;
+                }
+
+                // the server does not support handles
+                handle = NO_HANDLE;
+            }
+
+            this.handle = handle;
+        }
+
+        return handle;
+    }
+
+
+    /**
+     * Issues a get which is hedged with a second request, over the hedge channel, if no
+     * response has arrived within the hedge delay. The first response to arrive is used,
+     * and the latency of the get is recorded to derive the hedge delay from.
+     *
+     * @param request  the get request
+     * @param timeout  the timeout for the operation
+     *
+     * @return the first response to arrive
+     */
+    private CacheRpc.GetResponse hedgedGet(CacheRpc.GetRequest request,
+                                           Timeout             timeout)
+    {
+        long                 startTime = System.nanoTime();
+        CacheRpc.GetResponse response  = hedgedGet(request, timeout, startTime);
+
+        remoteGets.update(duration(startTime), TimeUnit.NANOSECONDS);
+
+        return response;
+    }
+
+
+    /**
+     * Issues a get which is hedged with a second request if no response has arrived
+     * within the hedge delay, without recording its latency.
+     *
+     * @param request    the get request
+     * @param timeout    the timeout for the operation
+     * @param startTime  the time at which the get was started, as per {@link System#nanoTime()}
+     *
+     * @return the first response to arrive
+     */
+    private CacheRpc.GetResponse hedgedGet(CacheRpc.GetRequest request,
+                                           Timeout             timeout,
+                                           long                startTime)
+    {
+        long                                   delay   = getHedgeDelay();
+        ListenableFuture<CacheRpc.GetResponse> primary = client(primaryClient, timeout, 0).get(request);
+
+        hedgeBudget.onRequest();
+
+        if (delay < 0)
+        {
+            return await(primary);
+        }
+
+        try
+        {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(duration(startTime));
+
+            if ((timeout.isEnabled() && elapsed >= timeout.getTimeout()) || !hedgeBudget.tryAcquire())
+            {
+                return await(primary);
+            }
+
+            registerHedge();
+
+            ListenableFuture<CacheRpc.GetResponse> hedge  = client(hedgeClient, timeout, elapsed).get(request);
+            SettableFuture<CacheRpc.GetResponse>   result = SettableFuture.create();
+            AtomicInteger                          failed = new AtomicInteger();
+
+            complete(primary, result, failed, false);
+            complete(hedge, result, failed, true);
+
+            try
+            {
+                return await(result);
+            }
+            finally
+            {
+                // the losing request is no longer of interest
+                primary.cancel(true);
+                hedge.cancel(true);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            primary.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(e);
+        }
+    }
+
+
+    /**
+     * Completes the result of a hedged get with the response to one of its requests,
+     * if no other response has been used already. The result fails only once both
+     * requests have failed.
+     *
+     * @param request  the request to complete the result with
+     * @param result   the result of the hedged get
+     * @param failed   the number of requests that have failed
+     * @param isHedge  true if the request is the hedged request
+     */
+    private void complete(ListenableFuture<CacheRpc.GetResponse> request,
+                          SettableFuture<CacheRpc.GetResponse>   result,
+                          AtomicInteger                          failed,
+                          boolean                                isHedge)
+    {
+        Futures.addCallback(request, new FutureCallback<CacheRpc.GetResponse>()
+        {
+            @Override
+            public void onSuccess(CacheRpc.GetResponse response)
+            {
+                if (result.set(response) && isHedge)
+                {
+                    registerHedgeWon();
+                }
+            }
+
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                if (failed.incrementAndGet() == 2)
+                {
+                    result.setException(t);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+
+    /**
+     * Returns the delay after which a get is hedged, derived from the configured
+     * percentile of the latencies of recent gets issued to the server. The delay is
+     * recalculated at most once per second.
+     *
+     * @return the hedge delay in nanoseconds, or -1 if there are too few samples
+     *         to derive it
+     */
+    private long getHedgeDelay()
+    {
+        long now = System.nanoTime();
+
+        if (now - hedgeDelayExpiry >= 0)
+        {
+            hedgeDelayExpiry = now + HEDGE_DELAY_REFRESH;
+            hedgeDelay       = remoteGets.getCount() < MIN_HEDGE_SAMPLES
+                               ? -1
+                               : Math.max(hedging.getMinDelay().toNanos(),
+                                          (long) remoteGets.getSnapshot().getValue(hedging.getPercentile()));
+        }
+
+        return hedgeDelay;
+    }
+
+
+    /**
+     * Waits for the specified response.
+     *
+     * @param response  the response to wait for
+     *
+     * @return the response
+     */
+    private static CacheRpc.GetResponse await(ListenableFuture<CacheRpc.GetResponse> response)
+    {
+        try
+        {
+            return response.get();
+        }
+        catch (InterruptedException e)
+        {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException(e);
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(e);
+        }
+    }
+
+
+    /**
+     * Unwraps the cause of a failed asynchronous request, so that it is reported in the
+     * same way as the failure of a blocking request.
+     *
+     * @param e  the exception thrown when waiting for the request
+     *
+     * @return the cause of the failure
+     */
+    private static RuntimeException unwrap(ExecutionException e)
+    {
+        Throwable cause = e.getCause();
+
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+
+
+    /**
+     * Returns the asynchronous client stub to use for a request with the specified timeout.
+     *
+     * @param client   the asynchronous client stub
+     * @param timeout  the timeout for the operation
+     * @param elapsed  the time in milliseconds already elapsed since the operation started
+     *
+     * @return the client stub, with a deadline applied if the timeout is enabled
+     */
+    private static CacheGrpc.CacheFutureStub client(CacheGrpc.CacheFutureStub client,
+                                                    Timeout                   timeout,
+                                                    long                      elapsed)
+    {
+        return timeout.isEnabled()
+               ? client.withDeadlineAfter(Math.max(1, timeout.getTimeout() - elapsed), TimeUnit.MILLISECONDS)
+               : client;
+    }
+
+
+    /**
+     * Returns the client stub to use for an operation with the specified timeout.
+     *
+     * @param timeout  the timeout for the operation
+     *
+     * @return the client stub, with a deadline applied if the timeout is enabled
+     */
+    private CacheGrpc.CacheBlockingStub client(Timeout timeout)
+    {
+        return timeout.isEnabled() ? client.withDeadlineAfter(timeout.getTimeout(), TimeUnit.MILLISECONDS) : client;
+    }
+
+
+    /**
+     * The pages of a scan streamed by the server.
+     */
+    private class GrpcPages implements Pages<V>
+    {
+        /**
+         * The responses streamed by the server.
+         */
+        private final Iterator<CacheRpc.ScanResponse> responses;
+
+        /**
+         * The context of the call streaming the responses.
+         */
+        private final Context.CancellableContext context;
+
+
+        /**
+         * Constructs a GrpcPages.
+         *
+         * @param responses  the responses streamed by the server
+         * @param context    the context of the call streaming the responses
+         */
+        private GrpcPages(Iterator<CacheRpc.ScanResponse> responses,
+                          Context.CancellableContext      context)
+        {
+            this.responses = responses;
+            this.context   = context;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            return responses.hasNext();
+        }
+
+
+        @Override
+        public Page<V> next()
+        {
+            CacheRpc.ScanResponse      response = responses.next();
+            List<Map.Entry<String, V>> entries  = new ArrayList<>(response.getEntriesCount());
+
+            try
+            {
+                for (CacheRpc.ScanEntry entry : response.getEntriesList())
+                {
+                    V value = deserialize(entry.getValue());
+
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value));
+                }
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+
+            return new Page<>(entries, response.getCursor().toByteArray());
+        }
+
+
+        @Override
+        public void close()
+        {
+            context.cancel(null);
+        }
+    }
+
+
+    /**
+     * A subscription to the changes made to the cache, which delivers them to the listeners.
+     */
+    private class Subscription implements StreamObserver<CacheRpc.SubscribeResponse>
+    {
+        /**
+         * The sequence number of the last response received, or zero if none has been received.
+         */
+        private long sequence;
+
+        /**
+         * Indicates if the stream has been broken since the subscription was created.
+         */
+        private boolean reconnected;
+
+        /**
+         * The delay, in milliseconds, before the stream is next reconnected.
+         */
+        private long reconnectDelay = MIN_RECONNECT_DELAY;
+
+        /**
+         * The context of the call streaming the changes.
+         */
+        private Context.CancellableContext context;
+
+        /**
+         * The pending reconnection, or null if none is scheduled.
+         */
+        private ScheduledFuture<?> reconnection;
+
+        /**
+         * Indicates if the subscription has been closed.
+         */
+        private boolean closed;
+
+
+        /**
+         * Starts the call streaming the changes, resuming after the last response received.
+         */
+        private synchronized void connect()
+        {
+            if (closed)
+            {
+                return;
+            }
+
+            CacheRpc.SubscribeRequest request  = CacheProtocol.subscribeRequest(getCacheName(), sequence);
+            Context                   previous;
+
+            context      = Context.current().withCancellation();
+            reconnection = null;
+            previous     = context.attach();
+
+            try
+            {
+                // the call is bound to the context, so that closing the subscription cancels it
+                CacheGrpc.newStub(grpcSession.getChannel()).subscribe(request, this);
+            }
+            finally
+            {
+                context.detach(previous);
+            }
+        }
+
+
+        @Override
+        public void onNext(CacheRpc.SubscribeResponse response)
+        {
+            boolean reset;
+
+            synchronized (this)
+            {
+                // a server which has restarted no longer knows the sequence numbers it issued
+                reset          = response.getReset() || reconnected && response.getSequence() < sequence;
+                sequence       = response.getSequence();
+                reconnectDelay = MIN_RECONNECT_DELAY;
+            }
+
+            if (reset)
+            {
+                dispatch(new CacheEvent<>(CacheEvent.Type.RESET, null, null));
+            }
+
+            for (CacheRpc.Event event : response.getEventsList())
+            {
+                String key = event.getKey().isEmpty() ? null : event.getKey();
+
+                dispatch(new CacheEvent<>(type(event.getType()), key, null));
+            }
+        }
+
+
+        @Override
+        public void onError(Throwable t)
+        {
+            synchronized (this)
+            {
+                if (!isRefused(Status.fromThrowable(t).getCode()))
+                {
+                    reconnect();
+
+                    return;
+                }
+
+                if (closed)
+                {
+                    return;
+                }
+
+                closed = true;
+            }
+
+            // not under the lock, as the listeners are removed under their own lock, which is taken
+            // before the lock of the subscription when it is closed
+            registerSubscriptionFailure();
+            failListeners(t);
+        }
+
+
+        @Override
+        public synchronized void onCompleted()
+        {
+            reconnect();
+        }
+
+
+        /**
+         * Schedules the stream to be reconnected, unless the subscription has been closed.
+         */
+        private void reconnect()
+        {
+            if (!closed)
+            {
+                reconnected    = true;
+                reconnection   = grpcSession.getScheduler().schedule(this::connect,
+                                                                     reconnectDelay,
+                                                                     TimeUnit.MILLISECONDS);
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY);
+            }
+        }
+
+
+        /**
+         * Indicates if a status received on the stream means that the server will not stream
+         * the changes, rather than that the stream was broken, so that reconnecting is futile.
+         *
+         * @param code  the status code
+         *
+         * @return true if the subscription was refused
+         */
+        private boolean isRefused(Status.Code code)
+        {
+            switch (code)
+            {
+            case UNIMPLEMENTED :
+            case NOT_FOUND :
+            case PERMISSION_DENIED :
+            case UNAUTHENTICATED :
+            case INVALID_ARGUMENT :
+            case FAILED_PRECONDITION :
+            case OUT_OF_RANGE :
+                return true;
+
+            default :
+                return false;
+            }
+        }
+
+
+        /**
+         * Closes the subscription, cancelling the call streaming the changes.
+         */
+        private synchronized void close()
+        {
+            closed = true;
+
+            if (reconnection != null)
+            {
+                reconnection.cancel(false);
+            }
+
+            context.cancel(null);
+        }
+
+
+        /**
+         * Returns the type of a {@link CacheEvent} for the specified type of event streamed by the server.
+         *
+         * @param type  the type of event streamed by the server
+         *
+         * @return the type of {@link CacheEvent}
+         */
+        private CacheEvent.Type type(CacheRpc.EventType type)
+        {
+            switch (type)
+            {
+            case CREATED :
+                return CacheEvent.Type.CREATED;
+
+            case REMOVED :
+                return CacheEvent.Type.REMOVED;
+
+            case EXPIRED :
+                return CacheEvent.Type.EXPIRED;
+
+            case EVICTED :
+                return CacheEvent.Type.EVICTED;
+
+            case CLEARED :
+                return CacheEvent.Type.CLEARED;
+
+            default :
+                return CacheEvent.Type.UPDATED;
+            }
+        }
     }
 }
@@ -20,8 +20,11 @@ package com.oracle.cloud.cache.basic;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
 import com.oracle.cloud.cache.basic.options.SessionOption;
 import com.oracle.cloud.cache.util.Options;
 import io.grpc.Channel;
@@ -50,6 +53,16 @@ public class GrpcSession implements Session
      */
     private Channel channel;
 
+    /**
+     * {@link Channel} for hedged requests, created on first use.
+     */
+    private Channel hedgeChannel;
+
+    /**
+     * The scheduler used to reconnect the subscriptions of this session's caches, created on first use.
+     */
+    private ScheduledExecutorService scheduler;
+
 
     /**
      * Creates a new GrpcSession with the given URI and {@link SessionOption}s.
@@ -93,6 +106,14 @@ public class GrpcSession implements Session
     }
 
 
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        return new GrpcCounterCache(cacheName, this, options);
+    }
+
+
     /**
      * Returns the {@link SessionOption}s for this session.
      *
@@ -116,15 +137,57 @@ public class GrpcSession implements Session
 
 
     /**
-     * Sets the {@link Channel} for this session. <br>
+     * Returns the {@link Channel} for hedged requests issued by this session's caches. This
+     * is a separate connection from {@link #getChannel()}, so that a hedged request is not
+     * queued behind the slow request it is hedging.
+     *
+     * @return the {@link Channel} for hedged requests
+     */
+    public synchronized Channel getHedgeChannel()
+    {
+        if (hedgeChannel == null)
+        {
+            hedgeChannel = createChannel();
+        }
+
+        return hedgeChannel;
+    }
+
+
+    /**
+     * Returns the scheduler used to reconnect the subscriptions of this session's caches
+     * to the changes made by other clients, after their streams are broken.
+     *
+     * @return the scheduler, which runs on a single daemon thread
+     */
+    synchronized ScheduledExecutorService getScheduler()
+    {
+        if (scheduler == null)
+        {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "GrpcSession-" + uri);
+
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return scheduler;
+    }
+
+
+    /**
+     * Sets the {@link Channel} for this session. Hedged requests will also use this channel. <br>
      * <strong>Note:</strong> This method is for advanced use cases only. Incorrect use may cause the API not
      * to function properly.
      *
      * @param channel the {@link Channel} for this session
      */
-    protected void setChannel(Channel channel)
+    protected synchronized void setChannel(Channel channel)
     {
-        this.channel = channel;
+        this.channel      = channel;
+        this.hedgeChannel = channel;
     }
 
 
@@ -154,4 +217,34 @@ public class GrpcSession implements Session
 
         return max * 1024 * 1024;
     }
+
+
+    /**
+     * A {@link GrpcCache} of counters.
+     */
+    private static class GrpcCounterCache extends GrpcCache<Long> implements CounterCache
+    {
+        /**
+         * Constructs a GrpcCounterCache for the given cache and session.
+         *
+         * @param cacheName cache name
+         * @param session   the session that created this cache
+         * @param options   any option to apply
+         */
+        private GrpcCounterCache(String         cacheName,
+                                 GrpcSession    session,
+                                 CacheOption... options)
+        {
+            super(cacheName, session, withValueType(Long.class, options));
+        }
+
+
+        @Override
+        public long addAndGet(String       key,
+                              long         delta,
+                              PutOption... options)
+        {
+            return super.addAndGet(key, delta, options);
+        }
+    }
 }
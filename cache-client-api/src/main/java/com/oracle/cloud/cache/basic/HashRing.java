@@ -0,0 +1,215 @@
+/*
+ * File: HashRing.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable consistent-hash ring, which assigns each key to one of a set of named
+ * nodes. Each node is placed on the ring at a number of points (virtual nodes) derived
+ * from its name, and a key is assigned to the node owning the first point at or after the
+ * hash of the key. Adding or removing a node therefore only moves the keys assigned to
+ * that node, and, as the placement depends only on the names, every client with the same
+ * nodes assigns keys the same way.
+ *
+ * @param <T> the type of the nodes
+ */
+class HashRing<T>
+{
+    /**
+     * The number of points on the ring for each node.
+     */
+    static final int VIRTUAL_NODES = 160;
+
+    /**
+     * The nodes, by name.
+     */
+    private final Map<String, T> nodes;
+
+    /**
+     * The number of points on the ring for each node.
+     */
+    private final int virtualNodes;
+
+    /**
+     * The points on the ring, in ascending order.
+     */
+    private final long[] points;
+
+    /**
+     * The name of the node owning each point.
+     */
+    private final String[] owners;
+
+
+    /**
+     * Constructs a HashRing with the specified nodes.
+     *
+     * @param nodes         the nodes, by name
+     * @param virtualNodes  the number of points on the ring for each node
+     */
+    HashRing(Map<String, T> nodes,
+             int            virtualNodes)
+    {
+        TreeMap<Long, String> ring = new TreeMap<>();
+
+        for (String name : nodes.keySet())
+        {
+            for (int i = 0; i < virtualNodes; i++)
+            {
+                // on the rare collision, the point goes to the lesser name, so that it does not
+                // depend on the order in which the nodes were added
+                ring.merge(hash(name + '#' + i), name, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+
+        this.nodes        = Collections.unmodifiableMap(new TreeMap<>(nodes));
+        this.virtualNodes = virtualNodes;
+        this.points       = new long[ring.size()];
+        this.owners       = new String[ring.size()];
+
+        int i = 0;
+
+        for (Map.Entry<Long, String> point : ring.entrySet())
+        {
+            points[i]   = point.getKey();
+            owners[i++] = point.getValue();
+        }
+    }
+
+
+    /**
+     * Returns a ring with the specified node added, or replaced if a node with the same
+     * name is already on this ring.
+     *
+     * @param name  the name of the node
+     * @param node  the node
+     * @return the new ring
+     */
+    HashRing<T> with(String name,
+                     T      node)
+    {
+        Map<String, T> nodes = new TreeMap<>(this.nodes);
+
+        nodes.put(name, node);
+
+        return new HashRing<>(nodes, virtualNodes);
+    }
+
+
+    /**
+     * Returns a ring with the specified node removed.
+     *
+     * @param name  the name of the node
+     * @return the new ring
+     */
+    HashRing<T> without(String name)
+    {
+        Map<String, T> nodes = new TreeMap<>(this.nodes);
+
+        nodes.remove(name);
+
+        return new HashRing<>(nodes, virtualNodes);
+    }
+
+
+    /**
+     * Returns the name of the node the specified key is assigned to.
+     *
+     * @param key  the key
+     * @return the name of the node
+     * @throws IllegalStateException if there are no nodes
+     */
+    String locate(String key)
+    {
+        if (points.length == 0)
+        {
+            throw new IllegalStateException("There are no shards");
+        }
+
+        int i = Arrays.binarySearch(points, hash(key));
+
+        if (i < 0)
+        {
+            // the first point after the hash, wrapping around the ring
+            i = -i - 1;
+
+            if (i == points.length)
+            {
+                i = 0;
+            }
+        }
+
+        return owners[i];
+    }
+
+
+    /**
+     * Returns the node with the specified name.
+     *
+     * @param name  the name of the node
+     * @return the node, or null if there is no node with the name
+     */
+    T get(String name)
+    {
+        return nodes.get(name);
+    }
+
+
+    /**
+     * Returns the nodes on the ring, by name, in the order of their names.
+     *
+     * @return the nodes
+     */
+    Map<String, T> getNodes()
+    {
+        return nodes;
+    }
+
+
+    /**
+     * Returns a 64-bit hash of the specified string, which is spread evenly over the
+     * ring (FNV-1a, followed by the MurmurHash3 finalizer).
+     *
+     * @param s  the string
+     * @return the hash
+     */
+    static long hash(String s)
+    {
+        long h = 0xcbf29ce484222325L;
+
+        for (byte b : s.getBytes(StandardCharsets.UTF_8))
+        {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+}
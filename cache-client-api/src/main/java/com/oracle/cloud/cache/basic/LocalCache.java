@@ -18,18 +18,82 @@
 
 package com.oracle.cloud.cache.basic;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.oracle.cloud.cache.ServerCacheMetrics;
+import com.oracle.cloud.cache.basic.io.Serializer;
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.EventDelivery;
 import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.Overflow;
+import com.oracle.cloud.cache.basic.options.Snapshot;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.processors.EntryProcessor;
 
 /**
  * An implementation of the {@link Cache} interface which uses
  * a local {@link ConcurrentHashMap} to store cache entries. Useful for
  * local testing locally without having to deploy into Application Container Cloud Service (ACCS).
+ * <p>
+ * The cache may be bounded using the {@link Capacity} option, in which case entries are
+ * evicted using the CLOCK algorithm: keys are visited in insertion order, and an entry
+ * is evicted unless it has been read since it was last visited.
+ * </p>
+ * <p>
+ * With the {@link IdleExpiry} option, a read extends the life of an entry by updating its
+ * idle deadline in place, without replacing the entry in the map or taking a lock.
+ * </p>
+ * <p>
+ * Events are only created while listeners are registered, and are delivered once the change
+ * has been applied, by the thread making it unless {@link EventDelivery} is asynchronous.
+ * Entries that expire or are evicted are reported with their value, as well as those that
+ * are removed, so that structures derived from the cache can be kept in sync.
+ * </p>
+ * <p>
+ * A scan walks the map using its weakly consistent iterator, so it neither blocks nor is
+ * blocked by concurrent updates. Scanning an entry does not count as reading it, for the
+ * purposes of eviction or idle expiry.
+ * </p>
+ * <p>
+ * The entries may be written to a snapshot file and restored from it, explicitly or using
+ * the {@link Snapshot} option, so that the cache is warm when the application restarts.
+ * The file is mapped into memory when it is restored, and the values are deserialized in
+ * parallel.
+ * </p>
+ * <p>
+ * With the {@link Overflow} option, the entries evicted from a bounded cache are moved to a
+ * log on local disk by a background thread, rather than discarded, and are moved back into
+ * memory when their key is next accessed. An entry is only reported as evicted if it could
+ * not be moved to disk. Entries on disk are included in scans and in the count of entries,
+ * but not in snapshots.
+ * </p>
  *
  * @param <V> value type for the cache
  * @author Aleksandar Seovic/Tim Middleton  2016.06.02
@@ -56,6 +120,43 @@ public class LocalCache<V> extends AbstractCache<V>
      */
     private final LocalSession session;
 
+    /**
+     * The maximum number of entries in the cache.
+     */
+    private final int capacity;
+
+    /**
+     * The time in milliseconds after which an entry that has not been read expires, or
+     * zero if entries do not expire when idle.
+     */
+    private final long idleTimeout;
+
+    /**
+     * The keys in the order they will be visited for eviction, or null if the cache is unbounded.
+     * The queue may contain keys that have since been removed, which are skipped.
+     */
+    private final ConcurrentLinkedQueue<String> clock;
+
+    /**
+     * The number of keys in the eviction queue.
+     */
+    private final AtomicInteger clockSize = new AtomicInteger();
+
+    /**
+     * The last version assigned to an entry.
+     */
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    /**
+     * The serializer for the values written to snapshots and to disk.
+     */
+    private final Serializer serializer;
+
+    /**
+     * The store of the entries evicted to disk, or null if evicted entries are discarded.
+     */
+    private final DiskStore overflow;
+
 
     /**
      * Constructs a LocalCache for the given cache and session.
@@ -70,16 +171,164 @@ public class LocalCache<V> extends AbstractCache<V>
     {
         super(cacheName, options);
 
-        this.session = session;
+        Capacity capacity = getOptions().get(Capacity.class);
+
+        this.session     = session;
+        this.capacity    = capacity.getMaxEntries();
+        this.clock       = capacity.isBounded() ? new ConcurrentLinkedQueue<>() : null;
+        this.idleTimeout = getOptions().get(IdleExpiry.class).getTimeout().toMillis();
+        this.serializer  = getSerializer(Serializer.json());
+
+        Overflow overflow = getOptions().get(Overflow.class);
+
+        try
+        {
+            this.overflow = overflow.isEnabled()
+                            ? new DiskStore(cacheName, overflow, this::dropped, this::registerCompaction)
+                            : null;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+
+        Snapshot snapshot = getOptions().get(Snapshot.class);
+
+        if (snapshot.isEnabled())
+        {
+            try
+            {
+                restore(snapshot.getFile());
+            }
+            catch (NoSuchFileException e)
+            {
+                // there is no snapshot yet
+            }
+            catch (IOException | UncheckedIOException e)
+            {
+                // the cache starts empty rather than failing, as a restore either succeeds or adds nothing
+                registerSnapshotFailure();
+            }
+
+            SnapshotStore.register(this, snapshot);
+        }
     }
 
 
-    @Override
-    protected V get(String key)
+    /**
+     * Writes the entries of the cache that have not expired to the specified snapshot file,
+     * with their absolute expiry. The snapshot is weakly consistent: entries changed while it
+     * is written may or may not be reflected in it. The file is only replaced once the
+     * snapshot has been written completely.
+     *
+     * @param file  the snapshot file
+     *
+     * @return the number of entries written
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public long snapshot(Path file) throws IOException
     {
-        evict();
+        long current = System.currentTimeMillis();
+        long count   = 0;
 
-        ExpiringValue<V> expiringValue = mapLocalCache.get(key);
+        try (SnapshotStore.Writer writer = SnapshotStore.writer(file))
+        {
+            for (Map.Entry<String, ExpiringValue<V>> entry : mapLocalCache.entrySet())
+            {
+                ExpiringValue<V> value = entry.getValue();
+
+                if (!value.isExpired(current))
+                {
+                    writer.write(entry.getKey(),
+                                 value.expiryTime,
+                                 value.idleExpiryTime,
+                                 serializer.serialize(value.getValue()));
+                    count++;
+                }
+            }
+
+            writer.commit();
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Adds the entries of the specified snapshot file that have not expired to the cache,
+     * unless the cache already holds an entry for the key. The file is mapped into memory,
+     * and the values are deserialized in parallel. Every value is deserialized before any
+     * entry is added, so that a snapshot which cannot be read completely leaves the cache
+     * unchanged.
+     *
+     * @param file  the snapshot file
+     *
+     * @return the number of entries restored
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public long restore(Path file) throws IOException
+    {
+        List<SnapshotStore.Record> records  = SnapshotStore.read(file, System.currentTimeMillis());
+        AtomicLong                 restored = new AtomicLong();
+        List<ExpiringValue<V>>     values;
+
+        try
+        {
+            values = records.parallelStream()
+                    .map(record -> new ExpiringValue<>(deserialize(record.getValue()),
+                                                       record.getExpiryTime(),
+                                                       record.getIdleExpiryTime(),
+                                                       lastVersion.incrementAndGet()))
+                    .collect(Collectors.toList());
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+
+        IntStream.range(0, records.size()).parallel().forEach(i -> {
+            String           key   = records.get(i).getKey();
+            ExpiringValue<V> value = values.get(i);
+
+            if (mapLocalCache.putIfAbsent(key, value) == null)
+            {
+                admit(key, null);
+                changed(CacheEvent.Type.CREATED, key, value.getValue());
+                restored.incrementAndGet();
+            }
+        });
+
+        return restored.get();
+    }
+
+
+    /**
+     * Writes the entries of the cache to the specified snapshot file. As there is no caller
+     * to report a failure to, it is only recorded in the metrics of the cache.
+     *
+     * @param file  the snapshot file
+     */
+    void snapshotQuietly(Path file)
+    {
+        try
+        {
+            snapshot(file);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // the previous snapshot, if any, is left in place
+            registerSnapshotFailure();
+        }
+    }
+
+
+    @Override
+    protected V get(String  key,
+                    Timeout timeout)
+    {
+        ExpiringValue<V> expiringValue = read(key);
 
         return expiringValue == null ? null : expiringValue.getValue();
     }
@@ -89,11 +338,17 @@ public class LocalCache<V> extends AbstractCache<V>
     protected V put(String  key,
                     V       value,
                     Expiry  expiry,
-                    boolean returnOld)
+                    boolean returnOld,
+                    Timeout timeout)
     {
+        promote(key);
         evict();
 
-        ExpiringValue<V> oldValue = mapLocalCache.put(key, new ExpiringValue<>(value, expiry.getExpiry()));
+        ExpiringValue<V> oldValue = mapLocalCache.put(key, newValue(value, expiry));
+        boolean          created  = oldValue == null || oldValue.isExpired(System.currentTimeMillis());
+
+        admit(key, oldValue);
+        changed(created ? CacheEvent.Type.CREATED : CacheEvent.Type.UPDATED, key, value);
 
         return returnOld ? (oldValue == null ? null : oldValue.getValue()) : null;
     }
@@ -103,11 +358,20 @@ public class LocalCache<V> extends AbstractCache<V>
     protected V putIfAbsent(String  key,
                             V       value,
                             Expiry  expiry,
-                            boolean returnOld)
+                            boolean returnOld,
+                            Timeout timeout)
     {
+        promote(key);
         evict();
 
-        ExpiringValue<V> oldValue = mapLocalCache.putIfAbsent(key, new ExpiringValue<>(value, expiry.getExpiry()));
+        ExpiringValue<V> oldValue = mapLocalCache.putIfAbsent(key, newValue(value, expiry));
+
+        admit(key, oldValue);
+
+        if (oldValue == null)
+        {
+            changed(CacheEvent.Type.CREATED, key, value);
+        }
 
         return returnOld ? (oldValue == null ? null : oldValue.getValue()) : null;
     }
@@ -117,178 +381,1146 @@ public class LocalCache<V> extends AbstractCache<V>
     protected V replace(String  key,
                         V       value,
                         Expiry  expiry,
-                        boolean returnOld)
+                        boolean returnOld,
+                        Timeout timeout)
     {
+        promote(key);
         evict();
 
-        ExpiringValue<V> oldValue = mapLocalCache.replace(key, new ExpiringValue<>(value, expiry.getExpiry()));
+        ExpiringValue<V> oldValue = mapLocalCache.replace(key, newValue(value, expiry));
+
+        if (oldValue != null)
+        {
+            changed(CacheEvent.Type.UPDATED, key, value);
+        }
 
         return returnOld ? (oldValue == null ? null : oldValue.getValue()) : null;
     }
 
 
     @Override
-    protected boolean replaceValue(String key,
-                                   V      valueOld,
-                                   V      valueNew,
-                                   Expiry expiry)
+    protected boolean replaceValue(String  key,
+                                   V       valueOld,
+                                   V       valueNew,
+                                   Expiry  expiry,
+                                   Timeout timeout)
     {
+        promote(key);
         evict();
 
-        long expiryTime = expiry.getExpiry();
+        // values are compared without regard to expiry
+        boolean replaced = mapLocalCache.replace(key,
+                                                 new ExpiringValue<>(valueOld, NO_EXPIRY, NO_EXPIRY, 0L),
+                                                 newValue(valueNew, expiry));
+
+        if (replaced)
+        {
+            changed(CacheEvent.Type.UPDATED, key, valueNew);
+        }
 
-        return mapLocalCache.replace(key,
-                                     new ExpiringValue<>(valueOld, expiryTime),
-                                     new ExpiringValue<>(valueNew, expiryTime));
+        return replaced;
     }
 
 
     @Override
     protected V remove(String  key,
-                       boolean returnOld)
+                       boolean returnOld,
+                       Timeout timeout)
     {
+        promote(key);
         evict();
 
         ExpiringValue<V> oldValue = mapLocalCache.remove(key);
 
+        if (oldValue != null)
+        {
+            changed(CacheEvent.Type.REMOVED, key, oldValue.getValue());
+        }
+
         return returnOld ? (oldValue == null ? null : oldValue.getValue()) : null;
     }
 
 
     @Override
-    protected boolean removeValue(String key,
-                                  V      value)
+    protected boolean removeValue(String  key,
+                                  V       value,
+                                  Timeout timeout)
     {
-        return mapLocalCache.remove(key, new ExpiringValue<>(value, 0L));
+        promote(key);
+
+        boolean removed = mapLocalCache.remove(key, new ExpiringValue<>(value, NO_EXPIRY, NO_EXPIRY, 0L));
+
+        if (removed)
+        {
+            changed(CacheEvent.Type.REMOVED, key, value);
+        }
+
+        return removed;
     }
 
 
     @Override
-    protected ServerCacheMetrics getServerMetrics()
+    protected Versioned<V> getWithVersion(String  key,
+                                          Timeout timeout)
     {
-        return new ServerCacheMetrics(mapLocalCache.size(), -1L);
+        ExpiringValue<V> expiringValue = read(key);
+
+        if (expiringValue == null)
+        {
+            return null;
+        }
+
+        return new Versioned<>(expiringValue.getValue(), expiringValue.getVersion());
     }
 
 
     @Override
-    public void clear()
+    protected Expiring<V> getExpiring(String  key,
+                                      Timeout timeout)
     {
-        synchronized (this)
+        ExpiringValue<V> expiringValue = read(key);
+
+        if (expiringValue == null)
         {
-            mapLocalCache.clear();
+            return null;
         }
+
+        long expiryTime = expiringValue.getExpiry();
+
+        return new Expiring<>(expiringValue.getValue(),
+                              expiryTime == NO_EXPIRY
+                              ? NO_EXPIRY
+                              : Math.max(1L, expiryTime - System.currentTimeMillis()));
     }
 
 
-    /**
-     * Evict any entries that have reached expiry time.
-     */
-    private void evict()
+    @Override
+    protected boolean replaceVersion(String  key,
+                                     long    version,
+                                     V       valueNew,
+                                     Expiry  expiry,
+                                     Timeout timeout)
     {
-        long current = System.currentTimeMillis();
+        promote(key);
+        evict();
 
-        synchronized (this)
+        ExpiringValue<V> valueNewExpiring = newValue(valueNew, expiry);
+        boolean          replaced         = mapLocalCache.computeIfPresent(key,
+                                                                           (k, v) -> v.getVersion() == version
+                                                                                     ? valueNewExpiring
+                                                                                     : v)
+                                            == valueNewExpiring;
+
+        if (replaced)
         {
-            // protect against other threads attempting to evict() at the same time
-            if (current > nextFlush)
-            {
-                nextFlush = System.currentTimeMillis();
+            changed(CacheEvent.Type.UPDATED, key, valueNew);
+        }
 
-                try
-                {
-                    Set<String> entries = new HashSet<>();
+        return replaced;
+    }
 
-                    mapLocalCache.forEach(
-                        (k, v) -> {
-                            long expiryTime = v.getExpiry();
 
-                            if (expiryTime != NO_EXPIRY && expiryTime < System.currentTimeMillis())
-                            {
-                                entries.add(k);
-                            }
-                        });
+    @Override
+    protected boolean removeVersion(String  key,
+                                    long    version,
+                                    Timeout timeout)
+    {
+        promote(key);
 
-                    // remove the entries
-                    entries.forEach((k) -> mapLocalCache.remove(k));
-                }
-                finally
-                {
-                    // don't allow another flush for 50ms
-                    nextFlush = System.currentTimeMillis() + 50L;
-                }
+        AtomicReference<V> removed = new AtomicReference<>();
 
-            }
+        mapLocalCache.computeIfPresent(key,
+                                       (k, v) -> {
+                                           if (v.getVersion() != version)
+                                           {
+                                               return v;
+                                           }
+
+                                           removed.set(v.getValue());
+
+                                           return null;
+                                       });
+
+        if (removed.get() != null)
+        {
+            changed(CacheEvent.Type.REMOVED, key, removed.get());
         }
+
+        return removed.get() != null;
     }
 
 
-    /**
-     * Inner class to hold the value plus absolute expiry or -1 if no expiry.
-     *
-     * @param <V> value to store
-     */
-    private static class ExpiringValue<V>
+    @Override
+    protected V computeIfAbsent(String                        key,
+                                Function<String, ? extends V> mappingFunction,
+                                Expiry                        expiry,
+                                Timeout                       timeout)
     {
-        /**
-         * The value to store in the cache.
-         */
-        private final V value;
+        promote(key);
+        evict();
 
-        /**
-         * The absolute expiry time or -1 if no expiry.
-         */
-        private final long expiryTime;
+        boolean[]        inserted = new boolean[1];
+        ExpiringValue<V> value    = mapLocalCache.computeIfAbsent(key,
+                                                                  k -> {
+                                                                      V valueNew = mappingFunction.apply(k);
 
+                                                                      inserted[0] = valueNew != null;
 
-        /**
-         * Constructs a new ExpiringValue with the value and expiry time.
-         *
-         * @param value     value to store
-         * @param expiryTime absolute expiry time in millis
-         */
-        private ExpiringValue(V    value,
-                              long expiryTime)
+                                                                      return inserted[0]
+                                                                             ? newValue(valueNew, expiry)
+                                                                             : null;
+                                                                  });
+
+        if (inserted[0])
         {
-            this.value      = value;
-            this.expiryTime = expiryTime;
+            admit(key, null);
+            changed(CacheEvent.Type.CREATED, key, value.getValue());
         }
 
+        return value == null ? null : value.getValue();
+    }
 
-        /**
-         * Creates a new expiring value and set the expiry to the absolute expiry or
-         * -1L if expiry is not required.
-         *
-         * @param value     the value to
-         * @param expiryTime Expiry value in millis or -1L for no expiry
-         * @return ExpiringValue entry
-         */
-        public ExpiringValue of(V    value,
-                                long expiryTime)
+
+    @Override
+    protected V computeIfPresent(String                                     key,
+                                 BiFunction<String, ? super V, ? extends V> remappingFunction,
+                                 Expiry                                     expiry,
+                                 Timeout                                    timeout)
+    {
+        promote(key);
+        evict();
+
+        AtomicReference<V> previous = new AtomicReference<>();
+        ExpiringValue<V>   value    = mapLocalCache.computeIfPresent(key,
+                                                                     (k, v) -> {
+                                                                         V valueOld = v.getValue();
+                                                                         V valueNew = remappingFunction.apply(k,
+                                                                                                              valueOld);
+
+                                                                         previous.set(valueOld);
+
+                                                                         return valueNew == null
+                                                                                ? null
+                                                                                : newValue(valueNew, expiry);
+                                                                     });
+
+        if (value != null)
+        {
+            changed(CacheEvent.Type.UPDATED, key, value.getValue());
+        }
+        else if (previous.get() != null)
         {
-            return new ExpiringValue(value,
-                                     expiryTime == NO_EXPIRY ? NO_EXPIRY : System.currentTimeMillis() + expiryTime);
+            changed(CacheEvent.Type.REMOVED, key, previous.get());
         }
 
+        return value == null ? null : value.getValue();
+    }
 
-        /**
-         * Returns the value of the entry.
-         *
-         * @return the value of the entry
-         */
-        public V getValue()
+
+    @Override
+    protected V merge(String                                        key,
+                      V                                             value,
+                      BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                      Expiry                                        expiry,
+                      Timeout                                       timeout)
+    {
+        promote(key);
+        evict();
+
+        boolean[]          inserted = new boolean[1];
+        AtomicReference<V> previous = new AtomicReference<>();
+        ExpiringValue<V>   result   = mapLocalCache.compute(key,
+                                                            (k, v) -> {
+                                                                inserted[0] = v == null;
+
+                                                                previous.set(inserted[0] ? null : v.getValue());
+
+                                                                V valueNew = inserted[0]
+                                                                             ? value
+                                                                             : remappingFunction.apply(v.getValue(),
+                                                                                                       value);
+
+                                                                return valueNew == null
+                                                                       ? null
+                                                                       : newValue(valueNew, expiry);
+                                                            });
+
+        if (inserted[0])
         {
-            return value;
+            admit(key, null);
+        }
+
+        if (result != null)
+        {
+            changed(inserted[0] ? CacheEvent.Type.CREATED : CacheEvent.Type.UPDATED, key, result.getValue());
+        }
+        else if (previous.get() != null)
+        {
+            changed(CacheEvent.Type.REMOVED, key, previous.get());
         }
 
+        return result == null ? null : result.getValue();
+    }
 
-        /**
-         * Returns the expiry of the entry.
-         *
-         * @return the expiry of the entry
-         */
-        public long getExpiry()
+
+    @Override
+    protected boolean process(String         key,
+                              EntryProcessor processor,
+                              Expiry         expiry,
+                              Timeout        timeout)
+    {
+        promote(key);
+        evict();
+
+        AtomicReference<V> changed = new AtomicReference<>();
+
+        mapLocalCache.computeIfPresent(key,
+                                       (k, v) -> {
+                                           V value = processor.process(v.getValue(), getValueClass());
+
+                                           if (value == v.getValue())
+                                           {
+                                               return v;
+                                           }
+
+                                           changed.set(value);
+
+                                           return newValue(value, expiry);
+                                       });
+
+        if (changed.get() != null)
         {
-            return expiryTime;
+            changed(CacheEvent.Type.UPDATED, key, changed.get());
+        }
+
+        return changed.get() != null;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected long add(String  key,
+                       long    delta,
+                       Expiry  expiry,
+                       Timeout timeout)
+    {
+        promote(key);
+        evict();
+
+        long                              now      = System.currentTimeMillis();
+        AtomicReference<ExpiringValue<V>> previous = new AtomicReference<>();
+
+        // the count is read and written atomically with respect to other updates of the key;
+        // an expired counter that has not been flushed yet counts from zero
+        ExpiringValue<V> newValue = mapLocalCache.compute(key, (k, current) -> {
+            previous.set(current);
+
+            long value = current == null || current.isExpired(now) ? delta : toLong(current.getValue()) + delta;
+
+            return newValue((V) Long.valueOf(value), expiry);
+        });
+
+        ExpiringValue<V> oldValue = previous.get();
+        boolean          created  = oldValue == null || oldValue.isExpired(now);
+
+        admit(key, oldValue);
+        changed(created ? CacheEvent.Type.CREATED : CacheEvent.Type.UPDATED, key, newValue.getValue());
+
+        return toLong(newValue.getValue());
+    }
+
+
+    @Override
+    protected MetricRegistry createMetrics()
+    {
+        MetricRegistry metrics = super.createMetrics();
+
+        metrics.register("disk-count", (Gauge<Long>) () -> overflow == null ? 0L : (long) overflow.size());
+
+        return metrics;
+    }
+
+
+    @Override
+    protected ServerCacheMetrics getServerMetrics()
+    {
+        return new ServerCacheMetrics(mapLocalCache.size() + (overflow == null ? 0 : overflow.size()), -1L);
+    }
+
+
+    @Override
+    protected void clear(Timeout timeout)
+    {
+        synchronized (this)
+        {
+            mapLocalCache.clear();
+
+            if (overflow != null)
+            {
+                overflow.clear();
+            }
+        }
+
+        changed(CacheEvent.Type.CLEARED, null, null);
+    }
+
+
+    @Override
+    protected Pages<V> scan(String  prefix,
+                            int     pageSize,
+                            byte[]  cursor,
+                            Timeout timeout)
+    {
+        return new LocalPages(prefix, pageSize, cursor.length == 0 ? 0L : ByteBuffer.wrap(cursor).getLong());
+    }
+
+
+    /**
+     * Creates a new value to store in the cache, with the next version.
+     *
+     * @param value   the value
+     * @param expiry  time-to-live for the cache entry
+     *
+     * @return the value to store
+     */
+    private ExpiringValue<V> newValue(V      value,
+                                      Expiry expiry)
+    {
+        return ExpiringValue.of(value, expiry.getExpiry(), idleTimeout, lastVersion.incrementAndGet());
+    }
+
+
+    /**
+     * Returns the value for the specified key, unless it has expired, marking it as read
+     * and restarting its idle timeout.
+     *
+     * @param key  the key to read
+     *
+     * @return the value, or null if there is no value for the key or it has expired
+     */
+    private ExpiringValue<V> read(String key)
+    {
+        evict();
+
+        ExpiringValue<V> expiringValue = mapLocalCache.get(key);
+
+        if (expiringValue == null && overflow != null)
+        {
+            promote(key);
+            expiringValue = mapLocalCache.get(key);
+        }
+
+        if (expiringValue == null)
+        {
+            return null;
+        }
+
+        long current = System.currentTimeMillis();
+
+        if (expiringValue.isExpired(current))
+        {
+            // the entry expired since the last flush
+            if (removeIfSame(key, expiringValue))
+            {
+                changed(CacheEvent.Type.EXPIRED, key, expiringValue.getValue());
+            }
+
+            return null;
+        }
+
+        expiringValue.setReferenced();
+
+        if (idleTimeout > 0L)
+        {
+            expiringValue.touch(current + idleTimeout);
+        }
+
+        return expiringValue;
+    }
+
+
+    /**
+     * Deserializes a value read from a snapshot.
+     *
+     * @param data  the serialized value
+     *
+     * @return the value
+     *
+     * @throws UncheckedIOException if the value cannot be deserialized
+     */
+    private V deserialize(byte[] data)
+    {
+        try
+        {
+            return serializer.deserialize(data, getValueClass());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    /**
+     * Moves the entry for the specified key from disk back into memory, if it has been
+     * evicted to disk and has not expired. This is done atomically with respect to other
+     * operations on the key, so that it is never absent from both.
+     *
+     * @param key  the key
+     */
+    private void promote(String key)
+    {
+        if (overflow == null || !overflow.contains(key))
+        {
+            return;
+        }
+
+        long               current  = System.currentTimeMillis();
+        AtomicReference<V> expired  = new AtomicReference<>();
+        boolean[]          promoted = new boolean[1];
+
+        mapLocalCache.computeIfAbsent(key,
+                                      k -> {
+                                          DiskStore.Entry entry = overflow.take(k);
+
+                                          if (entry == null)
+                                          {
+                                              return null;
+                                          }
+
+                                          if (entry.isExpired(current))
+                                          {
+                                              expired.set(hasListeners() ? deserialize(entry.getValue()) : null);
+
+                                              return null;
+                                          }
+
+                                          ExpiringValue<V> value = new ExpiringValue<>(deserialize(entry.getValue()),
+                                                                                       entry.getExpiry(),
+                                                                                       idleTimeout > 0L
+                                                                                       ? current + idleTimeout
+                                                                                       : NO_EXPIRY,
+                                                                                       entry.getVersion());
+
+                                          // the entry is being accessed, so it is not evicted again when it is admitted
+                                          value.setReferenced();
+                                          promoted[0] = true;
+
+                                          return value;
+                                      });
+
+        if (promoted[0])
+        {
+            registerDiskHit();
+            admit(key, null);
+        }
+        else if (expired.get() != null)
+        {
+            changed(CacheEvent.Type.EXPIRED, key, expired.get());
+        }
+    }
+
+
+    /**
+     * Queues an entry that is being evicted to be written to disk.
+     *
+     * @param key    the key
+     * @param value  the entry
+     *
+     * @return the entry on disk, or null if evicted entries are discarded or it could not be queued
+     */
+    private DiskStore.Entry spill(String           key,
+                                  ExpiringValue<V> value)
+    {
+        if (overflow == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            return overflow.write(key,
+                                  serializer.serialize(value.getValue()),
+                                  value.expiryTime,
+                                  value.idleExpiryTime,
+                                  value.getVersion());
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+
+    /**
+     * Reports an entry that was evicted to disk, but then dropped before it was written.
+     *
+     * @param key    the key
+     * @param value  the serialized value
+     */
+    private void dropped(String key,
+                         byte[] value)
+    {
+        if (hasListeners())
+        {
+            changed(CacheEvent.Type.EVICTED, key, deserialize(value));
+        }
+    }
+
+
+    /**
+     * Converts a value stored in the cache to a counter value.
+     *
+     * @param value  the stored value
+     *
+     * @return the counter value
+     *
+     * @throws IllegalStateException if the value is not a whole number
+     */
+    private static long toLong(Object value)
+    {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+        {
+            return ((Number) value).longValue();
+        }
+
+        throw new IllegalStateException("Value is not a counter: " + value);
+    }
+
+
+    /**
+     * Records the insertion of the specified key for eviction, if the cache is bounded and
+     * the key is new, evicting entries while the cache exceeds its capacity.
+     *
+     * @param key       the key that was inserted
+     * @param oldValue  the value previously associated with the key, if any
+     */
+    private void admit(String           key,
+                       ExpiringValue<V> oldValue)
+    {
+        if (clock == null || oldValue != null)
+        {
+            return;
+        }
+
+        clock.offer(key);
+
+        if (clockSize.incrementAndGet() > 2 * capacity)
+        {
+            purgeClock();
+        }
+
+        while (mapLocalCache.size() > capacity)
+        {
+            if (!evictOne())
+            {
+                break;
+            }
+        }
+    }
+
+
+    /**
+     * Evicts the next entry chosen by the CLOCK algorithm.
+     *
+     * @return true if an entry was evicted, false if there was no entry to evict
+     */
+    private boolean evictOne()
+    {
+        String key;
+
+        while ((key = clock.poll()) != null)
+        {
+            ExpiringValue<V> value = mapLocalCache.get(key);
+
+            if (value == null)
+            {
+                // the key was removed since it was queued
+                clockSize.decrementAndGet();
+            }
+            else if (value.clearReferenced())
+            {
+                // give recently read entries a second chance
+                clock.offer(key);
+            }
+            else
+            {
+                // the entry is written to disk before it is removed, so that it is never absent from both
+                DiskStore.Entry written = spill(key, value);
+
+                if (removeEvicted(key, value, written))
+                {
+                    clockSize.decrementAndGet();
+
+                    if (written == null)
+                    {
+                        changed(CacheEvent.Type.EVICTED, key, value.getValue());
+                    }
+
+                    return true;
+                }
+
+                clock.offer(key);
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Removes keys that are no longer in the cache from the eviction queue, so that it
+     * does not grow without bound when keys are repeatedly removed and re-inserted.
+     */
+    private synchronized void purgeClock()
+    {
+        if (clockSize.get() > 2 * capacity)
+        {
+            Set<String> seen = new HashSet<>();
+
+            clock.removeIf(key -> !mapLocalCache.containsKey(key) || !seen.add(key));
+            clockSize.set(clock.size());
+        }
+    }
+
+
+    /**
+     * Removes an entry that has been written to disk from memory, if it is still the entry
+     * for the key. Otherwise the copy on disk is stale, and is discarded before the key can
+     * be accessed again, so that it is never promoted in place of the entry that replaced it.
+     *
+     * @param key      the key of the entry
+     * @param value    the entry to remove
+     * @param written  the copy of the entry on disk, or null if it was not written to disk
+     *
+     * @return true if the entry was removed
+     */
+    private boolean removeEvicted(String           key,
+                                  ExpiringValue<V> value,
+                                  DiskStore.Entry  written)
+    {
+        boolean[] removed = new boolean[1];
+
+        mapLocalCache.compute(key, (k, v) -> {
+            removed[0] = v == value;
+
+            if (!removed[0] && written != null)
+            {
+                overflow.discard(k, written);
+            }
+
+            return removed[0] ? null : v;
+        });
+
+        return removed[0];
+    }
+
+
+    /**
+     * Removes the entry for the specified key if it is still the specified entry. Entries
+     * are compared by identity, as {@link ExpiringValue#equals(Object)} compares only their
+     * values, and an equal value may have been written since with a new expiry and version.
+     *
+     * @param key    the key of the entry
+     * @param value  the entry to remove
+     *
+     * @return true if the entry was removed
+     */
+    private boolean removeIfSame(String           key,
+                                 ExpiringValue<V> value)
+    {
+        boolean[] removed = new boolean[1];
+
+        mapLocalCache.computeIfPresent(key, (k, v) -> {
+            removed[0] = v == value;
+
+            return removed[0] ? null : v;
+        });
+
+        return removed[0];
+    }
+
+
+    /**
+     * Evict any entries that have reached expiry time.
+     */
+    private void evict()
+    {
+        long                          current = System.currentTimeMillis();
+        Map<String, ExpiringValue<V>> expired = new HashMap<>();
+
+        synchronized (this)
+        {
+            // protect against other threads attempting to evict() at the same time
+            if (current > nextFlush)
+            {
+                nextFlush = System.currentTimeMillis();
+
+                try
+                {
+                    mapLocalCache.forEach(
+                        (k, v) -> {
+                            if (v.isExpired(System.currentTimeMillis()))
+                            {
+                                expired.put(k, v);
+                            }
+                        });
+
+                    // remove the entries, unless they have been replaced since
+                    expired.entrySet().removeIf(entry -> !removeIfSame(entry.getKey(), entry.getValue()));
+                }
+                finally
+                {
+                    // don't allow another flush for 50ms
+                    nextFlush = System.currentTimeMillis() + 50L;
+                }
+
+            }
+        }
+
+        // listeners are not called while holding the lock
+        expired.forEach((k, v) -> changed(CacheEvent.Type.EXPIRED, k, v.getValue()));
+    }
+
+
+    /**
+     * Delivers an event for a change to the cache, if any listeners are registered.
+     *
+     * @param type   the type of change
+     * @param key    the key of the changed entry, or null if the change applies to every entry
+     * @param value  the new value of the entry, or the old value if it was removed
+     */
+    private void changed(CacheEvent.Type type,
+                         String          key,
+                         V               value)
+    {
+        if (hasListeners())
+        {
+            dispatch(new CacheEvent<>(type, key, value));
+        }
+    }
+
+
+    /**
+     * Returns the entries of the cache, in memory and then on disk, which are read from
+     * disk as the stream is consumed.
+     *
+     * @return the entries of the cache
+     */
+    private Stream<Map.Entry<String, ExpiringValue<V>>> entries()
+    {
+        Stream<Map.Entry<String, ExpiringValue<V>>> entries = mapLocalCache.entrySet().stream();
+
+        if (overflow == null)
+        {
+            return entries;
+        }
+
+        return Stream.concat(entries,
+                             overflow.entries()
+                                     .map(entry -> {
+                                         DiskStore.Entry value = entry.getValue();
+
+                                         return new AbstractMap.SimpleImmutableEntry<>(
+                                             entry.getKey(),
+                                             new ExpiringValue<>(deserialize(value.getValue()),
+                                                                 value.getExpiry(),
+                                                                 value.getIdleExpiry(),
+                                                                 value.getVersion()));
+                                     }));
+    }
+
+
+    /**
+     * The pages of a scan of the cache. The cursor of each page is the number of entries
+     * visited so far, so a resumed scan skips that many entries; since the entries are not
+     * ordered, a scan is only resumed reliably if the cache has not changed.
+     */
+    private class LocalPages implements Pages<V>
+    {
+        /**
+         * The prefix of the keys.
+         */
+        private final String prefix;
+
+        /**
+         * The maximum number of entries in each page.
+         */
+        private final int pageSize;
+
+        /**
+         * The iterator over the entries.
+         */
+        private final Iterator<Map.Entry<String, ExpiringValue<V>>> iterator = entries().iterator();
+
+        /**
+         * The number of entries visited so far.
+         */
+        private long position;
+
+        /**
+         * The next page, or null if it has not been fetched.
+         */
+        private Page<V> next;
+
+
+        /**
+         * Constructs a LocalPages.
+         *
+         * @param prefix    the prefix of the keys
+         * @param pageSize  the maximum number of entries in each page
+         * @param position  the number of entries to skip
+         */
+        private LocalPages(String prefix,
+                           int    pageSize,
+                           long   position)
+        {
+            this.prefix   = prefix;
+            this.pageSize = pageSize;
+
+            while (this.position < position && iterator.hasNext())
+            {
+                iterator.next();
+                this.position++;
+            }
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next == null)
+            {
+                List<Map.Entry<String, V>> entries = new ArrayList<>();
+                long                       now     = System.currentTimeMillis();
+
+                while (entries.size() < pageSize && iterator.hasNext())
+                {
+                    Map.Entry<String, ExpiringValue<V>> entry = iterator.next();
+
+                    position++;
+
+                    if (entry.getKey().startsWith(prefix) && !entry.getValue().isExpired(now))
+                    {
+                        entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(),
+                                                                           entry.getValue().getValue()));
+                    }
+                }
+
+                if (!entries.isEmpty())
+                {
+                    byte[] cursor = iterator.hasNext() ? ByteBuffer.allocate(8).putLong(position).array() : new byte[0];
+
+                    next = new Page<>(entries, cursor);
+                }
+            }
+
+            return next != null;
+        }
+
+
+        @Override
+        public Page<V> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            Page<V> page = next;
+
+            next = null;
+
+            return page;
+        }
+
+
+        @Override
+        public void close()
+        {
+            // the map iterator holds no resources
+        }
+    }
+
+
+    /**
+     * Inner class to hold the value plus absolute expiry or -1 if no expiry.
+     *
+     * @param <V> value to store
+     */
+    private static class ExpiringValue<V>
+    {
+        /**
+         * The value to store in the cache.
+         */
+        private final V value;
+
+        /**
+         * The absolute expiry time or -1 if no expiry.
+         */
+        private final long expiryTime;
+
+        /**
+         * The version of the entry.
+         */
+        private final long version;
+
+        /**
+         * The absolute time at which the entry expires unless it is read, or -1 if the
+         * entry does not expire when idle. Reads update it in place.
+         */
+        private volatile long idleExpiryTime;
+
+        /**
+         * Indicates if the value has been read since it was last visited for eviction.
+         */
+        private volatile boolean referenced;
+
+
+        /**
+         * Constructs a new ExpiringValue with the value and expiry time.
+         *
+         * @param value          value to store
+         * @param expiryTime     absolute expiry time in millis
+         * @param idleExpiryTime absolute time in millis at which the entry expires unless it is read
+         * @param version        version of the entry
+         */
+        private ExpiringValue(V    value,
+                              long expiryTime,
+                              long idleExpiryTime,
+                              long version)
+        {
+            this.value          = value;
+            this.expiryTime     = expiryTime;
+            this.idleExpiryTime = idleExpiryTime;
+            this.version        = version;
+        }
+
+
+        /**
+         * Creates a new expiring value and set the expiry to the absolute expiry or
+         * -1L if expiry is not required.
+         *
+         * @param value       the value to store
+         * @param expiryTime  Expiry value in millis, or -1L (or 0L for the default) for no expiry
+         * @param idleTimeout idle timeout in millis, or 0L for no idle expiry
+         * @param version     version of the entry
+         * @param <V>         the type of the value
+         * @return ExpiringValue entry
+         */
+        private static <V> ExpiringValue<V> of(V    value,
+                                               long expiryTime,
+                                               long idleTimeout,
+                                               long version)
+        {
+            long current = System.currentTimeMillis();
+
+            return new ExpiringValue<>(value,
+                                       expiryTime <= 0L ? NO_EXPIRY : current + expiryTime,
+                                       idleTimeout <= 0L ? NO_EXPIRY : current + idleTimeout,
+                                       version);
+        }
+
+
+        /**
+         * Returns the value of the entry.
+         *
+         * @return the value of the entry
+         */
+        public V getValue()
+        {
+            return value;
+        }
+
+
+        /**
+         * Marks the value as having been read.
+         */
+        private void setReferenced()
+        {
+            if (!referenced)
+            {
+                referenced = true;
+            }
+        }
+
+
+        /**
+         * Clears the indication that the value has been read.
+         *
+         * @return true if the value had been read since it was last visited for eviction
+         */
+        private boolean clearReferenced()
+        {
+            boolean wasReferenced = referenced;
+
+            if (wasReferenced)
+            {
+                referenced = false;
+            }
+
+            return wasReferenced;
+        }
+
+
+        /**
+         * Returns the version of the entry.
+         *
+         * @return the version of the entry
+         */
+        public long getVersion()
+        {
+            return version;
+        }
+
+
+        /**
+         * Restarts the idle timeout of the entry. The deadline is only ever moved forward,
+         * and is not written when it is unchanged, so that frequent reads of the same entry
+         * do not contend.
+         *
+         * @param idleExpiryTime the absolute time at which the entry expires unless it is read again
+         */
+        private void touch(long idleExpiryTime)
+        {
+            if (idleExpiryTime > this.idleExpiryTime)
+            {
+                this.idleExpiryTime = idleExpiryTime;
+            }
+        }
+
+
+        /**
+         * Indicates if the entry has expired, either because its expiry time has passed
+         * or because it has not been read for its idle timeout.
+         *
+         * @param current the current time in millis
+         * @return true if the entry has expired
+         */
+        private boolean isExpired(long current)
+        {
+            long expiry = getExpiry();
+
+            return expiry != NO_EXPIRY && expiry < current;
+        }
+
+
+        /**
+         * Returns the time at which the entry expires, which is the earlier of its expiry
+         * time and its idle deadline.
+         *
+         * @return the absolute expiry of the entry, or -1 if it does not expire
+         */
+        public long getExpiry()
+        {
+            long idleExpiry = idleExpiryTime;
+
+            if (idleExpiry == NO_EXPIRY)
+            {
+                return expiryTime;
+            }
+
+            return expiryTime == NO_EXPIRY ? idleExpiry : Math.min(expiryTime, idleExpiry);
         }
 
 
@@ -320,7 +1552,8 @@ public class LocalCache<V> extends AbstractCache<V>
         @Override
         public String toString()
         {
-            return "ExpiringValue{" + "value=" + value + ", expiryTime=" + expiryTime + '}';
+            return "ExpiringValue{" + "value=" + value + ", expiryTime=" + expiryTime + ", idleExpiryTime="
+                   + idleExpiryTime + ", version=" + version + '}';
         }
 
 
@@ -19,6 +19,7 @@
 package com.oracle.cloud.cache.basic;
 
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
 
 /**
  * An implementation of a {@link Session} which uses a {@link LocalCache}.
@@ -33,4 +34,42 @@ public class LocalSession implements Session
     {
         return new LocalCache<>(sCacheName, this, options);
     }
+
+
+    @Override
+    public CounterCache getCounterCache(String         sCacheName,
+                                        CacheOption... options)
+    {
+        return new LocalCounterCache(sCacheName, this, options);
+    }
+
+
+    /**
+     * A {@link LocalCache} of counters.
+     */
+    private static class LocalCounterCache extends LocalCache<Long> implements CounterCache
+    {
+        /**
+         * Constructs a LocalCounterCache for the given cache and session.
+         *
+         * @param cacheName cache name
+         * @param session   the session that created this cache
+         * @param options   any option to apply
+         */
+        private LocalCounterCache(String         cacheName,
+                                  LocalSession   session,
+                                  CacheOption... options)
+        {
+            super(cacheName, session, withValueType(Long.class, options));
+        }
+
+
+        @Override
+        public long addAndGet(String       key,
+                              long         delta,
+                              PutOption... options)
+        {
+            return super.addAndGet(key, delta, options);
+        }
+    }
 }
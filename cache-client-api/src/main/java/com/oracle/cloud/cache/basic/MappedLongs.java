@@ -0,0 +1,320 @@
+/*
+ * File: MappedLongs.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Atomic access to the longs of a mapped buffer, in the style of an
+ * {@link java.util.concurrent.atomic.AtomicLongArray} indexed by byte offset, for the
+ * memory that a {@link SharedRegion} shares with other processes.
+ * <p>
+ * The JDK only provides atomic operations on mapped memory through the internal
+ * {@code sun.misc.Unsafe}, which is looked up reflectively so that the code compiles without
+ * warnings on every JDK. Every offset is checked to be within the buffer and aligned to
+ * 8 bytes before it is accessed; the rest of the buffer is accessed by its own absolute,
+ * bounds-checked methods.
+ * </p>
+ */
+final class MappedLongs
+{
+    /**
+     * Reads a long field of an object, or a long at an address.
+     */
+    private static final MethodHandle GET_LONG;
+
+    /**
+     * Reads a long with volatile semantics.
+     */
+    private static final MethodHandle GET_LONG_VOLATILE;
+
+    /**
+     * Writes a long with volatile semantics.
+     */
+    private static final MethodHandle PUT_LONG_VOLATILE;
+
+    /**
+     * Atomically sets a long if it holds the expected value.
+     */
+    private static final MethodHandle COMPARE_AND_SWAP_LONG;
+
+    /**
+     * Atomically adds to a long.
+     */
+    private static final MethodHandle GET_AND_ADD_LONG;
+
+    /**
+     * Orders the loads before it with the loads after it.
+     */
+    private static final MethodHandle LOAD_FENCE;
+
+    /**
+     * The offset of the address field of a buffer.
+     */
+    private static final long ADDRESS;
+
+    static
+    {
+        try
+        {
+            Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            Field    field = clazz.getDeclaredField("theUnsafe");
+
+            field.setAccessible(true);
+
+            Object               unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            GET_LONG              = bind(lookup, clazz, unsafe, "getLong", long.class, Object.class, long.class);
+            GET_LONG_VOLATILE     = bind(lookup, clazz, unsafe, "getLongVolatile", long.class,
+                                         Object.class, long.class);
+            PUT_LONG_VOLATILE     = bind(lookup, clazz, unsafe, "putLongVolatile", void.class,
+                                         Object.class, long.class, long.class);
+            COMPARE_AND_SWAP_LONG = bind(lookup, clazz, unsafe, "compareAndSwapLong", boolean.class,
+                                         Object.class, long.class, long.class, long.class);
+            GET_AND_ADD_LONG      = bind(lookup, clazz, unsafe, "getAndAddLong", long.class,
+                                         Object.class, long.class, long.class);
+            LOAD_FENCE            = bind(lookup, clazz, unsafe, "loadFence", void.class);
+
+            MethodHandle offset = bind(lookup, clazz, unsafe, "objectFieldOffset", long.class, Field.class);
+
+            ADDRESS = (long) offset.invokeExact(Buffer.class.getDeclaredField("address"));
+        }
+        catch (Throwable e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The buffer, which is referenced so that it is not unmapped.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The address of the first byte of the buffer.
+     */
+    private final long address;
+
+    /**
+     * The capacity of the buffer.
+     */
+    private final int capacity;
+
+
+    /**
+     * Constructs a MappedLongs over the specified buffer.
+     *
+     * @param buffer  the mapped buffer
+     */
+    MappedLongs(MappedByteBuffer buffer)
+    {
+        this.buffer   = buffer;
+        this.capacity = buffer.capacity();
+
+        try
+        {
+            this.address = (long) GET_LONG.invokeExact((Object) buffer, ADDRESS);
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+
+        if ((address & 7) != 0)
+        {
+            throw new IllegalArgumentException("Mapped buffer is not aligned to 8 bytes");
+        }
+    }
+
+
+    /**
+     * Returns the value of the long at the specified offset, with volatile semantics.
+     *
+     * @param offset  the offset of the long
+     *
+     * @return the value
+     */
+    long get(int offset)
+    {
+        try
+        {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, addressOf(offset));
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+    }
+
+
+    /**
+     * Sets the long at the specified offset, with volatile semantics.
+     *
+     * @param offset  the offset of the long
+     * @param value   the new value
+     */
+    void set(int  offset,
+             long value)
+    {
+        try
+        {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, addressOf(offset), value);
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+    }
+
+
+    /**
+     * Atomically sets the long at the specified offset to the new value, if it holds the
+     * expected value.
+     *
+     * @param offset    the offset of the long
+     * @param expected  the expected value
+     * @param value     the new value
+     *
+     * @return true if the long was set
+     */
+    boolean compareAndSet(int  offset,
+                          long expected,
+                          long value)
+    {
+        try
+        {
+            return (boolean) COMPARE_AND_SWAP_LONG.invokeExact((Object) null, addressOf(offset), expected, value);
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+    }
+
+
+    /**
+     * Atomically adds to the long at the specified offset.
+     *
+     * @param offset  the offset of the long
+     * @param delta   the value to add
+     *
+     * @return the previous value
+     */
+    long getAndAdd(int  offset,
+                   long delta)
+    {
+        try
+        {
+            return (long) GET_AND_ADD_LONG.invokeExact((Object) null, addressOf(offset), delta);
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+    }
+
+
+    /**
+     * Ensures that the loads before the fence are not reordered with the loads after it,
+     * including the plain loads made through the buffer.
+     */
+    static void loadFence()
+    {
+        try
+        {
+            LOAD_FENCE.invokeExact();
+        }
+        catch (Throwable e)
+        {
+            throw propagate(e);
+        }
+    }
+
+
+    /**
+     * Returns the address of the long at the specified offset, checking that it is
+     * within the buffer and aligned.
+     *
+     * @param offset  the offset of the long
+     *
+     * @return the address
+     *
+     * @throws IndexOutOfBoundsException if the long is not within the buffer, or is not aligned
+     */
+    private long addressOf(int offset)
+    {
+        if (offset < 0 || offset > capacity - 8 || (offset & 7) != 0)
+        {
+            throw new IndexOutOfBoundsException("Invalid offset " + offset + " of a long in " + capacity + " bytes");
+        }
+
+        return address + offset;
+    }
+
+
+    /**
+     * Returns a method of the internal class, bound to its instance.
+     *
+     * @param lookup      the lookup to use
+     * @param clazz       the internal class
+     * @param instance    the instance to bind the method to
+     * @param name        the name of the method
+     * @param returnType  the return type of the method
+     * @param parameters  the parameter types of the method
+     *
+     * @return the bound method handle
+     *
+     * @throws ReflectiveOperationException if the method does not exist
+     */
+    private static MethodHandle bind(MethodHandles.Lookup lookup,
+                                     Class<?>             clazz,
+                                     Object               instance,
+                                     String               name,
+                                     Class<?>             returnType,
+                                     Class<?>...          parameters)
+            throws ReflectiveOperationException
+    {
+        return lookup.findVirtual(clazz, name, MethodType.methodType(returnType, parameters)).bindTo(instance);
+    }
+
+
+    /**
+     * Returns an exception thrown by an operation as an unchecked exception.
+     *
+     * @param e  the exception thrown
+     *
+     * @return the unchecked exception to throw
+     */
+    private static RuntimeException propagate(Throwable e)
+    {
+        if (e instanceof Error)
+        {
+            throw (Error) e;
+        }
+
+        return e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException(e);
+    }
+}
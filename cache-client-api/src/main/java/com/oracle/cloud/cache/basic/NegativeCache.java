@@ -0,0 +1,166 @@
+/*
+ * File: NegativeCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.oracle.cloud.cache.basic.options.NegativeCaching;
+
+/**
+ * Remembers the keys for which a get recently returned null, as configured by the
+ * {@link NegativeCaching} option.
+ * <p>
+ * Misses are recorded in two generations, each holding up to half the maximum number of
+ * keys together with the time each miss expires. Once the current generation is full, it
+ * becomes the previous generation and the oldest generation is discarded, so memory use is
+ * bounded without tracking the order of individual keys.
+ * </p>
+ * <p>
+ * A miss is only recorded if no value was put through the cache while the miss was being
+ * determined, so that a concurrent put is never hidden.
+ * </p>
+ */
+class NegativeCache
+{
+    /**
+     * The maximum number of keys in a generation.
+     */
+    private final int generationSize;
+
+    /**
+     * The time for which a miss is remembered, in nanoseconds.
+     */
+    private final long ttlNanos;
+
+    /**
+     * The generation misses are recorded in.
+     */
+    private volatile ConcurrentHashMap<String, Long> current = new ConcurrentHashMap<>();
+
+    /**
+     * The generation recorded before the current one.
+     */
+    private volatile ConcurrentHashMap<String, Long> previous = new ConcurrentHashMap<>();
+
+    /**
+     * The number of times recorded misses have been invalidated.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+
+    /**
+     * Constructs a NegativeCache based upon a {@link NegativeCaching} option.
+     *
+     * @param negativeCaching  the {@link NegativeCaching} option (must be enabled)
+     */
+    NegativeCache(NegativeCaching negativeCaching)
+    {
+        this.generationSize = negativeCaching.getMaxEntries() / 2;
+        this.ttlNanos       = negativeCaching.getTtl().toNanos();
+    }
+
+
+    /**
+     * Determines if a miss has recently been recorded for the specified key.
+     *
+     * @param key  the key
+     * @return true if the key is known to be missing
+     */
+    boolean isMissing(String key)
+    {
+        Long expiry = current.get(key);
+
+        if (expiry == null)
+        {
+            expiry = previous.get(key);
+        }
+
+        return expiry != null && expiry - System.nanoTime() > 0;
+    }
+
+
+    /**
+     * Returns a stamp that changes whenever recorded misses are invalidated, which is
+     * obtained before determining whether a key is missing.
+     *
+     * @return the stamp
+     */
+    long stamp()
+    {
+        return invalidations.get();
+    }
+
+
+    /**
+     * Records a miss for the specified key, unless misses have been invalidated since
+     * the specified stamp was obtained.
+     *
+     * @param key    the key
+     * @param stamp  the stamp obtained before the miss was determined
+     */
+    void recordMiss(String key,
+                    long   stamp)
+    {
+        ConcurrentHashMap<String, Long> generation = current;
+
+        if (stamp != invalidations.get())
+        {
+            return;
+        }
+
+        generation.put(key, System.nanoTime() + ttlNanos);
+
+        if (generation.size() >= generationSize)
+        {
+            synchronized (this)
+            {
+                if (generation == current)
+                {
+                    previous = generation;
+                    current  = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Forgets any miss recorded for the specified key, once a value is put for it.
+     *
+     * @param key  the key
+     */
+    void invalidate(String key)
+    {
+        invalidations.incrementAndGet();
+        current.remove(key);
+        previous.remove(key);
+    }
+
+
+    /**
+     * Forgets all recorded misses.
+     */
+    synchronized void clear()
+    {
+        invalidations.incrementAndGet();
+        previous = new ConcurrentHashMap<>();
+        current  = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * File: RequestBudget.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket that caps additional requests (such as hedges or retries) at a
+ * fraction of regular requests. Each regular request deposits {@code ratio} tokens
+ * and each additional request withdraws one whole token, so over time no more than
+ * {@code ratio} additional requests are issued per regular request.
+ */
+class RequestBudget
+{
+    /**
+     * The number of units in a whole token.
+     */
+    private static final long UNIT = 1000L;
+
+    /**
+     * The number of token units deposited for each regular request.
+     */
+    private final long deposit;
+
+    /**
+     * The maximum number of token units that may accumulate.
+     */
+    private final long capacity;
+
+    /**
+     * The current number of token units.
+     */
+    private final AtomicLong tokens;
+
+
+    /**
+     * Constructs a RequestBudget.
+     *
+     * @param ratio     the maximum ratio of additional requests to regular requests
+     * @param maxBurst  the maximum number of additional requests that may be issued in a burst
+     */
+    RequestBudget(double ratio,
+                  int    maxBurst)
+    {
+        this.deposit  = Math.max(1L, Math.round(ratio * UNIT));
+        this.capacity = Math.max(1, maxBurst) * UNIT;
+        this.tokens   = new AtomicLong(capacity);
+    }
+
+
+    /**
+     * Records a regular request, depositing tokens into the budget.
+     */
+    void onRequest()
+    {
+        long current;
+
+        do
+        {
+            current = tokens.get();
+
+            if (current >= capacity)
+            {
+                return;
+            }
+        }
+        while (!tokens.compareAndSet(current, Math.min(capacity, current + deposit)));
+    }
+
+
+    /**
+     * Attempts to withdraw a token for an additional request.
+     *
+     * @return true if the additional request is within the budget
+     */
+    boolean tryAcquire()
+    {
+        long current;
+
+        do
+        {
+            current = tokens.get();
+
+            if (current < UNIT)
+            {
+                return false;
+            }
+        }
+        while (!tokens.compareAndSet(current, current - UNIT));
+
+        return true;
+    }
+}
@@ -19,24 +19,46 @@
 package com.oracle.cloud.cache.basic;
 
 import java.io.IOException;
-
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import com.oracle.cloud.cache.ServerCacheMetrics;
 import com.oracle.cloud.cache.basic.io.Serializer;
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
 import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.Retry;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.processors.EntryProcessor;
 import com.oracle.cloud.cache.rest.MultiValue;
+import org.glassfish.jersey.client.ClientProperties;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
+import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 import static javax.ws.rs.core.Response.Status.CONFLICT;
 import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.Response.Status.NO_CONTENT;
 import static javax.ws.rs.core.Response.Status.OK;
+import static javax.ws.rs.core.Response.Status.PRECONDITION_FAILED;
 
 /**
  * An implementation of the {@link Cache} interface which uses the
@@ -54,6 +76,13 @@ public class RestCache<V> extends AbstractCache<V>
     private static final SecurityException SECURITY_EXCEPTION =
         new SecurityException("Server responded with HTTP 403 (Forbidden)");
 
+    /**
+     * The maximum number of entries in a page of a scan, as a page is returned as a
+     * {@link MultiValue} holding the cursor, followed by the key and value of each entry,
+     * which may hold at most 1000 values.
+     */
+    private static final int MAX_PAGE_SIZE = 499;
+
     /**
      * The {@link RestSession} to be used.
      */
@@ -69,6 +98,21 @@ public class RestCache<V> extends AbstractCache<V>
      */
     private final Serializer serializer;
 
+    /**
+     * The default timeout for operations against the cache.
+     */
+    private final Timeout timeout;
+
+    /**
+     * The policy for retrying idempotent operations against the cache.
+     */
+    private final Retry retry;
+
+    /**
+     * The idle expiry for entries in the cache.
+     */
+    private final IdleExpiry idleExpiry;
+
 
     /**
      * Constructs a {@link RestCache} with the given cache name, {@link RestSession} and
@@ -83,20 +127,24 @@ public class RestCache<V> extends AbstractCache<V>
                      RestSession    session,
                      CacheOption... options)
     {
-        super(cacheName, options);
+        super(cacheName, session.getOptions().get(CircuitBreaker.class), options);
 
         restSession = session;
-        serializer  = getOptions().get(Serializer.class, session.getOptions().get(Serializer.class));
+        serializer  = getSerializer(session.getOptions().get(Serializer.class));
         this.cache  = session.getTarget().path(cacheName);
+        timeout     = getOptions().get(Timeout.class, session.getOptions().get(Timeout.class));
+        retry       = getOptions().get(Retry.class, session.getOptions().get(Retry.class));
+        idleExpiry  = getOptions().get(IdleExpiry.class);
     }
 
 
     @Override
-    protected V get(String key)
+    protected V get(String  key,
+                    Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key).request(APPLICATION_OCTET_STREAM).get();
+            Response response = request(read(key), timeout, APPLICATION_OCTET_STREAM).get();
 
             validateResponse(response.getStatus(), OK.getStatusCode(), NOT_FOUND.getStatusCode());
 
@@ -111,18 +159,47 @@ public class RestCache<V> extends AbstractCache<V>
     }
 
 
+    @Override
+    protected Expiring<V> getExpiring(String  key,
+                                      Timeout timeout)
+    {
+        try
+        {
+            Response response = request(read(key), timeout, APPLICATION_OCTET_STREAM).get();
+
+            validateResponse(response.getStatus(), OK.getStatusCode(), NOT_FOUND.getStatusCode());
+
+            if (response.getStatus() != OK.getStatusCode())
+            {
+                return null;
+            }
+
+            // the remaining time-to-live is only known if the server reports it
+            String ttl = response.getHeaderString("X-TTL");
+
+            return new Expiring<>(serializer.deserialize(response.readEntity(byte[].class), getValueClass()),
+                                  ttl == null ? UNKNOWN_TTL : Long.parseLong(ttl));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
     @Override
     protected V put(String  key,
                     V       value,
                     Expiry  expiry,
-                    boolean returnOld)
+                    boolean returnOld,
+                    Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .queryParam("ttl", expiry.getExpiry())
-                    .queryParam("returnOld", returnOld)
-                    .request(APPLICATION_OCTET_STREAM)
+            WebTarget target   = cache.path(key)
+                    .queryParam("ttl", ttl(expiry))
+                    .queryParam("returnOld", returnOld);
+            Response  response = request(target, timeout, APPLICATION_OCTET_STREAM)
                     .put(Entity.entity(serializer.serialize(value), APPLICATION_OCTET_STREAM));
 
             validateResponse(response.getStatus(), OK.getStatusCode(), NO_CONTENT.getStatusCode());
@@ -142,14 +219,15 @@ public class RestCache<V> extends AbstractCache<V>
     protected V putIfAbsent(String  key,
                             V       value,
                             Expiry  expiry,
-                            boolean returnOld)
+                            boolean returnOld,
+                            Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .queryParam("ttl", expiry.getExpiry())
-                    .queryParam("returnOld", returnOld)
-                    .request(APPLICATION_OCTET_STREAM)
+            WebTarget target   = cache.path(key)
+                    .queryParam("ttl", ttl(expiry))
+                    .queryParam("returnOld", returnOld);
+            Response  response = request(target, timeout, APPLICATION_OCTET_STREAM)
                     .header("X-Method", "putIfAbsent")
                     .post(Entity.entity(serializer.serialize(value), APPLICATION_OCTET_STREAM));
 
@@ -170,14 +248,15 @@ public class RestCache<V> extends AbstractCache<V>
     protected V replace(String  key,
                         V       value,
                         Expiry  expiry,
-                        boolean returnOld)
+                        boolean returnOld,
+                        Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .queryParam("ttl", expiry.getExpiry())
-                    .queryParam("returnOld", returnOld)
-                    .request(APPLICATION_OCTET_STREAM)
+            WebTarget target   = cache.path(key)
+                    .queryParam("ttl", ttl(expiry))
+                    .queryParam("returnOld", returnOld);
+            Response  response = request(target, timeout, APPLICATION_OCTET_STREAM)
                     .header("X-Method", "replace")
                     .post(Entity.entity(serializer.serialize(value), APPLICATION_OCTET_STREAM));
 
@@ -195,16 +274,16 @@ public class RestCache<V> extends AbstractCache<V>
 
 
     @Override
-    protected boolean replaceValue(String key,
-                                   V      valueOld,
-                                   V      valueNew,
-                                   Expiry expiry)
+    protected boolean replaceValue(String  key,
+                                   V       valueOld,
+                                   V       valueNew,
+                                   Expiry  expiry,
+                                   Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .queryParam("ttl", expiry.getExpiry())
-                    .request(APPLICATION_OCTET_STREAM)
+            WebTarget target   = cache.path(key).queryParam("ttl", ttl(expiry));
+            Response  response = request(target, timeout, APPLICATION_OCTET_STREAM)
                     .header("X-Method", "replaceValue")
                     .post(Entity.entity(new MultiValue(serializer.serialize(valueOld),
                                                        serializer.serialize(valueNew)),
@@ -224,14 +303,13 @@ public class RestCache<V> extends AbstractCache<V>
 
     @Override
     protected V remove(String  key,
-                       boolean returnOld)
+                       boolean returnOld,
+                       Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .queryParam("returnOld", returnOld)
-                    .request()
-                    .delete();
+            WebTarget target   = cache.path(key).queryParam("returnOld", returnOld);
+            Response  response = request(target, timeout).delete();
 
             validateResponse(response.getStatus(), OK.getStatusCode(), NO_CONTENT.getStatusCode());
 
@@ -247,13 +325,13 @@ public class RestCache<V> extends AbstractCache<V>
 
 
     @Override
-    protected boolean removeValue(String key,
-                                  V      value)
+    protected boolean removeValue(String  key,
+                                  V       value,
+                                  Timeout timeout)
     {
         try
         {
-            Response response = cache.path(key)
-                    .request(APPLICATION_OCTET_STREAM)
+            Response response = request(cache.path(key), timeout, APPLICATION_OCTET_STREAM)
                     .header("X-Method", "removeValue")
                     .post(Entity.entity(serializer.serialize(value), APPLICATION_OCTET_STREAM));
 
@@ -269,10 +347,129 @@ public class RestCache<V> extends AbstractCache<V>
     }
 
 
+    @Override
+    protected Versioned<V> getWithVersion(String  key,
+                                          Timeout timeout)
+    {
+        try
+        {
+            Response response = request(read(key), timeout, APPLICATION_OCTET_STREAM).get();
+
+            validateResponse(response.getStatus(), OK.getStatusCode(), NOT_FOUND.getStatusCode());
+
+            if (response.getStatus() != OK.getStatusCode())
+            {
+                return null;
+            }
+
+            EntityTag tag = response.getEntityTag();
+
+            if (tag == null)
+            {
+                throw new UnsupportedOperationException("Server did not return an entry version (ETag)");
+            }
+
+            return new Versioned<>(serializer.deserialize(response.readEntity(byte[].class), getValueClass()),
+                                   Long.parseLong(tag.getValue()));
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean replaceVersion(String  key,
+                                     long    version,
+                                     V       valueNew,
+                                     Expiry  expiry,
+                                     Timeout timeout)
+    {
+        try
+        {
+            WebTarget target   = cache.path(key).queryParam("ttl", ttl(expiry));
+            Response  response = request(target, timeout, APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.IF_MATCH, new EntityTag(String.valueOf(version)))
+                    .put(Entity.entity(serializer.serialize(valueNew), APPLICATION_OCTET_STREAM));
+
+            validateResponse(response.getStatus(),
+                             NO_CONTENT.getStatusCode(),
+                             OK.getStatusCode(),
+                             PRECONDITION_FAILED.getStatusCode());
+
+            // precondition failed indicates a version mismatch
+            return response.getStatus() != PRECONDITION_FAILED.getStatusCode();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    protected boolean removeVersion(String  key,
+                                    long    version,
+                                    Timeout timeout)
+    {
+        Response response = request(cache.path(key), timeout)
+                .header(HttpHeaders.IF_MATCH, new EntityTag(String.valueOf(version)))
+                .delete();
+
+        validateResponse(response.getStatus(),
+                         NO_CONTENT.getStatusCode(),
+                         OK.getStatusCode(),
+                         PRECONDITION_FAILED.getStatusCode());
+
+        // precondition failed indicates a version mismatch
+        return response.getStatus() != PRECONDITION_FAILED.getStatusCode();
+    }
+
+
+    @Override
+    protected boolean process(String         key,
+                              EntryProcessor processor,
+                              Expiry         expiry,
+                              Timeout        timeout)
+    {
+        WebTarget target   = cache.path(key).queryParam("ttl", ttl(expiry));
+        Response  response = request(target, timeout)
+                .header("X-Method", "process")
+                .post(Entity.entity(processor.toBytes(), APPLICATION_JSON));
+
+        validateResponse(response.getStatus(),
+                         NO_CONTENT.getStatusCode(),
+                         CONFLICT.getStatusCode(),
+                         NOT_FOUND.getStatusCode());
+
+        // no content indicates that the value was changed
+        return response.getStatus() == NO_CONTENT.getStatusCode();
+    }
+
+
+    @Override
+    protected long add(String  key,
+                       long    delta,
+                       Expiry  expiry,
+                       Timeout timeout)
+    {
+        WebTarget target   = cache.path(key).queryParam("ttl", ttl(expiry));
+        Response  response = request(target, timeout, TEXT_PLAIN)
+                .header("X-Method", "add")
+                .post(Entity.entity(String.valueOf(delta), TEXT_PLAIN));
+
+        validateResponse(response.getStatus(), OK.getStatusCode());
+
+        // the updated value is returned as plain text, avoiding serialization of the value
+        return Long.parseLong(response.readEntity(String.class).trim());
+    }
+
+
     @Override
     protected ServerCacheMetrics getServerMetrics()
     {
-        Response response = cache.request(APPLICATION_JSON).get();
+        Response response = request(cache, timeout, APPLICATION_JSON).get();
 
         validateResponse(response.getStatus(), OK.getStatusCode());
 
@@ -281,25 +478,55 @@ public class RestCache<V> extends AbstractCache<V>
 
 
     @Override
-    public void clear()
+    protected void clear(Timeout timeout)
     {
-        Response response = cache.request().delete();
+        Response response = request(cache, timeout).delete();
 
         validateResponse(response.getStatus(), NO_CONTENT.getStatusCode());
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The REST API has no way for the server to push changes, so listeners are not supported.
+     * </p>
+     */
+    @Override
+    protected void subscribe()
+    {
+        throw new UnsupportedOperationException("Listeners are not supported by the REST transport");
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Each page is fetched by a separate request, as it is iterated, and is limited to
+     * {@value #MAX_PAGE_SIZE} entries.
+     * </p>
+     */
+    @Override
+    protected Pages<V> scan(String  prefix,
+                            int     pageSize,
+                            byte[]  cursor,
+                            Timeout timeout)
+    {
+        return new RestPages(prefix, Math.min(pageSize, MAX_PAGE_SIZE), cursor, timeout);
+    }
+
+
     /**
      * Validates a given response code against a list of valid codes and return a
-     * {@link SecurityException} if the http code is 403, or a {@link RuntimeException}
+     * {@link SecurityException} if the http code is 403, or a {@link WebApplicationException}
      * if the HTTP response is not in the given list. <br>
      *
      * @param responseCode    the response code returned for request
      * @param validResponses  and array of response codes that are considered valid
      *
      * @throws {@link SecurityException} if a HTTP 403 was returned
-     * @throws {@link RuntimeException}  if any other response outside of the list
-     *                                   was returned
+     * @throws {@link WebApplicationException}  if any other response outside of the list
+     *                                          was returned
      */
     private static void validateResponse(int    responseCode,
                                          int... validResponses)
@@ -323,8 +550,244 @@ public class RestCache<V> extends AbstractCache<V>
 
             if (!found)
             {
-                throw new RuntimeException("Unexpected HTTP Response code " + responseCode
-                                           + " was returned from the server.");
+                throw new WebApplicationException("Unexpected HTTP Response code " + responseCode
+                                                  + " was returned from the server.", responseCode);
+            }
+        }
+    }
+
+
+    @Override
+    protected Timeout getDefaultTimeout()
+    {
+        return timeout;
+    }
+
+
+    @Override
+    protected Retry getRetry()
+    {
+        return retry;
+    }
+
+
+    @Override
+    protected boolean isTimeout(RuntimeException e)
+    {
+        return e instanceof ProcessingException && e.getCause() instanceof SocketTimeoutException;
+    }
+
+
+    @Override
+    protected boolean isTransient(RuntimeException e)
+    {
+        if (e instanceof WebApplicationException)
+        {
+            int status = ((WebApplicationException) e).getResponse().getStatus();
+
+            // server errors other than 501 (Not Implemented) may succeed on retry
+            return status >= 500 && status != 501;
+        }
+
+        return e instanceof ProcessingException && e.getCause() instanceof ConnectException;
+    }
+
+
+    /**
+     * Returns the target for reading the entry for the specified key, which asks the
+     * server to restart the time-to-live of the entry if idle expiry is enabled.
+     *
+     * @param key  the cache key
+     *
+     * @return the target for the read
+     */
+    private WebTarget read(String key)
+    {
+        WebTarget target = cache.path(key);
+
+        return idleExpiry.isEnabled() ? target.queryParam("touch", true) : target;
+    }
+
+
+    /**
+     * Returns the time-to-live with which to write an entry, which is limited to the idle
+     * timeout if idle expiry is enabled, so that the server expires the entry unless it is
+     * read within that time.
+     *
+     * @param expiry  the expiry for the entry
+     *
+     * @return the time-to-live in milliseconds
+     */
+    private long ttl(Expiry expiry)
+    {
+        return idleExpiry.limit(expiry.getExpiry());
+    }
+
+
+    /**
+     * Creates a request against the specified target, applying the specified timeout
+     * as both the connect and the read timeout.
+     *
+     * @param target      the target of the request
+     * @param timeout     the timeout for the request
+     * @param mediaTypes  the accepted response media types
+     *
+     * @return a builder for the request
+     */
+    private static Invocation.Builder request(WebTarget target,
+                                              Timeout   timeout,
+                                              String... mediaTypes)
+    {
+        Invocation.Builder builder = target.request(mediaTypes);
+
+        if (timeout.isEnabled())
+        {
+            int millis = (int) Math.min(Integer.MAX_VALUE, timeout.getTimeout());
+
+            builder.property(ClientProperties.CONNECT_TIMEOUT, millis).property(ClientProperties.READ_TIMEOUT, millis);
+        }
+
+        return builder;
+    }
+
+
+    /**
+     * The pages of a scan, each of which is fetched by a separate request.
+     */
+    private class RestPages implements Pages<V>
+    {
+        /**
+         * The prefix of the keys.
+         */
+        private final String prefix;
+
+        /**
+         * The maximum number of entries in each page.
+         */
+        private final int pageSize;
+
+        /**
+         * The timeout for each request.
+         */
+        private final Timeout timeout;
+
+        /**
+         * The cursor of the last page fetched.
+         */
+        private byte[] cursor;
+
+        /**
+         * The next page, or null if it has not been fetched.
+         */
+        private Page<V> next;
+
+        /**
+         * Indicates that the last page has been fetched, or the scan has been closed.
+         */
+        private boolean done;
+
+
+        /**
+         * Constructs a RestPages.
+         *
+         * @param prefix    the prefix of the keys
+         * @param pageSize  the maximum number of entries in each page
+         * @param cursor    the cursor of the last page received, or empty to start from the beginning
+         * @param timeout   the timeout for each request
+         */
+        private RestPages(String  prefix,
+                          int     pageSize,
+                          byte[]  cursor,
+                          Timeout timeout)
+        {
+            this.prefix   = prefix;
+            this.pageSize = pageSize;
+            this.cursor   = cursor;
+            this.timeout  = timeout;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            if (next == null && !done)
+            {
+                next = fetch();
+            }
+
+            return next != null;
+        }
+
+
+        @Override
+        public Page<V> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            Page<V> page = next;
+
+            next = null;
+
+            return page;
+        }
+
+
+        @Override
+        public void close()
+        {
+            done = true;
+            next = null;
+        }
+
+
+        /**
+         * Fetches the page after the last page fetched.
+         *
+         * @return the page
+         */
+        private Page<V> fetch()
+        {
+            WebTarget target = cache.queryParam("pageSize", pageSize);
+
+            if (!prefix.isEmpty())
+            {
+                target = target.queryParam("prefix", prefix);
+            }
+
+            if (cursor.length > 0)
+            {
+                target = target.queryParam("cursor", Base64.getUrlEncoder().encodeToString(cursor));
+            }
+
+            try
+            {
+                Response response = request(target, timeout, APPLICATION_OCTET_STREAM).get();
+
+                validateResponse(response.getStatus(), OK.getStatusCode());
+
+                // the page holds the cursor, followed by the key and value of each entry
+                MultiValue                 page    = response.readEntity(MultiValue.class);
+                List<Map.Entry<String, V>> entries = new ArrayList<>(page.getCount() / 2);
+
+                for (int i = 1; i + 1 < page.getCount(); i += 2)
+                {
+                    String key   = new String(page.get(i), StandardCharsets.UTF_8);
+                    V      value = serializer.deserialize(page.get(i + 1), getValueClass());
+
+                    entries.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+                }
+
+                cursor = page.get(0);
+                done   = cursor.length == 0;
+
+                return new Page<>(entries, cursor);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
             }
         }
     }
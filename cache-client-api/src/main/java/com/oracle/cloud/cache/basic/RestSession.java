@@ -26,6 +26,7 @@ import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 
 import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
 import com.oracle.cloud.cache.basic.options.SessionOption;
 import com.oracle.cloud.cache.rest.JacksonMapperProvider;
 import com.oracle.cloud.cache.rest.MultiValue;
@@ -77,6 +78,14 @@ public class RestSession implements Session
     }
 
 
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        return new RestCounterCache(cacheName, this, options);
+    }
+
+
     /**
      * Returns the {@link SessionOption}s for this session.
      *
@@ -115,4 +124,34 @@ public class RestSession implements Session
     {
         return "RestSession{" + "options=" + Arrays.toString(options.asArray()) + ", target=" + target + '}';
     }
-}
\ No newline at end of file
+
+
+    /**
+     * A {@link RestCache} of counters.
+     */
+    private static class RestCounterCache extends RestCache<Long> implements CounterCache
+    {
+        /**
+         * Constructs a RestCounterCache for the given cache and session.
+         *
+         * @param cacheName cache name
+         * @param session   the session that created this cache
+         * @param options   any option to apply
+         */
+        private RestCounterCache(String         cacheName,
+                                 RestSession    session,
+                                 CacheOption... options)
+        {
+            super(cacheName, session, withValueType(Long.class, options));
+        }
+
+
+        @Override
+        public long addAndGet(String       key,
+                              long         delta,
+                              PutOption... options)
+        {
+            return super.addAndGet(key, delta, options);
+        }
+    }
+}
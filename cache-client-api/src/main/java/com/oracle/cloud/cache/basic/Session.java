@@ -40,4 +40,19 @@ public interface Session
      */
     <V> Cache<V> getCache(String         cacheName,
                           CacheOption... options);
+
+
+    /**
+     * Returns an instance of a cache of counters with the given name and options, which
+     * supports atomic updates of its values. If the cache does not exist, it is created.
+     *
+     * @param cacheName the name of the cache, which is unique for a given
+     *                  ACCS instance
+     * @param options   the cache options (any {@link com.oracle.cloud.cache.basic.options.ValueType}
+     *                  option is ignored, as counters are always of type Long)
+     *
+     * @return the cache of counters
+     */
+    CounterCache getCounterCache(String         cacheName,
+                                 CacheOption... options);
 }
@@ -27,6 +27,9 @@ import com.oracle.cloud.cache.basic.options.SessionOption;
  * @author Aleksandar Seovic  2016.05.20
  * @see LocalSessionProvider
  * @see RemoteSessionProvider
+ * @see TieredSessionProvider
+ * @see ShardedSessionProvider
+ * @see FailoverSessionProvider
  */
 public interface SessionProvider
 {
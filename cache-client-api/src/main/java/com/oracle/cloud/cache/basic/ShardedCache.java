@@ -0,0 +1,561 @@
+/*
+ * File: ShardedCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.oracle.cloud.cache.basic.options.GetOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
+import com.oracle.cloud.cache.basic.options.RemoveOption;
+import com.oracle.cloud.cache.basic.options.ReplaceOption;
+import com.oracle.cloud.cache.basic.options.ScanOption;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import com.oracle.cloud.cache.processors.EntryProcessor;
+
+/**
+ * An implementation of the {@link Cache} interface which spreads its entries across the
+ * shards of a {@link ShardedSession}. Each single-key operation is applied to the cache on
+ * the shard the key is assigned to, while {@link #putAll(Map, PutOption...)} and
+ * {@link #clear()} are applied to the shards in parallel.
+ * <p>
+ * The metrics of the cache combine those of all shards, with the get, put and remove
+ * timings measured across shards. The metrics of each shard are available from
+ * {@link #getShardMetrics()}, to reveal any skew in the load on the shards.
+ * </p>
+ * <p>
+ * Listeners are registered with the cache on every shard, including shards added later.
+ * </p>
+ *
+ * @param <V> value type for the cache
+ */
+public class ShardedCache<V> implements Cache<V>
+{
+    /**
+     * Cache name.
+     */
+    private final String cacheName;
+
+    /**
+     * The session providing the shards.
+     */
+    private final ShardedSession session;
+
+    /**
+     * The function opening the cache on a shard.
+     */
+    private final Function<Session, ? extends Cache<V>> opener;
+
+    /**
+     * The caches opened on each shard.
+     */
+    private final ConcurrentHashMap<Session, Cache<V>> shards = new ConcurrentHashMap<>();
+
+    /**
+     * The ring the opened caches were last checked against.
+     */
+    private volatile HashRing<Session> ring;
+
+    /**
+     * The registered listeners, which are also registered with the caches opened later.
+     */
+    private final CopyOnWriteArrayList<CacheListener<? super V>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The {@link MetricRegistry} recording the timings across shards.
+     */
+    private volatile MetricRegistry metrics = createMetrics();
+
+
+    /**
+     * Constructs a ShardedCache.
+     *
+     * @param cacheName  cache name
+     * @param session    the session providing the shards
+     * @param opener     the function opening the cache on a shard
+     */
+    ShardedCache(String                                cacheName,
+                 ShardedSession                        session,
+                 Function<Session, ? extends Cache<V>> opener)
+    {
+        this.cacheName = cacheName;
+        this.session   = session;
+        this.opener    = opener;
+    }
+
+
+    @Override
+    public V get(String       key,
+                 GetOption... options)
+    {
+        return timed("get", () -> shard(key).get(key, options));
+    }
+
+
+    @Override
+    public Versioned<V> getWithVersion(String       key,
+                                       GetOption... options)
+    {
+        return timed("get", () -> shard(key).getWithVersion(key, options));
+    }
+
+
+    @Override
+    public V put(String       key,
+                 V            value,
+                 PutOption... options)
+    {
+        return timed("put", () -> shard(key).put(key, value, options));
+    }
+
+
+    @Override
+    public void putAll(Map<String, ? extends V> entries,
+                       PutOption...             options)
+    {
+        Map<Cache<V>, Map<String, V>> batches = new LinkedHashMap<>();
+
+        // the entries for each shard are put in a single batch
+        entries.forEach((key, value) -> batches.computeIfAbsent(shard(key), cache -> new LinkedHashMap<>())
+                                               .put(key, value));
+
+        List<Runnable> tasks = new ArrayList<>(batches.size());
+
+        batches.forEach((cache, batch) -> tasks.add(() -> cache.putAll(batch, options)));
+
+        timed("put", () -> {
+            parallel(tasks);
+
+            return null;
+        });
+    }
+
+
+    @Override
+    public V putIfAbsent(String       key,
+                         V            value,
+                         PutOption... options)
+    {
+        return timed("put", () -> shard(key).putIfAbsent(key, value, options));
+    }
+
+
+    @Override
+    public V replace(String           key,
+                     V                value,
+                     ReplaceOption... options)
+    {
+        return timed("put", () -> shard(key).replace(key, value, options));
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           V                valueOld,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> shard(key).replace(key, valueOld, valueNew, options));
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           Versioned<V>     expected,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> shard(key).replace(key, expected, valueNew, options));
+    }
+
+
+    @Override
+    public boolean process(String           key,
+                           EntryProcessor   processor,
+                           ReplaceOption... options)
+    {
+        return timed("put", () -> shard(key).process(key, processor, options));
+    }
+
+
+    @Override
+    public V computeIfAbsent(String                        key,
+                             Function<String, ? extends V> mappingFunction,
+                             PutOption...                  options)
+    {
+        return timed("put", () -> shard(key).computeIfAbsent(key, mappingFunction, options));
+    }
+
+
+    @Override
+    public V computeIfPresent(String                                     key,
+                              BiFunction<String, ? super V, ? extends V> remappingFunction,
+                              ReplaceOption...                           options)
+    {
+        return timed("put", () -> shard(key).computeIfPresent(key, remappingFunction, options));
+    }
+
+
+    @Override
+    public V merge(String                                        key,
+                   V                                             value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                   PutOption...                                  options)
+    {
+        return timed("put", () -> shard(key).merge(key, value, remappingFunction, options));
+    }
+
+
+    @Override
+    public V remove(String          key,
+                    RemoveOption... options)
+    {
+        return timed("remove", () -> shard(key).remove(key, options));
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          V               value,
+                          RemoveOption... options)
+    {
+        return timed("remove", () -> shard(key).remove(key, value, options));
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          Versioned<V>    expected,
+                          RemoveOption... options)
+    {
+        return timed("remove", () -> shard(key).remove(key, expected, options));
+    }
+
+
+    @Override
+    public void clear()
+    {
+        List<Runnable> tasks = new ArrayList<>();
+
+        caches().values().forEach(cache -> tasks.add(cache::clear));
+
+        parallel(tasks);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shards are scanned one after another, each only once the previous one has been
+     * exhausted. An entry that moves between shards during the scan, because a shard is
+     * added or removed, may be missed or returned twice.
+     * </p>
+     */
+    @Override
+    public Stream<Map.Entry<String, V>> scan(ScanOption... options)
+    {
+        return caches().values().stream()
+                .map(cache -> cache.scan(options))
+                .reduce(Stream.empty(), Stream::concat);
+    }
+
+
+    @Override
+    public void addListener(CacheListener<? super V> listener)
+    {
+        if (listener == null)
+        {
+            throw new NullPointerException("listener must not be null");
+        }
+
+        // a shard opened concurrently may register the listener too, which has no further effect
+        listeners.addIfAbsent(listener);
+        caches().values().forEach(cache -> cache.addListener(listener));
+    }
+
+
+    @Override
+    public void removeListener(CacheListener<? super V> listener)
+    {
+        listeners.remove(listener);
+        shards.values().forEach(cache -> cache.removeListener(listener));
+    }
+
+
+    /**
+     * Returns the metrics of all shards combined: the counts are summed, while the get,
+     * put and remove timings are measured across shards. The load and write timings are
+     * only available from the metrics of each shard.
+     *
+     * @return a {@link CacheMetrics} object containing the requested metrics
+     */
+    @Override
+    public CacheMetrics getMetrics()
+    {
+        MetricRegistry combined = new MetricRegistry();
+        long[]         sizes    = new long[2];
+
+        combined.registerAll(metrics);
+
+        for (Cache<V> cache : caches().values())
+        {
+            CacheMetrics shardMetrics = cache.getMetrics();
+
+            if (cache instanceof AbstractCache)
+            {
+                ((AbstractCache<V>) cache).getMetricRegistry()
+                    .getCounters()
+                    .forEach((name, counter) -> combined.counter(name).inc(counter.getCount()));
+            }
+
+            sizes[0] += shardMetrics.getCount();
+
+            // the size is unknown if it is unknown for any shard
+            sizes[1] = sizes[1] < 0 || shardMetrics.getSize() < 0 ? -1L : sizes[1] + shardMetrics.getSize();
+        }
+
+        combined.register("count", (Gauge<Long>) () -> sizes[0]);
+        combined.register("size", (Gauge<Long>) () -> sizes[1]);
+
+        return new CacheMetrics(cacheName, combined);
+    }
+
+
+    /**
+     * Returns the metrics of the cache on each shard, by shard name.
+     *
+     * @return the metrics of each shard
+     */
+    public Map<String, CacheMetrics> getShardMetrics()
+    {
+        Map<String, CacheMetrics> shardMetrics = new LinkedHashMap<>();
+
+        caches().forEach((name, cache) -> shardMetrics.put(name, cache.getMetrics()));
+
+        return shardMetrics;
+    }
+
+
+    @Override
+    public void resetMetrics()
+    {
+        metrics = createMetrics();
+        caches().values().forEach(Cache::resetMetrics);
+    }
+
+
+    /**
+     * Returns the cache on the shard the specified key is assigned to.
+     *
+     * @param key  the key
+     * @return the cache on the shard
+     * @throws IllegalStateException if there are no shards
+     */
+    Cache<V> shard(String key)
+    {
+        HashRing<Session> ring = current();
+
+        return shards.computeIfAbsent(ring.get(ring.locate(key)), this::open);
+    }
+
+
+    /**
+     * Performs the specified operation, recording its duration.
+     *
+     * @param operation  the name of the timer recording the operation
+     * @param action     the operation
+     * @param <R>        the result type of the operation
+     * @return the result of the operation
+     */
+    <R> R timed(String      operation,
+                Supplier<R> action)
+    {
+        Timer.Context context = metrics.timer(operation).time();
+
+        try
+        {
+            return action.get();
+        }
+        finally
+        {
+            context.stop();
+        }
+    }
+
+
+    /**
+     * Returns the current ring, first forgetting the caches opened on shards that have
+     * since been removed.
+     *
+     * @return the current ring
+     */
+    private HashRing<Session> current()
+    {
+        HashRing<Session> ring = session.getRing();
+
+        if (ring != this.ring)
+        {
+            shards.keySet().retainAll(ring.getNodes().values());
+            this.ring = ring;
+        }
+
+        return ring;
+    }
+
+
+    /**
+     * Returns the cache on each shard, by shard name, opening it if necessary.
+     *
+     * @return the cache on each shard
+     */
+    private Map<String, Cache<V>> caches()
+    {
+        Map<String, Cache<V>> caches = new LinkedHashMap<>();
+
+        current().getNodes().forEach((name, shard) -> caches.put(name, shards.computeIfAbsent(shard, this::open)));
+
+        return caches;
+    }
+
+
+    /**
+     * Opens the cache on the specified shard, registering the listeners with it.
+     *
+     * @param shard  the shard
+     * @return the cache on the shard
+     */
+    private Cache<V> open(Session shard)
+    {
+        Cache<V> cache = opener.apply(shard);
+
+        listeners.forEach(cache::addListener);
+
+        return cache;
+    }
+
+
+    /**
+     * Runs the specified tasks in parallel, using the executor of the session for all but
+     * the last, which is run by the calling thread, and waits for all of them to complete.
+     *
+     * @param tasks  the tasks
+     * @throws RuntimeException the first failure of a task, with the failures of any other
+     *         tasks suppressed
+     */
+    private void parallel(List<Runnable> tasks)
+    {
+        List<Future<?>>  futures = new ArrayList<>(tasks.size());
+        RuntimeException failure = null;
+
+        for (int i = 0; i < tasks.size() - 1; i++)
+        {
+            futures.add(session.getExecutor().submit(tasks.get(i)));
+        }
+
+        try
+        {
+            if (!tasks.isEmpty())
+            {
+                tasks.get(tasks.size() - 1).run();
+            }
+        }
+        catch (RuntimeException e)
+        {
+            failure = e;
+        }
+
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                failure = suppress(failure, new IllegalStateException("Interrupted while waiting for a shard", e));
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+
+                failure = suppress(failure,
+                                   cause instanceof RuntimeException
+                                   ? (RuntimeException) cause
+                                   : new IllegalStateException(cause));
+            }
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+
+    /**
+     * Returns the first failure of a number of tasks, with any later failure suppressed.
+     *
+     * @param failure  the first failure, or null if no task has failed yet
+     * @param e        the failure of another task
+     * @return the first failure
+     */
+    private static RuntimeException suppress(RuntimeException failure,
+                                             RuntimeException e)
+    {
+        if (failure == null)
+        {
+            return e;
+        }
+
+        failure.addSuppressed(e);
+
+        return failure;
+    }
+
+
+    /**
+     * Creates the {@link MetricRegistry} recording the timings across shards.
+     *
+     * @return the {@link MetricRegistry}
+     */
+    private static MetricRegistry createMetrics()
+    {
+        MetricRegistry metrics = new MetricRegistry();
+
+        metrics.register("get", new Timer());
+        metrics.register("put", new Timer());
+        metrics.register("remove", new Timer());
+
+        return metrics;
+    }
+}
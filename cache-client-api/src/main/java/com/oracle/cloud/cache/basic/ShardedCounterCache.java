@@ -0,0 +1,53 @@
+/*
+ * File: ShardedCounterCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.function.Function;
+
+import com.oracle.cloud.cache.basic.options.PutOption;
+
+/**
+ * An implementation of the {@link CounterCache} interface which spreads its counters
+ * across the shards of a {@link ShardedSession}.
+ */
+public class ShardedCounterCache extends ShardedCache<Long> implements CounterCache
+{
+    /**
+     * Constructs a ShardedCounterCache.
+     *
+     * @param cacheName  cache name
+     * @param session    the session providing the shards
+     * @param opener     the function opening the cache of counters on a shard
+     */
+    ShardedCounterCache(String                          cacheName,
+                        ShardedSession                  session,
+                        Function<Session, CounterCache> opener)
+    {
+        super(cacheName, session, opener);
+    }
+
+
+    @Override
+    public long addAndGet(String       key,
+                          long         delta,
+                          PutOption... options)
+    {
+        return timed("put", () -> ((CounterCache) shard(key)).addAndGet(key, delta, options));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * File: ShardedSession.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+
+/**
+ * An implementation of a {@link Session} which spreads the entries of each cache across
+ * the sessions to a number of cache endpoints (the shards). Each key is assigned to a
+ * shard using a consistent-hash ring with virtual nodes, so that the load is spread
+ * evenly, and adding or removing a shard only moves the keys assigned to that shard.
+ * <p>
+ * Shards are identified by name, typically the URI of the endpoint, and keys are assigned
+ * based only upon the names, so all clients with the same shards agree on where each key
+ * is stored. Entries are not moved when shards are added or removed: the keys moved to
+ * another shard are simply missed until they are written again.
+ * </p>
+ * <p>
+ * Multi-key operations are applied to the shards in parallel, by a pool holding at most
+ * one thread per shard, which is released when the session is {@link #close() closed}.
+ * </p>
+ *
+ * @see ShardedSessionProvider
+ */
+public class ShardedSession implements Session, AutoCloseable
+{
+    /**
+     * The number of sessions, used to name the threads that apply batches.
+     */
+    private static final AtomicInteger SESSIONS = new AtomicInteger();
+
+    /**
+     * The ring assigning keys to shards.
+     */
+    private volatile HashRing<Session> ring = new HashRing<>(Collections.emptyMap(), HashRing.VIRTUAL_NODES);
+
+    /**
+     * The time, in seconds, after which an idle thread applying batches is released.
+     */
+    private static final long KEEP_ALIVE = 60L;
+
+    /**
+     * The executor that applies the parts of multi-key operations to the shards in parallel,
+     * with one thread per shard; the parts submitted while every thread is busy are queued.
+     */
+    private final ThreadPoolExecutor executor;
+
+
+    /**
+     * Constructs a ShardedSession with no shards.
+     */
+    public ShardedSession()
+    {
+        int           session = SESSIONS.incrementAndGet();
+        AtomicInteger threads = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "ShardedSession-" + session + "-" + threads.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+
+    /**
+     * Constructs a ShardedSession over the specified shards.
+     *
+     * @param shards  the sessions to each shard, by name
+     */
+    public ShardedSession(Map<String, ? extends Session> shards)
+    {
+        this();
+
+        this.ring = new HashRing<>(Collections.unmodifiableMap(shards), HashRing.VIRTUAL_NODES);
+
+        resize();
+    }
+
+
+    @Override
+    public <V> Cache<V> getCache(String         cacheName,
+                                 CacheOption... options)
+    {
+        return new ShardedCache<>(cacheName, this, session -> session.<V>getCache(cacheName, options));
+    }
+
+
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        return new ShardedCounterCache(cacheName,
+                                       this,
+                                       session -> session.getCounterCache(cacheName, options));
+    }
+
+
+    /**
+     * Adds the specified shard, or replaces the shard with the same name. Only the keys
+     * assigned to the shard by the new ring are moved to it.
+     *
+     * @param name     the name of the shard
+     * @param session  the session to the shard
+     */
+    public synchronized void addShard(String  name,
+                                      Session session)
+    {
+        ring = ring.with(name, session);
+
+        resize();
+    }
+
+
+    /**
+     * Removes the specified shard. Only the keys assigned to the shard are moved, and are
+     * spread over the remaining shards.
+     *
+     * @param name  the name of the shard
+     * @return the session to the removed shard, or null if there was no such shard
+     */
+    public synchronized Session removeShard(String name)
+    {
+        Session session = ring.get(name);
+
+        ring = ring.without(name);
+
+        resize();
+
+        return session;
+    }
+
+
+    /**
+     * Returns the sessions to the shards, by name.
+     *
+     * @return the shards
+     */
+    public Map<String, Session> getShards()
+    {
+        return ring.getNodes();
+    }
+
+
+    /**
+     * Returns the ring currently assigning keys to shards.
+     *
+     * @return the ring
+     */
+    HashRing<Session> getRing()
+    {
+        return ring;
+    }
+
+
+    /**
+     * Returns the executor that applies the parts of multi-key operations to the shards.
+     *
+     * @return the executor
+     */
+    ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+
+    /**
+     * Releases the threads applying multi-key operations. Multi-key operations on the
+     * caches of a closed session fail with a {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    @Override
+    public void close()
+    {
+        executor.shutdown();
+    }
+
+
+    /**
+     * Sizes the executor to hold one thread per shard.
+     */
+    private synchronized void resize()
+    {
+        int size = Math.max(1, ring.getNodes().size());
+
+        // the maximum size may never be below the core size
+        if (size > executor.getMaximumPoolSize())
+        {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        }
+        else
+        {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * File: ShardedSessionProvider.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.cloud.cache.basic.options.SessionOption;
+
+/**
+ * An implementation of a {@link SessionProvider}, which provides a {@link ShardedSession}
+ * that spreads cache entries across a number of cache endpoints, using a
+ * {@link RemoteSessionProvider} for each endpoint.
+ */
+public class ShardedSessionProvider implements SessionProvider
+{
+    /**
+     * The URIs of the endpoints.
+     */
+    private final List<URI> uris;
+
+
+    /**
+     * Constructs a ShardedSessionProvider given the URIs of the endpoints.
+     *
+     * @param uris  the URIs of the endpoints
+     */
+    public ShardedSessionProvider(String... uris)
+    {
+        this.uris = new ArrayList<>(uris.length);
+
+        for (String uri : uris)
+        {
+            this.uris.add(new RemoteSessionProvider(uri).getUri());
+        }
+    }
+
+
+    /**
+     * Constructs a ShardedSessionProvider given the {@link URI}s of the endpoints.
+     *
+     * @param uris  the {@link URI}s of the endpoints
+     */
+    public ShardedSessionProvider(List<URI> uris)
+    {
+        this.uris = new ArrayList<>(uris);
+    }
+
+
+    /**
+     * Creates a new Session spread across the endpoints, each of which is a shard named
+     * by its URI, with the specified {@link SessionOption}.
+     *
+     * @param options the cache session options, which apply to the session to each endpoint
+     * @return the Session
+     */
+    @Override
+    public Session createSession(SessionOption... options)
+    {
+        Map<String, Session> shards = new LinkedHashMap<>();
+
+        for (URI uri : uris)
+        {
+            shards.put(uri.toString(), new RemoteSessionProvider(uri).createSession(options));
+        }
+
+        return new ShardedSession(shards);
+    }
+
+
+    /**
+     * Returns the URIs of the endpoints.
+     *
+     * @return the URIs of the endpoints
+     */
+    public List<URI> getUris()
+    {
+        return Collections.unmodifiableList(uris);
+    }
+}
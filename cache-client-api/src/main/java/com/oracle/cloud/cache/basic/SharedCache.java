@@ -0,0 +1,603 @@
+/*
+ * File: SharedCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.oracle.cloud.cache.ServerCacheMetrics;
+import com.oracle.cloud.cache.basic.io.Serializer;
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.processors.EntryProcessor;
+
+/**
+ * An implementation of a {@link Cache} whose entries are held in the {@link SharedRegion}
+ * of a {@link SharedSession}, so that they are shared by every process on the host that
+ * maps the same file. Values are held serialized, using the {@link Serializer} of the cache
+ * or session, and are compared by their deserialized values.
+ * <p>
+ * Changes made by other processes are not observed, so listeners are not supported, and
+ * neither is {@link IdleExpiry}, as reads do not change the shared entries.
+ * </p>
+ *
+ * @param <V> the type of values stored in the cache
+ */
+public class SharedCache<V> extends AbstractCache<V>
+{
+    /**
+     * Indicates no expiry.
+     */
+    private static final long NO_EXPIRY = -1L;
+
+    /**
+     * The region holding the entries.
+     */
+    private final SharedRegion region;
+
+    /**
+     * The prefix of the keys of the entries of this cache in the region.
+     */
+    private final byte[] prefix;
+
+    /**
+     * The serializer for the values.
+     */
+    private final Serializer serializer;
+
+
+    /**
+     * Constructs a SharedCache for the given cache and session.
+     *
+     * @param cacheName  cache name
+     * @param session    the {@link SharedSession} that created this cache
+     * @param options    any option to apply
+     *
+     * @throws UnsupportedOperationException if idle expiry is configured
+     */
+    SharedCache(String         cacheName,
+                SharedSession  session,
+                CacheOption... options)
+    {
+        super(cacheName, options);
+
+        if (getOptions().get(IdleExpiry.class).isEnabled())
+        {
+            throw new UnsupportedOperationException("Idle expiry is not supported by shared memory caches");
+        }
+
+        this.region     = session.getRegion();
+        this.prefix     = (cacheName + '\0').getBytes(StandardCharsets.UTF_8);
+        this.serializer = getSerializer(session.getOptions().get(Serializer.class));
+    }
+
+
+    @Override
+    protected V get(String  key,
+                    Timeout timeout)
+    {
+        SharedRegion.Entry entry = region.read(toBytes(key), System.currentTimeMillis());
+
+        return entry == null ? null : deserialize(entry.getValue());
+    }
+
+
+    @Override
+    protected Versioned<V> getWithVersion(String  key,
+                                          Timeout timeout)
+    {
+        SharedRegion.Entry entry = region.read(toBytes(key), System.currentTimeMillis());
+
+        return entry == null ? null : new Versioned<>(deserialize(entry.getValue()), entry.getVersion());
+    }
+
+
+    @Override
+    protected Expiring<V> getExpiring(String  key,
+                                      Timeout timeout)
+    {
+        long               current = System.currentTimeMillis();
+        SharedRegion.Entry entry   = region.read(toBytes(key), current);
+
+        if (entry == null)
+        {
+            return null;
+        }
+
+        return new Expiring<>(deserialize(entry.getValue()),
+                              entry.getExpiry() == NO_EXPIRY
+                              ? NO_EXPIRY
+                              : Math.max(1L, entry.getExpiry() - current));
+    }
+
+
+    @Override
+    protected V put(String  key,
+                    V       value,
+                    Expiry  expiry,
+                    boolean returnOld,
+                    Timeout timeout)
+    {
+        byte[]                  bytes    = serialize(value);
+        AtomicReference<byte[]> previous = new AtomicReference<>();
+
+        update(key,
+               (current, version) -> {
+                   previous.set(current);
+
+                   return bytes;
+               },
+               expiry);
+
+        return returnOld ? deserialize(previous.get()) : null;
+    }
+
+
+    @Override
+    protected V putIfAbsent(String  key,
+                            V       value,
+                            Expiry  expiry,
+                            boolean returnOld,
+                            Timeout timeout)
+    {
+        byte[]                  bytes    = serialize(value);
+        AtomicReference<byte[]> previous = new AtomicReference<>();
+
+        update(key,
+               (current, version) -> {
+                   previous.set(current);
+
+                   return current == null ? bytes : current;
+               },
+               expiry);
+
+        return returnOld ? deserialize(previous.get()) : null;
+    }
+
+
+    @Override
+    protected V replace(String  key,
+                        V       value,
+                        Expiry  expiry,
+                        boolean returnOld,
+                        Timeout timeout)
+    {
+        byte[]                  bytes    = serialize(value);
+        AtomicReference<byte[]> previous = new AtomicReference<>();
+
+        update(key,
+               (current, version) -> {
+                   previous.set(current);
+
+                   return current == null ? null : bytes;
+               },
+               expiry);
+
+        return returnOld ? deserialize(previous.get()) : null;
+    }
+
+
+    @Override
+    protected boolean replaceValue(String  key,
+                                   V       valueOld,
+                                   V       valueNew,
+                                   Expiry  expiry,
+                                   Timeout timeout)
+    {
+        byte[]    bytes    = serialize(valueNew);
+        boolean[] replaced = new boolean[1];
+
+        update(key,
+               (current, version) -> {
+                   replaced[0] = current != null && valueOld.equals(deserialize(current));
+
+                   return replaced[0] ? bytes : current;
+               },
+               expiry);
+
+        return replaced[0];
+    }
+
+
+    @Override
+    protected boolean replaceVersion(String  key,
+                                     long    version,
+                                     V       valueNew,
+                                     Expiry  expiry,
+                                     Timeout timeout)
+    {
+        byte[]    bytes    = serialize(valueNew);
+        boolean[] replaced = new boolean[1];
+
+        update(key,
+               (current, currentVersion) -> {
+                   replaced[0] = current != null && currentVersion == version;
+
+                   return replaced[0] ? bytes : current;
+               },
+               expiry);
+
+        return replaced[0];
+    }
+
+
+    @Override
+    protected V remove(String  key,
+                       boolean returnOld,
+                       Timeout timeout)
+    {
+        AtomicReference<byte[]> previous = new AtomicReference<>();
+
+        update(key,
+               (current, version) -> {
+                   previous.set(current);
+
+                   return null;
+               },
+               Expiry.never());
+
+        return returnOld ? deserialize(previous.get()) : null;
+    }
+
+
+    @Override
+    protected boolean removeValue(String  key,
+                                  V       value,
+                                  Timeout timeout)
+    {
+        boolean[] removed = new boolean[1];
+
+        update(key,
+               (current, version) -> {
+                   removed[0] = current != null && value.equals(deserialize(current));
+
+                   return removed[0] ? null : current;
+               },
+               Expiry.never());
+
+        return removed[0];
+    }
+
+
+    @Override
+    protected boolean removeVersion(String  key,
+                                    long    version,
+                                    Timeout timeout)
+    {
+        boolean[] removed = new boolean[1];
+
+        update(key,
+               (current, currentVersion) -> {
+                   removed[0] = current != null && currentVersion == version;
+
+                   return removed[0] ? null : current;
+               },
+               Expiry.never());
+
+        return removed[0];
+    }
+
+
+    @Override
+    protected boolean process(String         key,
+                              EntryProcessor processor,
+                              Expiry         expiry,
+                              Timeout        timeout)
+    {
+        boolean[] changed = new boolean[1];
+
+        update(key,
+               (current, version) -> {
+                   if (current == null)
+                   {
+                       changed[0] = false;
+
+                       return null;
+                   }
+
+                   V value    = deserialize(current);
+                   V valueNew = processor.process(value, getValueClass());
+
+                   changed[0] = valueNew != value;
+
+                   return changed[0] ? serialize(valueNew) : current;
+               },
+               expiry);
+
+        return changed[0];
+    }
+
+
+    @Override
+    protected long add(String  key,
+                       long    delta,
+                       Expiry  expiry,
+                       Timeout timeout)
+    {
+        AtomicLong result = new AtomicLong();
+
+        update(key,
+               (current, version) -> {
+                   result.set(current == null ? delta : toLong(deserialize(current)) + delta);
+
+                   return serialize(result.get());
+               },
+               expiry);
+
+        return result.get();
+    }
+
+
+    @Override
+    protected void clear(Timeout timeout)
+    {
+        region.clear(prefix);
+    }
+
+
+    @Override
+    protected Pages<V> scan(String  prefix,
+                            int     pageSize,
+                            byte[]  cursor,
+                            Timeout timeout)
+    {
+        return new SharedPages(toBytes(prefix), pageSize, cursor.length == 0 ? 0 : ByteBuffer.wrap(cursor).getInt());
+    }
+
+
+    @Override
+    protected ServerCacheMetrics getServerMetrics()
+    {
+        long[] totals = region.count(prefix, System.currentTimeMillis());
+
+        return new ServerCacheMetrics(totals[0], totals[1]);
+    }
+
+
+    /**
+     * Shared memory caches do not observe the changes made by other processes.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    protected void subscribe()
+    {
+        throw new UnsupportedOperationException("Listeners are not supported by shared memory caches");
+    }
+
+
+    /**
+     * Atomically changes the entry for the specified key.
+     *
+     * @param key     the cache key
+     * @param update  the function computing the new serialized value of the entry
+     * @param expiry  time-to-live for the cache entry, if its value is changed
+     */
+    private void update(String              key,
+                        SharedRegion.Update update,
+                        Expiry              expiry)
+    {
+        long current = System.currentTimeMillis();
+
+        region.update(toBytes(key),
+                      update,
+                      expiry.getExpiry() <= 0L ? NO_EXPIRY : current + expiry.getExpiry(),
+                      current);
+    }
+
+
+    /**
+     * Returns the key of the entry for the specified cache key in the region.
+     *
+     * @param key  the cache key
+     *
+     * @return the key of the entry in the region
+     */
+    private byte[] toBytes(String key)
+    {
+        byte[] bytes  = key.getBytes(StandardCharsets.UTF_8);
+        byte[] result = Arrays.copyOf(prefix, prefix.length + bytes.length);
+
+        System.arraycopy(bytes, 0, result, prefix.length, bytes.length);
+
+        return result;
+    }
+
+
+    /**
+     * Returns the cache key of the specified entry key in the region.
+     *
+     * @param bytes  the key of the entry in the region
+     *
+     * @return the cache key
+     */
+    private String toKey(byte[] bytes)
+    {
+        return new String(bytes, prefix.length, bytes.length - prefix.length, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Serializes a value.
+     *
+     * @param value  the value
+     *
+     * @return the serialized value
+     */
+    private byte[] serialize(Object value)
+    {
+        try
+        {
+            return serializer.serialize(value);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Deserializes a value.
+     *
+     * @param data  the serialized value, or null
+     *
+     * @return the value, or null if the serialized value is null
+     */
+    private V deserialize(byte[] data)
+    {
+        try
+        {
+            return data == null ? null : serializer.deserialize(data, getValueClass());
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Converts a value stored in the cache to a counter value.
+     *
+     * @param value  the stored value
+     *
+     * @return the counter value
+     *
+     * @throws IllegalStateException if the value is not a whole number
+     */
+    private static long toLong(Object value)
+    {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+        {
+            return ((Number) value).longValue();
+        }
+
+        throw new IllegalStateException("Value is not a counter: " + value);
+    }
+
+
+    /**
+     * The pages of a scan of the cache. The cursor of each page is the index of the next
+     * slot of the region to visit. As a key keeps its slot until it is removed, a resumed
+     * scan does not skip or repeat the entries present throughout, although it may miss
+     * entries inserted behind it.
+     */
+    private class SharedPages implements Pages<V>
+    {
+        /**
+         * The prefix of the keys in the region.
+         */
+        private final byte[] prefix;
+
+        /**
+         * The maximum number of entries in each page.
+         */
+        private final int pageSize;
+
+        /**
+         * The next slot to visit, or -1 if every slot has been visited.
+         */
+        private int slot;
+
+        /**
+         * The next page, or null if it has not been fetched.
+         */
+        private Page<V> next;
+
+
+        /**
+         * Constructs a SharedPages.
+         *
+         * @param prefix    the prefix of the keys in the region
+         * @param pageSize  the maximum number of entries in each page
+         * @param slot      the first slot to visit
+         */
+        private SharedPages(byte[] prefix,
+                            int    pageSize,
+                            int    slot)
+        {
+            this.prefix   = prefix;
+            this.pageSize = pageSize;
+            this.slot     = slot;
+        }
+
+
+        @Override
+        public boolean hasNext()
+        {
+            List<SharedRegion.Entry> entries = new ArrayList<>();
+
+            while (next == null && slot >= 0)
+            {
+                slot = region.scan(prefix, slot, pageSize, System.currentTimeMillis(), entries);
+
+                if (!entries.isEmpty())
+                {
+                    List<Map.Entry<String, V>> page = new ArrayList<>(entries.size());
+
+                    for (SharedRegion.Entry entry : entries)
+                    {
+                        page.add(new AbstractMap.SimpleImmutableEntry<>(toKey(entry.getKey()),
+                                                                        deserialize(entry.getValue())));
+                    }
+
+                    next = new Page<>(page, slot < 0 ? new byte[0] : ByteBuffer.allocate(4).putInt(slot).array());
+                }
+            }
+
+            return next != null;
+        }
+
+
+        @Override
+        public Page<V> next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+
+            Page<V> page = next;
+
+            next = null;
+
+            return page;
+        }
+
+
+        @Override
+        public void close()
+        {
+            // the scan holds no resources
+        }
+    }
+}
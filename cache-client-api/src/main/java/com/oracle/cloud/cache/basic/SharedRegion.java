@@ -0,0 +1,2124 @@
+/*
+ * File: SharedRegion.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A region of memory, mapped from a file, holding the entries of the caches of every
+ * {@link SharedSession} on the host that maps the same file.
+ * <p>
+ * The region starts with a header, followed by an open-addressing index of slots, each
+ * holding the offset of the record for a key, by a table of fixed-size records, and by
+ * fixed-size blocks holding the key and value of each record as a chain. Records and
+ * blocks that are no longer used are kept on free lists and reused, and the slot of a
+ * removed key is marked so that it is reused by the next key inserted along its probe
+ * sequence. When the region is full, expired entries are removed to make room; a write
+ * that still does not fit fails, leaving the other entries usable.
+ * </p>
+ * <p>
+ * Each record carries a lock word, holding the identity of the process that holds it,
+ * and a sequence number, which is odd while the record is being changed. A reader never
+ * blocks a writer: it copies the record and retries if the sequence number, or the slot
+ * holding the record, changed in the meantime. Keys are inserted, and records and blocks
+ * allocated and freed, while holding a lock in the header. A lock whose owner has exited
+ * is taken over, and a record left half changed by it is discarded. Processes identify
+ * each other by the process id and start time recorded in /proc, so the processes sharing
+ * a region must see the same /proc; where there is none, a lock is never taken over.
+ * </p>
+ * <p>
+ * The region is read and written through the bounds-checked methods of its buffer, and
+ * through {@link MappedLongs} for the atomic operations. As the file may be changed by
+ * any process that can write to it, every offset and length read from it is validated
+ * before it is followed, and an {@link IllegalStateException} is thrown if it is corrupt.
+ * </p>
+ */
+final class SharedRegion
+{
+    /**
+     * The magic number identifying an initialized region.
+     */
+    private static final long MAGIC = 0x434C4F5544534852L;
+
+    /**
+     * The version of the region layout.
+     */
+    private static final int LAYOUT = 2;
+
+    /**
+     * The offset of the magic number in the header.
+     */
+    private static final int MAGIC_OFFSET = 0;
+
+    /**
+     * The offset of the layout version in the header.
+     */
+    private static final int LAYOUT_OFFSET = 8;
+
+    /**
+     * The offset of the number of slots in the header.
+     */
+    private static final int SLOTS_OFFSET = 12;
+
+    /**
+     * The offset of the number of records in the header.
+     */
+    private static final int RECORDS_OFFSET = 16;
+
+    /**
+     * The offset of the number of blocks in the header.
+     */
+    private static final int BLOCKS_OFFSET = 20;
+
+    /**
+     * The offset of the last version assigned to an entry in the header.
+     */
+    private static final int VERSION_OFFSET = 24;
+
+    /**
+     * The offset of the lock held to insert keys, and to allocate and free space, in the header.
+     */
+    private static final int LOCK_OFFSET = 32;
+
+    /**
+     * The offset of the first free record in the header, or zero if there is none.
+     */
+    private static final int FREE_RECORDS_OFFSET = 40;
+
+    /**
+     * The offset of the first free block in the header, or zero if there is none.
+     */
+    private static final int FREE_BLOCKS_OFFSET = 48;
+
+    /**
+     * The offset of the first record never allocated in the header.
+     */
+    private static final int RECORD_TOP_OFFSET = 56;
+
+    /**
+     * The offset of the first block never allocated in the header.
+     */
+    private static final int BLOCK_TOP_OFFSET = 64;
+
+    /**
+     * The size of the header.
+     */
+    private static final int HEADER_SIZE = 128;
+
+    /**
+     * The offset of the sequence number in a record.
+     */
+    private static final int SEQUENCE = 0;
+
+    /**
+     * The offset of the lock word in a record.
+     */
+    private static final int LOCK = 8;
+
+    /**
+     * The offset of the key hash in a record.
+     */
+    private static final int HASH = 16;
+
+    /**
+     * The offset of the key length in a record.
+     */
+    private static final int KEY_LENGTH = 20;
+
+    /**
+     * The offset of the value length in a record.
+     */
+    private static final int VALUE_LENGTH = 24;
+
+    /**
+     * The offset of the number of blocks holding the key and value in a record.
+     */
+    private static final int BLOCK_COUNT = 28;
+
+    /**
+     * The offset of the absolute expiry time in a record.
+     */
+    private static final int EXPIRY = 32;
+
+    /**
+     * The offset of the entry version in a record.
+     */
+    private static final int VERSION = 40;
+
+    /**
+     * The offset of the first block in a record.
+     */
+    private static final int FIRST = 48;
+
+    /**
+     * The offset of the next free record in a free record.
+     */
+    private static final int NEXT_FREE = 56;
+
+    /**
+     * The size of a record.
+     */
+    private static final int RECORD_SIZE = 64;
+
+    /**
+     * The offset of the next block in a block, which is followed by its data.
+     */
+    private static final int NEXT = 0;
+
+    /**
+     * The size of a block.
+     */
+    private static final int BLOCK_SIZE = 128;
+
+    /**
+     * The number of bytes of data in a block.
+     */
+    private static final int BLOCK_DATA = BLOCK_SIZE - 8;
+
+    /**
+     * The value of a slot that has never held a key.
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * The value of a slot whose key was removed.
+     */
+    private static final long REMOVED = 1L;
+
+    /**
+     * Indicates no expiry.
+     */
+    private static final long NO_EXPIRY = -1L;
+
+    /**
+     * The time, in nanoseconds, after which the owner of a lock that remains held is
+     * checked to still be running.
+     */
+    private static final long RECOVERY_DELAY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The time, in nanoseconds, after which a lock that remains held by a running process
+     * is reported.
+     */
+    private static final long LOCK_TIMEOUT = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The permissions of a new file, which is readable and writable by its owner only.
+     */
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    /**
+     * The directory describing the processes of the host.
+     */
+    private static final Path PROC = Paths.get("/proc");
+
+    /**
+     * The status of this process, or null if the processes of the host cannot be inspected.
+     */
+    private static final Status SELF = Status.of("self");
+
+    /**
+     * The identity of this process in a lock word: its process id in the high 32 bits,
+     * and its start time in the low 32 bits, or a random identity if the processes of the
+     * host cannot be inspected.
+     */
+    private static final long OWNER = SELF == null ? new SecureRandom().nextLong() | 1L : SELF.getIdentity();
+
+    /**
+     * The mapped buffer.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The atomic view of the longs of the buffer.
+     */
+    private final MappedLongs longs;
+
+    /**
+     * The size of the region.
+     */
+    private final int size;
+
+    /**
+     * The number of slots in the index, which is a power of two.
+     */
+    private final int slots;
+
+    /**
+     * The offset of the first record.
+     */
+    private final int records;
+
+    /**
+     * The offset of the first block, which follows the last record.
+     */
+    private final int blocks;
+
+    /**
+     * The offset following the last block.
+     */
+    private final int end;
+
+
+    /**
+     * Maps the specified file, initializing it if it is new.
+     *
+     * @param file        the file
+     * @param size        the size of the region, if the file is new
+     * @param maxEntries  the maximum number of keys in the region, if the file is new
+     *
+     * @throws IOException           if the file cannot be mapped, or is not a region
+     * @throws IllegalStateException if the header of the region is corrupt
+     */
+    SharedRegion(Path file,
+                 long size,
+                 int  maxEntries) throws IOException
+    {
+        try (FileChannel channel = open(file);
+             FileLock    lock    = lock(channel))
+        {
+            long length = channel.size() == 0 ? size : channel.size();
+
+            if (length > Integer.MAX_VALUE)
+            {
+                throw new IOException("Shared memory is limited to 2GB: " + file);
+            }
+
+            if (length < HEADER_SIZE)
+            {
+                throw new IOException("Shared memory is too small: " + file);
+            }
+
+            // the mapping remains valid once the channel is closed
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            this.longs  = new MappedLongs(buffer);
+            this.size   = (int) length;
+
+            // the atomic operations use the native order
+            buffer.order(ByteOrder.nativeOrder());
+
+            if (longs.get(MAGIC_OFFSET) != MAGIC)
+            {
+                initialize(file, maxEntries);
+            }
+            else if (buffer.getInt(LAYOUT_OFFSET) != LAYOUT)
+            {
+                throw new IOException("Unsupported shared memory layout: " + file);
+            }
+
+            int  slots   = buffer.getInt(SLOTS_OFFSET);
+            int  count   = buffer.getInt(RECORDS_OFFSET);
+            long records = HEADER_SIZE + (long) slots * 8;
+            long blocks  = records + (long) count * RECORD_SIZE;
+            long end     = blocks + (long) buffer.getInt(BLOCKS_OFFSET) * BLOCK_SIZE;
+
+            if (slots <= 0 || Integer.bitCount(slots) != 1 || count <= 0 || count > slots / 2
+                || end < blocks || end > length)
+            {
+                throw corrupt("invalid header of " + file);
+            }
+
+            this.slots   = slots;
+            this.records = (int) records;
+            this.blocks  = (int) blocks;
+            this.end     = (int) end;
+        }
+    }
+
+
+    /**
+     * Opens the specified file, creating it readable and writable by its owner only if it
+     * does not exist. Links are not followed, so that the file cannot be redirected to
+     * another one, and an existing file that other users may write to is refused.
+     *
+     * @param file  the file
+     *
+     * @return the channel
+     *
+     * @throws IOException if the file cannot be opened, or other users may write to it
+     */
+    private static FileChannel open(Path file) throws IOException
+    {
+        Set<OpenOption> options = new HashSet<>(Arrays.asList(StandardOpenOption.CREATE,
+                                                              StandardOpenOption.READ,
+                                                              StandardOpenOption.WRITE,
+                                                              LinkOption.NOFOLLOW_LINKS));
+
+        if (!file.getFileSystem().supportedFileAttributeViews().contains("posix"))
+        {
+            return FileChannel.open(file, options);
+        }
+
+        FileChannel channel = FileChannel.open(file, options, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+
+        try
+        {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file, LinkOption.NOFOLLOW_LINKS);
+
+            if (permissions.contains(PosixFilePermission.OTHERS_WRITE))
+            {
+                throw new IOException("Shared memory file is writable by other users: " + file);
+            }
+
+            return channel;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+
+            throw e;
+        }
+    }
+
+
+    /**
+     * Locks the specified channel against other processes initializing it. The lock is
+     * also held against other regions of this process, which would otherwise fail to lock it.
+     *
+     * @param channel  the channel
+     *
+     * @return the lock
+     *
+     * @throws IOException if the channel cannot be locked
+     */
+    private static FileLock lock(FileChannel channel) throws IOException
+    {
+        synchronized (SharedRegion.class)
+        {
+            return channel.lock();
+        }
+    }
+
+
+    /**
+     * Initializes the header, index and records of a new region.
+     *
+     * @param file        the file
+     * @param maxEntries  the maximum number of keys in the region
+     *
+     * @throws IOException if the region is too small for the number of keys
+     */
+    private void initialize(Path file,
+                            int  maxEntries) throws IOException
+    {
+        int  slots   = Integer.highestOneBit(Math.max(maxEntries, 1) * 2 - 1) << 1;
+        long records = HEADER_SIZE + (long) slots * 8;
+        long blocks  = records + (long) maxEntries * RECORD_SIZE;
+
+        if (blocks >= size)
+        {
+            throw new IOException("Shared memory is too small for " + maxEntries + " entries: " + file);
+        }
+
+        for (int offset = 0; offset < blocks; offset += 8)
+        {
+            buffer.putLong(offset, 0L);
+        }
+
+        buffer.putInt(LAYOUT_OFFSET, LAYOUT);
+        buffer.putInt(SLOTS_OFFSET, slots);
+        buffer.putInt(RECORDS_OFFSET, maxEntries);
+        buffer.putInt(BLOCKS_OFFSET, (int) ((size - blocks) / BLOCK_SIZE));
+        buffer.putLong(RECORD_TOP_OFFSET, records);
+        buffer.putLong(BLOCK_TOP_OFFSET, blocks);
+        longs.set(MAGIC_OFFSET, MAGIC);
+    }
+
+
+    /**
+     * Reads the entry for the specified key, unless it has expired.
+     *
+     * @param key      the key
+     * @param current  the current time, in milliseconds
+     *
+     * @return the entry, or null if there is no entry for the key or it has expired
+     *
+     * @throws IllegalStateException if the region is corrupt
+     */
+    Entry read(byte[] key,
+               long   current)
+    {
+        int hash = hash(key);
+
+        while (true)
+        {
+            int slot = locate(key, hash);
+
+            if (slot < 0)
+            {
+                return null;
+            }
+
+            Entry entry = read(slot, key);
+
+            if (entry != Entry.RETRY)
+            {
+                return entry == null || entry.isExpired(current) ? null : entry;
+            }
+        }
+    }
+
+
+    /**
+     * Atomically changes the entry for the specified key, inserting it if necessary. The
+     * update is applied while the entry is locked, so it should be quick and must not
+     * change other entries.
+     *
+     * @param key      the key
+     * @param update   the function computing the new value of the entry
+     * @param expiry   the absolute expiry time of the new value, or -1 if it does not expire
+     * @param current  the current time, in milliseconds
+     *
+     * @throws IllegalStateException if there is no room for the new value, the entry remains
+     *                               locked, or the region is corrupt
+     */
+    void update(byte[] key,
+                Update update,
+                long   expiry,
+                long   current)
+    {
+        int hash = hash(key);
+
+        while (true)
+        {
+            int slot = locate(key, hash);
+
+            if (slot < 0)
+            {
+                byte[] value = update.apply(null, 0L);
+
+                if (value == null || insert(key, hash, value, expiry, current))
+                {
+                    return;
+                }
+
+                // the key was inserted concurrently
+                update = retry(update, value);
+            }
+            else if (update(slot, longs.get(slot), key, update, expiry, current))
+            {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Removes the entries whose keys start with the specified prefix.
+     *
+     * @param prefix  the prefix of the keys
+     *
+     * @throws IllegalStateException if an entry remains locked, or the region is corrupt
+     */
+    void clear(byte[] prefix)
+    {
+        for (int i = 0; i < slots; i++)
+        {
+            int   slot = slot(i);
+            Entry entry;
+
+            while ((entry = read(slot, null)) != null && startsWith(entry.getKey(), prefix))
+            {
+                if (update(slot, longs.get(slot), entry.getKey(), (value, version) -> null, NO_EXPIRY, 0L))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Reads the entries in the slots starting from the specified slot, whose keys start with
+     * the specified prefix, until the specified number of entries has been read.
+     *
+     * @param prefix   the prefix of the keys
+     * @param from     the first slot to read
+     * @param limit    the maximum number of entries to read
+     * @param current  the current time, in milliseconds
+     * @param entries  the list to add the entries read to
+     *
+     * @return the next slot to read, or -1 if every slot has been read
+     *
+     * @throws IllegalStateException if the region is corrupt
+     */
+    int scan(byte[]      prefix,
+             int         from,
+             int         limit,
+             long        current,
+             List<Entry> entries)
+    {
+        int i = from;
+
+        for (; i < slots && entries.size() < limit; i++)
+        {
+            int  slot  = slot(i);
+            long value = longs.get(slot);
+
+            if (value != EMPTY && value != REMOVED && startsWith(record(value), prefix))
+            {
+                Entry entry = read(slot, null);
+
+                if (entry != null && !entry.isExpired(current) && startsWith(entry.getKey(), prefix))
+                {
+                    entries.add(entry);
+                }
+            }
+        }
+
+        return i < slots ? i : -1;
+    }
+
+
+    /**
+     * Returns the number of entries whose keys start with the specified prefix, and the
+     * total size of their values.
+     *
+     * @param prefix   the prefix of the keys
+     * @param current  the current time, in milliseconds
+     *
+     * @return the number of entries and the total size of their values
+     *
+     * @throws IllegalStateException if the region is corrupt
+     */
+    long[] count(byte[] prefix,
+                 long   current)
+    {
+        long[]      totals  = new long[2];
+        List<Entry> entries = new ArrayList<>();
+
+        for (int from = 0; from >= 0; entries.clear())
+        {
+            from = scan(prefix, from, 1000, current, entries);
+
+            for (Entry entry : entries)
+            {
+                totals[0]++;
+                totals[1] += entry.getValue().length;
+            }
+        }
+
+        return totals;
+    }
+
+
+    /**
+     * Returns the size of the region.
+     *
+     * @return the size of the region, in bytes
+     */
+    long getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Reads the entry in the specified slot consistently, retrying while it is changed
+     * concurrently.
+     *
+     * @param slot  the offset of the slot
+     * @param key   the expected key of the entry, or null if it is to be read
+     *
+     * @return the entry, which may have expired, null if the slot holds no entry, or
+     *         {@link Entry#RETRY} if the entry does not have the expected key
+     *
+     * @throws IllegalStateException if the entry remains locked, or the region is corrupt
+     */
+    private Entry read(int    slot,
+                       byte[] key)
+    {
+        long start = 0L;
+
+        while (true)
+        {
+            long value = longs.get(slot);
+
+            if (value == EMPTY || value == REMOVED)
+            {
+                return null;
+            }
+
+            int  record   = record(value);
+            long sequence = longs.get(record + SEQUENCE);
+
+            if ((sequence & 1) == 0)
+            {
+                Entry entry = copy(record, key);
+
+                MappedLongs.loadFence();
+
+                if (longs.get(record + SEQUENCE) == sequence && longs.get(slot) == value)
+                {
+                    if (entry == null)
+                    {
+                        throw corrupt("invalid record at " + record);
+                    }
+
+                    return entry;
+                }
+            }
+            else if (start != 0L && System.nanoTime() - start > RECOVERY_DELAY)
+            {
+                // the writer may have exited while changing the record
+                recover(slot, value);
+            }
+
+            start = await(start);
+        }
+    }
+
+
+    /**
+     * Copies the specified record, which may be changed concurrently.
+     *
+     * @param record  the offset of the record
+     * @param key     the expected key of the record, or null if it is to be read
+     *
+     * @return the entry, {@link Entry#RETRY} if the record does not have the expected key,
+     *         or null if the record is not valid
+     */
+    private Entry copy(int    record,
+                       byte[] key)
+    {
+        int  keyLength = buffer.getInt(record + KEY_LENGTH);
+        int  length    = buffer.getInt(record + VALUE_LENGTH);
+        int  count     = buffer.getInt(record + BLOCK_COUNT);
+        long first     = buffer.getLong(record + FIRST);
+        long expiry    = buffer.getLong(record + EXPIRY);
+        long version   = buffer.getLong(record + VERSION);
+
+        if (!isValid(keyLength, length, count, first))
+        {
+            return null;
+        }
+
+        if (key != null && key.length != keyLength)
+        {
+            return Entry.RETRY;
+        }
+
+        byte[] recordKey = new byte[keyLength];
+        byte[] value     = new byte[length];
+
+        if (!readBlocks(first, count, recordKey, value))
+        {
+            return null;
+        }
+
+        return key == null || Arrays.equals(key, recordKey)
+               ? new Entry(recordKey, value, expiry, version)
+               : Entry.RETRY;
+    }
+
+
+    /**
+     * Applies an update to the entry in the specified slot, while it is locked.
+     *
+     * @param slot     the offset of the slot
+     * @param value    the value of the slot
+     * @param key      the key of the entry
+     * @param update   the function computing the new value of the entry
+     * @param expiry   the absolute expiry time of the new value, or -1 if it does not expire
+     * @param current  the current time, in milliseconds
+     *
+     * @return true if the update was applied, or false if the slot no longer holds the entry
+     *
+     * @throws IllegalStateException if there is no room for the new value, the entry remains
+     *                               locked, or the region is corrupt
+     */
+    private boolean update(int    slot,
+                           long   value,
+                           byte[] key,
+                           Update update,
+                           long   expiry,
+                           long   current)
+    {
+        if (value == EMPTY || value == REMOVED)
+        {
+            return false;
+        }
+
+        int     record   = record(value);
+        long    sequence = lock(record);
+        boolean locked   = true;
+
+        try
+        {
+            if (longs.get(slot) != value)
+            {
+                return false;
+            }
+
+            if ((sequence & 1) != 0)
+            {
+                // the previous owner exited while changing the record
+                locked = false;
+                remove(slot, record, sequence);
+
+                return false;
+            }
+
+            int  keyLength = buffer.getInt(record + KEY_LENGTH);
+            int  length    = buffer.getInt(record + VALUE_LENGTH);
+            int  count     = buffer.getInt(record + BLOCK_COUNT);
+            long first     = buffer.getLong(record + FIRST);
+
+            if (!isValid(keyLength, length, count, first))
+            {
+                throw corrupt("invalid record at " + record);
+            }
+
+            byte[] recordKey = new byte[keyLength];
+            byte[] existing  = new byte[length];
+
+            if (!readBlocks(first, count, recordKey, existing))
+            {
+                throw corrupt("invalid blocks of the record at " + record);
+            }
+
+            if (!Arrays.equals(key, recordKey))
+            {
+                return false;
+            }
+
+            if (isExpired(buffer.getLong(record + EXPIRY), current))
+            {
+                existing = null;
+            }
+
+            byte[] valueNew = update.apply(existing, existing == null ? 0L : buffer.getLong(record + VERSION));
+
+            if (valueNew == null)
+            {
+                // a removed or expired entry is reclaimed
+                locked = false;
+                remove(slot, record, sequence);
+            }
+            else if (valueNew != existing)
+            {
+                write(record, sequence, key, valueNew, expiry, current);
+            }
+
+            return true;
+        }
+        finally
+        {
+            if (locked)
+            {
+                unlock(record);
+            }
+        }
+    }
+
+
+    /**
+     * Writes a new value to the specified locked record, changing the number of blocks
+     * holding it as necessary.
+     *
+     * @param record    the offset of the record
+     * @param sequence  the sequence number of the record
+     * @param key       the key of the record
+     * @param value     the new value
+     * @param expiry    the absolute expiry time, or -1 if the value does not expire
+     * @param current   the current time, in milliseconds
+     *
+     * @throws IllegalStateException if there is no room for the new value
+     */
+    private void write(int    record,
+                       long   sequence,
+                       byte[] key,
+                       byte[] value,
+                       long   expiry,
+                       long   current)
+    {
+        int  count  = buffer.getInt(record + BLOCK_COUNT);
+        int  first  = block(buffer.getLong(record + FIRST));
+        int  needed = blocksFor(key.length, value.length);
+        int  last   = first;
+        long extra  = 0L;
+
+        if (needed > count)
+        {
+            lockAllocation();
+
+            try
+            {
+                extra = allocateBlocks(needed - count, current);
+            }
+            finally
+            {
+                unlockAllocation();
+            }
+        }
+
+        for (int i = 1; i < Math.min(count, needed); i++)
+        {
+            last = block(buffer.getLong(last + NEXT));
+        }
+
+        long tail = buffer.getLong(last + NEXT);
+
+        begin(record, sequence);
+
+        buffer.putLong(last + NEXT, extra);
+        writeBlocks(first, needed, key, value);
+        buffer.putInt(record + VALUE_LENGTH, value.length);
+        buffer.putInt(record + BLOCK_COUNT, needed);
+        buffer.putLong(record + EXPIRY, expiry);
+        buffer.putLong(record + VERSION, nextVersion());
+
+        end(record, sequence);
+
+        if (needed < count)
+        {
+            lockAllocation();
+
+            try
+            {
+                freeBlocks(tail, count - needed);
+            }
+            finally
+            {
+                unlockAllocation();
+            }
+        }
+    }
+
+
+    /**
+     * Inserts an entry for the specified key, unless the key is present.
+     *
+     * @param key      the key
+     * @param hash     the hash of the key
+     * @param value    the value
+     * @param expiry   the absolute expiry time, or -1 if the value does not expire
+     * @param current  the current time, in milliseconds
+     *
+     * @return true if the entry was inserted, or false if the key is present
+     *
+     * @throws IllegalStateException if there is no room for the entry, or the region is corrupt
+     */
+    private boolean insert(byte[] key,
+                           int    hash,
+                           byte[] value,
+                           long   expiry,
+                           long   current)
+    {
+        lockAllocation();
+
+        try
+        {
+            // space is allocated first, as evicting entries may change the probe sequence
+            int record = allocateRecord(current);
+            int count  = blocksFor(key.length, value.length);
+            int first;
+
+            try
+            {
+                first = allocateBlocks(count, current);
+            }
+            catch (IllegalStateException e)
+            {
+                freeRecord(record);
+
+                throw e;
+            }
+
+            int slot = probe(key, hash);
+
+            if (slot < 0)
+            {
+                freeBlocks(first, count);
+                freeRecord(record);
+
+                return false;
+            }
+
+            long sequence = lock(record);
+
+            begin(record, sequence);
+
+            buffer.putInt(record + HASH, hash);
+            buffer.putInt(record + KEY_LENGTH, key.length);
+            buffer.putInt(record + VALUE_LENGTH, value.length);
+            buffer.putInt(record + BLOCK_COUNT, count);
+            buffer.putLong(record + EXPIRY, expiry);
+            buffer.putLong(record + VERSION, nextVersion());
+            buffer.putLong(record + FIRST, first);
+            writeBlocks(first, count, key, value);
+
+            end(record, sequence);
+
+            // the record is published by the volatile write of its offset to a slot
+            longs.set(slot, record);
+            unlock(record);
+
+            return true;
+        }
+        finally
+        {
+            unlockAllocation();
+        }
+    }
+
+
+    /**
+     * Returns the offset of the slot at which the specified key is to be inserted, which is
+     * the first slot along its probe sequence whose key was removed, or else the empty slot
+     * ending it. The allocation lock must be held, so that no key is inserted concurrently.
+     *
+     * @param key   the key
+     * @param hash  the hash of the key
+     *
+     * @return the offset of the slot, or -1 if the key is present
+     *
+     * @throws IllegalStateException if the index is full, or is corrupt
+     */
+    private int probe(byte[] key,
+                      int    hash)
+    {
+        int mask = slots - 1;
+        int free = -1;
+
+        for (int i = 0, index = hash & mask; i < slots; i++, index = (index + 1) & mask)
+        {
+            int  slot  = slot(index);
+            long value = longs.get(slot);
+
+            if (value == EMPTY)
+            {
+                return free < 0 ? slot : free;
+            }
+
+            if (value == REMOVED)
+            {
+                free = free < 0 ? slot : free;
+            }
+            else if (buffer.getInt(record(value) + HASH) == hash && matches(record(value), key))
+            {
+                return -1;
+            }
+        }
+
+        if (free < 0)
+        {
+            throw new IllegalStateException("Shared memory index is full");
+        }
+
+        return free;
+    }
+
+
+    /**
+     * Removes the entry of the specified locked record from its slot, and frees the record
+     * and its blocks, unlocking it.
+     *
+     * @param slot      the offset of the slot holding the record
+     * @param record    the offset of the record
+     * @param sequence  the sequence number of the record
+     */
+    private void remove(int  slot,
+                        int  record,
+                        long sequence)
+    {
+        begin(record, sequence);
+        longs.set(slot, REMOVED);
+        end(record, sequence);
+
+        lockAllocation();
+
+        try
+        {
+            reclaim(slot, record);
+        }
+        finally
+        {
+            unlockAllocation();
+        }
+    }
+
+
+    /**
+     * Frees the specified locked record, which has been removed from the specified slot,
+     * and its blocks, unlocking it. The allocation lock must be held.
+     *
+     * @param slot    the offset of the slot that held the record
+     * @param record  the offset of the record
+     */
+    private void reclaim(int slot,
+                         int record)
+    {
+        // the blocks of a record left half changed may not all be reclaimed
+        freeBlocks(buffer.getLong(record + FIRST), buffer.getInt(record + BLOCK_COUNT));
+        unlock(record);
+        freeRecord(record);
+
+        // a removed slot followed by an empty one is on no probe sequence, so it can be emptied
+        int mask = slots - 1;
+
+        for (int index = (slot - HEADER_SIZE) / 8;
+             longs.get(slot((index + 1) & mask)) == EMPTY && longs.get(slot(index)) == REMOVED;
+             index = (index - 1) & mask)
+        {
+            longs.set(slot(index), EMPTY);
+        }
+    }
+
+
+    /**
+     * Discards the entry in the specified slot if it was left half changed by a process
+     * that exited while changing it.
+     *
+     * @param slot   the offset of the slot
+     * @param value  the value of the slot
+     *
+     * @throws IllegalStateException if the entry remains locked by a running process
+     */
+    private void recover(int  slot,
+                         long value)
+    {
+        int  record   = record(value);
+        long sequence = lock(record);
+
+        if (longs.get(slot) == value && (sequence & 1) != 0)
+        {
+            remove(slot, record, sequence);
+        }
+        else
+        {
+            unlock(record);
+        }
+    }
+
+
+    /**
+     * Removes expired entries to make room, skipping those that are locked. The
+     * allocation lock must be held.
+     *
+     * @param current  the current time, in milliseconds
+     */
+    private void evict(long current)
+    {
+        for (int i = 0; i < slots; i++)
+        {
+            int  slot  = slot(i);
+            long value = longs.get(slot);
+
+            if (value == EMPTY || value == REMOVED)
+            {
+                continue;
+            }
+
+            int record = record(value);
+
+            if (isExpired(buffer.getLong(record + EXPIRY), current) && tryLock(record))
+            {
+                long sequence = longs.get(record + SEQUENCE);
+
+                if (longs.get(slot) == value && isExpired(buffer.getLong(record + EXPIRY), current))
+                {
+                    begin(record, sequence);
+                    longs.set(slot, REMOVED);
+                    end(record, sequence);
+                    reclaim(slot, record);
+                }
+                else
+                {
+                    unlock(record);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Allocates a record, evicting expired entries if there is none free. The
+     * allocation lock must be held.
+     *
+     * @param current  the current time, in milliseconds
+     *
+     * @return the offset of the record
+     *
+     * @throws IllegalStateException if there is no room for another record
+     */
+    private int allocateRecord(long current)
+    {
+        int record = popRecord();
+
+        if (record < 0)
+        {
+            evict(current);
+
+            record = popRecord();
+
+            if (record < 0)
+            {
+                throw new IllegalStateException("Shared memory has no room for another entry");
+            }
+        }
+
+        return record;
+    }
+
+
+    /**
+     * Returns a free record, or -1 if there is none. The allocation lock must be held.
+     *
+     * @return the offset of the record, or -1 if there is none
+     */
+    private int popRecord()
+    {
+        long free = longs.get(FREE_RECORDS_OFFSET);
+
+        if (free != 0L)
+        {
+            int  record = record(free);
+            long next   = buffer.getLong(record + NEXT_FREE);
+
+            longs.set(FREE_RECORDS_OFFSET, next == 0L ? 0L : record(next));
+
+            return record;
+        }
+
+        long top = longs.get(RECORD_TOP_OFFSET);
+
+        if (top == blocks)
+        {
+            return -1;
+        }
+
+        int record = record(top);
+
+        longs.set(RECORD_TOP_OFFSET, top + RECORD_SIZE);
+
+        return record;
+    }
+
+
+    /**
+     * Frees the specified unlocked record. The allocation lock must be held.
+     *
+     * @param record  the offset of the record
+     */
+    private void freeRecord(int record)
+    {
+        buffer.putLong(record + NEXT_FREE, longs.get(FREE_RECORDS_OFFSET));
+        longs.set(FREE_RECORDS_OFFSET, record);
+    }
+
+
+    /**
+     * Allocates a chain of the specified number of blocks, evicting expired entries if
+     * there are not enough free. The allocation lock must be held.
+     *
+     * @param count    the number of blocks
+     * @param current  the current time, in milliseconds
+     *
+     * @return the offset of the first block
+     *
+     * @throws IllegalStateException if there is no room for the blocks
+     */
+    private int allocateBlocks(int  count,
+                               long current)
+    {
+        int first = allocateBlocks(count);
+
+        if (first < 0)
+        {
+            evict(current);
+
+            first = allocateBlocks(count);
+
+            if (first < 0)
+            {
+                throw new IllegalStateException("Shared memory has no room for a value of "
+                                                + count + " blocks");
+            }
+        }
+
+        return first;
+    }
+
+
+    /**
+     * Allocates a chain of the specified number of blocks. The allocation lock must be held.
+     *
+     * @param count  the number of blocks
+     *
+     * @return the offset of the first block, or -1 if there are not enough free blocks
+     */
+    private int allocateBlocks(int count)
+    {
+        int first = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int block = popBlock();
+
+            if (block < 0)
+            {
+                freeBlocks(first, i);
+
+                return -1;
+            }
+
+            buffer.putLong(block + NEXT, first);
+            first = block;
+        }
+
+        return first;
+    }
+
+
+    /**
+     * Returns a free block, or -1 if there is none. The allocation lock must be held.
+     *
+     * @return the offset of the block, or -1 if there is none
+     */
+    private int popBlock()
+    {
+        long free = longs.get(FREE_BLOCKS_OFFSET);
+
+        if (free != 0L)
+        {
+            int  block = block(free);
+            long next  = buffer.getLong(block + NEXT);
+
+            longs.set(FREE_BLOCKS_OFFSET, next == 0L ? 0L : block(next));
+
+            return block;
+        }
+
+        long top = longs.get(BLOCK_TOP_OFFSET);
+
+        if (top == end)
+        {
+            return -1;
+        }
+
+        int block = block(top);
+
+        longs.set(BLOCK_TOP_OFFSET, top + BLOCK_SIZE);
+
+        return block;
+    }
+
+
+    /**
+     * Frees up to the specified number of blocks of a chain, stopping at the end of the
+     * chain. The allocation lock must be held.
+     *
+     * @param first  the offset of the first block, or zero if there is none
+     * @param count  the number of blocks
+     */
+    private void freeBlocks(long first,
+                            int  count)
+    {
+        for (long block = first; count-- > 0 && isBlock(block); )
+        {
+            long next = buffer.getLong((int) block + NEXT);
+
+            buffer.putLong((int) block + NEXT, longs.get(FREE_BLOCKS_OFFSET));
+            longs.set(FREE_BLOCKS_OFFSET, block);
+
+            block = next;
+        }
+    }
+
+
+    /**
+     * Reads the data of a chain of blocks into the specified arrays, in turn.
+     *
+     * @param first    the offset of the first block
+     * @param count    the number of blocks
+     * @param targets  the arrays to fill
+     *
+     * @return true if the chain was read, or false if it is not valid
+     */
+    private boolean readBlocks(long      first,
+                               int       count,
+                               byte[]... targets)
+    {
+        ByteBuffer view  = buffer.duplicate();
+        long       block = first;
+        int        room  = 0;
+
+        for (byte[] target : targets)
+        {
+            for (int offset = 0; offset < target.length; )
+            {
+                if (room == 0)
+                {
+                    if (count-- == 0 || !isBlock(block))
+                    {
+                        return false;
+                    }
+
+                    view.position((int) block + NEXT + 8);
+
+                    block = buffer.getLong((int) block + NEXT);
+                    room  = BLOCK_DATA;
+                }
+
+                int length = Math.min(room, target.length - offset);
+
+                view.get(target, offset, length);
+
+                offset += length;
+                room   -= length;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Writes the specified arrays, in turn, to a chain of blocks.
+     *
+     * @param first    the offset of the first block
+     * @param count    the number of blocks
+     * @param sources  the arrays to write
+     *
+     * @throws IllegalStateException if the chain is not valid
+     */
+    private void writeBlocks(int       first,
+                             int       count,
+                             byte[]... sources)
+    {
+        ByteBuffer view  = buffer.duplicate();
+        long       block = first;
+        int        room  = 0;
+
+        for (byte[] source : sources)
+        {
+            for (int offset = 0; offset < source.length; )
+            {
+                if (room == 0)
+                {
+                    if (count-- == 0)
+                    {
+                        throw corrupt("chain of blocks at " + first + " is too short");
+                    }
+
+                    view.position(block(block) + NEXT + 8);
+
+                    block = buffer.getLong((int) block + NEXT);
+                    room  = BLOCK_DATA;
+                }
+
+                int length = Math.min(room, source.length - offset);
+
+                view.put(source, offset, length);
+
+                offset += length;
+                room   -= length;
+            }
+        }
+    }
+
+
+    /**
+     * Locks the specified record, taking over the lock if its owner has exited.
+     *
+     * @param record  the offset of the record
+     *
+     * @return the sequence number of the record, which is odd if the owner of the lock
+     *         exited while changing the record
+     *
+     * @throws IllegalStateException if the record remains locked by a running process
+     */
+    private long lock(int record)
+    {
+        acquire(record + LOCK);
+
+        return longs.get(record + SEQUENCE);
+    }
+
+
+    /**
+     * Locks the specified record, unless it is locked.
+     *
+     * @param record  the offset of the record
+     *
+     * @return true if the record was locked
+     */
+    private boolean tryLock(int record)
+    {
+        return longs.compareAndSet(record + LOCK, 0L, OWNER);
+    }
+
+
+    /**
+     * Unlocks the specified record.
+     *
+     * @param record  the offset of the record
+     */
+    private void unlock(int record)
+    {
+        longs.set(record + LOCK, 0L);
+    }
+
+
+    /**
+     * Acquires the allocation lock, which is held to insert keys, and to allocate and free
+     * records and blocks.
+     *
+     * @throws IllegalStateException if the lock remains held by a running process
+     */
+    private void lockAllocation()
+    {
+        acquire(LOCK_OFFSET);
+    }
+
+
+    /**
+     * Releases the allocation lock.
+     */
+    private void unlockAllocation()
+    {
+        longs.set(LOCK_OFFSET, 0L);
+    }
+
+
+    /**
+     * Acquires the specified lock word, taking it over if its owner has exited. A lock is
+     * not reentrant: it is also held against the other threads of the process holding it.
+     *
+     * @param word  the offset of the lock word
+     *
+     * @throws IllegalStateException if the lock remains held by a running process
+     */
+    private void acquire(int word)
+    {
+        long start = 0L;
+
+        while (true)
+        {
+            long owner = longs.get(word);
+
+            if (owner == 0L
+                ? longs.compareAndSet(word, 0L, OWNER)
+                : start != 0L && System.nanoTime() - start > RECOVERY_DELAY && !isRunning(owner)
+                  && longs.compareAndSet(word, owner, OWNER))
+            {
+                return;
+            }
+
+            start = await(start);
+        }
+    }
+
+
+    /**
+     * Marks the specified locked record as being changed.
+     *
+     * @param record    the offset of the record
+     * @param sequence  the sequence number of the record
+     */
+    private void begin(int  record,
+                       long sequence)
+    {
+        // the atomic update orders the following writes after it
+        longs.compareAndSet(record + SEQUENCE, sequence, sequence | 1);
+    }
+
+
+    /**
+     * Marks the specified locked record as consistent, once changed.
+     *
+     * @param record    the offset of the record
+     * @param sequence  the sequence number of the record when it was locked
+     */
+    private void end(int  record,
+                     long sequence)
+    {
+        longs.set(record + SEQUENCE, (sequence | 1) + 1);
+    }
+
+
+    /**
+     * Waits briefly for a locked record to be unlocked.
+     *
+     * @param start  the time the wait started, as per {@link System#nanoTime()}, or zero
+     *               if this is the first wait
+     *
+     * @return the time the wait started
+     *
+     * @throws IllegalStateException if the record has been locked for too long
+     */
+    private static long await(long start)
+    {
+        long now = System.nanoTime();
+
+        if (start == 0L)
+        {
+            return now;
+        }
+
+        if (now - start > LOCK_TIMEOUT)
+        {
+            throw new IllegalStateException("Shared memory entry remained locked by a running process");
+        }
+
+        if (now - start > RECOVERY_DELAY)
+        {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        else
+        {
+            Thread.yield();
+        }
+
+        return start;
+    }
+
+
+    /**
+     * Returns the offset of the slot for the specified key.
+     *
+     * @param key   the key
+     * @param hash  the hash of the key
+     *
+     * @return the offset of the slot holding the key, or -1 if the key is not present
+     *
+     * @throws IllegalStateException if the index is corrupt
+     */
+    private int locate(byte[] key,
+                       int    hash)
+    {
+        int mask = slots - 1;
+
+        for (int i = 0, index = hash & mask; i < slots; i++, index = (index + 1) & mask)
+        {
+            int  slot  = slot(index);
+            long value = longs.get(slot);
+
+            if (value == EMPTY)
+            {
+                return -1;
+            }
+
+            if (value != REMOVED && buffer.getInt(record(value) + HASH) == hash && matches(record(value), key))
+            {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Returns the offset of the slot with the specified index.
+     *
+     * @param index  the index of the slot
+     *
+     * @return the offset of the slot
+     */
+    private static int slot(int index)
+    {
+        return HEADER_SIZE + index * 8;
+    }
+
+
+    /**
+     * Returns the offset of the record held by a slot, checking that it is a record.
+     *
+     * @param value  the value of the slot
+     *
+     * @return the offset of the record
+     *
+     * @throws IllegalStateException if the value is not the offset of a record
+     */
+    private int record(long value)
+    {
+        if (value < records || value >= blocks || (value - records) % RECORD_SIZE != 0)
+        {
+            throw corrupt("invalid record offset " + value);
+        }
+
+        return (int) value;
+    }
+
+
+    /**
+     * Returns the offset of a block, checking that it is a block.
+     *
+     * @param offset  the offset
+     *
+     * @return the offset of the block
+     *
+     * @throws IllegalStateException if the offset is not the offset of a block
+     */
+    private int block(long offset)
+    {
+        if (!isBlock(offset))
+        {
+            throw corrupt("invalid block offset " + offset);
+        }
+
+        return (int) offset;
+    }
+
+
+    /**
+     * Indicates if the specified offset is the offset of a block.
+     *
+     * @param offset  the offset
+     *
+     * @return true if the offset is the offset of a block
+     */
+    private boolean isBlock(long offset)
+    {
+        return offset >= blocks && offset < end && (offset - blocks) % BLOCK_SIZE == 0;
+    }
+
+
+    /**
+     * Indicates if the specified fields of a record are consistent with each other and
+     * with the region.
+     *
+     * @param keyLength  the key length
+     * @param length     the value length
+     * @param count      the number of blocks
+     * @param first      the offset of the first block
+     *
+     * @return true if the fields are valid
+     */
+    private boolean isValid(int  keyLength,
+                            int  length,
+                            int  count,
+                            long first)
+    {
+        return keyLength >= 0 && length >= 0 && count == blocksFor(keyLength, length)
+               && count <= (end - blocks) / BLOCK_SIZE && isBlock(first);
+    }
+
+
+    /**
+     * Indicates if the key of the specified record, which may be changed concurrently, is
+     * the specified key.
+     *
+     * @param record  the offset of the record
+     * @param key     the key
+     *
+     * @return true if the key of the record is the specified key
+     */
+    private boolean matches(int    record,
+                            byte[] key)
+    {
+        return buffer.getInt(record + KEY_LENGTH) == key.length && startsWith(record, key);
+    }
+
+
+    /**
+     * Indicates if the key of the specified record, which may be changed concurrently,
+     * starts with the specified prefix.
+     *
+     * @param record  the offset of the record
+     * @param prefix  the prefix
+     *
+     * @return true if the key of the record starts with the prefix
+     */
+    private boolean startsWith(int    record,
+                               byte[] prefix)
+    {
+        if (buffer.getInt(record + KEY_LENGTH) < prefix.length)
+        {
+            return false;
+        }
+
+        byte[] start = new byte[prefix.length];
+
+        return readBlocks(buffer.getLong(record + FIRST), blocksFor(prefix.length, 0), start)
+               && Arrays.equals(start, prefix);
+    }
+
+
+    /**
+     * Indicates if the specified key starts with the specified prefix.
+     *
+     * @param key     the key
+     * @param prefix  the prefix
+     *
+     * @return true if the key starts with the prefix
+     */
+    private static boolean startsWith(byte[] key,
+                                      byte[] prefix)
+    {
+        return key.length >= prefix.length && Arrays.equals(Arrays.copyOf(key, prefix.length), prefix);
+    }
+
+
+    /**
+     * Returns the next version to assign to an entry.
+     *
+     * @return the version
+     */
+    private long nextVersion()
+    {
+        return longs.getAndAdd(VERSION_OFFSET, 1L) + 1;
+    }
+
+
+    /**
+     * Returns the number of blocks holding a key and value of the specified lengths.
+     *
+     * @param keyLength  the key length
+     * @param length     the value length
+     *
+     * @return the number of blocks, which is at least one
+     */
+    private static int blocksFor(long keyLength,
+                                 long length)
+    {
+        return (int) Math.max(1L, (keyLength + length + BLOCK_DATA - 1) / BLOCK_DATA);
+    }
+
+
+    /**
+     * Returns the exception thrown for a corrupt region.
+     *
+     * @param reason  the reason the region is corrupt
+     *
+     * @return the exception
+     */
+    private static IllegalStateException corrupt(String reason)
+    {
+        return new IllegalStateException("Shared memory is corrupt: " + reason);
+    }
+
+
+    /**
+     * Indicates if the process identified in a lock word is running.
+     *
+     * @param owner  the identity of the process
+     *
+     * @return true if the process is running, or if that cannot be determined
+     */
+    private static boolean isRunning(long owner)
+    {
+        if (owner == OWNER || SELF == null)
+        {
+            return true;
+        }
+
+        Status status = Status.of(String.valueOf(owner >>> 32));
+
+        if (status == null)
+        {
+            return Files.exists(PROC.resolve(String.valueOf(owner >>> 32)));
+        }
+
+        return status.getIdentity() == owner && status.isRunning();
+    }
+
+
+    /**
+     * Returns the hash of the specified key, spread so that similar keys are not placed
+     * in adjacent slots.
+     *
+     * @param key  the key
+     *
+     * @return the hash
+     */
+    private static int hash(byte[] key)
+    {
+        int hash = 1;
+
+        for (byte b : key)
+        {
+            hash = 31 * hash + b;
+        }
+
+        return hash ^ (hash >>> 16) * 0x85EBCA6B;
+    }
+
+
+    /**
+     * Indicates if the specified expiry time has passed.
+     *
+     * @param expiry   the absolute expiry time, or -1 if there is no expiry
+     * @param current  the current time, in milliseconds
+     *
+     * @return true if the expiry time has passed
+     */
+    private static boolean isExpired(long expiry,
+                                     long current)
+    {
+        return expiry != NO_EXPIRY && expiry < current;
+    }
+
+
+    /**
+     * Returns an update which, having computed the specified value for an absent entry,
+     * computes it again unless the entry is still absent.
+     *
+     * @param update  the update
+     * @param value   the value computed for the absent entry
+     *
+     * @return the update to retry
+     */
+    private static Update retry(Update update,
+                                byte[] value)
+    {
+        return (current, version) -> current == null ? value : update.apply(current, version);
+    }
+
+
+    /**
+     * A function computing the new value of an entry from its current value.
+     */
+    @FunctionalInterface
+    interface Update
+    {
+        /**
+         * Computes the new value of an entry.
+         *
+         * @param value    the current value, or null if there is no value or it has expired
+         * @param version  the version of the current value, or zero if there is no value
+         *
+         * @return the new value, the current value to leave the entry unchanged, or null to remove it
+         */
+        byte[] apply(byte[] value,
+                     long   version);
+    }
+
+
+    /**
+     * The status of a process of the host, as described by /proc.
+     */
+    private static final class Status
+    {
+        /**
+         * The process id.
+         */
+        private final long pid;
+
+        /**
+         * The start time of the process, in clock ticks since the host started.
+         */
+        private final long start;
+
+        /**
+         * The state of the process.
+         */
+        private final String state;
+
+
+        /**
+         * Constructs a Status.
+         *
+         * @param pid    the process id
+         * @param start  the start time of the process
+         * @param state  the state of the process
+         */
+        private Status(long   pid,
+                       long   start,
+                       String state)
+        {
+            this.pid   = pid;
+            this.start = start;
+            this.state = state;
+        }
+
+
+        /**
+         * Returns the status of the specified process.
+         *
+         * @param process  the process id, or "self"
+         *
+         * @return the status, or null if it cannot be read
+         */
+        private static Status of(String process)
+        {
+            try
+            {
+                String   stat   = new String(Files.readAllBytes(PROC.resolve(process).resolve("stat")),
+                                             StandardCharsets.US_ASCII);
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+
+                // the fields following the command are numbered from the state, the third field
+                return new Status(Long.parseLong(stat.substring(0, stat.indexOf(' '))),
+                                  Long.parseLong(fields[22 - 3]),
+                                  fields[0]);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                return null;
+            }
+        }
+
+
+        /**
+         * Returns the identity of the process in a lock word.
+         *
+         * @return the identity
+         */
+        private long getIdentity()
+        {
+            return pid << 32 | start & 0xFFFFFFFFL;
+        }
+
+
+        /**
+         * Indicates if the process is running, rather than having exited.
+         *
+         * @return true if the process is running
+         */
+        private boolean isRunning()
+        {
+            return !state.equals("Z") && !state.equals("X");
+        }
+    }
+
+
+    /**
+     * An entry read from the region.
+     */
+    static final class Entry
+    {
+        /**
+         * Indicates that the entry must be located again.
+         */
+        private static final Entry RETRY = new Entry(null, null, NO_EXPIRY, 0L);
+
+        /**
+         * The key.
+         */
+        private final byte[] key;
+
+        /**
+         * The value.
+         */
+        private final byte[] value;
+
+        /**
+         * The absolute expiry time, or -1 if the entry does not expire.
+         */
+        private final long expiry;
+
+        /**
+         * The version.
+         */
+        private final long version;
+
+
+        /**
+         * Constructs an Entry.
+         *
+         * @param key      the key
+         * @param value    the value
+         * @param expiry   the absolute expiry time, or -1 if the entry does not expire
+         * @param version  the version
+         */
+        private Entry(byte[] key,
+                      byte[] value,
+                      long   expiry,
+                      long   version)
+        {
+            this.key     = key;
+            this.value   = value;
+            this.expiry  = expiry;
+            this.version = version;
+        }
+
+
+        /**
+         * Returns the key.
+         *
+         * @return the key
+         */
+        byte[] getKey()
+        {
+            return key;
+        }
+
+
+        /**
+         * Returns the value.
+         *
+         * @return the value
+         */
+        byte[] getValue()
+        {
+            return value;
+        }
+
+
+        /**
+         * Returns the absolute expiry time.
+         *
+         * @return the expiry time, or -1 if the entry does not expire
+         */
+        long getExpiry()
+        {
+            return expiry;
+        }
+
+
+        /**
+         * Returns the version.
+         *
+         * @return the version
+         */
+        long getVersion()
+        {
+            return version;
+        }
+
+
+        /**
+         * Indicates if the entry has expired.
+         *
+         * @param current  the current time, in milliseconds
+         *
+         * @return true if the entry has expired
+         */
+        private boolean isExpired(long current)
+        {
+            return SharedRegion.isExpired(expiry, current);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * File: SharedSession.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.PutOption;
+import com.oracle.cloud.cache.basic.options.SessionOption;
+import com.oracle.cloud.cache.basic.options.SharedMemory;
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An implementation of a {@link Session} whose caches are held in a file mapped into
+ * memory, as configured by the {@link SharedMemory} option, so that a single copy of
+ * the entries is shared by every process on the host that opens a session over the
+ * same file. Each cache is a {@link SharedCache}.
+ */
+public class SharedSession implements Session
+{
+    /**
+     * The session options.
+     */
+    private final Options<SessionOption> options;
+
+    /**
+     * The region holding the entries of every cache.
+     */
+    private final SharedRegion region;
+
+
+    /**
+     * Constructs a SharedSession, mapping the configured file into memory.
+     *
+     * @param options  the session options
+     *
+     * @throws IllegalArgumentException if the {@link SharedMemory} option is not specified
+     * @throws UncheckedIOException     if the file cannot be mapped, or is not a valid shared memory file
+     * @throws IllegalStateException    if the file is corrupt
+     */
+    public SharedSession(SessionOption... options)
+    {
+        this.options = Options.from(SessionOption.class, options);
+
+        SharedMemory memory = this.options.get(SharedMemory.class);
+
+        if (memory == null)
+        {
+            throw new IllegalArgumentException("SharedMemory option must be specified");
+        }
+
+        try
+        {
+            this.region = new SharedRegion(memory.getFile(), memory.getSize(), memory.getMaxEntries());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    @Override
+    public <V> Cache<V> getCache(String         cacheName,
+                                 CacheOption... options)
+    {
+        return new SharedCache<>(cacheName, this, options);
+    }
+
+
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        return new SharedCounterCache(cacheName, this, options);
+    }
+
+
+    /**
+     * Returns the session options.
+     *
+     * @return the session options
+     */
+    public Options<SessionOption> getOptions()
+    {
+        return options;
+    }
+
+
+    /**
+     * Returns the region holding the entries of every cache.
+     *
+     * @return the region
+     */
+    SharedRegion getRegion()
+    {
+        return region;
+    }
+
+
+    /**
+     * A {@link SharedCache} of counters.
+     */
+    private static class SharedCounterCache extends SharedCache<Long> implements CounterCache
+    {
+        /**
+         * Constructs a SharedCounterCache for the given cache and session.
+         *
+         * @param cacheName cache name
+         * @param session   the session that created this cache
+         * @param options   any option to apply
+         */
+        private SharedCounterCache(String         cacheName,
+                                   SharedSession  session,
+                                   CacheOption... options)
+        {
+            super(cacheName, session, withValueType(Long.class, options));
+        }
+
+
+        @Override
+        public long addAndGet(String       key,
+                              long         delta,
+                              PutOption... options)
+        {
+            return super.addAndGet(key, delta, options);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * File: SnapshotStore.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.oracle.cloud.cache.basic.options.Snapshot;
+
+/**
+ * Reads and writes the snapshot files of {@link LocalCache}s, and writes the snapshots
+ * of the caches configured with the {@link Snapshot} option on shutdown and periodically.
+ * <p>
+ * A snapshot file starts with a header of a magic number and a format version, followed by
+ * a record for each entry, appended one after another: the key length and UTF-8 key, the
+ * absolute expiry and idle expiry times, and the serialized value length and bytes. The
+ * records end with a key length of -1. A snapshot is written to a temporary file which then
+ * replaces the snapshot file, so that the file is never partially written. It is read by
+ * mapping it into memory, so that only the records that have not expired are copied.
+ * </p>
+ */
+final class SnapshotStore
+{
+    /**
+     * The magic number at the start of a snapshot file.
+     */
+    private static final int MAGIC = 0x4C43534E;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The key length marking the end of the records.
+     */
+    private static final int END = -1;
+
+    /**
+     * Indicates no expiry.
+     */
+    private static final long NO_EXPIRY = -1L;
+
+    /**
+     * The snapshot file of each cache to write on shutdown.
+     */
+    private static final Map<LocalCache<?>, Path> SHUTDOWN = new WeakHashMap<>();
+
+    /**
+     * The thread writing snapshots on shutdown, or null if none is registered yet.
+     */
+    private static Thread shutdownHook;
+
+    /**
+     * The scheduler writing periodic snapshots, or null if none has been scheduled yet.
+     */
+    private static ScheduledExecutorService scheduler;
+
+
+    /**
+     * Prevents instantiation.
+     */
+    private SnapshotStore()
+    {
+    }
+
+
+    /**
+     * Arranges for a snapshot of the specified cache to be written as configured, without
+     * preventing the cache from being garbage collected.
+     *
+     * @param cache   the cache
+     * @param config  the snapshot configuration
+     */
+    static void register(LocalCache<?> cache,
+                         Snapshot      config)
+    {
+        Path file = config.getFile();
+
+        synchronized (SHUTDOWN)
+        {
+            if (shutdownHook == null)
+            {
+                shutdownHook = new Thread(SnapshotStore::shutdown, "LocalCache-snapshot");
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+            }
+
+            SHUTDOWN.put(cache, file);
+
+            if (config.getInterval().isZero())
+            {
+                return;
+            }
+
+            if (scheduler == null)
+            {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "LocalCache-snapshot");
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+            }
+        }
+
+        WeakReference<LocalCache<?>>       reference = new WeakReference<>(cache);
+        AtomicReference<ScheduledFuture<?>> future    = new AtomicReference<>();
+        long                               interval  = config.getInterval().toMillis();
+
+        future.set(scheduler.scheduleWithFixedDelay(() -> {
+            LocalCache<?> target = reference.get();
+
+            if (target == null)
+            {
+                future.get().cancel(false);
+            }
+            else
+            {
+                target.snapshotQuietly(file);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS));
+    }
+
+
+    /**
+     * Writes the snapshots of the registered caches that have not been garbage collected.
+     */
+    private static void shutdown()
+    {
+        Map<LocalCache<?>, Path> caches;
+
+        synchronized (SHUTDOWN)
+        {
+            caches = new WeakHashMap<>(SHUTDOWN);
+        }
+
+        caches.forEach(LocalCache::snapshotQuietly);
+    }
+
+
+    /**
+     * Opens a writer for a snapshot that will replace the specified file once it is committed.
+     *
+     * @param file  the snapshot file
+     *
+     * @return the writer
+     *
+     * @throws IOException if the temporary file cannot be created
+     */
+    static Writer writer(Path file) throws IOException
+    {
+        return new Writer(file);
+    }
+
+
+    /**
+     * Reads the records of the specified snapshot file that have not expired.
+     *
+     * @param file     the snapshot file
+     * @param current  the current time, in milliseconds
+     *
+     * @return the records, whose values are views of the mapped file
+     *
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static List<Record> read(Path file,
+                             long current) throws IOException
+    {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException("Snapshot file is too large: " + file);
+            }
+
+            // the mapping remains valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try
+        {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+
+            List<Record> records = new ArrayList<>();
+            int          length;
+
+            while ((length = buffer.getInt()) != END)
+            {
+                byte[] key = new byte[length];
+
+                buffer.get(key);
+
+                long       expiryTime     = buffer.getLong();
+                long       idleExpiryTime = buffer.getLong();
+                int        valueLength    = buffer.getInt();
+                ByteBuffer value          = buffer.slice();
+
+                value.limit(valueLength);
+                buffer.position(buffer.position() + valueLength);
+
+                if (!isExpired(expiryTime, current) && !isExpired(idleExpiryTime, current))
+                {
+                    records.add(new Record(new String(key, StandardCharsets.UTF_8), expiryTime, idleExpiryTime, value));
+                }
+            }
+
+            return records;
+        }
+        catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e)
+        {
+            throw new IOException("Truncated snapshot file: " + file, e);
+        }
+    }
+
+
+    /**
+     * Indicates if the specified expiry time has passed.
+     *
+     * @param expiryTime  the absolute expiry time, or -1 if there is no expiry
+     * @param current     the current time, in milliseconds
+     *
+     * @return true if the expiry time has passed
+     */
+    private static boolean isExpired(long expiryTime,
+                                     long current)
+    {
+        return expiryTime != NO_EXPIRY && expiryTime < current;
+    }
+
+
+    /**
+     * A record of an entry read from a snapshot file.
+     */
+    static final class Record
+    {
+        /**
+         * The key of the entry.
+         */
+        private final String key;
+
+        /**
+         * The absolute expiry time of the entry, or -1 if it does not expire.
+         */
+        private final long expiryTime;
+
+        /**
+         * The absolute idle expiry time of the entry, or -1 if it does not expire when idle.
+         */
+        private final long idleExpiryTime;
+
+        /**
+         * The serialized value of the entry.
+         */
+        private final ByteBuffer value;
+
+
+        /**
+         * Constructs a Record.
+         *
+         * @param key             the key of the entry
+         * @param expiryTime      the absolute expiry time of the entry, or -1
+         * @param idleExpiryTime  the absolute idle expiry time of the entry, or -1
+         * @param value           the serialized value of the entry
+         */
+        private Record(String     key,
+                       long       expiryTime,
+                       long       idleExpiryTime,
+                       ByteBuffer value)
+        {
+            this.key            = key;
+            this.expiryTime     = expiryTime;
+            this.idleExpiryTime = idleExpiryTime;
+            this.value          = value;
+        }
+
+
+        /**
+         * Returns the key of the entry.
+         *
+         * @return the key
+         */
+        String getKey()
+        {
+            return key;
+        }
+
+
+        /**
+         * Returns the absolute expiry time of the entry.
+         *
+         * @return the expiry time, or -1 if the entry does not expire
+         */
+        long getExpiryTime()
+        {
+            return expiryTime;
+        }
+
+
+        /**
+         * Returns the absolute idle expiry time of the entry.
+         *
+         * @return the idle expiry time, or -1 if the entry does not expire when idle
+         */
+        long getIdleExpiryTime()
+        {
+            return idleExpiryTime;
+        }
+
+
+        /**
+         * Returns a copy of the serialized value of the entry.
+         *
+         * @return the serialized value
+         */
+        byte[] getValue()
+        {
+            byte[] bytes = new byte[value.remaining()];
+
+            value.duplicate().get(bytes);
+
+            return bytes;
+        }
+    }
+
+
+    /**
+     * Appends the records of a snapshot to a temporary file, which replaces the snapshot
+     * file once committed, or is deleted if the writer is closed without being committed.
+     */
+    static final class Writer implements Closeable
+    {
+        /**
+         * The snapshot file.
+         */
+        private final Path file;
+
+        /**
+         * The temporary file the records are written to.
+         */
+        private final Path temp;
+
+        /**
+         * The stream writing the temporary file.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Indicates if the snapshot has been committed.
+         */
+        private boolean committed;
+
+
+        /**
+         * Constructs a Writer.
+         *
+         * @param file  the snapshot file
+         *
+         * @throws IOException if the temporary file cannot be created
+         */
+        private Writer(Path file) throws IOException
+        {
+            Path directory = file.toAbsolutePath().getParent();
+
+            Files.createDirectories(directory);
+
+            this.file = file;
+            this.temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            this.out  = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+        }
+
+
+        /**
+         * Appends the record of an entry.
+         *
+         * @param key             the key of the entry
+         * @param expiryTime      the absolute expiry time of the entry, or -1
+         * @param idleExpiryTime  the absolute idle expiry time of the entry, or -1
+         * @param value           the serialized value of the entry
+         *
+         * @throws IOException if the record cannot be written
+         */
+        void write(String key,
+                   long   expiryTime,
+                   long   idleExpiryTime,
+                   byte[] value) throws IOException
+        {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeLong(expiryTime);
+            out.writeLong(idleExpiryTime);
+            out.writeInt(value.length);
+            out.write(value);
+        }
+
+
+        /**
+         * Completes the snapshot, and replaces the snapshot file with it.
+         *
+         * @throws IOException if the snapshot cannot be completed
+         */
+        void commit() throws IOException
+        {
+            out.writeInt(END);
+            out.close();
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            committed = true;
+        }
+
+
+        @Override
+        public void close() throws IOException
+        {
+            if (!committed)
+            {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * File: TieredCache.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.GetOption;
+import com.oracle.cloud.cache.basic.options.NearTier;
+import com.oracle.cloud.cache.basic.options.PutOption;
+import com.oracle.cloud.cache.basic.options.RemoveOption;
+import com.oracle.cloud.cache.basic.options.ReplaceOption;
+import com.oracle.cloud.cache.basic.options.ScanOption;
+import com.oracle.cloud.cache.basic.options.ValueType;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import com.oracle.cloud.cache.processors.EntryProcessor;
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An implementation of the {@link Cache} interface which serves reads from a bounded
+ * {@link LocalCache} (the L1 tier) in front of another cache (the L2 tier), typically a
+ * remote cache. Reads that miss the L1 tier fall through to the L2 tier, and so to its
+ * {@link CacheLoader}, if any, and the value read is then held in the L1 tier.
+ * <p>
+ * All changes are applied to the L2 tier. Depending on the {@link NearTier.WritePolicy},
+ * the L1 entry is either invalidated or updated with the new value, if it is known. A value
+ * read from the L2 tier is not held in the L1 tier if a change was made through the cache
+ * while it was being read, so that a stale value is not cached. When an entry is written
+ * with an {@link Expiry} shorter than the time-to-live of the L1 tier, the value is not
+ * held in the L1 tier for longer than the entry exists in the L2 tier.
+ * </p>
+ * <p>
+ * With {@link NearTier#invalidateOnChange()}, the cache listens to the L2 tier, so that
+ * changes made by other clients also invalidate the L1 entries.
+ * </p>
+ *
+ * @param <V> value type for the cache
+ */
+public class TieredCache<V> implements Cache<V>
+{
+    /**
+     * Cache name.
+     */
+    private final String cacheName;
+
+    /**
+     * The L1 tier.
+     */
+    private final LocalCache<V> near;
+
+    /**
+     * The L2 tier.
+     */
+    private final AbstractCache<V> far;
+
+    /**
+     * The expiry times of the entries written with an expiry shorter than the time-to-live
+     * of the L1 tier.
+     */
+    private final LocalCache<Long> deadlines;
+
+    /**
+     * The time-to-live of entries in the L1 tier, in milliseconds.
+     */
+    private final long nearTtl;
+
+    /**
+     * Indicates that changed values are written to both tiers.
+     */
+    private final boolean writeBoth;
+
+    /**
+     * The number of changes made through the cache, used to detect changes made while
+     * a value is read from the L2 tier.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * The number of reads served by the L1 tier.
+     */
+    private volatile Counter nearHits = new Counter();
+
+
+    /**
+     * Constructs a TieredCache.
+     *
+     * @param cacheName  cache name
+     * @param near       the L1 tier
+     * @param far        the L2 tier
+     * @param tier       the configuration of the L1 tier
+     * @param nearTtl    the time-to-live of entries in the L1 tier
+     */
+    TieredCache(String           cacheName,
+                LocalCache<V>    near,
+                AbstractCache<V> far,
+                NearTier         tier,
+                Duration         nearTtl)
+    {
+        this.cacheName = cacheName;
+        this.near      = near;
+        this.far       = far;
+        this.deadlines = new LocalCache<>(cacheName,
+                                          new LocalSession(),
+                                          ValueType.of(Long.class),
+                                          Capacity.of(tier.getMaxEntries()),
+                                          Expiry.of(nearTtl));
+        this.nearTtl   = nearTtl.toMillis();
+        this.writeBoth = tier.getWritePolicy() == NearTier.WritePolicy.WRITE_BOTH;
+
+        if (tier.isInvalidatedOnChange())
+        {
+            far.addListener(this::changed);
+        }
+    }
+
+
+    @Override
+    public V get(String       key,
+                 GetOption... options)
+    {
+        V value = near.get(key);
+
+        if (value != null)
+        {
+            nearHits.inc();
+
+            return value;
+        }
+
+        long version = changes.get();
+
+        value = far.get(key, options);
+
+        if (value != null && version == changes.get())
+        {
+            hold(key, value);
+        }
+
+        return value;
+    }
+
+
+    @Override
+    public Versioned<V> getWithVersion(String       key,
+                                       GetOption... options)
+    {
+        // versions are only known to the L2 tier
+        return far.getWithVersion(key, options);
+    }
+
+
+    @Override
+    public V put(String       key,
+                 V            value,
+                 PutOption... options)
+    {
+        invalidate(key);
+
+        V oldValue = far.put(key, value, options);
+
+        updated(key, value, Options.from(PutOption.class, options).get(Expiry.class, null));
+
+        return oldValue;
+    }
+
+
+    @Override
+    public void putAll(Map<String, ? extends V> entries,
+                       PutOption...             options)
+    {
+        entries.keySet().forEach(this::invalidate);
+
+        far.putAll(entries, options);
+
+        Expiry expiry = Options.from(PutOption.class, options).get(Expiry.class, null);
+
+        entries.forEach((key, value) -> updated(key, value, expiry));
+    }
+
+
+    @Override
+    public V putIfAbsent(String       key,
+                         V            value,
+                         PutOption... options)
+    {
+        invalidate(key);
+
+        V currentValue = far.putIfAbsent(key, value, options);
+
+        updated(key, null, Options.from(PutOption.class, options).get(Expiry.class, null));
+
+        return currentValue;
+    }
+
+
+    @Override
+    public V replace(String           key,
+                     V                value,
+                     ReplaceOption... options)
+    {
+        invalidate(key);
+
+        V oldValue = far.replace(key, value, options);
+
+        updated(key, null, Options.from(ReplaceOption.class, options).get(Expiry.class, null));
+
+        return oldValue;
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           V                valueOld,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        invalidate(key);
+
+        boolean replaced = far.replace(key, valueOld, valueNew, options);
+
+        updated(key, replaced ? valueNew : null, Options.from(ReplaceOption.class, options).get(Expiry.class, null));
+
+        return replaced;
+    }
+
+
+    @Override
+    public boolean replace(String           key,
+                           Versioned<V>     expected,
+                           V                valueNew,
+                           ReplaceOption... options)
+    {
+        invalidate(key);
+
+        boolean replaced = far.replace(key, expected, valueNew, options);
+
+        updated(key, replaced ? valueNew : null, Options.from(ReplaceOption.class, options).get(Expiry.class, null));
+
+        return replaced;
+    }
+
+
+    @Override
+    public boolean process(String           key,
+                           EntryProcessor   processor,
+                           ReplaceOption... options)
+    {
+        invalidate(key);
+
+        boolean changed = far.process(key, processor, options);
+
+        updated(key, null, Options.from(ReplaceOption.class, options).get(Expiry.class, null));
+
+        return changed;
+    }
+
+
+    @Override
+    public V computeIfAbsent(String                        key,
+                             Function<String, ? extends V> mappingFunction,
+                             PutOption...                  options)
+    {
+        invalidate(key);
+
+        V value = far.computeIfAbsent(key, mappingFunction, options);
+
+        updated(key, value, Options.from(PutOption.class, options).get(Expiry.class, null));
+
+        return value;
+    }
+
+
+    @Override
+    public V computeIfPresent(String                                     key,
+                              BiFunction<String, ? super V, ? extends V> remappingFunction,
+                              ReplaceOption...                           options)
+    {
+        invalidate(key);
+
+        V value = far.computeIfPresent(key, remappingFunction, options);
+
+        updated(key, value, Options.from(ReplaceOption.class, options).get(Expiry.class, null));
+
+        return value;
+    }
+
+
+    @Override
+    public V merge(String                                        key,
+                   V                                             value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction,
+                   PutOption...                                  options)
+    {
+        invalidate(key);
+
+        V valueNew = far.merge(key, value, remappingFunction, options);
+
+        updated(key, valueNew, Options.from(PutOption.class, options).get(Expiry.class, null));
+
+        return valueNew;
+    }
+
+
+    @Override
+    public V remove(String          key,
+                    RemoveOption... options)
+    {
+        invalidate(key);
+
+        V oldValue = far.remove(key, options);
+
+        updated(key, null, null);
+
+        return oldValue;
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          V               value,
+                          RemoveOption... options)
+    {
+        invalidate(key);
+
+        boolean removed = far.remove(key, value, options);
+
+        updated(key, null, null);
+
+        return removed;
+    }
+
+
+    @Override
+    public boolean remove(String          key,
+                          Versioned<V>    expected,
+                          RemoveOption... options)
+    {
+        invalidate(key);
+
+        boolean removed = far.remove(key, expected, options);
+
+        updated(key, null, null);
+
+        return removed;
+    }
+
+
+    @Override
+    public void clear()
+    {
+        changes.incrementAndGet();
+        near.clear();
+        far.clear();
+        changes.incrementAndGet();
+        near.clear();
+        deadlines.clear();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The scan reads the L2 tier, which holds every entry, and does not populate the L1 tier.
+     * </p>
+     */
+    @Override
+    public Stream<Map.Entry<String, V>> scan(ScanOption... options)
+    {
+        return far.scan(options);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The listener is registered with the L2 tier, which holds every entry.
+     * </p>
+     */
+    @Override
+    public void addListener(CacheListener<? super V> listener)
+    {
+        far.addListener(listener);
+    }
+
+
+    @Override
+    public void removeListener(CacheListener<? super V> listener)
+    {
+        far.removeListener(listener);
+    }
+
+
+    /**
+     * Returns the metrics of the L2 tier, together with the number of reads served by
+     * the L1 tier, which are not included in the hits of the L2 tier.
+     *
+     * @return a {@link CacheMetrics} object containing the requested metrics
+     */
+    @Override
+    public CacheMetrics getMetrics()
+    {
+        MetricRegistry metrics = new MetricRegistry();
+
+        metrics.registerAll(far.getMetricRegistry());
+        metrics.register("near-hit", nearHits);
+
+        return new CacheMetrics(cacheName, metrics);
+    }
+
+
+    @Override
+    public void resetMetrics()
+    {
+        far.resetMetrics();
+        nearHits = new Counter();
+    }
+
+
+    /**
+     * Removes the L1 entry for the specified key, and prevents a value for it that is
+     * being read concurrently from the L2 tier from being held in the L1 tier.
+     *
+     * @param key  the key that is being changed
+     */
+    private void invalidate(String key)
+    {
+        changes.incrementAndGet();
+        near.remove(key);
+    }
+
+
+    /**
+     * Invalidates the L1 tier for a change made to the L2 tier, by this or another client.
+     *
+     * @param event  the change made to the L2 tier
+     */
+    private void changed(CacheEvent<? extends V> event)
+    {
+        if (event.getKey() == null)
+        {
+            changes.incrementAndGet();
+            near.clear();
+            deadlines.clear();
+        }
+        else
+        {
+            invalidate(event.getKey());
+        }
+    }
+
+
+    /**
+     * Updates the L1 tier once the entry for the specified key has been changed in the L2
+     * tier, by either writing the new value or invalidating the entry, depending on the
+     * write policy.
+     *
+     * @param key     the key that was changed
+     * @param value   the new value, or null if it is not known or the entry was removed
+     * @param expiry  the expiry the entry was written with, or null if none was specified
+     */
+    private void updated(String key,
+                         V      value,
+                         Expiry expiry)
+    {
+        long ttl = expiry == null ? 0L : expiry.getExpiry();
+
+        if (ttl > 0 && ttl < nearTtl)
+        {
+            deadlines.put(key, System.currentTimeMillis() + ttl);
+        }
+        else
+        {
+            deadlines.remove(key);
+        }
+
+        invalidate(key);
+
+        if (writeBoth && value != null)
+        {
+            hold(key, value);
+        }
+    }
+
+
+    /**
+     * Holds the specified value read from, or written to, the L2 tier in the L1 tier,
+     * unless the entry has expired in the L2 tier.
+     *
+     * @param key    the key
+     * @param value  the value
+     */
+    private void hold(String key,
+                      V      value)
+    {
+        Long deadline = deadlines.get(key);
+
+        if (deadline == null)
+        {
+            near.putIfAbsent(key, value);
+        }
+        else
+        {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining > 0)
+            {
+                near.putIfAbsent(key, value, Expiry.of(remaining, TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * File: TieredSession.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.NearTier;
+import com.oracle.cloud.cache.basic.options.SessionOption;
+import com.oracle.cloud.cache.basic.options.ValueType;
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An implementation of a {@link Session} which combines a {@link LocalSession} with
+ * another session, typically a remote session, into a two-tier hierarchy. Each cache
+ * is a {@link TieredCache}, which holds the values read from the L2 tier in a bounded
+ * L1 tier, as configured by the {@link NearTier} option.
+ * <p>
+ * Counters are always updated in the L2 tier, so the caches of counters are not tiered.
+ * </p>
+ */
+public class TieredSession implements Session
+{
+    /**
+     * The session for the L1 tier.
+     */
+    private final LocalSession near;
+
+    /**
+     * The session for the L2 tier.
+     */
+    private final Session far;
+
+    /**
+     * The configuration of the L1 tier for caches that do not specify it.
+     */
+    private final NearTier nearTier;
+
+
+    /**
+     * Constructs a TieredSession over the specified L2 session.
+     *
+     * @param far      the session for the L2 tier
+     * @param options  the session options
+     */
+    public TieredSession(Session          far,
+                         SessionOption... options)
+    {
+        this.near     = new LocalSession();
+        this.far      = far;
+        this.nearTier = Options.from(SessionOption.class, options).get(NearTier.class);
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> Cache<V> getCache(String         cacheName,
+                                 CacheOption... options)
+    {
+        Options<CacheOption> opts   = Options.from(CacheOption.class, options);
+        NearTier             tier   = opts.get(NearTier.class, nearTier);
+        long                 expiry = opts.get(Expiry.class, Expiry.never()).getExpiry();
+        long                 idle   = opts.get(IdleExpiry.class).getTimeout().toMillis();
+
+        // reads served by the L1 tier do not restart the idle timeout in the L2 tier, so entries
+        // are held for at most half of it, and an entry read at least that often stays alive
+        if (idle > 0 && (expiry <= 0 || idle / 2 < expiry))
+        {
+            expiry = Math.max(1L, idle / 2);
+        }
+
+        // entries are not held in the L1 tier for longer than the cache expiry
+        Duration         ttl = expiry > 0 && expiry < tier.getTtl().toMillis()
+                               ? Duration.ofMillis(expiry)
+                               : tier.getTtl();
+        LocalCache<V>    l1  = new LocalCache<>(cacheName,
+                                                near,
+                                                opts.get(ValueType.class),
+                                                Capacity.of(tier.getMaxEntries()),
+                                                Expiry.of(ttl));
+        AbstractCache<V> l2  = (AbstractCache<V>) far.<V>getCache(cacheName, options);
+
+        return new TieredCache<>(cacheName, l1, l2, tier, ttl);
+    }
+
+
+    @Override
+    public CounterCache getCounterCache(String         cacheName,
+                                        CacheOption... options)
+    {
+        return far.getCounterCache(cacheName, options);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * File: TieredSessionProvider.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import com.oracle.cloud.cache.basic.options.SessionOption;
+
+/**
+ * An implementation of a {@link SessionProvider}, which provides a {@link TieredSession}
+ * that holds values read through the sessions of another provider in a local tier.
+ *
+ * @see com.oracle.cloud.cache.basic.options.NearTier
+ */
+public class TieredSessionProvider implements SessionProvider
+{
+    /**
+     * The provider of the sessions for the L2 tier.
+     */
+    private final SessionProvider far;
+
+
+    /**
+     * Constructs a TieredSessionProvider over a {@link RemoteSessionProvider} that
+     * uses the defined system property "cloud.cache.uri".
+     */
+    public TieredSessionProvider()
+    {
+        this(new RemoteSessionProvider());
+    }
+
+
+    /**
+     * Constructs a TieredSessionProvider over the specified provider.
+     *
+     * @param far  the provider of the sessions for the L2 tier
+     */
+    public TieredSessionProvider(SessionProvider far)
+    {
+        this.far = far;
+    }
+
+
+    @Override
+    public Session createSession(SessionOption... options)
+    {
+        return new TieredSession(far.createSession(options), options);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * File: Versioned.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+/**
+ * A cache value together with the version of the entry holding it. The version
+ * changes whenever the entry is updated, so it may be passed to
+ * {@link Cache#replace(String, Versioned, Object, com.oracle.cloud.cache.basic.options.ReplaceOption...)}
+ * or {@link Cache#remove(String, Versioned, com.oracle.cloud.cache.basic.options.RemoveOption...)}
+ * to update the entry only if it has not changed since it was read, without
+ * sending the value itself to be compared.
+ *
+ * @param <V> the type of the value
+ */
+public class Versioned<V>
+{
+    /**
+     * The value.
+     */
+    private final V value;
+
+    /**
+     * The version of the entry.
+     */
+    private final long version;
+
+
+    /**
+     * Constructs a Versioned value.
+     *
+     * @param value    the value
+     * @param version  the version of the entry
+     */
+    public Versioned(V    value,
+                     long version)
+    {
+        this.value   = value;
+        this.version = version;
+    }
+
+
+    /**
+     * Returns the value.
+     *
+     * @return the value
+     */
+    public V getValue()
+    {
+        return value;
+    }
+
+
+    /**
+     * Returns the version of the entry.
+     *
+     * @return the version of the entry
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        Versioned<?> that = (Versioned<?>) o;
+
+        return version == that.version && (value != null ? value.equals(that.value) : that.value == null);
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * (value != null ? value.hashCode() : 0) + (int) (version ^ (version >>> 32));
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Versioned{" + "value=" + value + ", version=" + version + '}';
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * File: WriteBehindQueue.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+import com.oracle.cloud.cache.basic.options.WriteBehind;
+
+/**
+ * A queue of changes that are written to a {@link CacheWriter} in batches by a
+ * background thread. Changes to a key that is already queued replace the queued
+ * change, without affecting its position in the queue or the time it was queued.
+ *
+ * @param <V> the type of values written
+ */
+class WriteBehindQueue<V>
+{
+    /**
+     * The writer to write changes to.
+     */
+    private final CacheWriter<V> writer;
+
+    /**
+     * The maximum number of changes written in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum time a change is queued before it is written, in nanoseconds.
+     */
+    private final long flushInterval;
+
+    /**
+     * The maximum number of queued changes.
+     */
+    private final int maxQueue;
+
+    /**
+     * The name of the background thread.
+     */
+    private final String threadName;
+
+    /**
+     * Called with the start time of each successful batch.
+     */
+    private final LongConsumer onFlush;
+
+    /**
+     * Called when a batch fails to be written.
+     */
+    private final Runnable onFailure;
+
+    /**
+     * The queued changes, in the order they were first queued.
+     */
+    private final LinkedHashMap<String, Change<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * The lock guarding the queued changes.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when space becomes available in the queue.
+     */
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Signalled when a full batch is queued.
+     */
+    private final Condition batchReady = lock.newCondition();
+
+    /**
+     * The background thread, started when the first change is queued.
+     */
+    private Thread flusher;
+
+
+    /**
+     * Constructs a WriteBehindQueue.
+     *
+     * @param cacheName    the name of the cache whose changes are queued
+     * @param writer       the writer to write changes to
+     * @param writeBehind  the write-behind configuration
+     * @param onFlush      called with the start time of each successful batch
+     * @param onFailure    called when a batch fails to be written
+     */
+    WriteBehindQueue(String         cacheName,
+                     CacheWriter<V> writer,
+                     WriteBehind    writeBehind,
+                     LongConsumer   onFlush,
+                     Runnable       onFailure)
+    {
+        this.writer        = writer;
+        this.batchSize     = writeBehind.getBatchSize();
+        this.flushInterval = writeBehind.getFlushInterval().toNanos();
+        this.maxQueue      = writeBehind.getMaxQueue();
+        this.threadName    = "WriteBehind-" + cacheName;
+        this.onFlush       = onFlush;
+        this.onFailure     = onFailure;
+    }
+
+
+    /**
+     * Queues a change to the specified key, waiting for space in the queue if the
+     * key is not already queued and the queue is full.
+     *
+     * @param key    the key
+     * @param value  the new value, or null if the key was removed
+     *
+     * @throws IllegalStateException if the thread is interrupted while waiting for space
+     */
+    void enqueue(String key,
+                 V      value)
+    {
+        lock.lock();
+
+        try
+        {
+            while (pending.size() >= maxQueue && !pending.containsKey(key))
+            {
+                notFull.await();
+            }
+
+            Change<V> change = pending.get(key);
+
+            if (change == null)
+            {
+                pending.put(key, new Change<>(value, System.nanoTime()));
+            }
+            else
+            {
+                change.value = value;
+            }
+
+            if (pending.size() >= batchSize)
+            {
+                batchReady.signal();
+            }
+
+            if (flusher == null)
+            {
+                flusher = new Thread(this::run, threadName);
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for space in the write-behind queue", e);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Returns the number of queued changes.
+     *
+     * @return the number of queued changes
+     */
+    int size()
+    {
+        lock.lock();
+
+        try
+        {
+            return pending.size();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Writes batches of changes until the thread is interrupted. A batch that fails
+     * is queued again, and the next batch is delayed by the flush interval.
+     */
+    private void run()
+    {
+        try
+        {
+            while (true)
+            {
+                Map<String, Change<V>> batch = take();
+
+                if (!write(batch))
+                {
+                    requeue(batch);
+                    TimeUnit.NANOSECONDS.sleep(flushInterval);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Waits until a batch is full or the oldest change has been queued for the flush
+     * interval, and removes the batch from the queue.
+     *
+     * @return the batch of changes
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private Map<String, Change<V>> take() throws InterruptedException
+    {
+        lock.lock();
+
+        try
+        {
+            while (pending.size() < batchSize)
+            {
+                if (pending.isEmpty())
+                {
+                    batchReady.await();
+                }
+                else
+                {
+                    long wait = flushInterval - (System.nanoTime() - pending.values().iterator().next().time);
+
+                    if (wait <= 0)
+                    {
+                        break;
+                    }
+
+                    batchReady.awaitNanos(wait);
+                }
+            }
+
+            Map<String, Change<V>>                 batch    = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Change<V>>> iterator = pending.entrySet().iterator();
+
+            while (iterator.hasNext() && batch.size() < batchSize)
+            {
+                Map.Entry<String, Change<V>> entry = iterator.next();
+
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+
+            notFull.signalAll();
+
+            return batch;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Writes a batch of changes.
+     *
+     * @param batch  the batch of changes
+     *
+     * @return true if the batch was written
+     */
+    private boolean write(Map<String, Change<V>> batch)
+    {
+        Map<String, V> writes    = new LinkedHashMap<>();
+        List<String>   deletes   = new ArrayList<>();
+        long           startTime = System.nanoTime();
+
+        batch.forEach(
+            (key, change) -> {
+                if (change.value == null)
+                {
+                    deletes.add(key);
+                }
+                else
+                {
+                    writes.put(key, change.value);
+                }
+            });
+
+        try
+        {
+            if (!writes.isEmpty())
+            {
+                writer.writeAll(writes);
+            }
+
+            if (!deletes.isEmpty())
+            {
+                writer.deleteAll(deletes);
+            }
+
+            onFlush.accept(startTime);
+
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            onFailure.run();
+
+            return false;
+        }
+    }
+
+
+    /**
+     * Queues a batch that failed to be written again, ahead of the changes queued
+     * since, unless a key has been changed again in the meantime.
+     *
+     * @param batch  the batch of changes
+     */
+    private void requeue(Map<String, Change<V>> batch)
+    {
+        lock.lock();
+
+        try
+        {
+            Map<String, Change<V>> queued = new LinkedHashMap<>(pending);
+
+            pending.clear();
+
+            batch.forEach(
+                (key, change) -> {
+                    if (!queued.containsKey(key))
+                    {
+                        pending.put(key, change);
+                    }
+                });
+            pending.putAll(queued);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * A queued change.
+     *
+     * @param <V> the type of the value
+     */
+    private static class Change<V>
+    {
+        /**
+         * The new value, or null if the key was removed.
+         */
+        private V value;
+
+        /**
+         * The time the key was first queued, in nanoseconds.
+         */
+        private final long time;
+
+
+        /**
+         * Constructs a Change.
+         *
+         * @param value  the new value, or null if the key was removed
+         * @param time   the time the key was first queued, in nanoseconds
+         */
+        private Change(V    value,
+                       long time)
+        {
+            this.value = value;
+            this.time  = time;
+        }
+    }
+}
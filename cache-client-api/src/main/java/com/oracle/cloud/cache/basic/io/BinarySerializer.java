@@ -0,0 +1,105 @@
+/*
+ * File: BinarySerializer.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Serializer class that passes binary values, held as a byte[] or a {@link ByteBuffer},
+ * through unchanged, so that payloads which are already encoded (for example protobuf
+ * messages, compressed blobs or pre-rendered JSON) are neither copied nor encoded again.
+ * <p>
+ * A byte[] is handed to the transport as is, and so must not be modified once it has been
+ * stored. As the protocol represents an absent value as an empty one, an empty value is
+ * read back as null.
+ * </p>
+ */
+public class BinarySerializer implements Serializer
+{
+    @Override
+    public byte[] serialize(Object o) throws IOException
+    {
+        if (o instanceof byte[])
+        {
+            return (byte[]) o;
+        }
+
+        if (o instanceof ByteBuffer)
+        {
+            ByteBuffer buffer = (ByteBuffer) o;
+
+            if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length)
+            {
+                return buffer.array();
+            }
+
+            byte[] bytes = new byte[buffer.remaining()];
+
+            buffer.duplicate().get(bytes);
+
+            return bytes;
+        }
+
+        throw new IOException("Value of type " + (o == null ? null : o.getClass().getName())
+                              + " is not binary; only byte[] and ByteBuffer values are supported");
+    }
+
+
+    @Override
+    public <T> T deserialize(byte[]   data,
+                             Class<T> clzType) throws IOException
+    {
+        if (data == null || data.length == 0)
+        {
+            return null;
+        }
+
+        if (clzType.isAssignableFrom(byte[].class))
+        {
+            return clzType.cast(data);
+        }
+
+        if (clzType.isAssignableFrom(ByteBuffer.class))
+        {
+            return clzType.cast(ByteBuffer.wrap(data));
+        }
+
+        throw new IOException("Type " + clzType.getName() + " is not binary; only byte[] and ByteBuffer are supported");
+    }
+
+
+    @Override
+    public <T> T deserialize(ByteBuffer data,
+                             Class<T>   clzType) throws IOException
+    {
+        if (data == null || !data.hasRemaining())
+        {
+            return null;
+        }
+
+        if (clzType.isAssignableFrom(ByteBuffer.class))
+        {
+            return clzType.cast(data.slice());
+        }
+
+        return Serializer.super.deserialize(data, clzType);
+    }
+}
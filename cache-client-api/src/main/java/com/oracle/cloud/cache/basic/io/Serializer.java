@@ -24,6 +24,7 @@ import com.oracle.cloud.cache.basic.options.SessionOption;
 import com.oracle.cloud.cache.util.Options;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Interface defining a serializer to Serializer class to serialize
@@ -56,6 +57,28 @@ public interface Serializer extends SessionOption, CacheOption
                       Class<T> clzType) throws IOException;
 
 
+    /**
+     * Deserializes the remaining bytes of a buffer into an object of a specified class,
+     * without changing the position of the buffer. By default the bytes are copied into
+     * an array; a serializer able to read the buffer in place should override this.
+     *
+     * @param <T>     the type of the returned object
+     * @param data    a buffer to deserialize
+     * @param clzType the class of the created object
+     * @return a deserialized object
+     * @throws IOException if an error occurs
+     */
+    default <T> T deserialize(ByteBuffer data,
+                              Class<T>   clzType) throws IOException
+    {
+        byte[] bytes = new byte[data.remaining()];
+
+        data.duplicate().get(bytes);
+
+        return deserialize(bytes, clzType);
+    }
+
+
     /**
      * Creates a custom serializer of a specified class.
      *
@@ -85,4 +108,16 @@ public interface Serializer extends SessionOption, CacheOption
     {
         return new JsonSerializer();
     }
+
+
+    /**
+     * Creates a serializer that passes byte[] and {@link ByteBuffer} values through
+     * without encoding them. It is used by default for a cache with either value type.
+     *
+     * @return a binary serializer
+     */
+    static Serializer binary()
+    {
+        return new BinarySerializer();
+    }
 }
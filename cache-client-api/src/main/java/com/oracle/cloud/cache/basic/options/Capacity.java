@@ -0,0 +1,109 @@
+/*
+ * File: Capacity.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for bounding the number of entries held by a
+ * {@link com.oracle.cloud.cache.basic.LocalCache}. Once the capacity is reached,
+ * entries that have not been read recently are evicted to make room for new ones.
+ * Local caches are unbounded by default.
+ */
+public class Capacity implements CacheOption
+{
+    /**
+     * Indicates an unbounded cache.
+     */
+    private static final Capacity UNLIMITED = new Capacity(Integer.MAX_VALUE);
+
+    /**
+     * The maximum number of entries.
+     */
+    private final int maxEntries;
+
+
+    /**
+     * Constructs a Capacity option.
+     *
+     * @param maxEntries  the maximum number of entries
+     */
+    private Capacity(int maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+
+    /**
+     * Returns an option that bounds a cache to the specified number of entries.
+     *
+     * @param maxEntries  the maximum number of entries
+     * @return the Capacity option
+     */
+    public static Capacity of(int maxEntries)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        return new Capacity(maxEntries);
+    }
+
+
+    /**
+     * Returns an option for an unbounded cache (the default).
+     *
+     * @return the Capacity option
+     */
+    @Options.Default
+    public static Capacity unlimited()
+    {
+        return UNLIMITED;
+    }
+
+
+    /**
+     * Indicates if the cache is bounded.
+     *
+     * @return true if the cache is bounded
+     */
+    public boolean isBounded()
+    {
+        return maxEntries != Integer.MAX_VALUE;
+    }
+
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Capacity{" + "maxEntries=" + maxEntries + '}';
+    }
+}
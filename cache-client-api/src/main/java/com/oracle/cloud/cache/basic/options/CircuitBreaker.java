@@ -0,0 +1,451 @@
+/*
+ * File: CircuitBreaker.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for protecting callers from a degraded remote cache using a
+ * circuit breaker.
+ * <p>
+ * The circuit opens when, over the most recent window of requests, the proportion of
+ * requests that failed with a transport error or took longer than the slow call
+ * duration reaches the failure rate threshold. While the circuit is open, requests
+ * fail immediately with a {@link com.oracle.cloud.cache.basic.CircuitOpenException}
+ * rather than waiting for a timeout. Once the open duration has elapsed, a small
+ * number of probe requests are let through; the circuit closes if they all succeed
+ * and re-opens otherwise.
+ * </p>
+ * <p>
+ * While the circuit is open, gets may optionally be served from a bounded local
+ * fallback cache holding the most recently read and written values, which may be
+ * stale. Unconditional writes (put, remove and clear) may be dropped, or queued to be
+ * applied once the circuit closes; conditional writes always fail while the circuit
+ * is open. The circuit breaker is disabled by default.
+ * </p>
+ */
+public class CircuitBreaker implements SessionOption, CacheOption
+{
+    /**
+     * Indicates that the circuit breaker is disabled.
+     */
+    private static final CircuitBreaker DISABLED =
+        new CircuitBreaker(0.0, Duration.ZERO, Duration.ZERO, 0, 0, 0, WritePolicy.FAIL, 0);
+
+    /**
+     * The default number of requests over which the failure rate is measured.
+     */
+    private static final int DEFAULT_WINDOW = 20;
+
+    /**
+     * The default number of probe requests let through once the open duration has elapsed.
+     */
+    private static final int DEFAULT_PROBES = 3;
+
+    /**
+     * The policy for unconditional writes while the circuit is open.
+     */
+    public enum WritePolicy
+    {
+        /**
+         * Writes fail.
+         */
+        FAIL,
+
+        /**
+         * Writes are discarded.
+         */
+        DROP,
+
+        /**
+         * Writes are queued and applied in order once the circuit closes.
+         */
+        QUEUE
+    }
+
+    /**
+     * The proportion of failed or slow requests at which the circuit opens.
+     */
+    private final double failureRate;
+
+    /**
+     * The duration after which a request is considered slow, or zero if requests are never slow.
+     */
+    private final Duration slowCallDuration;
+
+    /**
+     * The duration for which the circuit stays open before probing.
+     */
+    private final Duration openDuration;
+
+    /**
+     * The number of requests over which the failure rate is measured.
+     */
+    private final int window;
+
+    /**
+     * The number of probe requests let through once the open duration has elapsed.
+     */
+    private final int probes;
+
+    /**
+     * The capacity of the local fallback cache, or zero for no fallback.
+     */
+    private final int fallbackCapacity;
+
+    /**
+     * The policy for unconditional writes while the circuit is open.
+     */
+    private final WritePolicy writePolicy;
+
+    /**
+     * The maximum number of writes queued while the circuit is open.
+     */
+    private final int maxQueuedWrites;
+
+
+    /**
+     * Constructs a CircuitBreaker option.
+     *
+     * @param failureRate       the proportion of failed or slow requests at which the circuit opens
+     * @param slowCallDuration  the duration after which a request is considered slow
+     * @param openDuration      the duration for which the circuit stays open before probing
+     * @param window            the number of requests over which the failure rate is measured
+     * @param probes            the number of probe requests
+     * @param fallbackCapacity  the capacity of the local fallback cache
+     * @param writePolicy       the policy for unconditional writes while the circuit is open
+     * @param maxQueuedWrites   the maximum number of writes queued while the circuit is open
+     */
+    private CircuitBreaker(double      failureRate,
+                           Duration    slowCallDuration,
+                           Duration    openDuration,
+                           int         window,
+                           int         probes,
+                           int         fallbackCapacity,
+                           WritePolicy writePolicy,
+                           int         maxQueuedWrites)
+    {
+        this.failureRate      = failureRate;
+        this.slowCallDuration = slowCallDuration;
+        this.openDuration     = openDuration;
+        this.window           = window;
+        this.probes           = probes;
+        this.fallbackCapacity = fallbackCapacity;
+        this.writePolicy      = writePolicy;
+        this.maxQueuedWrites  = maxQueuedWrites;
+    }
+
+
+    /**
+     * Returns an option that opens the circuit when the proportion of failed requests
+     * over the last 20 requests reaches the specified rate.
+     *
+     * @param failureRate   the failure rate, in {@code (0..1]}, at which the circuit opens
+     * @param openDuration  the duration for which the circuit stays open before probing
+     * @return the CircuitBreaker option
+     */
+    public static CircuitBreaker of(double   failureRate,
+                                    Duration openDuration)
+    {
+        return of(failureRate, Duration.ZERO, openDuration);
+    }
+
+
+    /**
+     * Returns an option that opens the circuit when the proportion of requests over the
+     * last 20 requests that failed, or took longer than the slow call duration, reaches
+     * the specified rate.
+     *
+     * @param failureRate       the failure rate, in {@code (0..1]}, at which the circuit opens
+     * @param slowCallDuration  the duration after which a request is considered slow
+     * @param openDuration      the duration for which the circuit stays open before probing
+     * @return the CircuitBreaker option
+     */
+    public static CircuitBreaker of(double   failureRate,
+                                    Duration slowCallDuration,
+                                    Duration openDuration)
+    {
+        if (failureRate <= 0.0 || failureRate > 1.0)
+        {
+            throw new IllegalArgumentException("failure rate must be greater than 0 and at most 1");
+        }
+
+        if (slowCallDuration == null || slowCallDuration.isNegative())
+        {
+            throw new IllegalArgumentException("slow call duration must not be negative");
+        }
+
+        if (openDuration == null || openDuration.isNegative() || openDuration.isZero())
+        {
+            throw new IllegalArgumentException("open duration must be positive");
+        }
+
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  DEFAULT_WINDOW,
+                                  DEFAULT_PROBES,
+                                  0,
+                                  WritePolicy.FAIL,
+                                  0);
+    }
+
+
+    /**
+     * Returns an option that disables the circuit breaker (the default).
+     *
+     * @return the CircuitBreaker option
+     */
+    @Options.Default
+    public static CircuitBreaker disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Returns a copy of this option which measures the failure rate over the specified
+     * number of requests.
+     *
+     * @param window  the number of requests over which the failure rate is measured
+     * @return the CircuitBreaker option
+     */
+    public CircuitBreaker withWindow(int window)
+    {
+        if (window <= 0)
+        {
+            throw new IllegalArgumentException("window must be positive");
+        }
+
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  window,
+                                  probes,
+                                  fallbackCapacity,
+                                  writePolicy,
+                                  maxQueuedWrites);
+    }
+
+
+    /**
+     * Returns a copy of this option which lets the specified number of probe requests
+     * through once the open duration has elapsed.
+     *
+     * @param probes  the number of probe requests
+     * @return the CircuitBreaker option
+     */
+    public CircuitBreaker withProbes(int probes)
+    {
+        if (probes <= 0)
+        {
+            throw new IllegalArgumentException("probes must be positive");
+        }
+
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  window,
+                                  probes,
+                                  fallbackCapacity,
+                                  writePolicy,
+                                  maxQueuedWrites);
+    }
+
+
+    /**
+     * Returns a copy of this option which serves gets from a local fallback cache,
+     * holding up to the specified number of entries, while the circuit is open.
+     *
+     * @param capacity  the maximum number of entries in the fallback cache
+     * @return the CircuitBreaker option
+     */
+    public CircuitBreaker withFallback(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("fallback capacity must be positive");
+        }
+
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  window,
+                                  probes,
+                                  capacity,
+                                  writePolicy,
+                                  maxQueuedWrites);
+    }
+
+
+    /**
+     * Returns a copy of this option which discards unconditional writes while the
+     * circuit is open.
+     *
+     * @return the CircuitBreaker option
+     */
+    public CircuitBreaker dropWrites()
+    {
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  window,
+                                  probes,
+                                  fallbackCapacity,
+                                  WritePolicy.DROP,
+                                  0);
+    }
+
+
+    /**
+     * Returns a copy of this option which queues up to the specified number of
+     * unconditional writes while the circuit is open, applying them in order once it
+     * closes. Writes beyond the maximum fail.
+     *
+     * @param maxQueuedWrites  the maximum number of queued writes
+     * @return the CircuitBreaker option
+     */
+    public CircuitBreaker queueWrites(int maxQueuedWrites)
+    {
+        if (maxQueuedWrites <= 0)
+        {
+            throw new IllegalArgumentException("maximum queued writes must be positive");
+        }
+
+        return new CircuitBreaker(failureRate,
+                                  slowCallDuration,
+                                  openDuration,
+                                  window,
+                                  probes,
+                                  fallbackCapacity,
+                                  WritePolicy.QUEUE,
+                                  maxQueuedWrites);
+    }
+
+
+    /**
+     * Indicates if the circuit breaker is enabled.
+     *
+     * @return true if the circuit breaker is enabled
+     */
+    public boolean isEnabled()
+    {
+        return failureRate > 0.0;
+    }
+
+
+    /**
+     * Returns the proportion of failed or slow requests at which the circuit opens.
+     *
+     * @return the failure rate threshold
+     */
+    public double getFailureRate()
+    {
+        return failureRate;
+    }
+
+
+    /**
+     * Returns the duration after which a request is considered slow, or zero if
+     * requests are never considered slow.
+     *
+     * @return the slow call duration
+     */
+    public Duration getSlowCallDuration()
+    {
+        return slowCallDuration;
+    }
+
+
+    /**
+     * Returns the duration for which the circuit stays open before probing.
+     *
+     * @return the open duration
+     */
+    public Duration getOpenDuration()
+    {
+        return openDuration;
+    }
+
+
+    /**
+     * Returns the number of requests over which the failure rate is measured.
+     *
+     * @return the window size
+     */
+    public int getWindow()
+    {
+        return window;
+    }
+
+
+    /**
+     * Returns the number of probe requests let through once the open duration has elapsed.
+     *
+     * @return the number of probe requests
+     */
+    public int getProbes()
+    {
+        return probes;
+    }
+
+
+    /**
+     * Returns the capacity of the local fallback cache, or zero if there is no fallback.
+     *
+     * @return the fallback capacity
+     */
+    public int getFallbackCapacity()
+    {
+        return fallbackCapacity;
+    }
+
+
+    /**
+     * Returns the policy for unconditional writes while the circuit is open.
+     *
+     * @return the write policy
+     */
+    public WritePolicy getWritePolicy()
+    {
+        return writePolicy;
+    }
+
+
+    /**
+     * Returns the maximum number of writes queued while the circuit is open.
+     *
+     * @return the maximum number of queued writes
+     */
+    public int getMaxQueuedWrites()
+    {
+        return maxQueuedWrites;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "CircuitBreaker{" + "failureRate=" + failureRate + ", slowCallDuration=" + slowCallDuration
+               + ", openDuration=" + openDuration + ", window=" + window + ", probes=" + probes + ", fallbackCapacity="
+               + fallbackCapacity + ", writePolicy=" + writePolicy + ", maxQueuedWrites=" + maxQueuedWrites + '}';
+    }
+}
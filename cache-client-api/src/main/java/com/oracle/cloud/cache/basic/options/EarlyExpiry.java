@@ -0,0 +1,129 @@
+/*
+ * File: EarlyExpiry.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for refreshing cache entries before they expire, to prevent many
+ * clients from invoking the {@link com.oracle.cloud.cache.basic.CacheLoader} for a key at
+ * once when its entry expires.
+ * <p>
+ * Each read of an entry that is about to expire refreshes it early, by loading and putting
+ * the value, with a probability that rises as the entry approaches its expiry (the XFetch
+ * algorithm). A read refreshes the entry if
+ * <code>remainingTtl &lt;= -loadTime * beta * ln(random)</code>, where the load time is the
+ * mean time taken by the cache loader so far, so entries that are slow to load are refreshed
+ * earlier. A beta greater than 1 favours earlier refreshes, and a beta less than 1 favours
+ * later ones. Early expiration is disabled by default, and has no effect for a cache without
+ * a cache loader.
+ * </p>
+ */
+public class EarlyExpiry implements CacheOption
+{
+    /**
+     * Indicates that early expiration is disabled.
+     */
+    private static final EarlyExpiry DISABLED = new EarlyExpiry(0.0);
+
+    /**
+     * The weight of the load time in the probability of refreshing an entry.
+     */
+    private final double beta;
+
+
+    /**
+     * Constructs an EarlyExpiry option.
+     *
+     * @param beta  the weight of the load time in the probability of refreshing an entry
+     */
+    private EarlyExpiry(double beta)
+    {
+        this.beta = beta;
+    }
+
+
+    /**
+     * Returns an option that refreshes entries early, with a beta of 1.
+     *
+     * @return the EarlyExpiry option
+     */
+    public static EarlyExpiry enabled()
+    {
+        return of(1.0);
+    }
+
+
+    /**
+     * Returns an option that refreshes entries early, with the specified beta.
+     *
+     * @param beta  the weight of the load time in the probability of refreshing an entry
+     * @return the EarlyExpiry option
+     */
+    public static EarlyExpiry of(double beta)
+    {
+        if (!(beta > 0.0))
+        {
+            throw new IllegalArgumentException("beta must be positive");
+        }
+
+        return new EarlyExpiry(beta);
+    }
+
+
+    /**
+     * Returns an option that disables early expiration (the default).
+     *
+     * @return the EarlyExpiry option
+     */
+    @Options.Default
+    public static EarlyExpiry disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Indicates if early expiration is enabled.
+     *
+     * @return true if early expiration is enabled
+     */
+    public boolean isEnabled()
+    {
+        return beta > 0.0;
+    }
+
+
+    /**
+     * Returns the weight of the load time in the probability of refreshing an entry.
+     *
+     * @return the beta
+     */
+    public double getBeta()
+    {
+        return beta;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "EarlyExpiry{" + "beta=" + beta + '}';
+    }
+}
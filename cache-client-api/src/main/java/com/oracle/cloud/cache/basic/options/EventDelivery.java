@@ -0,0 +1,158 @@
+/*
+ * File: EventDelivery.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic.options;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for configuring how events are delivered to the listeners of a cache.
+ * <p>
+ * By default, events are delivered synchronously, by the thread making the change. With
+ * asynchronous delivery, events are queued and delivered in batches by a background
+ * thread, so that slow listeners do not slow down changes to the cache. The queue is
+ * bounded: when it is full, events are dropped rather than blocking the change, and a
+ * {@link com.oracle.cloud.cache.basic.CacheEvent.Type#RESET} event is delivered once there
+ * is space again, so that listeners know to resynchronize.
+ * </p>
+ */
+public class EventDelivery implements CacheOption
+{
+    /**
+     * Indicates that events are delivered synchronously.
+     */
+    private static final EventDelivery SYNCHRONOUS = new EventDelivery(0, 0);
+
+    /**
+     * The default maximum number of queued events, as a multiple of the batch size.
+     */
+    private static final int DEFAULT_QUEUE_BATCHES = 100;
+
+    /**
+     * The maximum number of events delivered in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum number of queued events.
+     */
+    private final int maxQueue;
+
+
+    /**
+     * Constructs an EventDelivery option.
+     *
+     * @param batchSize  the maximum number of events delivered in a batch
+     * @param maxQueue   the maximum number of queued events
+     */
+    private EventDelivery(int batchSize,
+                          int maxQueue)
+    {
+        this.batchSize = batchSize;
+        this.maxQueue  = maxQueue;
+    }
+
+
+    /**
+     * Returns an option that delivers events synchronously, by the thread making the
+     * change (the default).
+     *
+     * @return the EventDelivery option
+     */
+    @Options.Default
+    public static EventDelivery synchronous()
+    {
+        return SYNCHRONOUS;
+    }
+
+
+    /**
+     * Returns an option that delivers events asynchronously, in batches of up to the
+     * specified size, queueing up to one hundred batches of events.
+     *
+     * @param batchSize  the maximum number of events delivered in a batch
+     * @return the EventDelivery option
+     */
+    public static EventDelivery asynchronous(int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+
+        return new EventDelivery(batchSize, batchSize * DEFAULT_QUEUE_BATCHES);
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified maximum number of queued events.
+     *
+     * @param maxQueue  the maximum number of queued events, which must be at least the batch size
+     * @return the EventDelivery option
+     */
+    public EventDelivery withMaxQueue(int maxQueue)
+    {
+        if (!isAsynchronous() || maxQueue < batchSize)
+        {
+            throw new IllegalArgumentException("maximum queue size must be at least the batch size");
+        }
+
+        return new EventDelivery(batchSize, maxQueue);
+    }
+
+
+    /**
+     * Indicates if events are delivered asynchronously.
+     *
+     * @return true if events are delivered asynchronously
+     */
+    public boolean isAsynchronous()
+    {
+        return batchSize > 0;
+    }
+
+
+    /**
+     * Returns the maximum number of events delivered in a batch.
+     *
+     * @return the maximum batch size
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+
+    /**
+     * Returns the maximum number of queued events.
+     *
+     * @return the maximum number of queued events
+     */
+    public int getMaxQueue()
+    {
+        return maxQueue;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "EventDelivery{" + "batchSize=" + batchSize + ", maxQueue=" + maxQueue + '}';
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * File: ExpiryJitter.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for randomly shortening the time-to-live of the entries written to
+ * a cache, so that entries written at the same time with the same {@link Expiry} do not all
+ * expire at once. Each time-to-live is reduced by a random amount, up to the specified
+ * fraction of it. Entries that never expire are unaffected. No jitter is applied by default.
+ */
+public class ExpiryJitter implements CacheOption
+{
+    /**
+     * Indicates that no jitter is applied.
+     */
+    private static final ExpiryJitter NONE = new ExpiryJitter(0.0);
+
+    /**
+     * The maximum fraction by which a time-to-live is reduced.
+     */
+    private final double fraction;
+
+
+    /**
+     * Constructs an ExpiryJitter option.
+     *
+     * @param fraction  the maximum fraction by which a time-to-live is reduced
+     */
+    private ExpiryJitter(double fraction)
+    {
+        this.fraction = fraction;
+    }
+
+
+    /**
+     * Returns an option that reduces each time-to-live by up to the specified fraction.
+     *
+     * @param fraction  the maximum fraction by which a time-to-live is reduced, greater
+     *                  than 0 and less than 1
+     * @return the ExpiryJitter option
+     */
+    public static ExpiryJitter of(double fraction)
+    {
+        if (!(fraction > 0.0 && fraction < 1.0))
+        {
+            throw new IllegalArgumentException("fraction must be greater than 0 and less than 1");
+        }
+
+        return new ExpiryJitter(fraction);
+    }
+
+
+    /**
+     * Returns an option that applies no jitter (the default).
+     *
+     * @return the ExpiryJitter option
+     */
+    @Options.Default
+    public static ExpiryJitter none()
+    {
+        return NONE;
+    }
+
+
+    /**
+     * Indicates if jitter is applied.
+     *
+     * @return true if jitter is applied
+     */
+    public boolean isEnabled()
+    {
+        return fraction > 0.0;
+    }
+
+
+    /**
+     * Returns the maximum fraction by which a time-to-live is reduced.
+     *
+     * @return the maximum fraction
+     */
+    public double getFraction()
+    {
+        return fraction;
+    }
+
+
+    /**
+     * Returns the specified expiry, reduced by a random amount up to the maximum fraction.
+     *
+     * @param expiry  the expiry
+     * @param random  a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the reduced expiry, or the specified expiry if it has no time-to-live
+     */
+    public Expiry apply(Expiry expiry,
+                        double random)
+    {
+        long ttl = expiry.getExpiry();
+
+        if (!isEnabled() || ttl <= 0)
+        {
+            return expiry;
+        }
+
+        return Expiry.of(Math.max(1L, ttl - (long) (ttl * fraction * random)), TimeUnit.MILLISECONDS);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "ExpiryJitter{" + "fraction=" + fraction + '}';
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * File: Hedging.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for enabling hedged reads against a remote cache.
+ * <p>
+ * When a get has not completed within the configured percentile of recent get
+ * latencies, a second, identical request is issued over a separate connection and
+ * whichever response arrives first is used. The number of hedged requests is
+ * capped at a fraction of all gets, so that hedging cannot amplify load on a
+ * server that is slow across the board. Hedging is disabled by default.
+ * </p>
+ */
+public class Hedging implements SessionOption, CacheOption
+{
+    /**
+     * Indicates that hedging is disabled.
+     */
+    private static final Hedging DISABLED = new Hedging(0.0, Duration.ZERO, 0.0);
+
+    /**
+     * The default minimum hedge delay.
+     */
+    private static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(1);
+
+    /**
+     * The default maximum ratio of hedged requests to gets.
+     */
+    private static final double DEFAULT_MAX_RATIO = 0.05;
+
+    /**
+     * The get latency quantile after which a hedged request is issued.
+     */
+    private final double percentile;
+
+    /**
+     * The minimum delay before a hedged request is issued.
+     */
+    private final Duration minDelay;
+
+    /**
+     * The maximum ratio of hedged requests to gets.
+     */
+    private final double maxRatio;
+
+
+    /**
+     * Constructs a Hedging option.
+     *
+     * @param percentile  the get latency quantile after which a hedged request is issued
+     * @param minDelay    the minimum delay before a hedged request is issued
+     * @param maxRatio    the maximum ratio of hedged requests to gets
+     */
+    private Hedging(double   percentile,
+                    Duration minDelay,
+                    double   maxRatio)
+    {
+        this.percentile = percentile;
+        this.minDelay   = minDelay;
+        this.maxRatio   = maxRatio;
+    }
+
+
+    /**
+     * Returns an option that hedges gets that take longer than the specified quantile
+     * of recent get latencies, for at most 5% of gets.
+     *
+     * @param percentile  the latency quantile, in {@code (0..1)}, such as 0.95
+     * @return the Hedging option
+     */
+    public static Hedging atPercentile(double percentile)
+    {
+        return of(percentile, DEFAULT_MIN_DELAY, DEFAULT_MAX_RATIO);
+    }
+
+
+    /**
+     * Returns an option that hedges gets that take longer than the specified quantile
+     * of recent get latencies (but never sooner than the minimum delay), for at most
+     * the specified ratio of gets.
+     *
+     * @param percentile  the latency quantile, in {@code (0..1)}, such as 0.95
+     * @param minDelay    the minimum delay before a hedged request is issued
+     * @param maxRatio    the maximum ratio of hedged requests to gets, in {@code (0..1]}
+     * @return the Hedging option
+     */
+    public static Hedging of(double   percentile,
+                             Duration minDelay,
+                             double   maxRatio)
+    {
+        if (percentile <= 0.0 || percentile >= 1.0)
+        {
+            throw new IllegalArgumentException("percentile must be between 0 and 1");
+        }
+
+        if (maxRatio <= 0.0 || maxRatio > 1.0)
+        {
+            throw new IllegalArgumentException("maximum hedge ratio must be greater than 0 and at most 1");
+        }
+
+        if (minDelay == null || minDelay.isNegative())
+        {
+            throw new IllegalArgumentException("minimum delay must not be negative");
+        }
+
+        return new Hedging(percentile, minDelay, maxRatio);
+    }
+
+
+    /**
+     * Returns an option that disables hedging (the default).
+     *
+     * @return the Hedging option
+     */
+    @Options.Default
+    public static Hedging disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Indicates if hedging is enabled.
+     *
+     * @return true if hedging is enabled
+     */
+    public boolean isEnabled()
+    {
+        return maxRatio > 0.0;
+    }
+
+
+    /**
+     * Returns the get latency quantile after which a hedged request is issued.
+     *
+     * @return the get latency quantile
+     */
+    public double getPercentile()
+    {
+        return percentile;
+    }
+
+
+    /**
+     * Returns the minimum delay before a hedged request is issued.
+     *
+     * @return the minimum hedge delay
+     */
+    public Duration getMinDelay()
+    {
+        return minDelay;
+    }
+
+
+    /**
+     * Returns the maximum ratio of hedged requests to gets.
+     *
+     * @return the maximum ratio of hedged requests to gets
+     */
+    public double getMaxRatio()
+    {
+        return maxRatio;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Hedging{" + "percentile=" + percentile + ", minDelay=" + minDelay + ", maxRatio=" + maxRatio + '}';
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * File: HotKeys.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for enabling hot-key tracking on a cache. When enabled, key
+ * accesses are counted in a fixed-size count-min sketch and the most frequently
+ * accessed keys are reported via {@link com.oracle.cloud.cache.metrics.CacheMetrics#getHotKeys()}.
+ * Tracking is disabled by default.
+ */
+public class HotKeys implements CacheOption
+{
+    /**
+     * Indicates that hot-key tracking is disabled.
+     */
+    private static final HotKeys DISABLED = new HotKeys(0, 0, 0, Duration.ZERO);
+
+    /**
+     * The default number of hot keys to report.
+     */
+    private static final int DEFAULT_TOP_K = 10;
+
+    /**
+     * The default number of counters in each row of the sketch.
+     */
+    private static final int DEFAULT_WIDTH = 2048;
+
+    /**
+     * The default number of rows (hash functions) in the sketch.
+     */
+    private static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * The default interval after which all counts are halved.
+     */
+    private static final Duration DEFAULT_DECAY = Duration.ofMinutes(1);
+
+    /**
+     * The number of hot keys to report.
+     */
+    private final int topK;
+
+    /**
+     * The number of counters in each row of the sketch.
+     */
+    private final int width;
+
+    /**
+     * The number of rows (hash functions) in the sketch.
+     */
+    private final int depth;
+
+    /**
+     * The interval after which all counts are halved.
+     */
+    private final Duration decayInterval;
+
+
+    /**
+     * Constructs a HotKeys option.
+     *
+     * @param topK           the number of hot keys to report
+     * @param width          the number of counters in each row of the sketch
+     * @param depth          the number of rows in the sketch
+     * @param decayInterval  the interval after which all counts are halved
+     */
+    private HotKeys(int      topK,
+                    int      width,
+                    int      depth,
+                    Duration decayInterval)
+    {
+        this.topK          = topK;
+        this.width         = width;
+        this.depth         = depth;
+        this.decayInterval = decayInterval;
+    }
+
+
+    /**
+     * Returns an option that tracks the default number (10) of hot keys.
+     *
+     * @return an option that enables hot-key tracking
+     */
+    public static HotKeys track()
+    {
+        return track(DEFAULT_TOP_K);
+    }
+
+
+    /**
+     * Returns an option that tracks the specified number of hot keys, halving
+     * all counts every minute.
+     *
+     * @param topK  the number of hot keys to report
+     * @return an option that enables hot-key tracking
+     */
+    public static HotKeys track(int topK)
+    {
+        return track(topK, DEFAULT_DECAY);
+    }
+
+
+    /**
+     * Returns an option that tracks the specified number of hot keys, halving
+     * all counts after each decay interval.
+     *
+     * @param topK           the number of hot keys to report
+     * @param decayInterval  the interval after which all counts are halved
+     * @return an option that enables hot-key tracking
+     */
+    public static HotKeys track(int      topK,
+                                Duration decayInterval)
+    {
+        return of(topK, DEFAULT_WIDTH, DEFAULT_DEPTH, decayInterval);
+    }
+
+
+    /**
+     * Returns an option that tracks hot keys using a sketch of the specified
+     * dimensions. Memory used by the sketch is {@code width * depth * 8} bytes.
+     *
+     * @param topK           the number of hot keys to report
+     * @param width          the number of counters in each row of the sketch
+     * @param depth          the number of rows (hash functions) in the sketch
+     * @param decayInterval  the interval after which all counts are halved
+     * @return an option that enables hot-key tracking
+     */
+    public static HotKeys of(int      topK,
+                             int      width,
+                             int      depth,
+                             Duration decayInterval)
+    {
+        if (topK <= 0 || width <= 0 || depth <= 0)
+        {
+            throw new IllegalArgumentException("topK, width and depth must be positive");
+        }
+
+        if (decayInterval == null || decayInterval.isNegative() || decayInterval.isZero())
+        {
+            throw new IllegalArgumentException("decay interval must be positive");
+        }
+
+        return new HotKeys(topK, width, depth, decayInterval);
+    }
+
+
+    /**
+     * Returns an option that disables hot-key tracking (the default).
+     *
+     * @return an option that disables hot-key tracking
+     */
+    @Options.Default
+    public static HotKeys disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Indicates if hot-key tracking is enabled.
+     *
+     * @return true if hot-key tracking is enabled
+     */
+    public boolean isEnabled()
+    {
+        return topK > 0;
+    }
+
+
+    /**
+     * Returns the number of hot keys to report.
+     *
+     * @return the number of hot keys to report
+     */
+    public int getTopK()
+    {
+        return topK;
+    }
+
+
+    /**
+     * Returns the number of counters in each row of the sketch.
+     *
+     * @return the number of counters in each row of the sketch
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Returns the number of rows (hash functions) in the sketch.
+     *
+     * @return the number of rows in the sketch
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+
+    /**
+     * Returns the interval after which all counts are halved.
+     *
+     * @return the decay interval
+     */
+    public Duration getDecayInterval()
+    {
+        return decayInterval;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "HotKeys{" + "topK=" + topK + ", width=" + width + ", depth=" + depth + ", decayInterval="
+               + decayInterval + '}';
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * File: IdleExpiry.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for expiring cache entries that have not been read for some time.
+ * An entry written with idle expiry lives while it is being read, and expires once it
+ * has not been read for the idle timeout, or when its {@link Expiry} elapses, if sooner.
+ * <p>
+ * Remote caches honour idle expiry by writing entries with a time-to-live no longer than
+ * the idle timeout, and asking the server to restart the time-to-live on every read.
+ * Idle expiry is disabled by default.
+ * </p>
+ */
+public class IdleExpiry implements CacheOption
+{
+    /**
+     * Indicates that idle expiry is disabled.
+     */
+    private static final IdleExpiry NEVER = new IdleExpiry(Duration.ZERO);
+
+    /**
+     * The time after which an entry that has not been read expires.
+     */
+    private final Duration timeout;
+
+
+    /**
+     * Constructs an IdleExpiry option.
+     *
+     * @param timeout  the time after which an entry that has not been read expires
+     */
+    private IdleExpiry(Duration timeout)
+    {
+        this.timeout = timeout;
+    }
+
+
+    /**
+     * Returns an option that expires entries that have not been read for the
+     * specified time.
+     *
+     * @param timeout  the time after which an entry that has not been read expires
+     * @return the IdleExpiry option
+     */
+    public static IdleExpiry of(Duration timeout)
+    {
+        if (timeout == null || timeout.isNegative() || timeout.isZero())
+        {
+            throw new IllegalArgumentException("idle timeout must be positive");
+        }
+
+        return new IdleExpiry(timeout);
+    }
+
+
+    /**
+     * Returns an option that never expires entries because they have not been
+     * read (the default).
+     *
+     * @return the IdleExpiry option
+     */
+    @Options.Default
+    public static IdleExpiry never()
+    {
+        return NEVER;
+    }
+
+
+    /**
+     * Indicates if idle expiry is enabled.
+     *
+     * @return true if idle expiry is enabled
+     */
+    public boolean isEnabled()
+    {
+        return !timeout.isZero();
+    }
+
+
+    /**
+     * Returns the time after which an entry that has not been read expires.
+     *
+     * @return the idle timeout, which is zero if idle expiry is disabled
+     */
+    public Duration getTimeout()
+    {
+        return timeout;
+    }
+
+
+    /**
+     * Returns the time-to-live in milliseconds with which a remote cache writes an entry,
+     * which is the specified time-to-live, limited to the idle timeout if idle expiry is
+     * enabled.
+     *
+     * @param ttl  the time-to-live of the entry in milliseconds, -1 if it never expires,
+     *             or zero for the default expiry of the cache
+     * @return the time-to-live to write
+     */
+    public long limit(long ttl)
+    {
+        if (!isEnabled())
+        {
+            return ttl;
+        }
+
+        long idle = timeout.toMillis();
+
+        return ttl > 0L && ttl < idle ? ttl : idle;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "IdleExpiry{" + "timeout=" + timeout + '}';
+    }
+}
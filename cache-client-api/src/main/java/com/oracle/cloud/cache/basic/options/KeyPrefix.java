@@ -0,0 +1,108 @@
+/*
+ * File: KeyPrefix.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for restricting a scan to the entries whose keys start with
+ * a prefix. By default, a scan returns every entry in the cache.
+ */
+public class KeyPrefix implements ScanOption
+{
+    /**
+     * Indicates that every key matches.
+     */
+    private static final KeyPrefix ALL = new KeyPrefix("");
+
+    /**
+     * The prefix of the keys.
+     */
+    private final String prefix;
+
+
+    /**
+     * Constructs a KeyPrefix option.
+     *
+     * @param prefix  the prefix of the keys
+     */
+    private KeyPrefix(String prefix)
+    {
+        this.prefix = prefix;
+    }
+
+
+    /**
+     * Returns an option that restricts a scan to the keys starting with the specified prefix.
+     *
+     * @param prefix  the prefix of the keys
+     * @return the KeyPrefix option
+     */
+    public static KeyPrefix of(String prefix)
+    {
+        if (prefix == null)
+        {
+            throw new NullPointerException("prefix must not be null");
+        }
+
+        return prefix.isEmpty() ? ALL : new KeyPrefix(prefix);
+    }
+
+
+    /**
+     * Returns an option that matches every key (the default).
+     *
+     * @return the KeyPrefix option
+     */
+    @Options.Default
+    public static KeyPrefix all()
+    {
+        return ALL;
+    }
+
+
+    /**
+     * Returns the prefix of the keys, which is empty if every key matches.
+     *
+     * @return the prefix
+     */
+    public String getPrefix()
+    {
+        return prefix;
+    }
+
+
+    /**
+     * Determines if the specified key starts with the prefix.
+     *
+     * @param key  the key
+     * @return true if the key starts with the prefix
+     */
+    public boolean matches(String key)
+    {
+        return key.startsWith(prefix);
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "KeyPrefix{" + "prefix='" + prefix + '\'' + '}';
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * File: NearTier.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for configuring the local (L1) tier of the caches created by a
+ * {@link com.oracle.cloud.cache.basic.TieredSession}. The L1 tier is bounded by a maximum
+ * number of entries and a time-to-live, which also bounds how long it may serve a value
+ * that has been changed by another client.
+ * <p>
+ * Changes made through a tiered cache are applied to the remote (L2) tier, and either
+ * invalidate the L1 entry (the default), or are also written to the L1 tier. Changes made
+ * by other clients may also invalidate the L1 entry, with {@link #invalidateOnChange()}.
+ * </p>
+ */
+public class NearTier implements SessionOption, CacheOption
+{
+    /**
+     * The default maximum number of entries in the L1 tier.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /**
+     * The default time-to-live of entries in the L1 tier.
+     */
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    /**
+     * The default L1 tier.
+     */
+    private static final NearTier DEFAULT = new NearTier(DEFAULT_MAX_ENTRIES,
+                                                                DEFAULT_TTL,
+                                                                WritePolicy.INVALIDATE,
+                                                                false);
+
+    /**
+     * The policy for updating the L1 tier when an entry is changed through the cache.
+     */
+    public enum WritePolicy
+    {
+        /**
+         * The L1 entry is removed, so that the next read fetches the value from the L2 tier.
+         */
+        INVALIDATE,
+
+        /**
+         * The new value is written to both tiers, when it is known.
+         */
+        WRITE_BOTH
+    }
+
+    /**
+     * The maximum number of entries in the L1 tier.
+     */
+    private final int maxEntries;
+
+    /**
+     * The time-to-live of entries in the L1 tier.
+     */
+    private final Duration ttl;
+
+    /**
+     * The policy for updating the L1 tier on writes.
+     */
+    private final WritePolicy writePolicy;
+
+    /**
+     * Indicates that L1 entries are invalidated by the changes made by other clients.
+     */
+    private final boolean invalidateOnChange;
+
+
+    /**
+     * Constructs a NearTier option.
+     *
+     * @param maxEntries   the maximum number of entries in the L1 tier
+     * @param ttl          the time-to-live of entries in the L1 tier
+     * @param writePolicy         the policy for updating the L1 tier on writes
+     * @param invalidateOnChange  true if L1 entries are invalidated by the changes made by other clients
+     */
+    private NearTier(int         maxEntries,
+                     Duration    ttl,
+                     WritePolicy writePolicy,
+                     boolean     invalidateOnChange)
+    {
+        this.maxEntries         = maxEntries;
+        this.ttl                = ttl;
+        this.writePolicy        = writePolicy;
+        this.invalidateOnChange = invalidateOnChange;
+    }
+
+
+    /**
+     * Returns an option for an L1 tier bounded to the specified number of entries and
+     * time-to-live, which is invalidated on writes.
+     *
+     * @param maxEntries  the maximum number of entries in the L1 tier
+     * @param ttl         the time-to-live of entries in the L1 tier
+     * @return the NearTier option
+     */
+    public static NearTier of(int      maxEntries,
+                              Duration ttl)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("maximum entries must be positive");
+        }
+
+        if (ttl == null || ttl.isNegative() || ttl.isZero())
+        {
+            throw new IllegalArgumentException("time-to-live must be positive");
+        }
+
+        return new NearTier(maxEntries, ttl, WritePolicy.INVALIDATE, false);
+    }
+
+
+    /**
+     * Returns an option for an L1 tier of 1000 entries, with a time-to-live of one
+     * minute, which is invalidated on writes (the default).
+     *
+     * @return the NearTier option
+     */
+    @Options.Default
+    public static NearTier defaults()
+    {
+        return DEFAULT;
+    }
+
+
+    /**
+     * Returns a copy of this option which writes changed values to both tiers,
+     * rather than invalidating the L1 entry.
+     *
+     * @return the NearTier option
+     */
+    public NearTier writeBoth()
+    {
+        return new NearTier(maxEntries, ttl, WritePolicy.WRITE_BOTH, invalidateOnChange);
+    }
+
+
+    /**
+     * Returns a copy of this option which also invalidates L1 entries when they are changed
+     * by other clients, as notified by the L2 tier, rather than only when they expire. If the
+     * notifications may have been missed, the whole L1 tier is cleared. The L2 tier must
+     * support listeners (see {@link com.oracle.cloud.cache.basic.Cache#addListener}).
+     *
+     * @return the NearTier option
+     */
+    public NearTier invalidateOnChange()
+    {
+        return new NearTier(maxEntries, ttl, writePolicy, true);
+    }
+
+
+    /**
+     * Returns the maximum number of entries in the L1 tier.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+
+    /**
+     * Returns the time-to-live of entries in the L1 tier.
+     *
+     * @return the time-to-live
+     */
+    public Duration getTtl()
+    {
+        return ttl;
+    }
+
+
+    /**
+     * Returns the policy for updating the L1 tier on writes.
+     *
+     * @return the write policy
+     */
+    public WritePolicy getWritePolicy()
+    {
+        return writePolicy;
+    }
+
+
+    /**
+     * Indicates if L1 entries are invalidated by the changes made by other clients.
+     *
+     * @return true if L1 entries are invalidated by the changes made by other clients
+     */
+    public boolean isInvalidatedOnChange()
+    {
+        return invalidateOnChange;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "NearTier{" + "maxEntries=" + maxEntries + ", ttl=" + ttl + ", writePolicy=" + writePolicy
+               + ", invalidateOnChange=" + invalidateOnChange + '}';
+    }
+}
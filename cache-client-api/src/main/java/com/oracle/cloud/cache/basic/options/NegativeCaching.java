@@ -0,0 +1,140 @@
+/*
+ * File: NegativeCaching.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for caching misses. When enabled, a key for which a get returned
+ * null, because neither the cache nor its {@link com.oracle.cloud.cache.basic.CacheLoader}
+ * had a value, is remembered for a short time-to-live, and repeated gets for the key
+ * return null without sending a request or invoking the loader. A value put for the key
+ * through the cache is seen immediately, but a value put by another client may not be
+ * seen until the time-to-live elapses. Negative caching is disabled by default.
+ */
+public class NegativeCaching implements CacheOption
+{
+    /**
+     * Indicates that negative caching is disabled.
+     */
+    private static final NegativeCaching DISABLED = new NegativeCaching(0, Duration.ZERO);
+
+    /**
+     * The maximum number of misses remembered.
+     */
+    private final int maxEntries;
+
+    /**
+     * The time for which a miss is remembered.
+     */
+    private final Duration ttl;
+
+
+    /**
+     * Constructs a NegativeCaching option.
+     *
+     * @param maxEntries  the maximum number of misses remembered
+     * @param ttl         the time for which a miss is remembered
+     */
+    private NegativeCaching(int      maxEntries,
+                            Duration ttl)
+    {
+        this.maxEntries = maxEntries;
+        this.ttl        = ttl;
+    }
+
+
+    /**
+     * Returns an option that remembers up to the specified number of misses, for the
+     * specified time-to-live. Once the maximum is reached, the oldest misses are forgotten.
+     *
+     * @param maxEntries  the maximum number of misses remembered
+     * @param ttl         the time for which a miss is remembered
+     * @return the NegativeCaching option
+     */
+    public static NegativeCaching of(int      maxEntries,
+                                     Duration ttl)
+    {
+        if (maxEntries < 2)
+        {
+            throw new IllegalArgumentException("maximum entries must be at least 2");
+        }
+
+        if (ttl == null || ttl.isNegative() || ttl.isZero())
+        {
+            throw new IllegalArgumentException("time-to-live must be positive");
+        }
+
+        return new NegativeCaching(maxEntries, ttl);
+    }
+
+
+    /**
+     * Returns an option that disables negative caching (the default).
+     *
+     * @return the NegativeCaching option
+     */
+    @Options.Default
+    public static NegativeCaching disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Indicates if negative caching is enabled.
+     *
+     * @return true if negative caching is enabled
+     */
+    public boolean isEnabled()
+    {
+        return maxEntries > 0;
+    }
+
+
+    /**
+     * Returns the maximum number of misses remembered.
+     *
+     * @return the maximum number of misses
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+
+    /**
+     * Returns the time for which a miss is remembered.
+     *
+     * @return the time-to-live of a miss
+     */
+    public Duration getTtl()
+    {
+        return ttl;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "NegativeCaching{" + "maxEntries=" + maxEntries + ", ttl=" + ttl + '}';
+    }
+}
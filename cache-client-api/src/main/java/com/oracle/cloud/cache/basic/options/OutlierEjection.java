@@ -0,0 +1,226 @@
+/*
+ * File: OutlierEjection.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option configuring how a session with several endpoints, such as a
+ * {@link com.oracle.cloud.cache.basic.FailoverSession}, decides which endpoints are
+ * healthy. An endpoint is ejected, and receives no requests for the ejection duration,
+ * once a number of consecutive requests to it have failed, or once a health check finds
+ * its average latency is more than a factor of that of the fastest healthy endpoint.
+ * The health of each endpoint is checked at a regular interval. At least one endpoint
+ * is never ejected because of its latency.
+ */
+public class OutlierEjection implements SessionOption
+{
+    /**
+     * The default latency factor.
+     */
+    private static final double DEFAULT_LATENCY_FACTOR = 3.0;
+
+    /**
+     * The default ejection duration.
+     */
+    private static final Duration DEFAULT_EJECTION_DURATION = Duration.ofSeconds(10);
+
+    /**
+     * The default number of consecutive failures.
+     */
+    private static final int DEFAULT_CONSECUTIVE_FAILURES = 3;
+
+    /**
+     * The default interval between health checks.
+     */
+    private static final Duration DEFAULT_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * The factor of the latency of the fastest endpoint above which an endpoint is ejected.
+     */
+    private final double latencyFactor;
+
+    /**
+     * The time for which an ejected endpoint receives no requests.
+     */
+    private final Duration ejectionDuration;
+
+    /**
+     * The number of consecutive failures after which an endpoint is ejected.
+     */
+    private final int consecutiveFailures;
+
+    /**
+     * The interval between health checks.
+     */
+    private final Duration checkInterval;
+
+
+    /**
+     * Constructs an OutlierEjection option.
+     *
+     * @param latencyFactor        the factor of the fastest latency above which an endpoint is ejected
+     * @param ejectionDuration     the time for which an ejected endpoint receives no requests
+     * @param consecutiveFailures  the number of consecutive failures after which an endpoint is ejected
+     * @param checkInterval        the interval between health checks
+     */
+    private OutlierEjection(double   latencyFactor,
+                            Duration ejectionDuration,
+                            int      consecutiveFailures,
+                            Duration checkInterval)
+    {
+        this.latencyFactor       = latencyFactor;
+        this.ejectionDuration    = ejectionDuration;
+        this.consecutiveFailures = consecutiveFailures;
+        this.checkInterval       = checkInterval;
+    }
+
+
+    /**
+     * Returns an option that ejects endpoints whose average latency is more than the
+     * specified factor of that of the fastest endpoint, for the specified duration.
+     *
+     * @param latencyFactor     the factor of the fastest latency above which an endpoint is ejected
+     * @param ejectionDuration  the time for which an ejected endpoint receives no requests
+     * @return the OutlierEjection option
+     */
+    public static OutlierEjection of(double   latencyFactor,
+                                     Duration ejectionDuration)
+    {
+        if (latencyFactor <= 1.0)
+        {
+            throw new IllegalArgumentException("latency factor must be greater than 1");
+        }
+
+        if (ejectionDuration == null || ejectionDuration.isNegative() || ejectionDuration.isZero())
+        {
+            throw new IllegalArgumentException("ejection duration must be positive");
+        }
+
+        return new OutlierEjection(latencyFactor,
+                                   ejectionDuration,
+                                   DEFAULT_CONSECUTIVE_FAILURES,
+                                   DEFAULT_CHECK_INTERVAL);
+    }
+
+
+    /**
+     * Returns an option that ejects endpoints whose average latency is more than three
+     * times that of the fastest endpoint, or after three consecutive failures, for ten
+     * seconds, checking the health of endpoints every second (the default).
+     *
+     * @return the OutlierEjection option
+     */
+    @Options.Default
+    public static OutlierEjection defaults()
+    {
+        return of(DEFAULT_LATENCY_FACTOR, DEFAULT_EJECTION_DURATION);
+    }
+
+
+    /**
+     * Returns a copy of this option that ejects endpoints after the specified number
+     * of consecutive failures.
+     *
+     * @param consecutiveFailures  the number of consecutive failures
+     * @return the OutlierEjection option
+     */
+    public OutlierEjection withConsecutiveFailures(int consecutiveFailures)
+    {
+        if (consecutiveFailures <= 0)
+        {
+            throw new IllegalArgumentException("consecutive failures must be positive");
+        }
+
+        return new OutlierEjection(latencyFactor, ejectionDuration, consecutiveFailures, checkInterval);
+    }
+
+
+    /**
+     * Returns a copy of this option that checks the health of endpoints at the
+     * specified interval.
+     *
+     * @param checkInterval  the interval between health checks
+     * @return the OutlierEjection option
+     */
+    public OutlierEjection withCheckInterval(Duration checkInterval)
+    {
+        if (checkInterval == null || checkInterval.isNegative() || checkInterval.isZero())
+        {
+            throw new IllegalArgumentException("check interval must be positive");
+        }
+
+        return new OutlierEjection(latencyFactor, ejectionDuration, consecutiveFailures, checkInterval);
+    }
+
+
+    /**
+     * Returns the factor of the latency of the fastest endpoint above which an endpoint
+     * is ejected.
+     *
+     * @return the latency factor
+     */
+    public double getLatencyFactor()
+    {
+        return latencyFactor;
+    }
+
+
+    /**
+     * Returns the time for which an ejected endpoint receives no requests.
+     *
+     * @return the ejection duration
+     */
+    public Duration getEjectionDuration()
+    {
+        return ejectionDuration;
+    }
+
+
+    /**
+     * Returns the number of consecutive failures after which an endpoint is ejected.
+     *
+     * @return the number of consecutive failures
+     */
+    public int getConsecutiveFailures()
+    {
+        return consecutiveFailures;
+    }
+
+
+    /**
+     * Returns the interval between health checks.
+     *
+     * @return the check interval
+     */
+    public Duration getCheckInterval()
+    {
+        return checkInterval;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "OutlierEjection{" + "latencyFactor=" + latencyFactor + ", ejectionDuration=" + ejectionDuration
+               + ", consecutiveFailures=" + consecutiveFailures + ", checkInterval=" + checkInterval + '}';
+    }
+}
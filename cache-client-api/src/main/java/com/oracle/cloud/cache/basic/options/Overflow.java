@@ -0,0 +1,262 @@
+/*
+ * File: Overflow.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.nio.file.Path;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for moving the entries evicted from a bounded
+ * {@link com.oracle.cloud.cache.basic.LocalCache} to a file on local disk, rather than
+ * discarding them, so that the cache may hold more entries than fit in memory.
+ * <p>
+ * Evicted entries are written to the file, serialized with the
+ * {@link com.oracle.cloud.cache.basic.io.Serializer} of the cache, by a background thread,
+ * and are moved back into memory when they are accessed. The file is an append-only log,
+ * which is compacted in the background once the proportion of its space held by removed
+ * entries reaches the compaction ratio. The file is deleted when the JVM exits.
+ * </p>
+ */
+public class Overflow implements CacheOption
+{
+    /**
+     * Indicates that evicted entries are discarded.
+     */
+    private static final Overflow DISABLED = new Overflow(null, 0L, 0.0, 0);
+
+    /**
+     * The default maximum size of the file, in bytes.
+     */
+    private static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * The default proportion of the file held by removed entries at which it is compacted.
+     */
+    private static final double DEFAULT_COMPACTION_RATIO = 0.5;
+
+    /**
+     * The default maximum number of evicted entries waiting to be written to the file.
+     */
+    private static final int DEFAULT_MAX_QUEUE = 10_000;
+
+    /**
+     * The file, or null if evicted entries are discarded.
+     */
+    private final Path file;
+
+    /**
+     * The maximum size of the entries in the file, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * The proportion of the file held by removed entries at which it is compacted.
+     */
+    private final double compactionRatio;
+
+    /**
+     * The maximum number of evicted entries waiting to be written to the file.
+     */
+    private final int maxQueue;
+
+
+    /**
+     * Constructs an Overflow option.
+     *
+     * @param file             the file, or null if evicted entries are discarded
+     * @param maxSize          the maximum size of the entries in the file, in bytes
+     * @param compactionRatio  the proportion of the file held by removed entries at which it is compacted
+     * @param maxQueue         the maximum number of evicted entries waiting to be written
+     */
+    private Overflow(Path   file,
+                     long   maxSize,
+                     double compactionRatio,
+                     int    maxQueue)
+    {
+        this.file            = file;
+        this.maxSize         = maxSize;
+        this.compactionRatio = compactionRatio;
+        this.maxQueue        = maxQueue;
+    }
+
+
+    /**
+     * Returns an option that moves evicted entries to the specified file. The file is
+     * used as the prefix of the names of the log files, which should not be shared with
+     * another cache.
+     *
+     * @param file  the file
+     * @return the Overflow option
+     */
+    public static Overflow to(Path file)
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("overflow file must be specified");
+        }
+
+        return new Overflow(file, DEFAULT_MAX_SIZE, DEFAULT_COMPACTION_RATIO, DEFAULT_MAX_QUEUE);
+    }
+
+
+    /**
+     * Returns an option that discards evicted entries (the default).
+     *
+     * @return the Overflow option
+     */
+    @Options.Default
+    public static Overflow disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified maximum size of the entries in the
+     * file. Evicted entries that do not fit are discarded.
+     *
+     * @param maxSize  the maximum size, in bytes
+     * @return the Overflow option
+     */
+    public Overflow withMaxSize(long maxSize)
+    {
+        if (!isEnabled())
+        {
+            throw new IllegalArgumentException("overflow file must be specified");
+        }
+
+        if (maxSize <= 0)
+        {
+            throw new IllegalArgumentException("overflow size must be positive");
+        }
+
+        return new Overflow(file, maxSize, compactionRatio, maxQueue);
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified compaction ratio.
+     *
+     * @param compactionRatio  the proportion of the file held by removed entries at which
+     *                         it is compacted, greater than zero and less than one
+     * @return the Overflow option
+     */
+    public Overflow withCompactionRatio(double compactionRatio)
+    {
+        if (!isEnabled())
+        {
+            throw new IllegalArgumentException("overflow file must be specified");
+        }
+
+        if (compactionRatio <= 0.0 || compactionRatio >= 1.0)
+        {
+            throw new IllegalArgumentException("compaction ratio must be between zero and one");
+        }
+
+        return new Overflow(file, maxSize, compactionRatio, maxQueue);
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified maximum number of evicted entries
+     * waiting to be written to the file. Entries evicted while the queue is full are discarded.
+     *
+     * @param maxQueue  the maximum number of queued entries
+     * @return the Overflow option
+     */
+    public Overflow withMaxQueue(int maxQueue)
+    {
+        if (!isEnabled())
+        {
+            throw new IllegalArgumentException("overflow file must be specified");
+        }
+
+        if (maxQueue <= 0)
+        {
+            throw new IllegalArgumentException("overflow queue size must be positive");
+        }
+
+        return new Overflow(file, maxSize, compactionRatio, maxQueue);
+    }
+
+
+    /**
+     * Indicates if evicted entries are moved to disk.
+     *
+     * @return true if evicted entries are moved to disk
+     */
+    public boolean isEnabled()
+    {
+        return file != null;
+    }
+
+
+    /**
+     * Returns the file.
+     *
+     * @return the file, or null if evicted entries are discarded
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+
+    /**
+     * Returns the maximum size of the entries in the file.
+     *
+     * @return the maximum size, in bytes
+     */
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+
+    /**
+     * Returns the proportion of the file held by removed entries at which it is compacted.
+     *
+     * @return the compaction ratio
+     */
+    public double getCompactionRatio()
+    {
+        return compactionRatio;
+    }
+
+
+    /**
+     * Returns the maximum number of evicted entries waiting to be written to the file.
+     *
+     * @return the maximum number of queued entries
+     */
+    public int getMaxQueue()
+    {
+        return maxQueue;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Overflow{" + "file=" + file + ", maxSize=" + maxSize + ", compactionRatio=" + compactionRatio
+               + ", maxQueue=" + maxQueue + '}';
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * File: PageSize.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for configuring the number of entries fetched at a time by a scan.
+ * Only one page is held by the client at a time, so the page size bounds the memory
+ * used by a scan, regardless of the size of the cache. Larger pages make fewer round
+ * trips. The default page size is 100 entries.
+ */
+public class PageSize implements ScanOption
+{
+    /**
+     * The default number of entries in a page.
+     */
+    private static final PageSize DEFAULT = new PageSize(100);
+
+    /**
+     * The maximum number of entries in a page.
+     */
+    private final int entries;
+
+
+    /**
+     * Constructs a PageSize option.
+     *
+     * @param entries  the maximum number of entries in a page
+     */
+    private PageSize(int entries)
+    {
+        this.entries = entries;
+    }
+
+
+    /**
+     * Returns an option that fetches at most the specified number of entries at a time.
+     *
+     * @param entries  the maximum number of entries in a page
+     * @return the PageSize option
+     */
+    public static PageSize of(int entries)
+    {
+        if (entries <= 0)
+        {
+            throw new IllegalArgumentException("page size must be positive");
+        }
+
+        return new PageSize(entries);
+    }
+
+
+    /**
+     * Returns an option that fetches 100 entries at a time (the default).
+     *
+     * @return the PageSize option
+     */
+    @Options.Default
+    public static PageSize defaults()
+    {
+        return DEFAULT;
+    }
+
+
+    /**
+     * Returns the maximum number of entries in a page.
+     *
+     * @return the maximum number of entries
+     */
+    public int getEntries()
+    {
+        return entries;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "PageSize{" + "entries=" + entries + '}';
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * File: Retry.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for retrying idempotent cache operations (get, put, remove and
+ * clear) that fail with a transient transport error, such as an unavailable server.
+ * <p>
+ * Retries are delayed by an exponential backoff with full jitter, are never issued
+ * once the operation {@link Timeout} has elapsed, and are capped at a fraction of all
+ * operations so that a struggling server is not overwhelmed by a retry storm.
+ * Operations are not retried by default.
+ * </p>
+ */
+public class Retry implements SessionOption, CacheOption
+{
+    /**
+     * Indicates that operations are not retried.
+     */
+    private static final Retry NONE = new Retry(1, Duration.ZERO, Duration.ZERO, 0.0);
+
+    /**
+     * The default backoff before the first retry.
+     */
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(10);
+
+    /**
+     * The default maximum backoff between retries.
+     */
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+
+    /**
+     * The default maximum ratio of retries to operations.
+     */
+    private static final double DEFAULT_MAX_RATIO = 0.1;
+
+    /**
+     * The maximum number of attempts, including the first.
+     */
+    private final int maxAttempts;
+
+    /**
+     * The backoff before the first retry.
+     */
+    private final Duration initialBackoff;
+
+    /**
+     * The maximum backoff between retries.
+     */
+    private final Duration maxBackoff;
+
+    /**
+     * The maximum ratio of retries to operations.
+     */
+    private final double maxRatio;
+
+
+    /**
+     * Constructs a Retry option.
+     *
+     * @param maxAttempts     the maximum number of attempts, including the first
+     * @param initialBackoff  the backoff before the first retry
+     * @param maxBackoff      the maximum backoff between retries
+     * @param maxRatio        the maximum ratio of retries to operations
+     */
+    private Retry(int      maxAttempts,
+                  Duration initialBackoff,
+                  Duration maxBackoff,
+                  double   maxRatio)
+    {
+        this.maxAttempts    = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff     = maxBackoff;
+        this.maxRatio       = maxRatio;
+    }
+
+
+    /**
+     * Returns an option that makes up to the specified number of attempts, with a
+     * backoff starting at 10ms and doubling up to 1s, for at most 10% of operations.
+     *
+     * @param maxAttempts  the maximum number of attempts, including the first
+     * @return the Retry option
+     */
+    public static Retry attempts(int maxAttempts)
+    {
+        return of(maxAttempts, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_MAX_RATIO);
+    }
+
+
+    /**
+     * Returns an option that makes up to the specified number of attempts, with a
+     * backoff starting at the initial backoff and doubling up to the maximum backoff,
+     * for at most the specified ratio of operations.
+     *
+     * @param maxAttempts     the maximum number of attempts, including the first
+     * @param initialBackoff  the backoff before the first retry
+     * @param maxBackoff      the maximum backoff between retries
+     * @param maxRatio        the maximum ratio of retries to operations, in {@code (0..1]}
+     * @return the Retry option
+     */
+    public static Retry of(int      maxAttempts,
+                           Duration initialBackoff,
+                           Duration maxBackoff,
+                           double   maxRatio)
+    {
+        if (maxAttempts < 2)
+        {
+            throw new IllegalArgumentException("maximum attempts must be at least 2");
+        }
+
+        if (initialBackoff == null || maxBackoff == null || initialBackoff.isNegative()
+            || maxBackoff.compareTo(initialBackoff) < 0)
+        {
+            throw new IllegalArgumentException("backoff must not be negative or exceed the maximum backoff");
+        }
+
+        if (maxRatio <= 0.0 || maxRatio > 1.0)
+        {
+            throw new IllegalArgumentException("maximum retry ratio must be greater than 0 and at most 1");
+        }
+
+        return new Retry(maxAttempts, initialBackoff, maxBackoff, maxRatio);
+    }
+
+
+    /**
+     * Returns an option that disables retries (the default).
+     *
+     * @return the Retry option
+     */
+    @Options.Default
+    public static Retry none()
+    {
+        return NONE;
+    }
+
+
+    /**
+     * Indicates if retries are enabled.
+     *
+     * @return true if retries are enabled
+     */
+    public boolean isEnabled()
+    {
+        return maxAttempts > 1;
+    }
+
+
+    /**
+     * Returns the maximum number of attempts, including the first.
+     *
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+
+    /**
+     * Returns the backoff before the first retry.
+     *
+     * @return the initial backoff
+     */
+    public Duration getInitialBackoff()
+    {
+        return initialBackoff;
+    }
+
+
+    /**
+     * Returns the maximum backoff between retries.
+     *
+     * @return the maximum backoff
+     */
+    public Duration getMaxBackoff()
+    {
+        return maxBackoff;
+    }
+
+
+    /**
+     * Returns the maximum ratio of retries to operations.
+     *
+     * @return the maximum ratio of retries to operations
+     */
+    public double getMaxRatio()
+    {
+        return maxRatio;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Retry{" + "maxAttempts=" + maxAttempts + ", initialBackoff=" + initialBackoff + ", maxBackoff="
+               + maxBackoff + ", maxRatio=" + maxRatio + '}';
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * File: SharedMemory.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.nio.file.Path;
+
+/**
+ * An immutable option for configuring the file mapped into memory by a
+ * {@link com.oracle.cloud.cache.basic.SharedSession}, whose caches are shared by every
+ * process on the host that opens a session over the same file.
+ * <p>
+ * There is no default file, as the file should be placed in a directory that only the
+ * processes sharing it can write to; it is created readable and writable by its owner only.
+ * </p>
+ * <p>
+ * The size and maximum number of entries only apply when the file is created; a session
+ * over an existing file uses the size and number of entries it was created with. The space
+ * of removed and expired entries is reused; a write that does not fit in a full file fails
+ * with an {@link IllegalStateException}, leaving the other entries usable.
+ * </p>
+ * <p>
+ * The processes sharing a file must see each other in /proc, as a lock held by a process
+ * that exited is only taken over once /proc shows it is no longer running.
+ * </p>
+ */
+public class SharedMemory implements SessionOption
+{
+    /**
+     * The default size of the file, in bytes.
+     */
+    private static final long DEFAULT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The default maximum number of entries.
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 100_000;
+
+    /**
+     * The largest supported size of the file, in bytes.
+     */
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * The file mapped into memory.
+     */
+    private final Path file;
+
+    /**
+     * The size of the file, in bytes.
+     */
+    private final long size;
+
+    /**
+     * The maximum number of entries, across every cache in the file.
+     */
+    private final int maxEntries;
+
+
+    /**
+     * Constructs a SharedMemory option.
+     *
+     * @param file        the file mapped into memory
+     * @param size        the size of the file, in bytes
+     * @param maxEntries  the maximum number of entries
+     */
+    private SharedMemory(Path file,
+                         long size,
+                         int  maxEntries)
+    {
+        this.file       = file;
+        this.size       = size;
+        this.maxEntries = maxEntries;
+    }
+
+
+    /**
+     * Returns an option that maps the specified file into memory.
+     *
+     * @param file  the file
+     * @return the SharedMemory option
+     */
+    public static SharedMemory at(Path file)
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("shared memory file must be specified");
+        }
+
+        return new SharedMemory(file, DEFAULT_SIZE, DEFAULT_MAX_ENTRIES);
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified size of the file.
+     *
+     * @param size  the size of the file, in bytes, which may be at most 2GB
+     * @return the SharedMemory option
+     */
+    public SharedMemory withSize(long size)
+    {
+        if (size <= 0 || size > MAX_SIZE)
+        {
+            throw new IllegalArgumentException("shared memory size must be positive and at most 2GB");
+        }
+
+        return new SharedMemory(file, size, maxEntries);
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified maximum number of entries.
+     *
+     * @param maxEntries  the maximum number of entries, across every cache in the file
+     * @return the SharedMemory option
+     */
+    public SharedMemory withMaxEntries(int maxEntries)
+    {
+        if (maxEntries <= 0 || maxEntries > 1 << 26)
+        {
+            throw new IllegalArgumentException("maximum number of entries must be positive and at most 2^26");
+        }
+
+        return new SharedMemory(file, size, maxEntries);
+    }
+
+
+    /**
+     * Returns the file mapped into memory.
+     *
+     * @return the file
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the size of the file, in bytes
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the maximum number of entries, across every cache in the file
+     */
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "SharedMemory{" + "file=" + file + ", size=" + size + ", maxEntries=" + maxEntries + '}';
+    }
+}
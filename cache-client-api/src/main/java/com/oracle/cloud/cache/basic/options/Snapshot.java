@@ -0,0 +1,160 @@
+/*
+ * File: Snapshot.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for persisting the entries of a {@link com.oracle.cloud.cache.basic.LocalCache}
+ * to a snapshot file, so that the cache is warm when the application restarts.
+ * <p>
+ * The cache is restored from the file, if it exists, when it is created, and is written to
+ * the file when the JVM shuts down and, optionally, at a fixed interval. Entries are written
+ * with the {@link com.oracle.cloud.cache.basic.io.Serializer} of the cache and their absolute
+ * expiry, so that entries which expire while the application is down are not restored.
+ * A snapshot file should only be used by a single cache.
+ * </p>
+ */
+public class Snapshot implements CacheOption
+{
+    /**
+     * Indicates that snapshots are disabled.
+     */
+    private static final Snapshot DISABLED = new Snapshot(null, Duration.ZERO);
+
+    /**
+     * The snapshot file, or null if snapshots are disabled.
+     */
+    private final Path file;
+
+    /**
+     * The interval at which snapshots are written, or zero if they are only written on shutdown.
+     */
+    private final Duration interval;
+
+
+    /**
+     * Constructs a Snapshot option.
+     *
+     * @param file      the snapshot file, or null if snapshots are disabled
+     * @param interval  the interval at which snapshots are written, or zero
+     */
+    private Snapshot(Path     file,
+                     Duration interval)
+    {
+        this.file     = file;
+        this.interval = interval;
+    }
+
+
+    /**
+     * Returns an option that restores the cache from the specified file when it is created,
+     * and writes it to the file when the JVM shuts down.
+     *
+     * @param file  the snapshot file
+     * @return the Snapshot option
+     */
+    public static Snapshot to(Path file)
+    {
+        if (file == null)
+        {
+            throw new IllegalArgumentException("snapshot file must be specified");
+        }
+
+        return new Snapshot(file, Duration.ZERO);
+    }
+
+
+    /**
+     * Returns an option that disables snapshots (the default).
+     *
+     * @return the Snapshot option
+     */
+    @Options.Default
+    public static Snapshot disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Returns a copy of this option which also writes a snapshot at the specified interval.
+     *
+     * @param interval  the interval at which snapshots are written
+     * @return the Snapshot option
+     */
+    public Snapshot every(Duration interval)
+    {
+        if (!isEnabled())
+        {
+            throw new IllegalArgumentException("snapshot file must be specified");
+        }
+
+        if (interval == null || interval.isNegative() || interval.isZero())
+        {
+            throw new IllegalArgumentException("snapshot interval must be positive");
+        }
+
+        return new Snapshot(file, interval);
+    }
+
+
+    /**
+     * Indicates if snapshots are enabled.
+     *
+     * @return true if snapshots are enabled
+     */
+    public boolean isEnabled()
+    {
+        return file != null;
+    }
+
+
+    /**
+     * Returns the snapshot file.
+     *
+     * @return the snapshot file, or null if snapshots are disabled
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+
+    /**
+     * Returns the interval at which snapshots are written.
+     *
+     * @return the interval, or zero if snapshots are only written on shutdown
+     */
+    public Duration getInterval()
+    {
+        return interval;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Snapshot{" + "file=" + file + ", interval=" + interval + '}';
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * File: Timeout.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for configuring the maximum time a cache operation may take
+ * before it is abandoned.
+ * <p>
+ * A timeout may be specified for a session, for a cache or for an individual operation.
+ * The most specific timeout applies. For remote caches it is applied as a GRPC deadline,
+ * or as the connect and read timeout of a REST request. A timeout specified for a scan
+ * limits the entire scan, rather than each page of it.
+ * </p>
+ */
+public class Timeout
+    implements SessionOption, CacheOption, GetOption, PutOption, ReplaceOption, RemoveOption, ScanOption
+{
+    /**
+     * Indicates no timeout.
+     */
+    private static final Timeout NONE = new Timeout(0L);
+
+    /**
+     * The timeout in milliseconds, or 0 for no timeout.
+     */
+    private final long timeout;
+
+
+    /**
+     * Constructs a Timeout option.
+     *
+     * @param timeout  the timeout in milliseconds, or 0 for no timeout
+     */
+    private Timeout(long timeout)
+    {
+        this.timeout = timeout;
+    }
+
+
+    /**
+     * Creates a timeout option with the specified duration.
+     *
+     * @param timeout  the timeout
+     * @param unit     the {@link TimeUnit} of the timeout
+     * @return the Timeout
+     */
+    public static Timeout of(long     timeout,
+                             TimeUnit unit)
+    {
+        return of(unit.toMillis(timeout));
+    }
+
+
+    /**
+     * Creates a timeout option with the specified duration.
+     *
+     * @param duration  the timeout
+     * @return the Timeout
+     */
+    public static Timeout of(Duration duration)
+    {
+        return of(duration.toMillis());
+    }
+
+
+    /**
+     * Creates a timeout option with the specified number of milliseconds.
+     *
+     * @param millis  the timeout in milliseconds
+     * @return the Timeout
+     */
+    private static Timeout of(long millis)
+    {
+        if (millis <= 0)
+        {
+            throw new IllegalArgumentException("timeout must be positive");
+        }
+
+        return new Timeout(millis);
+    }
+
+
+    /**
+     * Specifies that operations should not time out (the default).
+     *
+     * @return the Timeout
+     */
+    @Options.Default
+    public static Timeout none()
+    {
+        return NONE;
+    }
+
+
+    /**
+     * Returns the timeout in milliseconds, or 0 if there is no timeout.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getTimeout()
+    {
+        return timeout;
+    }
+
+
+    /**
+     * Indicates if a timeout is set.
+     *
+     * @return true if a timeout is set
+     */
+    public boolean isEnabled()
+    {
+        return timeout > 0;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "Timeout{" + "timeout=" + timeout + '}';
+    }
+}
@@ -18,6 +18,8 @@
 
 package com.oracle.cloud.cache.basic.options;
 
+import java.nio.ByteBuffer;
+
 import com.oracle.cloud.cache.util.Options;
 
 /**
@@ -62,6 +64,18 @@ public class ValueType implements CacheOption
     }
 
 
+    /**
+     * Creates the option for values held as raw bytes, which are stored without
+     * being encoded by a {@link com.oracle.cloud.cache.basic.io.Serializer}.
+     *
+     * @return the ValueType
+     */
+    public static ValueType bytes()
+    {
+        return new ValueType(byte[].class);
+    }
+
+
     /**
      * Specifies that the default type (String) should be used.
      *
@@ -83,4 +97,15 @@ public class ValueType implements CacheOption
     {
         return clzType;
     }
+
+
+    /**
+     * Returns true if the values are binary, held as a byte[] or a {@link ByteBuffer}.
+     *
+     * @return true if the value type is binary
+     */
+    public boolean isBinary()
+    {
+        return clzType == byte[].class || clzType == ByteBuffer.class;
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ * File: WriteBehind.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic.options;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.util.Options;
+
+/**
+ * An immutable option for writing the changes made through a cache to its
+ * {@link com.oracle.cloud.cache.basic.CacheWriter} asynchronously.
+ * <p>
+ * Changed keys are queued, and repeated changes to a key that has not yet been
+ * written are coalesced, so that only the latest value is written. A background
+ * thread writes the queued changes in batches, whenever a batch is full or the
+ * oldest change has been queued for the flush interval. When the queue is full,
+ * changes to keys that are not already queued wait for space, so that a slow store
+ * slows down writers instead of exhausting memory.
+ * </p>
+ */
+public class WriteBehind implements CacheOption
+{
+    /**
+     * Indicates that write-behind is disabled.
+     */
+    private static final WriteBehind DISABLED = new WriteBehind(0, Duration.ZERO, 0);
+
+    /**
+     * The default maximum number of queued changes, as a multiple of the batch size.
+     */
+    private static final int DEFAULT_QUEUE_BATCHES = 10;
+
+    /**
+     * The maximum number of changes written in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum time a change is queued before it is written.
+     */
+    private final Duration flushInterval;
+
+    /**
+     * The maximum number of queued changes.
+     */
+    private final int maxQueue;
+
+
+    /**
+     * Constructs a WriteBehind option.
+     *
+     * @param batchSize      the maximum number of changes written in a batch
+     * @param flushInterval  the maximum time a change is queued before it is written
+     * @param maxQueue       the maximum number of queued changes
+     */
+    private WriteBehind(int      batchSize,
+                        Duration flushInterval,
+                        int      maxQueue)
+    {
+        this.batchSize     = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxQueue      = maxQueue;
+    }
+
+
+    /**
+     * Returns an option that writes changes in batches of up to the specified size, at
+     * least as often as the specified interval, queueing up to ten batches of changes.
+     *
+     * @param batchSize      the maximum number of changes written in a batch
+     * @param flushInterval  the maximum time a change is queued before it is written
+     * @return the WriteBehind option
+     */
+    public static WriteBehind of(int      batchSize,
+                                 Duration flushInterval)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batch size must be positive");
+        }
+
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero())
+        {
+            throw new IllegalArgumentException("flush interval must be positive");
+        }
+
+        return new WriteBehind(batchSize, flushInterval, batchSize * DEFAULT_QUEUE_BATCHES);
+    }
+
+
+    /**
+     * Returns an option that disables write-behind (the default).
+     *
+     * @return the WriteBehind option
+     */
+    @Options.Default
+    public static WriteBehind disabled()
+    {
+        return DISABLED;
+    }
+
+
+    /**
+     * Returns a copy of this option with the specified maximum number of queued changes.
+     *
+     * @param maxQueue  the maximum number of queued changes, which must be at least the batch size
+     * @return the WriteBehind option
+     */
+    public WriteBehind withMaxQueue(int maxQueue)
+    {
+        if (!isEnabled() || maxQueue < batchSize)
+        {
+            throw new IllegalArgumentException("maximum queue size must be at least the batch size");
+        }
+
+        return new WriteBehind(batchSize, flushInterval, maxQueue);
+    }
+
+
+    /**
+     * Indicates if write-behind is enabled.
+     *
+     * @return true if write-behind is enabled
+     */
+    public boolean isEnabled()
+    {
+        return batchSize > 0;
+    }
+
+
+    /**
+     * Returns the maximum number of changes written in a batch.
+     *
+     * @return the maximum batch size
+     */
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+
+    /**
+     * Returns the maximum time a change is queued before it is written.
+     *
+     * @return the flush interval
+     */
+    public Duration getFlushInterval()
+    {
+        return flushInterval;
+    }
+
+
+    /**
+     * Returns the maximum number of queued changes.
+     *
+     * @return the maximum number of queued changes
+     */
+    public int getMaxQueue()
+    {
+        return maxQueue;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "WriteBehind{" + "batchSize=" + batchSize + ", flushInterval=" + flushInterval + ", maxQueue="
+               + maxQueue + '}';
+    }
+}
@@ -18,6 +18,10 @@
 
 package com.oracle.cloud.cache.metrics;
 
+import java.util.Collections;
+import java.util.List;
+
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
 /**
@@ -56,16 +60,151 @@ public class CacheMetrics
      */
     private final TimerSnapshot loadMetrics;
 
+    /**
+     * Snapshot for write-through metrics.
+     */
+    private final TimerSnapshot writeMetrics;
+
+    /**
+     * Snapshot for write-behind flush metrics.
+     */
+    private final TimerSnapshot writeBehindFlushMetrics;
+
     /**
      * The total number of cache hits.
      */
     private final long hitCount;
 
+    /**
+     * The total number of reads served by the L1 tier of a tiered cache.
+     */
+    private final long nearHitCount;
+
     /**
      * The total number of cache misses.
      */
     private final long missCount;
 
+    /**
+     * The total number of misses answered from the recently missed keys.
+     */
+    private final long negativeHitCount;
+
+    /**
+     * The total number of entries refreshed before they expired.
+     */
+    private final long earlyRefreshCount;
+
+    /**
+     * The total number of operations that timed out.
+     */
+    private final long timeoutCount;
+
+    /**
+     * The total number of get retries.
+     */
+    private final long getRetryCount;
+
+    /**
+     * The total number of put retries.
+     */
+    private final long putRetryCount;
+
+    /**
+     * The total number of remove retries.
+     */
+    private final long removeRetryCount;
+
+    /**
+     * The total number of clear retries.
+     */
+    private final long clearRetryCount;
+
+    /**
+     * The total number of optimistic updates retried due to contention.
+     */
+    private final long computeRetryCount;
+
+    /**
+     * The total number of scans resumed after a failure.
+     */
+    private final long scanRetryCount;
+
+    /**
+     * The total number of failures of listeners to handle an event.
+     */
+    private final long listenerFailureCount;
+
+    /**
+     * The total number of events dropped because the queue of events to deliver was full.
+     */
+    private final long listenerDroppedCount;
+
+    /**
+     * The total number of subscriptions to changes refused by the server.
+     */
+    private final long subscriptionFailureCount;
+
+    /**
+     * The number of events waiting to be delivered to listeners.
+     */
+    private final long listenerQueueDepth;
+
+    /**
+     * The total number of operations rejected because the circuit breaker was open.
+     */
+    private final long rejectedCount;
+
+    /**
+     * The total number of gets served from entries that had been evicted to disk.
+     */
+    private final long diskHitCount;
+
+    /**
+     * The number of entries evicted to disk.
+     */
+    private final long diskCount;
+
+    /**
+     * The total number of compactions of the entries evicted to disk.
+     */
+    private final long diskCompactionCount;
+
+    /**
+     * The total number of bytes copied by compactions.
+     */
+    private final long diskCompactedBytes;
+
+    /**
+     * The total time spent compacting, in nanoseconds.
+     */
+    private final long diskCompactionTime;
+
+    /**
+     * The total number of snapshots that could not be written or restored.
+     */
+    private final long snapshotFailureCount;
+
+    /**
+     * The total number of hedged requests issued.
+     */
+    private final long hedgeCount;
+
+    /**
+     * The total number of hedged requests that completed before the request they hedged.
+     */
+    private final long hedgeWonCount;
+
+    /**
+     * The number of changes waiting to be written to the cache writer.
+     */
+    private final long writeBehindQueueDepth;
+
+    /**
+     * The total number of write-behind batches that failed to be written.
+     */
+    private final long writeBehindFailureCount;
+
     /**
      * The total number of entries in the cache.
      */
@@ -76,6 +215,21 @@ public class CacheMetrics
      */
     private final long size;
 
+    /**
+     * The most frequently accessed keys, if hot-key tracking is enabled.
+     */
+    private final List<HotKey> hotKeys;
+
+    /**
+     * The total number of requests that failed over to another endpoint.
+     */
+    private final long failoverCount;
+
+    /**
+     * The health of each endpoint, for a cache with several endpoints.
+     */
+    private final List<EndpointHealth> endpoints;
+
 
     /**
      * Constructs a CacheMetrics instance for a given cache and {@link MetricRegistry}.
@@ -83,18 +237,57 @@ public class CacheMetrics
      * @param cacheName the name of the cache
      * @param metrics   the metrics registry for the cache
      */
+    @SuppressWarnings("unchecked")
     public CacheMetrics(String         cacheName,
                         MetricRegistry metrics)
     {
-        this.cacheName = cacheName;
-        getMetrics     = new TimerSnapshot(metrics.timer("get"));
-        putMetrics     = new TimerSnapshot(metrics.timer("put"));
-        removeMetrics  = new TimerSnapshot(metrics.timer("remove"));
-        loadMetrics    = new TimerSnapshot(metrics.timer("load"));
-        hitCount       = metrics.counter("hit").getCount();
-        missCount      = metrics.counter("miss").getCount();
-        count          = (long) metrics.getGauges().get("count").getValue();
-        size           = (long) metrics.getGauges().get("size").getValue();
+        this.cacheName           = cacheName;
+        getMetrics               = new TimerSnapshot(metrics.timer("get"));
+        putMetrics               = new TimerSnapshot(metrics.timer("put"));
+        removeMetrics            = new TimerSnapshot(metrics.timer("remove"));
+        loadMetrics              = new TimerSnapshot(metrics.timer("load"));
+        writeMetrics             = new TimerSnapshot(metrics.timer("write"));
+        writeBehindFlushMetrics  = new TimerSnapshot(metrics.timer("write-behind-flush"));
+        hitCount                 = metrics.counter("hit").getCount();
+        missCount                = metrics.counter("miss").getCount();
+        negativeHitCount         = metrics.counter("negative-hit").getCount();
+        earlyRefreshCount        = metrics.counter("early-refresh").getCount();
+        nearHitCount             = metrics.counter("near-hit").getCount();
+        timeoutCount             = metrics.counter("timeout").getCount();
+        getRetryCount            = metrics.counter("get-retries").getCount();
+        putRetryCount            = metrics.counter("put-retries").getCount();
+        removeRetryCount         = metrics.counter("remove-retries").getCount();
+        clearRetryCount          = metrics.counter("clear-retries").getCount();
+        computeRetryCount        = metrics.counter("compute-retries").getCount();
+        scanRetryCount           = metrics.counter("scan-retries").getCount();
+        listenerFailureCount     = metrics.counter("listener-failures").getCount();
+        listenerDroppedCount     = metrics.counter("listener-dropped").getCount();
+        subscriptionFailureCount = metrics.counter("subscription-failures").getCount();
+        rejectedCount            = metrics.counter("rejected").getCount();
+        diskHitCount             = metrics.counter("disk-hit").getCount();
+        diskCompactionCount      = metrics.counter("disk-compactions").getCount();
+        diskCompactedBytes       = metrics.counter("disk-compacted-bytes").getCount();
+        diskCompactionTime       = metrics.counter("disk-compaction-time").getCount();
+        snapshotFailureCount     = metrics.counter("snapshot-failures").getCount();
+        hedgeCount               = metrics.counter("hedge").getCount();
+        hedgeWonCount            = metrics.counter("hedge-won").getCount();
+        writeBehindFailureCount  = metrics.counter("write-behind-failures").getCount();
+        failoverCount            = metrics.counter("failover").getCount();
+        count                    = (long) metrics.getGauges().get("count").getValue();
+        size                     = (long) metrics.getGauges().get("size").getValue();
+
+        Gauge<?> hotKeyGauge   = metrics.getGauges().get("hot-keys");
+        Gauge<?> queueGauge    = metrics.getGauges().get("write-behind-queue");
+        Gauge<?> endpointGauge = metrics.getGauges().get("endpoints");
+        Gauge<?> listenerGauge = metrics.getGauges().get("listener-queue");
+        Gauge<?> diskGauge     = metrics.getGauges().get("disk-count");
+
+        hotKeys               = hotKeyGauge == null ? Collections.emptyList() : (List<HotKey>) hotKeyGauge.getValue();
+        writeBehindQueueDepth = queueGauge == null ? 0L : (long) queueGauge.getValue();
+        listenerQueueDepth    = listenerGauge == null ? 0L : (long) listenerGauge.getValue();
+        diskCount             = diskGauge == null ? 0L : (long) diskGauge.getValue();
+        endpoints             = endpointGauge == null
+                                ? Collections.emptyList() : (List<EndpointHealth>) endpointGauge.getValue();
     }
 
 
@@ -153,6 +346,55 @@ public class CacheMetrics
     }
 
 
+    /**
+     * Returns the metrics for writing changes through to the
+     * {@link com.oracle.cloud.cache.basic.CacheWriter}, which are not included in
+     * the metrics for the put and remove operations.
+     *
+     * @return the metrics for write-through
+     */
+    public TimerSnapshot getWriteMetrics()
+    {
+        return writeMetrics;
+    }
+
+
+    /**
+     * Returns the metrics for writing batches of changes to the
+     * {@link com.oracle.cloud.cache.basic.CacheWriter}, when the
+     * {@link com.oracle.cloud.cache.basic.options.WriteBehind} option is used.
+     *
+     * @return the metrics for write-behind batches
+     */
+    public TimerSnapshot getWriteBehindFlushMetrics()
+    {
+        return writeBehindFlushMetrics;
+    }
+
+
+    /**
+     * Returns the number of changes waiting to be written to the cache writer.
+     *
+     * @return the write-behind queue depth
+     */
+    public long getWriteBehindQueueDepth()
+    {
+        return writeBehindQueueDepth;
+    }
+
+
+    /**
+     * Returns the total number of write-behind batches that failed to be written,
+     * and were queued to be written again.
+     *
+     * @return the total number of failed write-behind batches
+     */
+    public long getWriteBehindFailureCount()
+    {
+        return writeBehindFailureCount;
+    }
+
+
     /**
      * Returns the total number of cache hits.
      *
@@ -164,6 +406,19 @@ public class CacheMetrics
     }
 
 
+    /**
+     * Returns the total number of reads served by the L1 tier of a
+     * {@link com.oracle.cloud.cache.basic.TieredCache}. These are not included in the
+     * hit count, which is the number of hits in the L2 tier.
+     *
+     * @return the total number of L1 hits
+     */
+    public long getNearHitCount()
+    {
+        return nearHitCount;
+    }
+
+
     /**
      * Returns the total number of cache misses.
      *
@@ -175,6 +430,263 @@ public class CacheMetrics
     }
 
 
+    /**
+     * Returns the total number of misses answered without asking the cache or its
+     * {@link com.oracle.cloud.cache.basic.CacheLoader}, because the key was recently missed,
+     * as enabled via the {@link com.oracle.cloud.cache.basic.options.NegativeCaching} option.
+     * These are included in the miss count.
+     *
+     * @return the total number of negative hits
+     */
+    public long getNegativeHitCount()
+    {
+        return negativeHitCount;
+    }
+
+
+    /**
+     * Returns the total number of entries refreshed by a read before they expired, as
+     * enabled via the {@link com.oracle.cloud.cache.basic.options.EarlyExpiry} option.
+     *
+     * @return the total number of early refreshes
+     */
+    public long getEarlyRefreshCount()
+    {
+        return earlyRefreshCount;
+    }
+
+
+    /**
+     * Returns the total number of operations that timed out.
+     *
+     * @return the total number of operations that timed out
+     */
+    public long getTimeoutCount()
+    {
+        return timeoutCount;
+    }
+
+
+    /**
+     * Returns the total number of times a get was retried, as enabled via the
+     * {@link com.oracle.cloud.cache.basic.options.Retry} option.
+     *
+     * @return the total number of get retries
+     */
+    public long getGetRetryCount()
+    {
+        return getRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times a put was retried.
+     *
+     * @return the total number of put retries
+     */
+    public long getPutRetryCount()
+    {
+        return putRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times a remove was retried.
+     *
+     * @return the total number of remove retries
+     */
+    public long getRemoveRetryCount()
+    {
+        return removeRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times a clear was retried.
+     *
+     * @return the total number of clear retries
+     */
+    public long getClearRetryCount()
+    {
+        return clearRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times an optimistic computeIfPresent or merge against
+     * a remote cache was retried, because the entry was updated concurrently.
+     *
+     * @return the total number of contention retries
+     */
+    public long getComputeRetryCount()
+    {
+        return computeRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times a scan was resumed from the last page received,
+     * because fetching the next page failed.
+     *
+     * @return the total number of scan retries
+     */
+    public long getScanRetryCount()
+    {
+        return scanRetryCount;
+    }
+
+
+    /**
+     * Returns the total number of times a listener threw an exception while handling an event.
+     *
+     * @return the total number of listener failures
+     */
+    public long getListenerFailureCount()
+    {
+        return listenerFailureCount;
+    }
+
+
+    /**
+     * Returns the total number of times the server refused to deliver the changes made to
+     * the cache, which removed the listeners registered at the time.
+     *
+     * @return the total number of subscription failures
+     */
+    public long getSubscriptionFailureCount()
+    {
+        return subscriptionFailureCount;
+    }
+
+
+    /**
+     * Returns the total number of events that were dropped, rather than delivered to
+     * listeners asynchronously, because the queue of events to deliver was full.
+     *
+     * @return the total number of dropped events
+     */
+    public long getListenerDroppedCount()
+    {
+        return listenerDroppedCount;
+    }
+
+
+    /**
+     * Returns the number of events waiting to be delivered to listeners asynchronously.
+     *
+     * @return the listener queue depth
+     */
+    public long getListenerQueueDepth()
+    {
+        return listenerQueueDepth;
+    }
+
+
+    /**
+     * Returns the total number of operations rejected without being sent to the server,
+     * because the {@link com.oracle.cloud.cache.basic.options.CircuitBreaker circuit breaker}
+     * was open.
+     *
+     * @return the total number of rejected operations
+     */
+    public long getRejectedCount()
+    {
+        return rejectedCount;
+    }
+
+
+    /**
+     * Returns the total number of gets served from entries that had been evicted to disk,
+     * as enabled via the {@link com.oracle.cloud.cache.basic.options.Overflow} option.
+     *
+     * @return the total number of disk hits
+     */
+    public long getDiskHitCount()
+    {
+        return diskHitCount;
+    }
+
+
+    /**
+     * Returns the number of entries evicted to disk.
+     *
+     * @return the number of entries on disk
+     */
+    public long getDiskCount()
+    {
+        return diskCount;
+    }
+
+
+    /**
+     * Returns the total number of compactions of the entries evicted to disk.
+     *
+     * @return the total number of compactions
+     */
+    public long getDiskCompactionCount()
+    {
+        return diskCompactionCount;
+    }
+
+
+    /**
+     * Returns the total number of bytes copied by compactions of the entries evicted to disk.
+     *
+     * @return the total number of bytes compacted
+     */
+    public long getDiskCompactedBytes()
+    {
+        return diskCompactedBytes;
+    }
+
+
+    /**
+     * Returns the rate at which compactions copied the entries evicted to disk, while they ran.
+     *
+     * @return the compaction throughput, in bytes per second
+     */
+    public double getDiskCompactionThroughput()
+    {
+        return diskCompactionTime == 0 ? 0.0 : diskCompactedBytes * 1e9 / diskCompactionTime;
+    }
+
+
+    /**
+     * Returns the total number of snapshots of the cache that could not be written, or
+     * restored when the cache was created.
+     *
+     * @return the total number of snapshot failures
+     */
+    public long getSnapshotFailureCount()
+    {
+        return snapshotFailureCount;
+    }
+
+
+    /**
+     * Returns the total number of hedged get requests issued, as enabled via the
+     * {@link com.oracle.cloud.cache.basic.options.Hedging} option.
+     *
+     * @return the total number of hedged requests
+     */
+    public long getHedgeCount()
+    {
+        return hedgeCount;
+    }
+
+
+    /**
+     * Returns the total number of hedged get requests whose response was used because
+     * it arrived before the response to the request they hedged.
+     *
+     * @return the total number of hedged requests that won
+     */
+    public long getHedgeWonCount()
+    {
+        return hedgeWonCount;
+    }
+
+
     /**
      * Returns the cache hit ratio (hits as percentage of gets).
      *
@@ -223,12 +735,65 @@ public class CacheMetrics
     }
 
 
+    /**
+     * Returns the most frequently accessed keys, ordered from the hottest down, or an
+     * empty list if hot-key tracking is not enabled via the
+     * {@link com.oracle.cloud.cache.basic.options.HotKeys} option.
+     *
+     * @return the most frequently accessed keys
+     */
+    public List<HotKey> getHotKeys()
+    {
+        return hotKeys;
+    }
+
+
+    /**
+     * Returns the total number of requests that failed over to another endpoint of a
+     * {@link com.oracle.cloud.cache.basic.FailoverCache}.
+     *
+     * @return the total number of failovers
+     */
+    public long getFailoverCount()
+    {
+        return failoverCount;
+    }
+
+
+    /**
+     * Returns the health of each endpoint of a {@link com.oracle.cloud.cache.basic.FailoverCache},
+     * or an empty list if the cache has a single endpoint.
+     *
+     * @return the health of each endpoint
+     */
+    public List<EndpointHealth> getEndpoints()
+    {
+        return endpoints;
+    }
+
+
     @Override
     public String toString()
     {
         return "CacheMetrics{" + "\n\tcache:  " + cacheName + "\n\tget:    " + getMetrics + "\n\tput:    " + putMetrics
-               + "\n\tremove: " + removeMetrics + "\n\tload:   " + loadMetrics + "\n\thits:   [count = " + hitCount
-               + ", ratio = " + getHitRatio() + "]" + "\n\tmisses: [count = " + missCount + ", ratio = "
-               + getMissRatio() + "]" + "\n\tcount:  " + count + "\n\tsize:   " + size + "\n}";
+               + "\n\tremove: " + removeMetrics + "\n\tload:   " + loadMetrics + "\n\twrite:  " + writeMetrics
+               + "\n\thits:   [count = " + hitCount + ", ratio = " + getHitRatio() + ", near = " + nearHitCount + "]"
+               + "\n\tmisses: [count = " + missCount + ", ratio = " + getMissRatio() + ", negative = "
+               + negativeHitCount + "]" + "\n\tcount:  " + count + "\n\tsize:   " + size
+               + "\n\trefreshes: " + earlyRefreshCount + "\n\ttimeouts: " + timeoutCount
+               + "\n\tretries: [get = " + getRetryCount + ", put = " + putRetryCount
+               + ", remove = " + removeRetryCount + ", clear = " + clearRetryCount + ", compute = "
+               + computeRetryCount + ", scan = " + scanRetryCount + "]" + "\n\trejected: " + rejectedCount
+               + "\n\thedges: [count = " + hedgeCount
+               + ", won = " + hedgeWonCount + "]" + "\n\twrite-behind: [queue = " + writeBehindQueueDepth
+               + ", failures = " + writeBehindFailureCount + ", flush = " + writeBehindFlushMetrics + "]"
+               + "\n\tlisteners: [queue = " + listenerQueueDepth + ", dropped = " + listenerDroppedCount
+               + ", failures = " + listenerFailureCount + ", refused = " + subscriptionFailureCount + "]"
+               + "\n\tdisk:   [count = " + diskCount + ", hits = " + diskHitCount + ", compactions = "
+               + diskCompactionCount + ", compacted = " + diskCompactedBytes + ", throughput = "
+               + getDiskCompactionThroughput() + "]" + "\n\tsnapshots: [failures = " + snapshotFailureCount + "]"
+               + (hotKeys.isEmpty() ? "" : "\n\thot:    " + hotKeys)
+               + (endpoints.isEmpty() ? "" : "\n\tendpoints: [failovers = " + failoverCount + ", " + endpoints + "]")
+               + "\n}";
     }
 }
@@ -0,0 +1,158 @@
+/*
+ * File: EndpointHealth.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.metrics;
+
+/**
+ * The health of one of the endpoints of a session with several endpoints, such as a
+ * {@link com.oracle.cloud.cache.basic.FailoverSession}.
+ */
+public class EndpointHealth
+{
+    /**
+     * The name of the endpoint.
+     */
+    private final String name;
+
+    /**
+     * Indicates if the endpoint is receiving requests.
+     */
+    private final boolean healthy;
+
+    /**
+     * The moving average latency of requests to the endpoint, in milliseconds.
+     */
+    private final double latency;
+
+    /**
+     * The number of requests sent to the endpoint.
+     */
+    private final long requests;
+
+    /**
+     * The number of requests to the endpoint that failed.
+     */
+    private final long failures;
+
+    /**
+     * The number of times the endpoint has been ejected.
+     */
+    private final long ejections;
+
+
+    /**
+     * Constructs an EndpointHealth instance.
+     *
+     * @param name       the name of the endpoint
+     * @param healthy    true if the endpoint is receiving requests
+     * @param latency    the moving average latency of requests, in milliseconds
+     * @param requests   the number of requests sent to the endpoint
+     * @param failures   the number of requests that failed
+     * @param ejections  the number of times the endpoint has been ejected
+     */
+    public EndpointHealth(String  name,
+                          boolean healthy,
+                          double  latency,
+                          long    requests,
+                          long    failures,
+                          long    ejections)
+    {
+        this.name      = name;
+        this.healthy   = healthy;
+        this.latency   = latency;
+        this.requests  = requests;
+        this.failures  = failures;
+        this.ejections = ejections;
+    }
+
+
+    /**
+     * Returns the name of the endpoint.
+     *
+     * @return the name of the endpoint
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Indicates if the endpoint is receiving requests, as it has not been ejected.
+     *
+     * @return true if the endpoint is healthy
+     */
+    public boolean isHealthy()
+    {
+        return healthy;
+    }
+
+
+    /**
+     * Returns the exponentially-weighted moving average latency of requests to the
+     * endpoint, including health checks.
+     *
+     * @return the average latency in milliseconds, or zero if no request has completed
+     */
+    public double getLatency()
+    {
+        return latency;
+    }
+
+
+    /**
+     * Returns the number of requests sent to the endpoint, including health checks.
+     *
+     * @return the number of requests
+     */
+    public long getRequests()
+    {
+        return requests;
+    }
+
+
+    /**
+     * Returns the number of requests to the endpoint that failed with a transport
+     * error or timeout.
+     *
+     * @return the number of failures
+     */
+    public long getFailures()
+    {
+        return failures;
+    }
+
+
+    /**
+     * Returns the number of times the endpoint has been ejected.
+     *
+     * @return the number of ejections
+     */
+    public long getEjections()
+    {
+        return ejections;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "[name = " + name + ", healthy = " + healthy + ", latency = " + latency + ", requests = " + requests
+               + ", failures = " + failures + ", ejections = " + ejections + ']';
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * File: HotKey.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.metrics;
+
+/**
+ * A frequently accessed cache key, together with its estimated (decayed)
+ * access count and access rate.
+ */
+public class HotKey
+{
+    /**
+     * The cache key.
+     */
+    private final String key;
+
+    /**
+     * The estimated, decayed number of accesses.
+     */
+    private final long count;
+
+    /**
+     * The estimated number of accesses per second.
+     */
+    private final double rate;
+
+
+    /**
+     * Constructs a HotKey instance.
+     *
+     * @param key    the cache key
+     * @param count  the estimated, decayed number of accesses
+     * @param rate   the estimated number of accesses per second
+     */
+    public HotKey(String key,
+                  long   count,
+                  double rate)
+    {
+        this.key   = key;
+        this.count = count;
+        this.rate  = rate;
+    }
+
+
+    /**
+     * Returns the cache key.
+     *
+     * @return the cache key
+     */
+    public String getKey()
+    {
+        return key;
+    }
+
+
+    /**
+     * Returns the estimated, decayed number of accesses. Count-min estimates
+     * may overstate, but never understate, the true count.
+     *
+     * @return the estimated number of accesses
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * Returns the estimated number of accesses per second.
+     *
+     * @return the estimated number of accesses per second
+     */
+    public double getRate()
+    {
+        return rate;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "[key = " + key + ", count = " + count + ", rate = " + rate + ']';
+    }
+}
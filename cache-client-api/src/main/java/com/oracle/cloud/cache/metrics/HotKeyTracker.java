@@ -0,0 +1,328 @@
+/*
+ * File: HotKeyTracker.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.oracle.cloud.cache.basic.options.HotKeys;
+
+/**
+ * Tracks the most frequently accessed keys of a cache using a count-min sketch
+ * and a small set of top-K candidates.
+ * <p>
+ * Memory use is bounded by the sketch dimensions and K, regardless of the number
+ * of distinct keys. All counts are halved after each decay interval, so that the
+ * report reflects recent rather than historical access patterns. Recording an
+ * access for a key that is already in the top-K set does not acquire any lock.
+ * </p>
+ */
+public class HotKeyTracker
+{
+    /**
+     * The number of hot keys to report.
+     */
+    private final int topK;
+
+    /**
+     * The number of counters in each row of the sketch.
+     */
+    private final int width;
+
+    /**
+     * The number of rows (hash functions) in the sketch.
+     */
+    private final int depth;
+
+    /**
+     * The sketch counters, stored row by row.
+     */
+    private final AtomicLongArray counters;
+
+    /**
+     * The decay interval in nanoseconds.
+     */
+    private final long decayNanos;
+
+    /**
+     * The time (in nanoseconds) at which the next decay is due.
+     */
+    private final AtomicLong nextDecay;
+
+    /**
+     * The time (in nanoseconds) tracking started.
+     */
+    private final long startTime;
+
+    /**
+     * The time (in nanoseconds) of the last decay, or zero if counts have not decayed yet.
+     */
+    private volatile long lastDecay;
+
+    /**
+     * The current top-K candidate keys; replaced (never mutated) under lock.
+     */
+    private volatile Set<String> candidates = Collections.emptySet();
+
+    /**
+     * The estimate a key must exceed to be considered as a top-K candidate.
+     */
+    private volatile long threshold;
+
+
+    /**
+     * Constructs a HotKeyTracker based upon a {@link HotKeys} option.
+     *
+     * @param hotKeys  the {@link HotKeys} option (must be enabled)
+     */
+    public HotKeyTracker(HotKeys hotKeys)
+    {
+        this.topK       = hotKeys.getTopK();
+        this.width      = hotKeys.getWidth();
+        this.depth      = hotKeys.getDepth();
+        this.counters   = new AtomicLongArray(width * depth);
+        this.decayNanos = hotKeys.getDecayInterval().toNanos();
+        this.startTime  = System.nanoTime();
+        this.nextDecay  = new AtomicLong(startTime + decayNanos);
+    }
+
+
+    /**
+     * Records an access to the specified key.
+     *
+     * @param key  the key that was accessed
+     */
+    public void record(String key)
+    {
+        long now      = System.nanoTime();
+        long deadline = nextDecay.get();
+
+        if (now - deadline >= 0 && nextDecay.compareAndSet(deadline, now + decayNanos))
+        {
+            decay(now);
+        }
+
+        int  h1       = spread(key.hashCode());
+        int  h2       = spread(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++)
+        {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, h1, h2)));
+        }
+
+        if (estimate > threshold && !candidates.contains(key))
+        {
+            offer(key, estimate);
+        }
+    }
+
+
+    /**
+     * Returns the estimated access count for the specified key.
+     *
+     * @param key  the key
+     * @return the estimated (decayed) access count
+     */
+    public long estimate(String key)
+    {
+        int  h1       = spread(key.hashCode());
+        int  h2       = spread(h1 ^ 0x9E3779B9) | 1;
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++)
+        {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+
+        return estimate;
+    }
+
+
+    /**
+     * Returns the current hot keys, ordered from the most to the least frequently accessed.
+     *
+     * @return the current hot keys
+     */
+    public List<HotKey> getHotKeys()
+    {
+        long         now     = System.nanoTime();
+        long         decayed = lastDecay;
+
+        // after the first decay, the carried-over half of the previous counts
+        // represents (on average) one full decay interval of accesses
+        long         window  = decayed == 0 ? now - startTime : decayNanos + (now - decayed);
+        double       seconds = Math.max(1L, window) / (double) TimeUnit.SECONDS.toNanos(1);
+
+        List<HotKey> keys    = new ArrayList<>();
+
+        for (String key : candidates)
+        {
+            long count = estimate(key);
+
+            if (count > 0)
+            {
+                keys.add(new HotKey(key, count, count / seconds));
+            }
+        }
+
+        keys.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        return keys;
+    }
+
+
+    /**
+     * Offers a key as a top-K candidate, evicting the coldest candidate if required.
+     *
+     * @param key       the key
+     * @param estimate  the estimated access count of the key
+     */
+    private synchronized void offer(String key,
+                                    long   estimate)
+    {
+        Set<String> current = candidates;
+
+        if (current.contains(key))
+        {
+            return;
+        }
+
+        Set<String> updated = new HashSet<>(current);
+        String      coldest = null;
+        long        min     = Long.MAX_VALUE;
+
+        for (String candidate : current)
+        {
+            long count = estimate(candidate);
+
+            if (count < min)
+            {
+                min     = count;
+                coldest = candidate;
+            }
+        }
+
+        if (current.size() < topK)
+        {
+            updated.add(key);
+        }
+        else if (estimate > min)
+        {
+            updated.remove(coldest);
+            updated.add(key);
+        }
+
+        threshold  = updated.size() < topK ? 0L : coldest(updated);
+        candidates = Collections.unmodifiableSet(updated);
+    }
+
+
+    /**
+     * Returns the lowest estimate of the specified candidates, which a key must exceed to
+     * replace one of them.
+     *
+     * @param keys  the candidate keys
+     * @return the lowest estimated access count of the keys
+     */
+    private long coldest(Set<String> keys)
+    {
+        long min = Long.MAX_VALUE;
+
+        for (String key : keys)
+        {
+            min = Math.min(min, estimate(key));
+        }
+
+        return min;
+    }
+
+
+    /**
+     * Returns the estimate a key must exceed to be considered as a top-K candidate.
+     *
+     * @return the current threshold
+     */
+    long getThreshold()
+    {
+        return threshold;
+    }
+
+
+    /**
+     * Halves all counters.
+     *
+     * @param now  the current time in nanoseconds
+     */
+    private void decay(long now)
+    {
+        // halve atomically, so that concurrent increments are not lost
+        for (int i = 0; i < counters.length(); i++)
+        {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+
+        synchronized (this)
+        {
+            threshold >>>= 1;
+        }
+
+        lastDecay = now == 0 ? 1 : now;
+    }
+
+
+    /**
+     * Returns the counter index for the specified row and key hashes.
+     *
+     * @param row  the sketch row
+     * @param h1   the first key hash
+     * @param h2   the second key hash
+     * @return the counter index
+     */
+    private int index(int row,
+                      int h1,
+                      int h2)
+    {
+        return row * width + Math.floorMod(h1 + row * h2, width);
+    }
+
+
+    /**
+     * Applies a supplemental hash function to defend against poor quality hash codes.
+     *
+     * @param h  the hash code
+     * @return the spread hash code
+     */
+    private static int spread(int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+
+        return h;
+    }
+}
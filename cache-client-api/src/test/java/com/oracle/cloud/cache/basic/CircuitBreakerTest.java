@@ -0,0 +1,280 @@
+/*
+ * File: CircuitBreakerTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.protobuf.ByteString;
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the circuit breaker of a {@link GrpcCache}, against an in-process server
+ * which fails its requests as instructed by each test.
+ */
+public class CircuitBreakerTest
+{
+    /**
+     * The number of servers started, used to name them uniquely.
+     */
+    private static final AtomicInteger SERVERS = new AtomicInteger();
+
+    /**
+     * The circuit breaker, which opens after two failures out of four requests.
+     */
+    private static final CircuitBreaker BREAKER = CircuitBreaker.of(0.5, Duration.ofMillis(100))
+                                                                .withWindow(4)
+                                                                .withProbes(1)
+                                                                .withFallback(10)
+                                                                .queueWrites(10);
+
+    /**
+     * The service holding the entries.
+     */
+    private FailingService service;
+
+    /**
+     * The in-process server.
+     */
+    private Server server;
+
+    /**
+     * The name of the in-process server.
+     */
+    private String name;
+
+
+    /**
+     * Starts a new in-process server for each test.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @Before
+    public void startServer() throws IOException
+    {
+        name    = "circuit-" + SERVERS.incrementAndGet();
+        service = new FailingService();
+        server  = InProcessServerBuilder.forName(name).addService(service).build().start();
+    }
+
+
+    /**
+     * Stops the in-process server.
+     */
+    @After
+    public void stopServer()
+    {
+        server.shutdownNow();
+    }
+
+
+    /**
+     * Ensures that while the circuit is open gets are served by the fallback cache and
+     * writes are queued, and that the queued writes are replayed once it closes, without
+     * their failures being reported to unrelated gets.
+     */
+    @Test
+    public void testQueuedWritesReplayed() throws InterruptedException
+    {
+        Cache<String> cache = new InProcessSession(name).getCache("circuit", BREAKER);
+
+        cache.put("key", "value-1");
+        assertEquals("value-1", cache.get("key"));
+
+        open(cache);
+
+        assertEquals("value-1", cache.get("key"));
+        assertNull(cache.put("key", "value-2"));
+        assertEquals(1, service.getPutCount());
+
+        // the probe succeeds, closing the circuit, while the queued write keeps failing
+        service.failGets = false;
+        Thread.sleep(150);
+
+        assertEquals("value-1", cache.get("key"));
+        assertEquals("value-1", cache.get("key"));
+
+        service.failPuts = false;
+
+        // any successful operation resumes the replay
+        assertNull(cache.get("other"));
+
+        for (int i = 0; i < 100 && !"value-2".equals(cache.get("key")); i++)
+        {
+            Thread.sleep(20);
+        }
+
+        assertEquals("value-2", cache.get("key"));
+    }
+
+
+    /**
+     * Ensures that a write made while queued writes remain to be replayed is applied
+     * after them, rather than overwritten by them.
+     */
+    @Test
+    public void testWritesAppliedInOrder() throws InterruptedException
+    {
+        Cache<String> cache = new InProcessSession(name).getCache("circuit", BREAKER);
+
+        open(cache);
+        cache.put("key", "value-1");
+
+        service.failGets = false;
+        Thread.sleep(150);
+
+        cache.get("other");
+        cache.put("key", "value-2");
+
+        service.failPuts = false;
+        cache.get("other");
+
+        for (int i = 0; i < 100 && service.getPutCount() < 2; i++)
+        {
+            Thread.sleep(20);
+        }
+
+        Thread.sleep(50);
+
+        assertEquals("value-2", cache.get("key"));
+    }
+
+
+    /**
+     * Makes the service fail every request, and issues failing gets until the circuit
+     * opens, and gets are served by the fallback cache instead.
+     *
+     * @param cache  the cache
+     */
+    private void open(Cache<String> cache)
+    {
+        service.failGets = true;
+        service.failPuts = true;
+
+        for (int i = 0; i <= 4; i++)
+        {
+            try
+            {
+                cache.get("key");
+
+                if (i > 0)
+                {
+                    return;
+                }
+            }
+            catch (StatusRuntimeException e)
+            {
+                assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+            }
+        }
+
+        fail("the circuit did not open");
+    }
+
+
+    /**
+     * A service which holds the entries put, and fails gets and puts while instructed to.
+     */
+    private static class FailingService extends CacheGrpc.CacheImplBase
+    {
+        /**
+         * The entries.
+         */
+        private final Map<String, ByteString> entries = new ConcurrentHashMap<>();
+
+        /**
+         * The number of puts applied.
+         */
+        private final AtomicInteger puts = new AtomicInteger();
+
+        /**
+         * Indicates if gets fail.
+         */
+        volatile boolean failGets;
+
+        /**
+         * Indicates if puts fail.
+         */
+        volatile boolean failPuts;
+
+
+        /**
+         * Returns the number of puts applied.
+         *
+         * @return the number of puts
+         */
+        int getPutCount()
+        {
+            return puts.get();
+        }
+
+
+        @Override
+        public void get(CacheRpc.GetRequest                   request,
+                        StreamObserver<CacheRpc.GetResponse> observer)
+        {
+            if (failGets)
+            {
+                observer.onError(Status.UNAVAILABLE.asRuntimeException());
+
+                return;
+            }
+
+            ByteString value = entries.get(request.getKey());
+
+            observer.onNext(CacheProtocol.getResponse(value == null ? null : value.toByteArray()));
+            observer.onCompleted();
+        }
+
+
+        @Override
+        public void put(CacheRpc.PutRequest                   request,
+                        StreamObserver<CacheRpc.PutResponse> observer)
+        {
+            if (failPuts)
+            {
+                observer.onError(Status.UNAVAILABLE.asRuntimeException());
+
+                return;
+            }
+
+            entries.put(request.getKey(), request.getValue());
+            puts.incrementAndGet();
+
+            observer.onNext(CacheProtocol.putResponse(null));
+            observer.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * File: CircuitTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.cloud.cache.basic.options.CircuitBreaker;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link Circuit}.
+ */
+public class CircuitTest
+{
+    /**
+     * Ensures the circuit opens once the failure rate is reached, and closes after
+     * successful probes.
+     */
+    @Test
+    public void testOpenAndClose() throws InterruptedException
+    {
+        Circuit circuit = new Circuit(CircuitBreaker.of(0.5, Duration.ofMillis(50)).withWindow(4).withProbes(2));
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(circuit.tryAcquire());
+            circuit.onSuccess(0);
+        }
+
+        assertTrue(circuit.tryAcquire());
+        circuit.onFailure();
+        assertTrue(circuit.tryAcquire());
+        circuit.onFailure();
+
+        assertEquals(Circuit.State.OPEN, circuit.getState());
+        assertFalse(circuit.tryAcquire());
+
+        Thread.sleep(60);
+
+        // only the configured number of probes are let through
+        assertTrue(circuit.tryAcquire());
+        assertTrue(circuit.tryAcquire());
+        assertFalse(circuit.tryAcquire());
+        assertEquals(Circuit.State.HALF_OPEN, circuit.getState());
+
+        circuit.onSuccess(0);
+        circuit.onSuccess(0);
+
+        assertTrue(circuit.isClosed());
+        assertTrue(circuit.tryAcquire());
+    }
+
+
+    /**
+     * Ensures slow requests count as failures, and a failed probe re-opens the circuit.
+     */
+    @Test
+    public void testSlowCallsAndFailedProbe() throws InterruptedException
+    {
+        Circuit circuit = new Circuit(CircuitBreaker.of(1.0, Duration.ofMillis(10), Duration.ofMillis(50))
+                                              .withWindow(2));
+
+        circuit.onSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(circuit.isClosed());
+        circuit.onSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(Circuit.State.OPEN, circuit.getState());
+
+        Thread.sleep(60);
+
+        assertTrue(circuit.tryAcquire());
+        circuit.onFailure();
+
+        assertEquals(Circuit.State.OPEN, circuit.getState());
+        assertFalse(circuit.tryAcquire());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * File: EventDispatcherTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.options.EventDelivery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link EventDispatcher}.
+ */
+public class EventDispatcherTest
+{
+    /**
+     * Ensures events are delivered in the order they were queued.
+     */
+    @Test
+    public void testDelivery() throws InterruptedException
+    {
+        BlockingQueue<CacheEvent<String>> delivered  = new LinkedBlockingQueue<>();
+        EventDispatcher<String>           dispatcher = new EventDispatcher<>("test",
+                                                                             EventDelivery.asynchronous(2),
+                                                                             delivered::add,
+                                                                             () -> { });
+
+        for (int i = 0; i < 5; i++)
+        {
+            dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "key-" + i, "value"));
+        }
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("key-" + i, delivered.poll(5, TimeUnit.SECONDS).getKey());
+        }
+
+        assertNull(delivered.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, dispatcher.size());
+    }
+
+
+    /**
+     * Ensures events are dropped, rather than blocking, when the queue is full, and that a
+     * reset event follows the events queued before them.
+     */
+    @Test
+    public void testOverflow() throws InterruptedException
+    {
+        CountDownLatch                    blocked    = new CountDownLatch(1);
+        CountDownLatch                    release    = new CountDownLatch(1);
+        AtomicInteger                     dropped    = new AtomicInteger();
+        BlockingQueue<CacheEvent<String>> delivered  = new LinkedBlockingQueue<>();
+        EventDispatcher<String>           dispatcher = new EventDispatcher<>("test",
+                                                                             EventDelivery.asynchronous(1)
+                                                                                     .withMaxQueue(2),
+                                                                             event -> {
+                                                                                 blocked.countDown();
+                                                                                 await(release);
+                                                                                 delivered.add(event);
+                                                                             },
+                                                                             dropped::incrementAndGet);
+
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "first", "value"));
+        blocked.await(5, TimeUnit.SECONDS);
+
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "second", "value"));
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "third", "value"));
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "dropped", "value"));
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "dropped", "value"));
+
+        assertEquals(2, dropped.get());
+        assertEquals(2, dispatcher.size());
+
+        release.countDown();
+
+        assertEquals("first", delivered.poll(5, TimeUnit.SECONDS).getKey());
+        assertEquals("second", delivered.poll(5, TimeUnit.SECONDS).getKey());
+        assertEquals("third", delivered.poll(5, TimeUnit.SECONDS).getKey());
+        assertEquals(CacheEvent.Type.RESET, delivered.poll(5, TimeUnit.SECONDS).getType());
+
+        dispatcher.offer(new CacheEvent<>(CacheEvent.Type.CREATED, "fourth", "value"));
+
+        assertEquals("fourth", delivered.poll(5, TimeUnit.SECONDS).getKey());
+        assertEquals(2, dropped.get());
+    }
+
+
+    /**
+     * Waits for the specified latch, without interruption.
+     *
+     * @param latch  the latch
+     */
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * File: ExpiryTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.cloud.cache.basic.options.Expiry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the removal of expired entries from a {@link LocalCache}.
+ */
+public class ExpiryTest
+{
+    /**
+     * Ensures that an expired entry which is written again with an equal value, while it
+     * is being removed by a read or a flush of expired entries, is not removed.
+     */
+    @Test
+    public void testExpiredEntryRewritten() throws Exception
+    {
+        LocalCache<String> cache    = new LocalCache<>("expiry", new LocalSession());
+        ExecutorService    executor = Executors.newFixedThreadPool(2);
+        int                keys     = 2000;
+
+        try
+        {
+            for (int round = 0; round < 20; round++)
+            {
+                for (int i = 0; i < keys; i++)
+                {
+                    cache.put("key-" + i, "value", Expiry.of(1, TimeUnit.MILLISECONDS));
+                }
+
+                Thread.sleep(5);
+
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?>     reader  = executor.submit(() -> {
+                    barrier.await();
+
+                    for (int i = 0; i < keys; i++)
+                    {
+                        cache.get("key-" + i);
+                    }
+
+                    return null;
+                });
+                Future<?>     writer  = executor.submit(() -> {
+                    barrier.await();
+
+                    for (int i = 0; i < keys; i++)
+                    {
+                        cache.put("key-" + i, "value", Expiry.never());
+                    }
+
+                    return null;
+                });
+
+                reader.get();
+                writer.get();
+
+                for (int i = 0; i < keys; i++)
+                {
+                    assertEquals("round " + round, "value", cache.get("key-" + i));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
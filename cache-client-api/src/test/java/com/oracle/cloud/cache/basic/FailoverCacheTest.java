@@ -0,0 +1,317 @@
+/*
+ * File: FailoverCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.OutlierEjection;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.metrics.EndpointHealth;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link FailoverCache} and {@link FailoverSession}.
+ */
+public class FailoverCacheTest
+{
+    /**
+     * Health checks run only when requested by the tests.
+     */
+    private static final OutlierEjection EJECTION = OutlierEjection.defaults().withCheckInterval(Duration.ofHours(1));
+
+
+    /**
+     * Ensures reads fail over to another endpoint when an endpoint is lost, and that the
+     * endpoint is ejected after consecutive failures.
+     */
+    @Test
+    public void testFailover()
+    {
+        EndpointSession a       = new EndpointSession();
+        EndpointSession b       = new EndpointSession();
+        FailoverSession session = createSession(a, b);
+        Cache<String>   cache   = session.getCache("failover");
+
+        a.cache.put("key", "value");
+        b.cache.put("key", "value");
+
+        // take down whichever endpoint is currently preferred
+        Endpoint preferred = session.select().get(0);
+
+        ((EndpointSession) preferred.getSession()).down = true;
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("value", cache.get("key"));
+        }
+
+        // the endpoint was ejected after three failures, so later reads go straight to the other
+        assertEquals(3, cache.getMetrics().getFailoverCount());
+
+        List<EndpointHealth> health = cache.getMetrics().getEndpoints();
+
+        assertEquals(2, health.size());
+
+        for (EndpointHealth endpoint : health)
+        {
+            boolean down = endpoint.getName().equals(preferred.getName());
+
+            assertEquals(!down, endpoint.isHealthy());
+            assertEquals(down ? 3 : 0, endpoint.getFailures());
+            assertEquals(down ? 1 : 0, endpoint.getEjections());
+        }
+    }
+
+
+    /**
+     * Ensures operations that are not idempotent do not fail over.
+     */
+    @Test
+    public void testNoFailoverForConditionalWrites()
+    {
+        EndpointSession a     = new EndpointSession();
+        EndpointSession b     = new EndpointSession();
+        Cache<String>   cache = createSession(a, b).getCache("failover");
+
+        a.down = true;
+
+        try
+        {
+            cache.putIfAbsent("key", "value");
+            fail("the write should not have failed over");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertEquals(0, cache.getMetrics().getFailoverCount());
+        }
+
+        // an idempotent write fails over
+        cache.put("key", "value");
+        assertEquals("value", b.cache.get("key"));
+    }
+
+
+    /**
+     * Ensures an endpoint whose latency is an outlier is ejected by the health check, so
+     * that requests are sent to the fastest endpoint.
+     */
+    @Test
+    public void testLatencyOutlier()
+    {
+        EndpointSession a       = new EndpointSession();
+        EndpointSession b       = new EndpointSession();
+        FailoverSession session = createSession(a, b);
+        Cache<String>   cache   = session.getCache("failover");
+
+        a.delay = 10L;
+
+        for (int i = 0; i < 3; i++)
+        {
+            session.checkHealth();
+        }
+
+        assertFalse(session.getEndpointHealth().get(0).isHealthy());
+        assertTrue(session.getEndpointHealth().get(1).isHealthy());
+
+        long requests = session.getEndpointHealth().get(0).getRequests();
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.get("key");
+        }
+
+        assertEquals(requests, session.getEndpointHealth().get(0).getRequests());
+        assertEquals(13, session.getEndpointHealth().get(1).getRequests());
+    }
+
+
+    /**
+     * Creates a session over the specified endpoints.
+     *
+     * @param endpoints  the sessions to the endpoints
+     * @return the session
+     */
+    private static FailoverSession createSession(EndpointSession... endpoints)
+    {
+        Map<String, Session> sessions = new LinkedHashMap<>();
+
+        for (int i = 0; i < endpoints.length; i++)
+        {
+            sessions.put("endpoint-" + i, endpoints[i]);
+        }
+
+        return new FailoverSession(sessions, EJECTION);
+    }
+
+
+    /**
+     * A session to a local endpoint, which may be made slow or unavailable.
+     */
+    private static class EndpointSession extends LocalSession
+    {
+        /**
+         * The cache on the endpoint.
+         */
+        private final EndpointCache cache = new EndpointCache(this);
+
+        /**
+         * Indicates if the endpoint is unavailable.
+         */
+        private volatile boolean down;
+
+        /**
+         * The delay of each read, in milliseconds.
+         */
+        private volatile long delay;
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> Cache<V> getCache(String         cacheName,
+                                     CacheOption... options)
+        {
+            return (Cache<V>) cache;
+        }
+    }
+
+
+    /**
+     * A cache on a local endpoint, which may be made slow or unavailable.
+     */
+    private static class EndpointCache extends LocalCache<String>
+    {
+        /**
+         * The session to the endpoint.
+         */
+        private final EndpointSession session;
+
+
+        /**
+         * Constructs an EndpointCache.
+         *
+         * @param session  the session to the endpoint
+         */
+        private EndpointCache(EndpointSession session)
+        {
+            super("failover", session);
+
+            this.session = session;
+        }
+
+
+        @Override
+        protected String get(String  key,
+                             Timeout timeout)
+        {
+            request();
+
+            return super.get(key, timeout);
+        }
+
+
+        @Override
+        protected Expiring<String> getExpiring(String  key,
+                                               Timeout timeout)
+        {
+            request();
+
+            return super.getExpiring(key, timeout);
+        }
+
+
+        @Override
+        protected Versioned<String> getWithVersion(String  key,
+                                                   Timeout timeout)
+        {
+            request();
+
+            return super.getWithVersion(key, timeout);
+        }
+
+
+        @Override
+        protected String put(String  key,
+                             String  value,
+                             Expiry  expiry,
+                             boolean returnOld,
+                             Timeout timeout)
+        {
+            request();
+
+            return super.put(key, value, expiry, returnOld, timeout);
+        }
+
+
+        @Override
+        protected String putIfAbsent(String  key,
+                                     String  value,
+                                     Expiry  expiry,
+                                     boolean returnOld,
+                                     Timeout timeout)
+        {
+            request();
+
+            return super.putIfAbsent(key, value, expiry, returnOld, timeout);
+        }
+
+
+        @Override
+        protected boolean isTransient(RuntimeException e)
+        {
+            return e instanceof UncheckedIOException;
+        }
+
+
+        /**
+         * Simulates a request to the endpoint, which fails if the endpoint is unavailable.
+         */
+        private void request()
+        {
+            if (session.down)
+            {
+                throw new UncheckedIOException(new IOException("endpoint is unavailable"));
+            }
+
+            if (session.delay > 0)
+            {
+                try
+                {
+                    TimeUnit.MILLISECONDS.sleep(session.delay);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * File: HashRingTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HashRing}.
+ */
+public class HashRingTest
+{
+    /**
+     * The number of keys assigned in each test.
+     */
+    private static final int KEYS = 10000;
+
+
+    /**
+     * Ensures keys are spread evenly over the nodes.
+     */
+    @Test
+    public void testDistribution()
+    {
+        HashRing<String>     ring   = createRing("a", "b", "c", "d");
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < KEYS; i++)
+        {
+            counts.merge(ring.locate("key-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(4, counts.size());
+
+        for (int count : counts.values())
+        {
+            assertTrue("skewed: " + counts, count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3);
+        }
+    }
+
+
+    /**
+     * Ensures adding a node only moves keys to that node, and removing a node only moves
+     * the keys assigned to it.
+     */
+    @Test
+    public void testMinimalRebalance()
+    {
+        HashRing<String> ring  = createRing("a", "b", "c", "d");
+        HashRing<String> added = ring.with("e", "e");
+        int              moved = 0;
+
+        for (int i = 0; i < KEYS; i++)
+        {
+            String key  = "key-" + i;
+            String node = ring.locate(key);
+
+            if (!node.equals(added.locate(key)))
+            {
+                assertEquals("e", added.locate(key));
+                moved++;
+            }
+
+            String remaining = ring.without("a").locate(key);
+
+            if (!node.equals("a"))
+            {
+                assertEquals(node, remaining);
+            }
+        }
+
+        // about a fifth of the keys move to the new node
+        assertTrue("moved: " + moved, moved > KEYS / 5 * 0.7 && moved < KEYS / 5 * 1.3);
+    }
+
+
+    /**
+     * Ensures the assignment of keys depends only on the names of the nodes.
+     */
+    @Test
+    public void testDeterministic()
+    {
+        HashRing<String> ring     = createRing("a", "b", "c");
+        HashRing<String> reversed = createRing("c", "b", "a");
+        HashRing<String> built    = createRing().with("b", "b").with("a", "a").with("c", "c");
+
+        for (int i = 0; i < KEYS; i++)
+        {
+            assertEquals(ring.locate("key-" + i), reversed.locate("key-" + i));
+            assertEquals(ring.locate("key-" + i), built.locate("key-" + i));
+        }
+    }
+
+
+    /**
+     * Ensures a key cannot be located on an empty ring.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testEmpty()
+    {
+        createRing().locate("key");
+    }
+
+
+    /**
+     * Creates a ring with the specified nodes, each of which is its own name.
+     *
+     * @param names  the names of the nodes
+     * @return the ring
+     */
+    private static HashRing<String> createRing(String... names)
+    {
+        Map<String, String> nodes = new LinkedHashMap<>();
+
+        for (String name : names)
+        {
+            nodes.put(name, name);
+        }
+
+        return new HashRing<>(nodes, HashRing.VIRTUAL_NODES);
+    }
+}
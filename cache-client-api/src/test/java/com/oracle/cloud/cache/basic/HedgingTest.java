@@ -0,0 +1,331 @@
+/*
+ * File: HedgingTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.options.Hedging;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the hedging of gets by a {@link GrpcCache}, against an in-process server
+ * which delays its responses as instructed by each test.
+ */
+public class HedgingTest
+{
+    /**
+     * The number of gets issued to derive the hedge delay from, which must be at least
+     * the minimum number of samples required by the cache.
+     */
+    private static final int WARM_UP_GETS = 100;
+
+    /**
+     * The maximum number of hedges the cache issues in a burst.
+     */
+    private static final int MAX_HEDGE_BURST = 10;
+
+    /**
+     * The number of servers started, used to name them uniquely.
+     */
+    private static final AtomicInteger SERVERS = new AtomicInteger();
+
+    /**
+     * The service answering the gets.
+     */
+    private DelayingService service;
+
+    /**
+     * The in-process server.
+     */
+    private Server server;
+
+    /**
+     * The name of the in-process server.
+     */
+    private String name;
+
+
+    /**
+     * Starts a new in-process server for each test.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @Before
+    public void startServer() throws IOException
+    {
+        name    = "hedging-" + SERVERS.incrementAndGet();
+        service = new DelayingService();
+        server  = InProcessServerBuilder.forName(name).addService(service).build().start();
+    }
+
+
+    /**
+     * Stops the in-process server.
+     */
+    @After
+    public void stopServer()
+    {
+        server.shutdownNow();
+    }
+
+
+    /**
+     * Ensures that a get whose response is slower than the hedge delay is hedged, and that
+     * the response to the hedge is used when it arrives first.
+     */
+    @Test
+    public void testSlowPrimaryIsHedged() throws InterruptedException
+    {
+        Cache<String> cache = createCache(Hedging.of(0.5, Duration.ofMillis(20), 0.05));
+
+        warmUp(cache);
+        service.delay("slow", 2000, 0);
+
+        long startTime = System.nanoTime();
+
+        assertEquals("slow", cache.get("slow"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 1000);
+
+        CacheMetrics metrics = cache.getMetrics();
+
+        assertEquals(1, metrics.getHedgeCount());
+        assertEquals(1, metrics.getHedgeWonCount());
+        assertEquals(2, service.getRequestCount("slow"));
+    }
+
+
+    /**
+     * Ensures that the response to the primary request is used when it arrives before the
+     * response to the hedge, which is then not counted as won.
+     */
+    @Test
+    public void testFirstResponseWins() throws InterruptedException
+    {
+        Cache<String> cache = createCache(Hedging.of(0.5, Duration.ofMillis(20), 0.05));
+
+        warmUp(cache);
+        service.delay("slow", 100, 2000);
+
+        long startTime = System.nanoTime();
+
+        assertEquals("slow", cache.get("slow"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 1000);
+
+        CacheMetrics metrics = cache.getMetrics();
+
+        assertEquals(1, metrics.getHedgeCount());
+        assertEquals(0, metrics.getHedgeWonCount());
+    }
+
+
+    /**
+     * Ensures that gets are not hedged while there are too few samples to derive the hedge
+     * delay from, nor when they respond within the hedge delay.
+     */
+    @Test
+    public void testNoHedgeWithinDelay() throws InterruptedException
+    {
+        Cache<String> cache = createCache(Hedging.of(0.5, Duration.ofMillis(50), 0.05));
+
+        service.delay("slow", 200);
+
+        assertEquals("slow", cache.get("slow"));
+        assertEquals(0, cache.getMetrics().getHedgeCount());
+
+        warmUp(cache);
+
+        for (int i = 0; i < 20; i++)
+        {
+            assertEquals("key-" + i, cache.get("key-" + i));
+        }
+
+        assertEquals(0, cache.getMetrics().getHedgeCount());
+        assertEquals(1, service.getRequestCount("slow"));
+    }
+
+
+    /**
+     * Ensures that once the burst allowance is spent, hedges are limited to the configured
+     * ratio of gets, even if every get is slow.
+     */
+    @Test
+    public void testBudgetLimitsHedges() throws InterruptedException
+    {
+        Cache<String> cache = createCache(Hedging.of(0.5, Duration.ofMillis(20), 0.05));
+        int           gets  = 30;
+
+        warmUp(cache);
+
+        for (int i = 0; i < gets; i++)
+        {
+            service.delay("slow-" + i, 100, 0);
+        }
+
+        for (int i = 0; i < gets; i++)
+        {
+            assertEquals("slow-" + i, cache.get("slow-" + i));
+        }
+
+        CacheMetrics metrics = cache.getMetrics();
+        long         hedges  = metrics.getHedgeCount();
+
+        // the burst allowance, plus one hedge for every twenty gets
+        assertTrue("hedges = " + hedges, hedges >= MAX_HEDGE_BURST && hedges <= MAX_HEDGE_BURST + gets / 20);
+        assertEquals(hedges, metrics.getHedgeWonCount());
+    }
+
+
+    /**
+     * Creates a cache with the specified hedging option, connected to the in-process server.
+     *
+     * @param hedging  the hedging option
+     *
+     * @return the cache
+     */
+    private Cache<String> createCache(Hedging hedging)
+    {
+        return new InProcessSession(name).getCache("hedging", hedging);
+    }
+
+
+    /**
+     * Issues enough fast gets to derive the hedge delay from, and waits for the delay
+     * to be recalculated.
+     *
+     * @param cache  the cache
+     */
+    private static void warmUp(Cache<String> cache) throws InterruptedException
+    {
+        for (int i = 0; i < WARM_UP_GETS; i++)
+        {
+            cache.get("warm-up");
+        }
+
+        Thread.sleep(1100);
+    }
+
+
+    /**
+     * A service which answers each get with its key, after the delay specified for the
+     * key, if any.
+     */
+    private static class DelayingService extends CacheGrpc.CacheImplBase
+    {
+        /**
+         * The delays, in milliseconds, for the successive gets of each key.
+         */
+        private final Map<String, Deque<Long>> delays = new ConcurrentHashMap<>();
+
+        /**
+         * The number of gets received for each key.
+         */
+        private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+
+        /**
+         * Specifies the delays, in milliseconds, for the next gets of the specified key.
+         *
+         * @param key     the key
+         * @param millis  the delays for the successive gets
+         */
+        void delay(String  key,
+                   long... millis)
+        {
+            Deque<Long> queue = new ArrayDeque<>();
+
+            Arrays.stream(millis).forEach(queue::add);
+
+            delays.put(key, queue);
+        }
+
+
+        /**
+         * Returns the number of gets received for the specified key.
+         *
+         * @param key  the key
+         *
+         * @return the number of gets
+         */
+        int getRequestCount(String key)
+        {
+            AtomicInteger count = requests.get(key);
+
+            return count == null ? 0 : count.get();
+        }
+
+
+        @Override
+        public void get(CacheRpc.GetRequest                   request,
+                        StreamObserver<CacheRpc.GetResponse> observer)
+        {
+            String      key   = request.getKey();
+            Deque<Long> queue = delays.get(key);
+            Long        delay;
+
+            requests.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+
+            synchronized (this)
+            {
+                delay = queue == null ? null : queue.poll();
+            }
+
+            if (delay != null && delay > 0)
+            {
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            observer.onNext(CacheProtocol.getResponse(("\"" + key + "\"").getBytes(StandardCharsets.UTF_8)));
+            observer.onCompleted();
+        }
+
+
+        @Override
+        public void getMetrics(CacheRpc.MetricsRequest                   request,
+                               StreamObserver<CacheRpc.MetricsResponse> observer)
+        {
+            observer.onNext(CacheProtocol.metricsResponse(null));
+            observer.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * File: InProcessSession.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.net.URI;
+
+import com.oracle.cloud.cache.basic.options.SessionOption;
+import io.grpc.inprocess.InProcessChannelBuilder;
+
+/**
+ * A {@link GrpcSession} connected to an in-process server, used to test the behavior of
+ * {@link GrpcCache} against services that fail or delay as instructed by each test.
+ */
+class InProcessSession extends GrpcSession
+{
+    /**
+     * Constructs an InProcessSession.
+     *
+     * @param name     the name of the in-process server
+     * @param options  the options to apply to the session
+     */
+    InProcessSession(String           name,
+                     SessionOption... options)
+    {
+        super(URI.create("grpc://localhost:1"), options);
+
+        setChannel(InProcessChannelBuilder.forName(name).build());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * File: NegativeCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.basic.options.NegativeCaching;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link NegativeCache}.
+ */
+public class NegativeCacheTest
+{
+    /**
+     * Ensures misses are remembered until they expire or are invalidated.
+     */
+    @Test
+    public void testRecordAndExpire() throws InterruptedException
+    {
+        NegativeCache negativeCache = new NegativeCache(NegativeCaching.of(100, Duration.ofMillis(50)));
+
+        negativeCache.recordMiss("one", negativeCache.stamp());
+        negativeCache.recordMiss("two", negativeCache.stamp());
+
+        assertTrue(negativeCache.isMissing("one"));
+        assertTrue(negativeCache.isMissing("two"));
+        assertFalse(negativeCache.isMissing("three"));
+
+        negativeCache.invalidate("two");
+        assertFalse(negativeCache.isMissing("two"));
+
+        Thread.sleep(60);
+        assertFalse(negativeCache.isMissing("one"));
+    }
+
+
+    /**
+     * Ensures a miss is not recorded if a value was put while it was being determined.
+     */
+    @Test
+    public void testConcurrentPut()
+    {
+        NegativeCache negativeCache = new NegativeCache(NegativeCaching.of(100, Duration.ofMinutes(1)));
+        long          stamp         = negativeCache.stamp();
+
+        negativeCache.invalidate("one");
+        negativeCache.recordMiss("one", stamp);
+
+        assertFalse(negativeCache.isMissing("one"));
+    }
+
+
+    /**
+     * Ensures the number of remembered misses is bounded, forgetting the oldest first.
+     */
+    @Test
+    public void testBounded()
+    {
+        NegativeCache negativeCache = new NegativeCache(NegativeCaching.of(10, Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 100; i++)
+        {
+            negativeCache.recordMiss("key-" + i, negativeCache.stamp());
+        }
+
+        assertFalse(negativeCache.isMissing("key-0"));
+        assertFalse(negativeCache.isMissing("key-94"));
+        assertTrue(negativeCache.isMissing("key-95"));
+        assertTrue(negativeCache.isMissing("key-99"));
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * File: OverflowTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.Overflow;
+import com.oracle.cloud.cache.basic.options.Return;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link Overflow} of the entries evicted from a {@link LocalCache} to disk.
+ */
+public class OverflowTest
+{
+    /**
+     * The folder holding the overflow logs.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The prefix of the overflow logs.
+     */
+    private Path file;
+
+
+    /**
+     * Configures a new overflow file for each test.
+     */
+    @Before
+    public void initialize()
+    {
+        file = folder.getRoot().toPath().resolve("overflow");
+    }
+
+
+    /**
+     * Ensures evicted entries are moved to disk, and back into memory when they are read,
+     * with their versions.
+     */
+    @Test
+    public void testOverflow() throws InterruptedException
+    {
+        LocalCache<String> cache = new LocalCache<>("overflow", new LocalSession(), Capacity.of(10), Overflow.to(file));
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        Versioned<String> versioned = cache.getWithVersion("key-0");
+
+        awaitWrites();
+        assertEquals(100, cache.getMetrics().getCount());
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("value-" + i, cache.get("key-" + i));
+        }
+
+        CacheMetrics metrics = cache.getMetrics();
+
+        assertTrue(metrics.getDiskHitCount() >= 90);
+        assertEquals(100, metrics.getCount());
+        assertTrue(cache.replace("key-0", versioned, "replaced"));
+        assertEquals("replaced", cache.get("key-0"));
+    }
+
+
+    /**
+     * Ensures operations other than reads apply to the entries on disk.
+     */
+    @Test
+    public void testUpdatesOnDisk() throws InterruptedException
+    {
+        LocalCache<String> cache = new LocalCache<>("updates", new LocalSession(), Capacity.of(2), Overflow.to(file));
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        awaitWrites();
+
+        assertEquals("value-0", cache.putIfAbsent("key-0", "other", Return.oldValue()));
+        assertEquals("value-1", cache.remove("key-1", Return.oldValue()));
+        assertNull(cache.get("key-1"));
+        assertTrue(cache.replace("key-2", "value-2", "replaced"));
+        assertEquals("replaced", cache.get("key-2"));
+
+        Map<String, String> scanned = cache.scan().collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        assertEquals(9, scanned.size());
+        assertEquals("value-9", scanned.get("key-9"));
+        assertEquals("value-3", scanned.get("key-3"));
+
+        cache.clear();
+
+        assertEquals(0, cache.getMetrics().getCount());
+        assertNull(cache.get("key-3"));
+    }
+
+
+    /**
+     * Ensures the log is compacted once enough of it is held by removed entries, and
+     * that the entries on disk survive compaction.
+     */
+    @Test
+    public void testCompaction() throws InterruptedException
+    {
+        LocalCache<String> cache = new LocalCache<>("compaction",
+                                                    new LocalSession(),
+                                                    Capacity.of(10),
+                                                    Overflow.to(file).withCompactionRatio(0.2));
+
+        for (int round = 0; round < 5; round++)
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                cache.put("key-" + i, "value-" + round + "-" + i);
+            }
+
+            awaitWrites();
+        }
+
+        for (int i = 0; i < 100 && cache.getMetrics().getDiskCompactionCount() == 0; i++)
+        {
+            Thread.sleep(50);
+        }
+
+        CacheMetrics metrics = cache.getMetrics();
+
+        assertTrue(metrics.getDiskCompactionCount() > 0);
+        assertTrue(metrics.getDiskCompactedBytes() > 0);
+
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("value-4-" + i, cache.get("key-" + i));
+        }
+    }
+
+
+    /**
+     * Ensures an entry rewritten with an equal value while it is being evicted is kept,
+     * rather than removed in place of the entry that was evicted, which would leave only
+     * the expired copy on disk.
+     */
+    @Test
+    public void testEntryRewrittenWhileEvicted() throws Exception
+    {
+        int                keys     = 10000;
+        LocalCache<String> cache    = new LocalCache<>("rewritten",
+                                                       new LocalSession(),
+                                                       Capacity.of(keys),
+                                                       Overflow.to(file));
+        ExecutorService    executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            for (int round = 0; round < 20; round++)
+            {
+                cache.clear();
+
+                for (int i = 0; i < keys; i++)
+                {
+                    cache.put("key-" + i, "value", Expiry.of(200, TimeUnit.MILLISECONDS));
+                }
+
+                // the keys are evicted in the order they are rewritten
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?>     evictor = executor.submit(() -> {
+                    barrier.await();
+
+                    for (int i = 0; i < keys; i++)
+                    {
+                        cache.put("other-" + i, "other");
+                    }
+
+                    return null;
+                });
+                Future<?>     writer  = executor.submit(() -> {
+                    barrier.await();
+
+                    for (int i = 0; i < keys; i++)
+                    {
+                        cache.put("key-" + i, "value", Expiry.never());
+                    }
+
+                    return null;
+                });
+
+                evictor.get();
+                writer.get();
+
+                // a copy left on disk in place of the rewritten entry would now have expired
+                Thread.sleep(250);
+
+                for (int i = 0; i < keys; i++)
+                {
+                    assertEquals("round " + round, "value", cache.get("key-" + i));
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Allows the background thread time to write the evicted entries to disk. Entries are
+     * read from the queue until they are written, so the tests do not depend on it.
+     */
+    private static void awaitWrites() throws InterruptedException
+    {
+        Thread.sleep(200);
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * File: RetryTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.Retry;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the retries of idempotent operations as per the {@link Retry} option.
+ */
+public class RetryTest
+{
+    /**
+     * The maximum number of retries the cache issues in a burst.
+     */
+    private static final int MAX_RETRY_BURST = 10;
+
+    /**
+     * The allowance, in milliseconds, for scheduling delays when checking elapsed times.
+     */
+    private static final long SLACK = 100;
+
+
+    /**
+     * Ensures that operations failing with a transient error are retried until they
+     * succeed, and that the retries are counted per operation.
+     */
+    @Test
+    public void testRetriesPerOperation()
+    {
+        FlakyCache cache = new FlakyCache(Retry.of(5, Duration.ofMillis(1), Duration.ofMillis(5), 1.0));
+
+        cache.failures.set(2);
+        cache.put("key", "value");
+
+        cache.failures.set(1);
+        assertEquals("value", cache.get("key"));
+
+        cache.failures.set(3);
+        cache.remove("key");
+
+        cache.failures.set(1);
+        cache.clear();
+
+        CacheMetrics metrics = cache.getMetrics();
+
+        assertEquals(2, metrics.getPutRetryCount());
+        assertEquals(1, metrics.getGetRetryCount());
+        assertEquals(3, metrics.getRemoveRetryCount());
+        assertEquals(1, metrics.getClearRetryCount());
+        assertEquals(11, cache.attempts.size());
+    }
+
+
+    /**
+     * Ensures that an operation is not retried after a failure that is not transient,
+     * nor more than the maximum number of attempts.
+     */
+    @Test
+    public void testMaxAttempts()
+    {
+        FlakyCache cache = new FlakyCache(Retry.of(3, Duration.ZERO, Duration.ZERO, 1.0));
+
+        cache.failures.set(Integer.MAX_VALUE);
+        assertFails(() -> cache.put("key", "value"));
+        assertEquals(3, cache.attempts.size());
+
+        cache.attempts.clear();
+        cache.failures.set(0);
+        cache.error = new IllegalStateException("rejected");
+        assertFails(() -> cache.put("key", "value"));
+        assertEquals(1, cache.attempts.size());
+        assertEquals(2, cache.getMetrics().getPutRetryCount());
+    }
+
+
+    /**
+     * Ensures that each backoff is chosen at random, up to a ceiling which doubles from
+     * the initial backoff until it reaches the maximum backoff.
+     */
+    @Test
+    public void testBackoffWithJitter()
+    {
+        FlakyCache cache   = new FlakyCache(Retry.of(4, Duration.ofMillis(40), Duration.ofMillis(80), 1.0));
+        long[]     ceiling = {40, 80, 80};
+        long[]     min     = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+
+        for (int i = 0; i < 4; i++)
+        {
+            cache.attempts.clear();
+            cache.failures.set(3);
+            cache.put("key", "value");
+
+            for (int j = 0; j < ceiling.length; j++)
+            {
+                long backoff = TimeUnit.NANOSECONDS.toMillis(cache.attempts.get(j + 1) - cache.attempts.get(j));
+
+                assertTrue("backoff = " + backoff, backoff <= ceiling[j] + SLACK);
+
+                min[j] = Math.min(min[j], backoff);
+            }
+        }
+
+        // with full jitter, twelve backoffs are all but certain not to all be near their ceiling
+        assertTrue(min[0] < 35 || min[1] < 75 || min[2] < 75);
+    }
+
+
+    /**
+     * Ensures that no attempt is made once the operation timeout has elapsed, and that
+     * each attempt is given the time remaining until then.
+     */
+    @Test
+    public void testStopsAtDeadline()
+    {
+        FlakyCache cache     = new FlakyCache(Retry.of(100, Duration.ofMillis(20), Duration.ofMillis(20), 1.0));
+        long       startTime = System.nanoTime();
+
+        cache.failures.set(Integer.MAX_VALUE);
+        assertFails(() -> cache.put("key", "value", Timeout.of(200, TimeUnit.MILLISECONDS)));
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertTrue("elapsed = " + elapsed, elapsed <= 200 + SLACK);
+        assertTrue(cache.attempts.size() > 1 && cache.attempts.size() < 100);
+        assertEquals(200, cache.timeouts.get(0).longValue());
+
+        for (int i = 1; i < cache.timeouts.size(); i++)
+        {
+            assertTrue(cache.timeouts.get(i) < cache.timeouts.get(i - 1));
+        }
+    }
+
+
+    /**
+     * Ensures that once the burst allowance is spent, retries are limited to the configured
+     * ratio of operations.
+     */
+    @Test
+    public void testBudgetExhausted()
+    {
+        FlakyCache cache      = new FlakyCache(Retry.of(3, Duration.ZERO, Duration.ZERO, 0.1));
+        int        operations = 20;
+
+        cache.failures.set(Integer.MAX_VALUE);
+
+        for (int i = 0; i < operations; i++)
+        {
+            assertFails(() -> cache.get("key"));
+        }
+
+        long retries = cache.getMetrics().getGetRetryCount();
+
+        // the burst allowance, plus one retry for every ten operations
+        assertTrue("retries = " + retries, retries >= MAX_RETRY_BURST && retries <= MAX_RETRY_BURST + operations / 10);
+        assertEquals(operations + retries, cache.attempts.size());
+    }
+
+
+    /**
+     * Asserts that the specified operation fails.
+     *
+     * @param operation  the operation
+     */
+    private static void assertFails(Runnable operation)
+    {
+        try
+        {
+            operation.run();
+            fail("operation should have failed");
+        }
+        catch (RuntimeException e)
+        {
+            // expected
+        }
+    }
+
+
+    /**
+     * A cache whose operations fail with a transient error a specified number of times,
+     * recording the time of each attempt and the timeout it is given.
+     */
+    private static class FlakyCache extends LocalCache<String>
+    {
+        /**
+         * The number of attempts that remain to fail.
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * The times, as per {@link System#nanoTime()}, at which each attempt was made.
+         */
+        private final List<Long> attempts = new CopyOnWriteArrayList<>();
+
+        /**
+         * The timeouts, in milliseconds, given to each attempt with a timeout.
+         */
+        private final List<Long> timeouts = new CopyOnWriteArrayList<>();
+
+        /**
+         * The error with which every attempt fails, if any.
+         */
+        private volatile RuntimeException error;
+
+
+        /**
+         * Constructs a FlakyCache.
+         *
+         * @param options  the options for the cache
+         */
+        private FlakyCache(CacheOption... options)
+        {
+            super("retry", new LocalSession(), options);
+        }
+
+
+        /**
+         * Records an attempt, failing it if any failures remain.
+         *
+         * @param timeout  the timeout for the attempt
+         */
+        private void attempt(Timeout timeout)
+        {
+            attempts.add(System.nanoTime());
+
+            if (timeout.isEnabled())
+            {
+                timeouts.add(timeout.getTimeout());
+            }
+
+            if (error != null)
+            {
+                throw error;
+            }
+
+            if (failures.getAndDecrement() > 0)
+            {
+                throw new UncheckedIOException(new IOException("connection reset"));
+            }
+        }
+
+
+        @Override
+        protected String get(String  key,
+                             Timeout timeout)
+        {
+            attempt(timeout);
+
+            return super.get(key, timeout);
+        }
+
+
+        @Override
+        protected String put(String  key,
+                             String  value,
+                             Expiry  expiry,
+                             boolean returnOld,
+                             Timeout timeout)
+        {
+            attempt(timeout);
+
+            return super.put(key, value, expiry, returnOld, timeout);
+        }
+
+
+        @Override
+        protected String remove(String  key,
+                                boolean returnOld,
+                                Timeout timeout)
+        {
+            attempt(timeout);
+
+            return super.remove(key, returnOld, timeout);
+        }
+
+
+        @Override
+        protected void clear(Timeout timeout)
+        {
+            attempt(timeout);
+
+            super.clear(timeout);
+        }
+
+
+        @Override
+        protected boolean isTransient(RuntimeException e)
+        {
+            return e instanceof UncheckedIOException;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * File: ScanTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.oracle.cloud.cache.basic.options.CacheOption;
+import com.oracle.cloud.cache.basic.options.PageSize;
+import com.oracle.cloud.cache.basic.options.Retry;
+import com.oracle.cloud.cache.basic.options.Timeout;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for scans of an {@link AbstractCache}.
+ */
+public class ScanTest
+{
+    /**
+     * Ensures a scan that fails with a transient error is resumed after the last page
+     * received, rather than restarted.
+     */
+    @Test
+    public void testResume()
+    {
+        FlakyCache cache = new FlakyCache(Retry.attempts(3));
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        cache.failures.set(2);
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(10)))
+        {
+            Map<String, String> entries = scan.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            assertEquals(100, entries.size());
+            assertEquals("value-42", entries.get("key-42"));
+        }
+
+        assertEquals(2, cache.getMetrics().getScanRetryCount());
+        assertEquals(3, cache.opened.get());
+    }
+
+
+    /**
+     * Ensures a scan that fails is not resumed if retries are disabled.
+     */
+    @Test
+    public void testFailure()
+    {
+        FlakyCache cache = new FlakyCache();
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        cache.failures.set(1);
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(10)))
+        {
+            scan.count();
+            fail("the scan should have failed");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertEquals(0, cache.getMetrics().getScanRetryCount());
+        }
+    }
+
+
+    /**
+     * Ensures the retries of a scan stop once the default timeout for the cache, which
+     * applies to the entire scan, has elapsed.
+     */
+    @Test
+    public void testDeadline()
+    {
+        FlakyCache cache = new FlakyCache(Retry.of(3, Duration.ofMillis(100), Duration.ofMillis(100), 1.0),
+                                          Timeout.of(300, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        // every page after the first of each attempt fails once, so the scan takes a retry per page
+        cache.failures.set(Integer.MAX_VALUE);
+
+        long startTime = System.nanoTime();
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(1)))
+        {
+            scan.count();
+            fail("the scan should have failed");
+        }
+        catch (UncheckedIOException e)
+        {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            assertTrue("elapsed = " + elapsed, elapsed <= 400);
+        }
+    }
+
+
+    /**
+     * A cache whose scans fail with a transient error after the first page is received,
+     * a specified number of times.
+     */
+    private static class FlakyCache extends LocalCache<String>
+    {
+        /**
+         * The number of scans that remain to fail.
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        /**
+         * The number of times a scan has been opened.
+         */
+        private final AtomicInteger opened = new AtomicInteger();
+
+
+        /**
+         * Constructs a FlakyCache.
+         *
+         * @param options  the options for the cache
+         */
+        private FlakyCache(CacheOption... options)
+        {
+            super("scan", new LocalSession(), options);
+        }
+
+
+        @Override
+        protected Pages<String> scan(String  prefix,
+                                     int     pageSize,
+                                     byte[]  cursor,
+                                     Timeout timeout)
+        {
+            Pages<String> pages = super.scan(prefix, pageSize, cursor, timeout);
+
+            opened.incrementAndGet();
+
+            return new Pages<String>()
+            {
+                /**
+                 * The number of pages received.
+                 */
+                private int received;
+
+
+                @Override
+                public boolean hasNext()
+                {
+                    if (received > 0 && failures.getAndDecrement() > 0)
+                    {
+                        throw new UncheckedIOException(new IOException("connection reset"));
+                    }
+
+                    return pages.hasNext();
+                }
+
+
+                @Override
+                public Page<String> next()
+                {
+                    received++;
+
+                    return pages.next();
+                }
+
+
+                @Override
+                public void close()
+                {
+                    pages.close();
+                }
+            };
+        }
+
+
+        @Override
+        protected boolean isTransient(RuntimeException e)
+        {
+            return e instanceof UncheckedIOException;
+        }
+    }
+}
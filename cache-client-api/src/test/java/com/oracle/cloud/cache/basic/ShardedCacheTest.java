@@ -0,0 +1,275 @@
+/*
+ * File: ShardedCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.oracle.cloud.cache.basic.options.KeyPrefix;
+import com.oracle.cloud.cache.basic.options.PageSize;
+import com.oracle.cloud.cache.metrics.CacheMetrics;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ShardedCache}.
+ */
+public class ShardedCacheTest
+{
+    /**
+     * Ensures entries are spread across the shards, and that the metrics of each shard
+     * and of all shards combined are reported.
+     */
+    @Test
+    public void testSharding()
+    {
+        ShardedCache<String> cache = (ShardedCache<String>) createSession("a", "b", "c").<String>getCache("sharded");
+
+        for (int i = 0; i < 300; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        for (int i = 0; i < 300; i++)
+        {
+            assertEquals("value-" + i, cache.get("key-" + i));
+        }
+
+        Map<String, CacheMetrics> shardMetrics = cache.getShardMetrics();
+        long                      count        = 0;
+
+        assertEquals(3, shardMetrics.size());
+
+        for (CacheMetrics metrics : shardMetrics.values())
+        {
+            assertTrue(metrics.getCount() > 50);
+            count += metrics.getCount();
+        }
+
+        assertEquals(300, count);
+        assertEquals(300, cache.getMetrics().getCount());
+        assertEquals(300, cache.getMetrics().getHitCount());
+        assertEquals(300, cache.getMetrics().getGetMetrics().getCount());
+
+        cache.clear();
+
+        assertEquals(0, cache.getMetrics().getCount());
+    }
+
+
+    /**
+     * Ensures a batch is split across the shards.
+     */
+    @Test
+    public void testPutAll()
+    {
+        ShardedCache<String> cache   = (ShardedCache<String>) createSession("a", "b", "c").<String>getCache("sharded");
+        Map<String, String>  entries = new HashMap<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            entries.put("key-" + i, "value-" + i);
+        }
+
+        cache.putAll(entries);
+
+        entries.forEach((key, value) -> assertEquals(value, cache.get(key)));
+        cache.getShardMetrics().values().forEach(metrics -> assertTrue(metrics.getCount() > 0));
+    }
+
+
+    /**
+     * Ensures a scan returns the entries of every shard.
+     */
+    @Test
+    public void testScan()
+    {
+        Cache<String> cache = createSession("a", "b", "c").getCache("sharded");
+
+        for (int i = 0; i < 100; i++)
+        {
+            cache.put((i < 30 ? "order-" : "customer-") + i, "value-" + i);
+        }
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(8)))
+        {
+            Map<String, String> entries = scan.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            assertEquals(100, entries.size());
+            assertEquals("value-42", entries.get("customer-42"));
+        }
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(KeyPrefix.of("order-")))
+        {
+            assertEquals(30, scan.map(Map.Entry::getKey).filter(key -> key.startsWith("order-")).count());
+        }
+    }
+
+
+    /**
+     * Ensures only the keys assigned to a new shard are moved when it is added, and that
+     * they are moved back when it is removed.
+     */
+    @Test
+    public void testAddShard()
+    {
+        ShardedSession session = createSession("a", "b", "c");
+        Cache<String>  cache   = session.getCache("sharded");
+
+        for (int i = 0; i < 300; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        session.addShard("d", new LocalSession());
+
+        int missed = 0;
+
+        for (int i = 0; i < 300; i++)
+        {
+            String value = cache.get("key-" + i);
+
+            if (value == null)
+            {
+                missed++;
+            }
+            else
+            {
+                assertEquals("value-" + i, value);
+            }
+        }
+
+        assertTrue("missed: " + missed, missed > 0 && missed < 150);
+
+        // once the shard is removed, the keys are assigned to their original shards again
+        session.removeShard("d");
+        assertEquals(3, session.getShards().size());
+        assertEquals(300, cache.getMetrics().getCount());
+        assertEquals("value-0", cache.get("key-0"));
+    }
+
+
+    /**
+     * Ensures counters are spread across the shards.
+     */
+    @Test
+    public void testCounters()
+    {
+        CounterCache counters = createSession("a", "b").getCounterCache("counters");
+
+        for (int i = 0; i < 10; i++)
+        {
+            counters.incrementAndGet("counter-" + i);
+            assertEquals(2, counters.addAndGet("counter-" + i, 1));
+        }
+
+        assertEquals(2L, (long) counters.get("counter-0"));
+        assertNull(counters.get("counter-10"));
+    }
+
+
+    /**
+     * Ensures concurrent batches use at most one thread per shard, and that the threads
+     * are released once the session is closed.
+     */
+    @Test
+    public void testBoundedExecutor() throws Exception
+    {
+        ShardedSession      session = createSession("a", "b", "c");
+        Cache<String>       cache   = session.getCache("sharded");
+        ExecutorService     callers = Executors.newFixedThreadPool(10);
+        Map<String, String> entries = new HashMap<>();
+        List<Future<?>>     futures = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            entries.put("key-" + i, "value-" + i);
+        }
+
+        try
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                futures.add(callers.submit(() -> cache.putAll(entries)));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            callers.shutdownNow();
+        }
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) session.getExecutor();
+
+        assertTrue(executor.getLargestPoolSize() <= 3);
+
+        session.addShard("d", new LocalSession());
+        assertEquals(4, executor.getMaximumPoolSize());
+
+        session.close();
+        assertTrue(executor.isShutdown());
+
+        try
+        {
+            cache.putAll(entries);
+            fail("a batch should fail once the session is closed");
+        }
+        catch (RejectedExecutionException e)
+        {
+            // expected
+        }
+    }
+
+
+    /**
+     * Creates a session with the specified local shards.
+     *
+     * @param names  the names of the shards
+     * @return the session
+     */
+    private static ShardedSession createSession(String... names)
+    {
+        Map<String, Session> shards = new LinkedHashMap<>();
+
+        for (String name : names)
+        {
+            shards.put(name, new LocalSession());
+        }
+
+        return new ShardedSession(shards);
+    }
+}
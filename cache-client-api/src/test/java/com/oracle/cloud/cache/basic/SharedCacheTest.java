@@ -0,0 +1,529 @@
+/*
+ * File: SharedCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.KeyPrefix;
+import com.oracle.cloud.cache.basic.options.PageSize;
+import com.oracle.cloud.cache.basic.options.Return;
+import com.oracle.cloud.cache.basic.options.SharedMemory;
+import com.oracle.cloud.cache.basic.options.ValueType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for the {@link SharedCache}. Each session maps the shared memory file separately,
+ * as the sessions of different processes would.
+ */
+public class SharedCacheTest
+{
+    /**
+     * The folder holding the shared memory file.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The shared memory option for the sessions.
+     */
+    private SharedMemory memory;
+
+
+    /**
+     * Configures a new shared memory file for each test.
+     */
+    @Before
+    public void initialize()
+    {
+        memory = SharedMemory.at(folder.getRoot().toPath().resolve("shared")).withSize(1 << 20).withMaxEntries(1000);
+    }
+
+
+    /**
+     * Ensures the changes made through one session are visible through another.
+     */
+    @Test
+    public void testSharedBetweenSessions()
+    {
+        Cache<String> first  = new SharedSession(memory).getCache("shared");
+        Cache<String> second = new SharedSession(memory).getCache("shared");
+
+        first.put("key", "value");
+        assertEquals("value", second.get("key"));
+
+        second.put("key", "updated");
+        assertEquals("updated", first.get("key"));
+
+        assertTrue(first.replace("key", second.getWithVersion("key"), "replaced"));
+        assertEquals("replaced", second.get("key"));
+
+        second.remove("key");
+        assertNull(first.get("key"));
+    }
+
+
+    /**
+     * Ensures that binary values are stored as they are, rather than encoded by the
+     * default serializer.
+     */
+    @Test
+    public void testBinaryValues()
+    {
+        Cache<byte[]>     bytes   = new SharedSession(memory).getCache("binary", ValueType.bytes());
+        Cache<ByteBuffer> buffers = new SharedSession(memory).getCache("binary", ValueType.of(ByteBuffer.class));
+        Cache<String>     strings = new SharedSession(memory).getCache("binary");
+        byte[]            value   = "\"pre-encoded\"".getBytes(StandardCharsets.UTF_8);
+
+        bytes.put("key", value);
+        assertArrayEquals(value, bytes.get("key"));
+        assertEquals(ByteBuffer.wrap(value), buffers.get("key"));
+        assertEquals("pre-encoded", strings.get("key"));
+    }
+
+
+    /**
+     * Ensures that a value which grows beyond the blocks allocated for it is extended,
+     * and that the versions of extended values are still checked.
+     */
+    @Test
+    public void testGrowingValue()
+    {
+        Cache<String> first  = new SharedSession(memory).getCache("relocation");
+        Cache<String> second = new SharedSession(memory).getCache("relocation");
+        StringBuilder value  = new StringBuilder("x");
+
+        first.put("key", value.toString());
+
+        Versioned<String> stale = second.getWithVersion("key");
+
+        for (int i = 0; i < 10; i++)
+        {
+            value.append(value);
+            first.put("key", value.toString());
+            assertEquals(value.toString(), second.get("key"));
+        }
+
+        assertFalse(second.replace("key", stale, "stale"));
+        assertTrue(second.replace("key", second.getWithVersion("key"), "small"));
+        assertEquals("small", first.get("key"));
+    }
+
+
+    /**
+     * Ensures concurrent updates of the same counters through different sessions are not lost.
+     */
+    @Test
+    public void testConcurrentCounters() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures  = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                CounterCache counters = new SharedSession(memory).getCounterCache("counters");
+
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        counters.addAndGet("counter-" + (j % 10), 1L);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        CounterCache counters = new SharedSession(memory).getCounterCache("counters");
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals(400L, counters.addAndGet("counter-" + i, 0L));
+        }
+    }
+
+
+    /**
+     * Ensures entries expire, whichever session wrote them.
+     */
+    @Test
+    public void testExpiry() throws InterruptedException
+    {
+        Cache<String> first  = new SharedSession(memory).getCache("expiry");
+        Cache<String> second = new SharedSession(memory).getCache("expiry");
+
+        first.put("key", "value", Expiry.of(Duration.ofMillis(100)));
+        assertEquals("value", second.get("key"));
+
+        Thread.sleep(200);
+
+        assertNull(second.get("key"));
+        assertNull(second.putIfAbsent("key", "new", Return.oldValue()));
+        assertEquals("new", first.get("key"));
+    }
+
+
+    /**
+     * Ensures clearing and scanning a cache only apply to the entries of that cache.
+     */
+    @Test
+    public void testCachesAreSeparate()
+    {
+        SharedSession session = new SharedSession(memory);
+        Cache<String> first   = session.getCache("first");
+        Cache<String> second  = session.getCache("second");
+
+        for (int i = 0; i < 100; i++)
+        {
+            first.put("key-" + i, "first-" + i);
+            second.put("key-" + i, "second-" + i);
+        }
+
+        Map<String, String> scanned = first.scan(KeyPrefix.of("key-1"), PageSize.of(7))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        assertEquals(11, scanned.size());
+        assertEquals("first-15", scanned.get("key-15"));
+
+        first.clear();
+
+        assertNull(first.get("key-1"));
+        assertEquals("second-1", second.get("key-1"));
+        assertEquals(0L, first.scan().count());
+        assertEquals(100L, second.scan().count());
+    }
+
+
+    /**
+     * Ensures a session requires the shared memory file to be specified.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFileRequired()
+    {
+        new SharedSession();
+    }
+
+
+    /**
+     * Ensures the shared memory file is created readable and writable by its owner only,
+     * and that an existing file other users may write to is refused.
+     */
+    @Test
+    public void testFilePermissions() throws Exception
+    {
+        Path file = memory.getFile();
+
+        assumeTrue(file.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        new SharedSession(memory);
+
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file));
+
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+        try
+        {
+            new SharedSession(memory);
+            fail("a file writable by other users should be refused");
+        }
+        catch (UncheckedIOException e)
+        {
+            assertTrue(e.getMessage().contains("writable by other users"));
+        }
+    }
+
+
+    /**
+     * Ensures the space of removed and shrunk entries is reused, so that a region holds far
+     * more entries over its lifetime than it can hold at once.
+     */
+    @Test
+    public void testSpaceReused()
+    {
+        Cache<String> cache = new SharedSession(small()).getCache("reused");
+        String        value = repeat(1000);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.put("key-" + i, value + i);
+            assertEquals(value + i, cache.get("key-" + i));
+            cache.put("key-" + i, "shrunk");
+            assertEquals("shrunk", cache.get("key-" + i));
+            cache.remove("key-" + i);
+        }
+
+        assertEquals(0L, cache.scan().count());
+    }
+
+
+    /**
+     * Ensures concurrent insertions, changes and removals of the same keys through
+     * different sessions leave every key with a value written to it, or none.
+     */
+    @Test
+    public void testConcurrentChurn() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures  = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < 4; i++)
+            {
+                Cache<String> cache = new SharedSession(memory).getCache("churn");
+
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 5000; j++)
+                    {
+                        String key = "key-" + (j % 50);
+
+                        if (j % 3 == 0)
+                        {
+                            cache.remove(key);
+                        }
+                        else
+                        {
+                            cache.put(key, repeat(j % 500) + key);
+                        }
+
+                        String value = cache.get(key);
+
+                        assertTrue(value == null || value.endsWith(key));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        Cache<String> cache = new SharedSession(memory).getCache("churn");
+
+        cache.clear();
+
+        assertEquals(0L, cache.scan().count());
+    }
+
+
+    /**
+     * Ensures a write that does not fit in a full region is rejected, while the other
+     * entries remain usable and the region accepts writes once there is room again.
+     */
+    @Test
+    public void testFullRegion()
+    {
+        Cache<String> cache = new SharedSession(small()).getCache("full");
+        String        value = repeat(10_000);
+        int           count = 0;
+
+        try
+        {
+            for (; count < 100; count++)
+            {
+                cache.put("key-" + count, value);
+            }
+
+            fail("the region should be full");
+        }
+        catch (IllegalStateException e)
+        {
+            assertTrue(count > 0);
+        }
+
+        assertEquals(value, cache.get("key-0"));
+        assertNull(cache.get("key-" + count));
+
+        cache.remove("key-0");
+        cache.put("key-" + count, value);
+
+        assertEquals(value, cache.get("key-" + count));
+
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                cache.put("small-" + i, "value");
+            }
+
+            fail("the index should be full");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals(value, cache.get("key-" + count));
+        }
+    }
+
+
+    /**
+     * Ensures expired entries are evicted to make room in a full region.
+     */
+    @Test
+    public void testExpiredEntriesEvicted() throws InterruptedException
+    {
+        Cache<String> cache = new SharedSession(small()).getCache("evicted");
+        String        value = repeat(10_000);
+
+        for (int i = 0; i < 5; i++)
+        {
+            cache.put("expiring-" + i, value, Expiry.of(Duration.ofMillis(100)));
+        }
+
+        Thread.sleep(200);
+
+        for (int i = 0; i < 5; i++)
+        {
+            cache.put("key-" + i, value);
+        }
+
+        assertEquals(5L, cache.scan().count());
+    }
+
+
+    /**
+     * Ensures an entry whose lock is held by a process that exited can still be changed.
+     */
+    @Test
+    public void testLockOfExitedProcess() throws Exception
+    {
+        assumeTrue(Files.exists(Paths.get("/proc/self/stat")));
+
+        Cache<String> cache   = new SharedSession(memory).getCache("exited");
+        Path          java    = Paths.get(System.getProperty("java.home"), "bin", "java");
+        Process       process = new ProcessBuilder(java.toString(),
+                                                   "-cp",
+                                                   System.getProperty("java.class.path"),
+                                                   Exit.class.getName(),
+                                                   memory.getFile().toString()).inheritIO().start();
+
+        cache.put("key", "value");
+
+        assertEquals(Exit.STATUS, process.waitFor());
+
+        cache.put("key", "updated");
+
+        assertEquals("updated", cache.get("key"));
+    }
+
+
+    /**
+     * Returns a shared memory option for a region that only holds a few large entries.
+     *
+     * @return the shared memory option
+     */
+    private SharedMemory small()
+    {
+        return SharedMemory.at(folder.getRoot().toPath().resolve("small")).withSize(64 << 10).withMaxEntries(16);
+    }
+
+
+    /**
+     * Returns a string of the specified length.
+     *
+     * @param length  the length
+     *
+     * @return the string
+     */
+    private static String repeat(int length)
+    {
+        return String.join("", Collections.nCopies(length, "x"));
+    }
+
+
+    /**
+     * A process that exits while holding the lock of the entry written by
+     * {@link #testLockOfExitedProcess()}.
+     */
+    public static class Exit
+    {
+        /**
+         * The exit status of the process.
+         */
+        static final int STATUS = 3;
+
+        /**
+         * Waits for the entry to be written, then exits while holding its lock.
+         *
+         * @param args  the shared memory file
+         *
+         * @throws Exception if the file cannot be mapped
+         */
+        public static void main(String[] args) throws Exception
+        {
+            SharedRegion region = new SharedRegion(Paths.get(args[0]), 1 << 20, 1000);
+            byte[]       key    = "exited\0key".getBytes(StandardCharsets.UTF_8);
+
+            while (region.read(key, System.currentTimeMillis()) == null)
+            {
+                Thread.sleep(10);
+            }
+
+            region.update(key,
+                          (value, version) -> {
+                              Runtime.getRuntime().halt(STATUS);
+
+                              return value;
+                          },
+                          -1L,
+                          System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * File: SnapshotTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.Snapshot;
+import com.oracle.cloud.cache.basic.options.ValueType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the snapshots of a {@link LocalCache}.
+ */
+public class SnapshotTest
+{
+    /**
+     * The folder holding the snapshot files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    /**
+     * Ensures the entries written to a snapshot are restored with their expiry, and that
+     * entries which have expired are not restored.
+     */
+    @Test
+    public void testSnapshotAndRestore() throws IOException, InterruptedException
+    {
+        Path               file  = folder.getRoot().toPath().resolve("cache.snapshot");
+        LocalCache<String> cache = new LocalCache<>("snapshot", new LocalSession());
+
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        cache.put("short", "value", Expiry.of(Duration.ofMillis(50)));
+        cache.put("long", "value", Expiry.of(Duration.ofMillis(500)));
+
+        assertEquals(1002, cache.snapshot(file));
+
+        Thread.sleep(100);
+
+        LocalCache<String> restored = new LocalCache<>("snapshot", new LocalSession());
+
+        restored.put("key-1", "newer");
+
+        assertEquals(1000, restored.restore(file));
+        assertEquals("value-0", restored.get("key-0"));
+        assertEquals("newer", restored.get("key-1"));
+        assertNull(restored.get("short"));
+        assertEquals("value", restored.get("long"));
+
+        Thread.sleep(500);
+        assertNull(restored.get("long"));
+    }
+
+
+    /**
+     * Ensures a cache configured with the {@link Snapshot} option is restored when it is created.
+     */
+    @Test
+    public void testSnapshotOption() throws IOException
+    {
+        Path               file  = folder.getRoot().toPath().resolve("option.snapshot");
+        LocalCache<String> cache = new LocalCache<>("snapshot", new LocalSession(), Snapshot.to(file));
+
+        cache.put("one", "1");
+        cache.snapshot(file);
+
+        LocalCache<String> restored = new LocalCache<>("snapshot", new LocalSession(), Snapshot.to(file));
+
+        assertEquals("1", restored.get("one"));
+    }
+
+
+    /**
+     * Ensures a cache whose snapshot cannot be restored completely starts empty, rather than
+     * partly populated, and that the failure is recorded in its metrics.
+     */
+    @Test
+    public void testUnreadableSnapshotOption() throws IOException
+    {
+        Path               file  = folder.getRoot().toPath().resolve("unreadable.snapshot");
+        LocalCache<String> cache = new LocalCache<>("snapshot", new LocalSession());
+
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.put("key-" + i, String.valueOf(i));
+        }
+
+        cache.put("not-a-number", "value");
+        cache.snapshot(file);
+
+        // every value but one can be read as a number
+        LocalCache<Long> restored = new LocalCache<>("snapshot",
+                                                     new LocalSession(),
+                                                     ValueType.of(Long.class),
+                                                     Snapshot.to(file));
+
+        assertEquals(0, restored.getMetrics().getCount());
+        assertNull(restored.get("key-1"));
+        assertEquals(1, restored.getMetrics().getSnapshotFailureCount());
+    }
+
+
+    /**
+     * Ensures a truncated snapshot file is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncatedSnapshot() throws IOException
+    {
+        Path               file  = folder.getRoot().toPath().resolve("truncated.snapshot");
+        LocalCache<String> cache = new LocalCache<>("snapshot", new LocalSession());
+
+        cache.put("one", "1");
+        cache.snapshot(file);
+
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+
+        new LocalCache<String>("snapshot", new LocalSession()).restore(file);
+    }
+}
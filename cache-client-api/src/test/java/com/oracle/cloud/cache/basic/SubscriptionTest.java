@@ -0,0 +1,245 @@
+/*
+ * File: SubscriptionTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package com.oracle.cloud.cache.basic;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the subscription of a {@link GrpcCache} to the changes made by other clients,
+ * against an in-process server which answers each subscribe call as instructed by each test.
+ */
+public class SubscriptionTest
+{
+    /**
+     * The number of servers started, used to name them uniquely.
+     */
+    private static final AtomicInteger SERVERS = new AtomicInteger();
+
+    /**
+     * The service streaming the changes.
+     */
+    private StreamingService service;
+
+    /**
+     * The in-process server.
+     */
+    private Server server;
+
+    /**
+     * The name of the in-process server.
+     */
+    private String name;
+
+
+    /**
+     * Starts a new in-process server for each test.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    @Before
+    public void startServer() throws IOException
+    {
+        name    = "subscription-" + SERVERS.incrementAndGet();
+        service = new StreamingService();
+        server  = InProcessServerBuilder.forName(name).addService(service).build().start();
+    }
+
+
+    /**
+     * Stops the in-process server.
+     */
+    @After
+    public void stopServer()
+    {
+        server.shutdownNow();
+    }
+
+
+    /**
+     * Ensures a subscription refused by the server is not retried, and that the listeners
+     * are notified, removed and the failure counted.
+     */
+    @Test
+    public void testRefusedSubscription() throws InterruptedException
+    {
+        Cache<String>     cache    = new InProcessSession(name).getCache("subscription");
+        RecordingListener listener = new RecordingListener();
+
+        service.answers.add(Status.PERMISSION_DENIED);
+        cache.addListener(listener);
+
+        Throwable error = listener.errors.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(error);
+        assertEquals(Status.Code.PERMISSION_DENIED, Status.fromThrowable(error).getCode());
+
+        Thread.sleep(300);
+
+        assertEquals(1, service.calls.get());
+        assertEquals(1, cache.getMetrics().getSubscriptionFailureCount());
+
+        // a listener registered later subscribes again
+        service.answers.add(Status.PERMISSION_DENIED);
+        cache.addListener(listener);
+        assertNotNull(listener.errors.poll(5, TimeUnit.SECONDS));
+        assertEquals(2, service.calls.get());
+    }
+
+
+    /**
+     * Ensures a subscription is refused by a server which does not implement it.
+     */
+    @Test
+    public void testUnimplementedSubscription() throws InterruptedException
+    {
+        Cache<String>     cache    = new InProcessSession(name).getCache("subscription");
+        RecordingListener listener = new RecordingListener();
+
+        service.answers.add(Status.UNIMPLEMENTED);
+        cache.addListener(listener);
+
+        Throwable error = listener.errors.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(error);
+        assertEquals(Status.Code.UNIMPLEMENTED, Status.fromThrowable(error).getCode());
+    }
+
+
+    /**
+     * Ensures a broken stream is reconnected, without notifying the listeners of an error.
+     */
+    @Test
+    public void testBrokenStreamReconnected() throws InterruptedException
+    {
+        Cache<String>     cache    = new InProcessSession(name).getCache("subscription");
+        RecordingListener listener = new RecordingListener();
+
+        service.answers.add(Status.UNAVAILABLE);
+        cache.addListener(listener);
+
+        CacheEvent<? extends String> event = listener.events.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(event);
+        assertEquals(CacheEvent.Type.CREATED, event.getType());
+        assertEquals("key", event.getKey());
+        assertNull(listener.errors.poll());
+        assertEquals(2, service.calls.get());
+        assertEquals(0, cache.getMetrics().getSubscriptionFailureCount());
+
+        cache.removeListener(listener);
+    }
+
+
+    /**
+     * A listener recording the events and errors it receives.
+     */
+    private static class RecordingListener implements CacheListener<String>
+    {
+        /**
+         * The events received.
+         */
+        final BlockingQueue<CacheEvent<? extends String>> events = new LinkedBlockingQueue<>();
+
+        /**
+         * The errors received.
+         */
+        final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+
+
+        @Override
+        public void onEvent(CacheEvent<? extends String> event)
+        {
+            events.add(event);
+        }
+
+
+        @Override
+        public void onError(Throwable error)
+        {
+            errors.add(error);
+        }
+    }
+
+
+    /**
+     * A service which fails each subscribe call with the next status queued, if any, and
+     * otherwise streams a single change, leaving the stream open.
+     */
+    private static class StreamingService extends CacheGrpc.CacheImplBase
+    {
+        /**
+         * The statuses to fail the next subscribe calls with.
+         */
+        final Deque<Status> answers = new ConcurrentLinkedDeque<>();
+
+        /**
+         * The number of subscribe calls received.
+         */
+        final AtomicInteger calls = new AtomicInteger();
+
+
+        @Override
+        public void subscribe(CacheRpc.SubscribeRequest                   request,
+                              StreamObserver<CacheRpc.SubscribeResponse> observer)
+        {
+            Status status = answers.poll();
+
+            calls.incrementAndGet();
+
+            if (status != null)
+            {
+                observer.onError(status.asRuntimeException());
+
+                return;
+            }
+
+            observer.onNext(CacheProtocol.subscribeResponse(
+                    Collections.singletonList(CacheProtocol.event(CacheRpc.EventType.CREATED, "key")), 1L, false));
+        }
+
+
+        @Override
+        public void getMetrics(CacheRpc.MetricsRequest                   request,
+                               StreamObserver<CacheRpc.MetricsResponse> observer)
+        {
+            observer.onNext(CacheProtocol.metricsResponse(null));
+            observer.onCompleted();
+        }
+    }
+}
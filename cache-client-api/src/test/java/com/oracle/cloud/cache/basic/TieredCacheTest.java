@@ -0,0 +1,182 @@
+/*
+ * File: TieredCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.NearTier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link TieredCache}.
+ */
+public class TieredCacheTest
+{
+    /**
+     * Ensures reads are served by the L1 tier once a value has been read from the L2
+     * tier, and that hits are reported per tier.
+     */
+    @Test
+    public void testReadThrough()
+    {
+        LocalCache<String>  far   = new LocalCache<>("tiered", new LocalSession());
+        TieredCache<String> cache = createCache(far, NearTier.of(10, Duration.ofMinutes(1)));
+
+        far.put("one", "1");
+
+        assertEquals("1", cache.get("one"));
+        assertEquals("1", cache.get("one"));
+        assertEquals("1", cache.get("one"));
+        assertNull(cache.get("two"));
+
+        assertEquals(2, cache.getMetrics().getNearHitCount());
+        assertEquals(1, cache.getMetrics().getHitCount());
+        assertEquals(1, cache.getMetrics().getMissCount());
+
+        // a change made directly to the L2 tier is not seen until the L1 entry is invalidated
+        far.put("one", "2");
+        assertEquals("1", cache.get("one"));
+
+        cache.remove("one");
+        assertNull(cache.get("one"));
+
+        cache.resetMetrics();
+        assertEquals(0, cache.getMetrics().getNearHitCount());
+    }
+
+
+    /**
+     * Ensures writes invalidate the L1 tier by default.
+     */
+    @Test
+    public void testInvalidateOnWrite()
+    {
+        LocalCache<String>  far   = new LocalCache<>("tiered", new LocalSession());
+        TieredCache<String> cache = createCache(far, NearTier.of(10, Duration.ofMinutes(1)));
+
+        cache.put("one", "1");
+        assertEquals("1", cache.get("one"));
+        assertEquals(0, cache.getMetrics().getNearHitCount());
+
+        assertEquals("1", cache.get("one"));
+        assertEquals(1, cache.getMetrics().getNearHitCount());
+
+        cache.put("one", "2");
+        assertEquals("2", cache.get("one"));
+        assertEquals(1, cache.getMetrics().getNearHitCount());
+    }
+
+
+    /**
+     * Ensures writes update both tiers with the write-both policy.
+     */
+    @Test
+    public void testWriteBoth()
+    {
+        LocalCache<String>  far   = new LocalCache<>("tiered", new LocalSession());
+        TieredCache<String> cache = createCache(far, NearTier.of(10, Duration.ofMinutes(1)).writeBoth());
+
+        cache.put("one", "1");
+        assertEquals("1", cache.get("one"));
+        assertEquals(1, cache.getMetrics().getNearHitCount());
+
+        assertEquals("11", cache.merge("one", "1", String::concat));
+        assertEquals("11", cache.get("one"));
+        assertEquals(2, cache.getMetrics().getNearHitCount());
+
+        // the new value is not known, so the entry is invalidated
+        cache.putIfAbsent("two", "2");
+        assertEquals("2", cache.get("two"));
+        assertEquals(2, cache.getMetrics().getNearHitCount());
+
+        cache.clear();
+        assertNull(cache.get("one"));
+        assertNull(far.get("one"));
+    }
+
+
+    /**
+     * Ensures the L1 tier is bounded by the time-to-live.
+     */
+    @Test
+    public void testNearExpiry() throws InterruptedException
+    {
+        LocalCache<String>  far   = new LocalCache<>("tiered", new LocalSession());
+        TieredCache<String> cache = createCache(far, NearTier.of(10, Duration.ofMillis(50)));
+
+        far.put("one", "1");
+        assertEquals("1", cache.get("one"));
+
+        far.put("one", "2");
+        Thread.sleep(100);
+
+        assertEquals("2", cache.get("one"));
+        assertEquals(0, cache.getMetrics().getNearHitCount());
+    }
+
+
+    /**
+     * Ensures changes made directly to the L2 tier invalidate the L1 tier when it listens
+     * for them.
+     */
+    @Test
+    public void testInvalidateOnChange()
+    {
+        LocalCache<String>  far   = new LocalCache<>("tiered", new LocalSession());
+        TieredCache<String> cache = createCache(far, NearTier.of(10, Duration.ofMinutes(1)).invalidateOnChange());
+
+        far.put("one", "1");
+        far.put("two", "2");
+        assertEquals("1", cache.get("one"));
+        assertEquals("2", cache.get("two"));
+
+        far.put("one", "11");
+        assertEquals("11", cache.get("one"));
+        assertEquals("2", cache.get("two"));
+        assertEquals(1, cache.getMetrics().getNearHitCount());
+
+        far.clear();
+        assertNull(cache.get("two"));
+        assertEquals(1, cache.getMetrics().getNearHitCount());
+    }
+
+
+    /**
+     * Creates a tiered cache over the specified L2 tier, in the same way as a {@link TieredSession}.
+     *
+     * @param far   the L2 tier
+     * @param tier  the configuration of the L1 tier
+     * @return the tiered cache
+     */
+    private TieredCache<String> createCache(LocalCache<String> far,
+                                            NearTier           tier)
+    {
+        LocalCache<String> near = new LocalCache<>("tiered",
+                                                   new LocalSession(),
+                                                   Capacity.of(tier.getMaxEntries()),
+                                                   Expiry.of(tier.getTtl()));
+
+        return new TieredCache<>("tiered", near, far, tier, tier.getTtl());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * File: WriteBehindQueueTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.basic;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.options.WriteBehind;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindQueue}.
+ */
+public class WriteBehindQueueTest
+{
+    /**
+     * Ensures repeated changes to a key are coalesced and written once the batch is full.
+     */
+    @Test
+    public void testCoalescedBatch() throws InterruptedException
+    {
+        RecordingWriter          writer = new RecordingWriter();
+        WriteBehindQueue<String> queue  = new WriteBehindQueue<>("test",
+                                                                 writer,
+                                                                 WriteBehind.of(3, Duration.ofMinutes(1)),
+                                                                 t -> { },
+                                                                 () -> { });
+
+        queue.enqueue("a", "1");
+        queue.enqueue("a", "2");
+        queue.enqueue("b", "1");
+        assertEquals(2, queue.size());
+        queue.enqueue("c", null);
+
+        Map<String, String> writes = writer.writes.poll(5, TimeUnit.SECONDS);
+
+        assertEquals(2, writes.size());
+        assertEquals("2", writes.get("a"));
+        assertEquals(Collections.singletonList("c"), writer.deletes.poll(5, TimeUnit.SECONDS));
+    }
+
+
+    /**
+     * Ensures a partial batch is written once the flush interval has elapsed.
+     */
+    @Test
+    public void testFlushInterval() throws InterruptedException
+    {
+        RecordingWriter          writer  = new RecordingWriter();
+        AtomicInteger            flushes = new AtomicInteger();
+        WriteBehindQueue<String> queue   = new WriteBehindQueue<>("test",
+                                                                  writer,
+                                                                  WriteBehind.of(100, Duration.ofMillis(50)),
+                                                                  t -> flushes.incrementAndGet(),
+                                                                  () -> { });
+
+        queue.enqueue("a", "1");
+
+        assertNull(writer.writes.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals("1", writer.writes.poll(5, TimeUnit.SECONDS).get("a"));
+        assertEquals(0, queue.size());
+
+        // the flush is registered once the batch has been written
+        for (int i = 0; i < 5000 && flushes.get() == 0; i++)
+        {
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, flushes.get());
+    }
+
+
+    /**
+     * Ensures a failed batch is written again, unless its keys have changed since.
+     */
+    @Test
+    public void testFailedBatch() throws InterruptedException
+    {
+        AtomicInteger            failures = new AtomicInteger();
+        RecordingWriter          writer   = new RecordingWriter()
+        {
+            @Override
+            public void writeAll(Map<String, ? extends String> entries)
+            {
+                if (failures.get() == 0)
+                {
+                    throw new IllegalStateException("store unavailable");
+                }
+
+                super.writeAll(entries);
+            }
+        };
+        WriteBehindQueue<String> queue    = new WriteBehindQueue<>("test",
+                                                                   writer,
+                                                                   WriteBehind.of(1, Duration.ofMillis(20)),
+                                                                   t -> { },
+                                                                   failures::incrementAndGet);
+
+        queue.enqueue("a", "1");
+
+        assertEquals("1", writer.writes.poll(5, TimeUnit.SECONDS).get("a"));
+        assertEquals(1, failures.get());
+    }
+
+
+    /**
+     * Ensures changes to new keys wait for space when the queue is full.
+     */
+    @Test
+    public void testBackpressure() throws InterruptedException
+    {
+        CountDownLatch           release = new CountDownLatch(1);
+        RecordingWriter          writer  = new RecordingWriter()
+        {
+            @Override
+            public void writeAll(Map<String, ? extends String> entries)
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+
+                super.writeAll(entries);
+            }
+        };
+        WriteBehindQueue<String> queue   = new WriteBehindQueue<>("test",
+                                                                  writer,
+                                                                  WriteBehind.of(1, Duration.ofMillis(10))
+                                                                          .withMaxQueue(1),
+                                                                  t -> { },
+                                                                  () -> { });
+
+        // the first change is taken by the (blocked) writer, the second fills the queue
+        queue.enqueue("a", "1");
+
+        while (queue.size() > 0)
+        {
+            Thread.sleep(1);
+        }
+
+        queue.enqueue("b", "1");
+
+        CountDownLatch enqueued = new CountDownLatch(1);
+        Thread         producer = new Thread(() -> {
+            queue.enqueue("c", "1");
+            enqueued.countDown();
+        });
+
+        producer.start();
+
+        // changes to queued keys are coalesced without waiting
+        queue.enqueue("b", "2");
+        assertFalse(enqueued.await(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(enqueued.await(5, TimeUnit.SECONDS));
+    }
+
+
+    /**
+     * A {@link CacheWriter} that records the batches written.
+     */
+    private static class RecordingWriter implements CacheWriter<String>
+    {
+        /**
+         * The batches of entries written.
+         */
+        final BlockingQueue<Map<String, String>> writes = new LinkedBlockingQueue<>();
+
+        /**
+         * The batches of keys deleted.
+         */
+        final BlockingQueue<List<String>> deletes = new LinkedBlockingQueue<>();
+
+
+        @Override
+        public void write(String key,
+                          String value)
+        {
+            writeAll(Collections.singletonMap(key, value));
+        }
+
+
+        @Override
+        public void delete(String key)
+        {
+            deleteAll(Collections.singletonList(key));
+        }
+
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void writeAll(Map<String, ? extends String> entries)
+        {
+            writes.add((Map<String, String>) entries);
+        }
+
+
+        @Override
+        public void deleteAll(Collection<String> keys)
+        {
+            deletes.add(new ArrayList<>(keys));
+        }
+    }
+}
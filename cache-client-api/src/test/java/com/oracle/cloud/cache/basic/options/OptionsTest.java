@@ -18,6 +18,9 @@
 
 package com.oracle.cloud.cache.basic.options;
 
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
@@ -25,6 +28,9 @@ import com.oracle.cloud.cache.util.Options;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test {@link Options} implementations.
@@ -102,5 +108,426 @@ public class OptionsTest
 
         valueType = ValueType.of(Long.class);
         assertEquals(Long.class, valueType.getType());
+        assertFalse(valueType.isBinary());
+
+        valueType = ValueType.bytes();
+        assertEquals(byte[].class, valueType.getType());
+        assertTrue(valueType.isBinary());
+        assertTrue(ValueType.of(ByteBuffer.class).isBinary());
+    }
+
+
+    /**
+     * Test {@link HotKeys} option.
+     */
+    @Test
+    public void testHotKeysOption()
+    {
+        HotKeys hotKeys = Options.from(CacheOption.class).get(HotKeys.class);
+
+        assertEquals(false, hotKeys.isEnabled());
+
+        hotKeys = HotKeys.track(5, Duration.ofSeconds(30));
+        assertEquals(true, hotKeys.isEnabled());
+        assertEquals(5, hotKeys.getTopK());
+        assertEquals(Duration.ofSeconds(30), hotKeys.getDecayInterval());
+    }
+
+
+    /**
+     * Test {@link Timeout} option.
+     */
+    @Test
+    public void testTimeoutOption()
+    {
+        Timeout timeout = Options.from(GetOption.class).get(Timeout.class);
+
+        assertEquals(false, timeout.isEnabled());
+        assertEquals(0L, timeout.getTimeout());
+
+        timeout = Timeout.of(2, TimeUnit.SECONDS);
+        assertEquals(true, timeout.isEnabled());
+        assertEquals(2000L, timeout.getTimeout());
+
+        timeout = Options.from(PutOption.class, Expiry.never(), Timeout.of(Duration.ofMillis(250))).get(Timeout.class);
+        assertEquals(250L, timeout.getTimeout());
+    }
+
+
+    /**
+     * Ensure a {@link Timeout} must be positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTimeoutOption()
+    {
+        Timeout.of(Duration.ZERO);
+    }
+
+
+    /**
+     * Test the {@link Hedging} option.
+     */
+    @Test
+    public void testHedgingOption()
+    {
+        Hedging hedging = Options.from(SessionOption.class).get(Hedging.class);
+
+        assertEquals(false, hedging.isEnabled());
+
+        hedging = Options.from(CacheOption.class, Hedging.atPercentile(0.95)).get(Hedging.class);
+        assertEquals(true, hedging.isEnabled());
+        assertEquals(0.95, hedging.getPercentile(), 0.0);
+        assertEquals(0.05, hedging.getMaxRatio(), 0.0);
+        assertEquals(Duration.ofMillis(1), hedging.getMinDelay());
+    }
+
+
+    /**
+     * Ensure a {@link Hedging} percentile must be a fraction.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHedgingOption()
+    {
+        Hedging.atPercentile(95);
+    }
+
+
+    /**
+     * Test the {@link Retry} option.
+     */
+    @Test
+    public void testRetryOption()
+    {
+        Retry retry = Options.from(SessionOption.class).get(Retry.class);
+
+        assertEquals(false, retry.isEnabled());
+        assertEquals(1, retry.getMaxAttempts());
+
+        retry = Options.from(SessionOption.class, Retry.attempts(3)).get(Retry.class);
+        assertEquals(true, retry.isEnabled());
+        assertEquals(3, retry.getMaxAttempts());
+        assertEquals(Duration.ofMillis(10), retry.getInitialBackoff());
+        assertEquals(Duration.ofSeconds(1), retry.getMaxBackoff());
+    }
+
+
+    /**
+     * Ensure a {@link Retry} backoff must not exceed the maximum backoff.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRetryOption()
+    {
+        Retry.of(3, Duration.ofSeconds(2), Duration.ofSeconds(1), 0.1);
+    }
+
+
+    /**
+     * Test the {@link CircuitBreaker} option.
+     */
+    @Test
+    public void testCircuitBreakerOption()
+    {
+        CircuitBreaker breaker = Options.from(SessionOption.class).get(CircuitBreaker.class);
+
+        assertEquals(false, breaker.isEnabled());
+
+        breaker = CircuitBreaker.of(0.5, Duration.ofMillis(200), Duration.ofSeconds(5))
+                .withFallback(100)
+                .queueWrites(10);
+        assertEquals(true, breaker.isEnabled());
+        assertEquals(0.5, breaker.getFailureRate(), 0.0);
+        assertEquals(Duration.ofMillis(200), breaker.getSlowCallDuration());
+        assertEquals(Duration.ofSeconds(5), breaker.getOpenDuration());
+        assertEquals(100, breaker.getFallbackCapacity());
+        assertEquals(CircuitBreaker.WritePolicy.QUEUE, breaker.getWritePolicy());
+        assertEquals(10, breaker.getMaxQueuedWrites());
+    }
+
+
+    /**
+     * Test the {@link Capacity} option.
+     */
+    @Test
+    public void testCapacityOption()
+    {
+        assertEquals(false, Options.from(CacheOption.class).get(Capacity.class).isBounded());
+        assertEquals(100, Options.from(CacheOption.class, Capacity.of(100)).get(Capacity.class).getMaxEntries());
+    }
+
+
+    /**
+     * Test the {@link NearTier} option.
+     */
+    @Test
+    public void testNearTierOption()
+    {
+        NearTier tier = Options.from(CacheOption.class).get(NearTier.class);
+
+        assertEquals(NearTier.WritePolicy.INVALIDATE, tier.getWritePolicy());
+        assertFalse(tier.isInvalidatedOnChange());
+
+        tier = NearTier.of(10, Duration.ofSeconds(5)).invalidateOnChange().writeBoth();
+
+        assertEquals(NearTier.WritePolicy.WRITE_BOTH, tier.getWritePolicy());
+        assertTrue(tier.isInvalidatedOnChange());
+    }
+
+
+    /**
+     * Test the {@link EventDelivery} option.
+     */
+    @Test
+    public void testEventDeliveryOption()
+    {
+        assertFalse(Options.from(CacheOption.class).get(EventDelivery.class).isAsynchronous());
+
+        EventDelivery delivery = EventDelivery.asynchronous(50);
+
+        assertTrue(delivery.isAsynchronous());
+        assertEquals(50, delivery.getBatchSize());
+        assertEquals(5000, delivery.getMaxQueue());
+        assertEquals(60, delivery.withMaxQueue(60).getMaxQueue());
+    }
+
+
+    /**
+     * Test an invalid {@link EventDelivery} option.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidEventDeliveryOption()
+    {
+        EventDelivery.asynchronous(50).withMaxQueue(10);
+    }
+
+
+    /**
+     * Test the {@link Snapshot} option.
+     */
+    @Test
+    public void testSnapshotOption()
+    {
+        Path file = Paths.get("cache.snapshot");
+
+        assertFalse(Options.from(CacheOption.class).get(Snapshot.class).isEnabled());
+        assertEquals(file, Snapshot.to(file).getFile());
+        assertEquals(Duration.ZERO, Snapshot.to(file).getInterval());
+        assertEquals(Duration.ofMinutes(5), Snapshot.to(file).every(Duration.ofMinutes(5)).getInterval());
+    }
+
+
+    /**
+     * Test the {@link Overflow} option.
+     */
+    @Test
+    public void testOverflowOption()
+    {
+        Path     file     = Paths.get("overflow");
+        Overflow overflow = Overflow.to(file).withMaxSize(1 << 20).withCompactionRatio(0.25).withMaxQueue(100);
+
+        assertFalse(Options.from(CacheOption.class).get(Overflow.class).isEnabled());
+        assertEquals(file, overflow.getFile());
+        assertEquals(1 << 20, overflow.getMaxSize());
+        assertEquals(0.25, overflow.getCompactionRatio(), 0.0);
+        assertEquals(100, overflow.getMaxQueue());
+    }
+
+
+    /**
+     * Test invalid {@link Overflow} options.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOverflowOption()
+    {
+        Overflow.to(Paths.get("overflow")).withCompactionRatio(1.0);
+    }
+
+
+    /**
+     * Test the {@link SharedMemory} option.
+     */
+    @Test
+    public void testSharedMemoryOption()
+    {
+        Path         file   = Paths.get("shared");
+        SharedMemory memory = SharedMemory.at(file).withSize(1 << 20).withMaxEntries(100);
+
+        assertNull(Options.from(SessionOption.class).get(SharedMemory.class));
+        assertEquals(file, memory.getFile());
+        assertEquals(1 << 20, memory.getSize());
+        assertEquals(100, memory.getMaxEntries());
+    }
+
+
+    /**
+     * Test invalid {@link SharedMemory} options.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSharedMemoryOption()
+    {
+        SharedMemory.at(Paths.get("shared")).withSize(1L << 32);
+    }
+
+
+    /**
+     * Test {@link WriteBehind} option.
+     */
+    @Test
+    public void testWriteBehindOption()
+    {
+        assertEquals(false, Options.from(CacheOption.class).get(WriteBehind.class).isEnabled());
+
+        WriteBehind writeBehind = WriteBehind.of(50, Duration.ofMillis(200));
+
+        assertEquals(true, writeBehind.isEnabled());
+        assertEquals(50, writeBehind.getBatchSize());
+        assertEquals(Duration.ofMillis(200), writeBehind.getFlushInterval());
+        assertEquals(500, writeBehind.getMaxQueue());
+        assertEquals(75, writeBehind.withMaxQueue(75).getMaxQueue());
+    }
+
+
+    /**
+     * Test invalid {@link WriteBehind} options.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWriteBehindOption()
+    {
+        WriteBehind.of(50, Duration.ofMillis(200)).withMaxQueue(10);
+    }
+
+
+    /**
+     * Test {@link NegativeCaching} option.
+     */
+    @Test
+    public void testNegativeCachingOption()
+    {
+        assertEquals(false, Options.from(CacheOption.class).get(NegativeCaching.class).isEnabled());
+
+        NegativeCaching negativeCaching = NegativeCaching.of(1000, Duration.ofSeconds(5));
+
+        assertEquals(true, negativeCaching.isEnabled());
+        assertEquals(1000, negativeCaching.getMaxEntries());
+        assertEquals(Duration.ofSeconds(5), negativeCaching.getTtl());
+    }
+
+
+    /**
+     * Test {@link EarlyExpiry} option.
+     */
+    @Test
+    public void testEarlyExpiryOption()
+    {
+        assertEquals(false, Options.from(CacheOption.class).get(EarlyExpiry.class).isEnabled());
+        assertEquals(1.0, EarlyExpiry.enabled().getBeta(), 0.0);
+        assertEquals(2.0, EarlyExpiry.of(2.0).getBeta(), 0.0);
+    }
+
+
+    /**
+     * Test {@link ExpiryJitter} option.
+     */
+    @Test
+    public void testExpiryJitterOption()
+    {
+        ExpiryJitter jitter = ExpiryJitter.of(0.2);
+        Expiry       expiry = Expiry.of(1000, TimeUnit.MILLISECONDS);
+
+        assertEquals(false, Options.from(CacheOption.class).get(ExpiryJitter.class).isEnabled());
+        assertEquals(1000L, jitter.apply(expiry, 0.0).getExpiry());
+        assertEquals(900L, jitter.apply(expiry, 0.5).getExpiry());
+        assertEquals(-1L, jitter.apply(Expiry.never(), 0.5).getExpiry());
+        assertEquals(1000L, ExpiryJitter.none().apply(expiry, 0.5).getExpiry());
+    }
+
+
+    /**
+     * Test {@link IdleExpiry} option.
+     */
+    @Test
+    public void testIdleExpiryOption()
+    {
+        IdleExpiry idleExpiry = IdleExpiry.of(Duration.ofSeconds(1));
+
+        assertEquals(false, Options.from(CacheOption.class).get(IdleExpiry.class).isEnabled());
+        assertEquals(true, idleExpiry.isEnabled());
+        assertEquals(Duration.ofSeconds(1), idleExpiry.getTimeout());
+
+        // remote entries are written with a time-to-live no longer than the idle timeout
+        assertEquals(500L, idleExpiry.limit(500L));
+        assertEquals(1000L, idleExpiry.limit(5000L));
+        assertEquals(1000L, idleExpiry.limit(-1L));
+        assertEquals(1000L, idleExpiry.limit(0L));
+        assertEquals(5000L, IdleExpiry.never().limit(5000L));
+    }
+
+
+    /**
+     * Test {@link OutlierEjection} option.
+     */
+    @Test
+    public void testOutlierEjectionOption()
+    {
+        OutlierEjection defaults = Options.from(SessionOption.class).get(OutlierEjection.class);
+        OutlierEjection ejection = OutlierEjection.of(2.0, Duration.ofSeconds(30))
+                                                  .withConsecutiveFailures(5)
+                                                  .withCheckInterval(Duration.ofMillis(500));
+
+        assertEquals(3.0, defaults.getLatencyFactor(), 0.0);
+        assertEquals(Duration.ofSeconds(10), defaults.getEjectionDuration());
+        assertEquals(3, defaults.getConsecutiveFailures());
+        assertEquals(Duration.ofSeconds(1), defaults.getCheckInterval());
+
+        assertEquals(2.0, ejection.getLatencyFactor(), 0.0);
+        assertEquals(Duration.ofSeconds(30), ejection.getEjectionDuration());
+        assertEquals(5, ejection.getConsecutiveFailures());
+        assertEquals(Duration.ofMillis(500), ejection.getCheckInterval());
+    }
+
+
+    /**
+     * Test {@link OutlierEjection} option rejects a latency factor that would eject the fastest endpoint.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutlierEjectionInvalidFactor()
+    {
+        OutlierEjection.of(1.0, Duration.ofSeconds(10));
+    }
+
+
+    /**
+     * Test {@link KeyPrefix} option.
+     */
+    @Test
+    public void testKeyPrefixOption()
+    {
+        KeyPrefix prefix = KeyPrefix.of("order-");
+
+        assertEquals("", Options.from(ScanOption.class).get(KeyPrefix.class).getPrefix());
+        assertEquals(KeyPrefix.all(), KeyPrefix.of(""));
+        assertEquals("order-", prefix.getPrefix());
+        assertEquals(true, prefix.matches("order-1"));
+        assertEquals(false, prefix.matches("customer-1"));
+    }
+
+
+    /**
+     * Test {@link PageSize} option.
+     */
+    @Test
+    public void testPageSizeOption()
+    {
+        assertEquals(100, Options.from(ScanOption.class).get(PageSize.class).getEntries());
+        assertEquals(500, PageSize.of(500).getEntries());
+    }
+
+
+    /**
+     * Test {@link PageSize} option rejects an empty page.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSizeInvalid()
+    {
+        PageSize.of(0);
     }
 }
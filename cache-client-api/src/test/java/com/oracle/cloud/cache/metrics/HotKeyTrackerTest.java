@@ -0,0 +1,129 @@
+/*
+ * File: HotKeyTrackerTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.metrics;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.oracle.cloud.cache.basic.options.HotKeys;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link HotKeyTracker}.
+ */
+public class HotKeyTrackerTest
+{
+    /**
+     * Ensures the most frequently accessed keys are reported in order.
+     */
+    @Test
+    public void testTopKeys()
+    {
+        HotKeyTracker tracker = new HotKeyTracker(HotKeys.track(3));
+
+        for (int i = 0; i < 1000; i++)
+        {
+            tracker.record("cold-" + i);
+        }
+
+        for (int i = 0; i < 500; i++)
+        {
+            tracker.record("hot-1");
+            tracker.record("hot-2");
+            tracker.record("hot-1");
+            tracker.record("hot-3");
+            tracker.record("hot-1");
+            tracker.record("hot-2");
+        }
+
+        List<HotKey> hotKeys = tracker.getHotKeys();
+
+        assertEquals(3, hotKeys.size());
+        assertEquals("hot-1", hotKeys.get(0).getKey());
+        assertEquals("hot-2", hotKeys.get(1).getKey());
+        assertEquals("hot-3", hotKeys.get(2).getKey());
+
+        // count-min estimates never understate
+        assertTrue(hotKeys.get(0).getCount() >= 1500);
+        assertTrue(hotKeys.get(0).getRate() > 0.0);
+    }
+
+
+    /**
+     * Ensures counts are halved after the decay interval.
+     */
+    @Test
+    public void testDecay() throws InterruptedException
+    {
+        HotKeyTracker tracker = new HotKeyTracker(HotKeys.track(1, Duration.ofMillis(50)));
+
+        for (int i = 0; i < 100; i++)
+        {
+            tracker.record("key");
+        }
+
+        Thread.sleep(60L);
+
+        // the next access triggers the decay before being counted
+        tracker.record("key");
+
+        assertEquals(51L, tracker.estimate("key"));
+    }
+
+
+    /**
+     * Ensures that once a candidate is replaced, a key must exceed the coldest remaining
+     * candidate, rather than the replaced one, to be offered again.
+     */
+    @Test
+    public void testThresholdAfterReplacement()
+    {
+        HotKeyTracker tracker = new HotKeyTracker(HotKeys.track(2));
+
+        record(tracker, "a", 10);
+        record(tracker, "b", 20);
+        record(tracker, "c", 11);
+
+        // "c" replaced "a" with 11 accesses, so "a" with 10 is no longer the coldest
+        assertEquals(11L, tracker.getThreshold());
+        assertEquals("b", tracker.getHotKeys().get(0).getKey());
+        assertEquals("c", tracker.getHotKeys().get(1).getKey());
+    }
+
+
+    /**
+     * Records accesses to a key.
+     *
+     * @param tracker  the tracker
+     * @param key      the key
+     * @param count    the number of accesses
+     */
+    private static void record(HotKeyTracker tracker,
+                               String        key,
+                               int           count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            tracker.record(key);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.oracle.cloud.caching.example;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import com.oracle.cloud.cache.basic.Cache;
 import com.oracle.cloud.cache.basic.Session;
 import com.oracle.cloud.cache.basic.options.Return;
 import com.oracle.cloud.cache.basic.options.ValueType;
+import com.oracle.cloud.cache.processors.MergeMap;
 
 abstract class AbstractUserService {
 
@@ -34,14 +38,16 @@ abstract class AbstractUserService {
 	}
 
 	public User updateUser(String id, String name, String email) {
-		User user = getUser(id);
-		if (user == null) {
+		failIfInvalid(name, email);
+		Map<String, Object> fields = new HashMap<>();
+		fields.put("name", name);
+		fields.put("email", email);
+		// update the cached user in place, rather than reading and replacing the whole object
+		if (!users.process(id, MergeMap.of(fields)) && getUser(id) == null) {
 			throw new IllegalArgumentException("No user with id '" + id + "' found");
 		}
-		failIfInvalid(name, email);
-		user.setName(name);
-		user.setEmail(email);
-		users.replace(id, user);
+		User user = new User(name, email);
+		user.setId(id);
 		return user;
 	}
 
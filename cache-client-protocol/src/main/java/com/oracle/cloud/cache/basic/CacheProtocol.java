@@ -19,6 +19,7 @@
 package com.oracle.cloud.cache.basic;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.oracle.cloud.cache.ServerCacheMetrics;
 
 /**
@@ -45,7 +46,53 @@ class CacheProtocol
     static CacheRpc.GetRequest getRequest(String cacheName,
                                           String key)
     {
-        return CacheRpc.GetRequest.newBuilder().setCache(cacheName).setKey(key).build();
+        return getRequest(cacheName, key, false);
+    }
+
+
+    /**
+     * Factory method for GetRequest.
+     *
+     * @param cacheName  cache name
+     * @param key        cache key
+     * @param touch      the flag specifying whether to restart the entry's time-to-live
+     * @return GetRequest instance
+     */
+    static CacheRpc.GetRequest getRequest(String  cacheName,
+                                          String  key,
+                                          boolean touch)
+    {
+        return CacheRpc.GetRequest.newBuilder().setCache(cacheName).setKey(key).setTouch(touch).build();
+    }
+
+
+    /**
+     * Factory method for GetRequest using a cache handle.
+     *
+     * @param handle  cache handle
+     * @param key     cache key
+     * @return GetRequest instance
+     */
+    static CacheRpc.GetRequest getRequest(int    handle,
+                                          String key)
+    {
+        return getRequest(handle, key, false);
+    }
+
+
+    /**
+     * Factory method for GetRequest using a cache handle.
+     *
+     * @param handle  cache handle
+     * @param key     cache key
+     * @param touch   the flag specifying whether to restart the entry's time-to-live
+     * @return GetRequest instance
+     */
+    static CacheRpc.GetRequest getRequest(int     handle,
+                                          String  key,
+                                          boolean touch)
+    {
+        return CacheRpc.GetRequest.newBuilder().setHandle(handle).setKey(key).setTouch(touch).build();
     }
 
 
@@ -59,7 +106,7 @@ class CacheProtocol
     static CacheRpc.GetResponse getResponse(byte[] value)
     {
         return CacheRpc.GetResponse.newBuilder().setValue(value == null
-                                                          ? ByteString.EMPTY : ByteString.copyFrom(value)).build();
+                                                          ? ByteString.EMPTY : wrap(value)).build();
     }
 
 
@@ -79,7 +126,28 @@ class CacheProtocol
                                           long    ttl,
                                           boolean returnOld)
     {
-        return CacheRpc.PutRequest.newBuilder().setCache(cacheName).setKey(key).setValue(ByteString.copyFrom(value))
+        return CacheRpc.PutRequest.newBuilder().setCache(cacheName).setKey(key).setValue(wrap(value))
+        .setTtl(ttl).setReturn(returnOld).build();
+    }
+
+
+    /**
+     * Factory method for PutRequest using a cache handle.
+     *
+     * @param handle     cache handle
+     * @param key        cache key
+     * @param value      cache value
+     * @param ttl        entry's time-to-live
+     * @param returnOld  the flag specifying whether to return the old value
+     * @return PutRequest instance
+     */
+    static CacheRpc.PutRequest putRequest(int     handle,
+                                          String  key,
+                                          byte[]  value,
+                                          long    ttl,
+                                          boolean returnOld)
+    {
+        return CacheRpc.PutRequest.newBuilder().setHandle(handle).setKey(key).setValue(wrap(value))
         .setTtl(ttl).setReturn(returnOld).build();
     }
 
@@ -96,7 +164,7 @@ class CacheProtocol
 
         if (value != null)
         {
-            builder.setValue(ByteString.copyFrom(value));
+            builder.setValue(wrap(value));
         }
 
         return builder.build();
@@ -119,6 +187,22 @@ class CacheProtocol
     }
 
 
+    /**
+     * Factory method for RemoveRequest using a cache handle.
+     *
+     * @param handle     cache handle
+     * @param key        cache key
+     * @param returnOld  the flag specifying whether to return the old value
+     * @return RemoveRequest instance
+     */
+    static CacheRpc.RemoveRequest removeRequest(int     handle,
+                                                String  key,
+                                                boolean returnOld)
+    {
+        return CacheRpc.RemoveRequest.newBuilder().setHandle(handle).setKey(key).setReturn(returnOld).build();
+    }
+
+
     /**
      * Factory method for RemoveResponse.
      *
@@ -131,7 +215,7 @@ class CacheProtocol
 
         if (value != null)
         {
-            builder.setValue(ByteString.copyFrom(value));
+            builder.setValue(wrap(value));
         }
 
         return builder.build();
@@ -151,7 +235,24 @@ class CacheProtocol
                                                           byte[] oldValue)
     {
         return CacheRpc.RemoveValueRequest.newBuilder().setCache(cacheName).setKey(key)
-        .setOldValue(ByteString.copyFrom(oldValue)).build();
+        .setOldValue(wrap(oldValue)).build();
+    }
+
+
+    /**
+     * Factory method for RemoveValueRequest using a cache handle.
+     *
+     * @param handle    cache handle
+     * @param key       cache key
+     * @param oldValue  value to match to remove
+     * @return RemoveValueRequest instance
+     */
+    static CacheRpc.RemoveValueRequest removeValueRequest(int    handle,
+                                                          String key,
+                                                          byte[] oldValue)
+    {
+        return CacheRpc.RemoveValueRequest.newBuilder().setHandle(handle).setKey(key)
+        .setOldValue(wrap(oldValue)).build();
     }
 
 
@@ -183,7 +284,28 @@ class CacheProtocol
                                                   long    ttl,
                                                   boolean returnOld)
     {
-        return CacheRpc.ReplaceRequest.newBuilder().setCache(cacheName).setKey(key).setValue(ByteString.copyFrom(value))
+        return CacheRpc.ReplaceRequest.newBuilder().setCache(cacheName).setKey(key).setValue(wrap(value))
+        .setTtl(ttl).setReturn(returnOld).build();
+    }
+
+
+    /**
+     * Factory method for ReplaceRequest using a cache handle.
+     *
+     * @param handle    cache handle
+     * @param key       cache key
+     * @param value     cache value
+     * @param ttl       entry's time-to-live
+     * @param returnOld the flag specifying whether to return the old value
+     * @return ReplaceRequest instance
+     */
+    static CacheRpc.ReplaceRequest replaceRequest(int     handle,
+                                                  String  key,
+                                                  byte[]  value,
+                                                  long    ttl,
+                                                  boolean returnOld)
+    {
+        return CacheRpc.ReplaceRequest.newBuilder().setHandle(handle).setKey(key).setValue(wrap(value))
         .setTtl(ttl).setReturn(returnOld).build();
     }
 
@@ -200,7 +322,7 @@ class CacheProtocol
 
         if (value != null)
         {
-            builder.setValue(ByteString.copyFrom(value));
+            builder.setValue(wrap(value));
         }
 
         return builder.build();
@@ -224,7 +346,28 @@ class CacheProtocol
                                                             long   ttl)
     {
         return CacheRpc.ReplaceValueRequest.newBuilder().setCache(cacheName).setKey(key)
-        .setOldValue(ByteString.copyFrom(oldValue)).setNewValue(ByteString.copyFrom(newValue)).setTtl(ttl).build();
+        .setOldValue(wrap(oldValue)).setNewValue(wrap(newValue)).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for ReplaceValueRequest using a cache handle.
+     *
+     * @param handle     cache handle
+     * @param key        cache key
+     * @param oldValue   cache value
+     * @param newValue   cache value
+     * @param ttl        entry's time-to-live
+     * @return ReplaceValueRequest instance
+     */
+    static CacheRpc.ReplaceValueRequest replaceValueRequest(int    handle,
+                                                            String key,
+                                                            byte[] oldValue,
+                                                            byte[] newValue,
+                                                            long   ttl)
+    {
+        return CacheRpc.ReplaceValueRequest.newBuilder().setHandle(handle).setKey(key)
+        .setOldValue(wrap(oldValue)).setNewValue(wrap(newValue)).setTtl(ttl).build();
     }
 
 
@@ -252,6 +395,18 @@ class CacheProtocol
     }
 
 
+    /**
+     * Factory method for ClearRequest using a cache handle.
+     *
+     * @param handle  cache handle
+     * @return ClearRequest instance
+     */
+    static CacheRpc.ClearRequest clearRequest(int handle)
+    {
+        return CacheRpc.ClearRequest.newBuilder().setHandle(handle).build();
+    }
+
+
     /**
      * Factory method for MetricsRequest.
      *
@@ -269,6 +424,18 @@ class CacheProtocol
     }
 
 
+    /**
+     * Factory method for MetricsRequest using a cache handle.
+     *
+     * @param handle  cache handle
+     * @return MetricsRequest instance
+     */
+    static CacheRpc.MetricsRequest metricsRequest(int handle)
+    {
+        return CacheRpc.MetricsRequest.newBuilder().setHandle(handle).build();
+    }
+
+
     /**
      * Factory method for MetricsResponse.
      *
@@ -284,6 +451,331 @@ class CacheProtocol
     }
      
 
+    /**
+     * Factory method for VersionedResponse.
+     *
+     * @param value    returned cache value
+     * @param version  version of the entry, or zero if there is no entry
+     * @return VersionedResponse instance
+     */
+    static CacheRpc.VersionedResponse versionedResponse(byte[] value,
+                                                        long   version)
+    {
+        return CacheRpc.VersionedResponse.newBuilder().setValue(value == null
+                                                                ? ByteString.EMPTY : wrap(value))
+        .setVersion(version).build();
+    }
+
+
+    /**
+     * Factory method for ReplaceVersionRequest.
+     *
+     * @param cacheName  cache name
+     * @param key        cache key
+     * @param version    version the entry must have to be replaced
+     * @param newValue   cache value
+     * @param ttl        entry's time-to-live
+     * @return ReplaceVersionRequest instance
+     */
+    static CacheRpc.ReplaceVersionRequest replaceVersionRequest(String cacheName,
+                                                                String key,
+                                                                long   version,
+                                                                byte[] newValue,
+                                                                long   ttl)
+    {
+        return CacheRpc.ReplaceVersionRequest.newBuilder().setCache(cacheName).setKey(key).setVersion(version)
+        .setNewValue(wrap(newValue)).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for ReplaceVersionRequest using a cache handle.
+     *
+     * @param handle    cache handle
+     * @param key       cache key
+     * @param version   version the entry must have to be replaced
+     * @param newValue  cache value
+     * @param ttl       entry's time-to-live
+     * @return ReplaceVersionRequest instance
+     */
+    static CacheRpc.ReplaceVersionRequest replaceVersionRequest(int    handle,
+                                                                String key,
+                                                                long   version,
+                                                                byte[] newValue,
+                                                                long   ttl)
+    {
+        return CacheRpc.ReplaceVersionRequest.newBuilder().setHandle(handle).setKey(key).setVersion(version)
+        .setNewValue(wrap(newValue)).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for RemoveVersionRequest.
+     *
+     * @param cacheName  cache name
+     * @param key        cache key
+     * @param version    version the entry must have to be removed
+     * @return RemoveVersionRequest instance
+     */
+    static CacheRpc.RemoveVersionRequest removeVersionRequest(String cacheName,
+                                                              String key,
+                                                              long   version)
+    {
+        return CacheRpc.RemoveVersionRequest.newBuilder().setCache(cacheName).setKey(key).setVersion(version).build();
+    }
+
+
+    /**
+     * Factory method for RemoveVersionRequest using a cache handle.
+     *
+     * @param handle   cache handle
+     * @param key      cache key
+     * @param version  version the entry must have to be removed
+     * @return RemoveVersionRequest instance
+     */
+    static CacheRpc.RemoveVersionRequest removeVersionRequest(int    handle,
+                                                              String key,
+                                                              long   version)
+    {
+        return CacheRpc.RemoveVersionRequest.newBuilder().setHandle(handle).setKey(key).setVersion(version).build();
+    }
+
+
+    /**
+     * Factory method for AddRequest.
+     *
+     * @param cacheName  cache name
+     * @param key        cache key
+     * @param delta      value to add
+     * @param ttl        time-to-live in milliseconds
+     * @return AddRequest instance
+     */
+    static CacheRpc.AddRequest addRequest(String cacheName,
+                                          String key,
+                                          long   delta,
+                                          long   ttl)
+    {
+        return CacheRpc.AddRequest.newBuilder().setCache(cacheName).setKey(key).setDelta(delta).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for AddRequest using a cache handle.
+     *
+     * @param handle  cache handle
+     * @param key     cache key
+     * @param delta   value to add
+     * @param ttl     time-to-live in milliseconds
+     * @return AddRequest instance
+     */
+    static CacheRpc.AddRequest addRequest(int    handle,
+                                          String key,
+                                          long   delta,
+                                          long   ttl)
+    {
+        return CacheRpc.AddRequest.newBuilder().setHandle(handle).setKey(key).setDelta(delta).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for AddResponse.
+     *
+     * @param value  the updated value
+     * @return AddResponse instance
+     */
+    static CacheRpc.AddResponse addResponse(long value)
+    {
+        return CacheRpc.AddResponse.newBuilder().setValue(value).build();
+    }
+
+
+    /**
+     * Factory method for ProcessRequest.
+     *
+     * @param cacheName  cache name
+     * @param key        cache key
+     * @param processor  serialized entry processor
+     * @param ttl        time-to-live in milliseconds
+     * @return ProcessRequest instance
+     */
+    static CacheRpc.ProcessRequest processRequest(String cacheName,
+                                                  String key,
+                                                  byte[] processor,
+                                                  long   ttl)
+    {
+        return CacheRpc.ProcessRequest.newBuilder().setCache(cacheName).setKey(key)
+        .setProcessor(wrap(processor)).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for ProcessRequest using a cache handle.
+     *
+     * @param handle     cache handle
+     * @param key        cache key
+     * @param processor  serialized entry processor
+     * @param ttl        time-to-live in milliseconds
+     * @return ProcessRequest instance
+     */
+    static CacheRpc.ProcessRequest processRequest(int    handle,
+                                                  String key,
+                                                  byte[] processor,
+                                                  long   ttl)
+    {
+        return CacheRpc.ProcessRequest.newBuilder().setHandle(handle).setKey(key)
+        .setProcessor(wrap(processor)).setTtl(ttl).build();
+    }
+
+
+    /**
+     * Factory method for OpenRequest.
+     *
+     * @param cacheName  cache name
+     * @return OpenRequest instance
+     */
+    static CacheRpc.OpenRequest openRequest(String cacheName)
+    {
+        return CacheRpc.OpenRequest.newBuilder().setCache(cacheName).build();
+    }
+
+
+    /**
+     * Factory method for OpenResponse.
+     *
+     * @param handle  the handle for the cache, or zero if handles are not supported
+     * @return OpenResponse instance
+     */
+    static CacheRpc.OpenResponse openResponse(int handle)
+    {
+        return CacheRpc.OpenResponse.newBuilder().setHandle(handle).build();
+    }
+
+
+    /**
+     * Factory method for ScanRequest.
+     *
+     * @param cacheName  cache name
+     * @param prefix     the prefix of the keys to return, or empty to return every entry
+     * @param pageSize   the maximum number of entries in each page
+     * @param cursor     the cursor of the last page received, or empty to start from the beginning
+     * @return ScanRequest instance
+     */
+    static CacheRpc.ScanRequest scanRequest(String cacheName,
+                                            String prefix,
+                                            int    pageSize,
+                                            byte[] cursor)
+    {
+        return CacheRpc.ScanRequest.newBuilder().setCache(cacheName).setPrefix(prefix).setPageSize(pageSize)
+        .setCursor(wrap(cursor)).build();
+    }
+
+
+    /**
+     * Factory method for ScanRequest.
+     *
+     * @param handle    the handle for the cache
+     * @param prefix    the prefix of the keys to return, or empty to return every entry
+     * @param pageSize  the maximum number of entries in each page
+     * @param cursor    the cursor of the last page received, or empty to start from the beginning
+     * @return ScanRequest instance
+     */
+    static CacheRpc.ScanRequest scanRequest(int    handle,
+                                            String prefix,
+                                            int    pageSize,
+                                            byte[] cursor)
+    {
+        return CacheRpc.ScanRequest.newBuilder().setHandle(handle).setPrefix(prefix).setPageSize(pageSize)
+        .setCursor(wrap(cursor)).build();
+    }
+
+
+    /**
+     * Factory method for ScanEntry.
+     *
+     * @param key    the key of the entry
+     * @param value  the serialized value of the entry
+     * @return ScanEntry instance
+     */
+    static CacheRpc.ScanEntry scanEntry(String key,
+                                        byte[] value)
+    {
+        return CacheRpc.ScanEntry.newBuilder().setKey(key).setValue(wrap(value)).build();
+    }
+
+
+    /**
+     * Factory method for ScanResponse.
+     *
+     * @param entries  the entries in the page
+     * @param cursor   the cursor from which to resume the scan, or empty if it is the last page
+     * @return ScanResponse instance
+     */
+    static CacheRpc.ScanResponse scanResponse(Iterable<CacheRpc.ScanEntry> entries,
+                                              byte[]                       cursor)
+    {
+        return CacheRpc.ScanResponse.newBuilder().addAllEntries(entries).setCursor(wrap(cursor)).build();
+    }
+
+
+    /**
+     * Factory method for SubscribeRequest.
+     *
+     * @param cacheName  cache name
+     * @param sequence   the sequence number of the last response received, or zero to receive only new changes
+     * @return SubscribeRequest instance
+     */
+    static CacheRpc.SubscribeRequest subscribeRequest(String cacheName,
+                                                      long   sequence)
+    {
+        return CacheRpc.SubscribeRequest.newBuilder().setCache(cacheName).setSequence(sequence).build();
+    }
+
+
+    /**
+     * Factory method for SubscribeRequest.
+     *
+     * @param handle    the handle for the cache
+     * @param sequence  the sequence number of the last response received, or zero to receive only new changes
+     * @return SubscribeRequest instance
+     */
+    static CacheRpc.SubscribeRequest subscribeRequest(int  handle,
+                                                      long sequence)
+    {
+        return CacheRpc.SubscribeRequest.newBuilder().setHandle(handle).setSequence(sequence).build();
+    }
+
+
+    /**
+     * Factory method for Event.
+     *
+     * @param type  the type of change
+     * @param key   the key of the changed entry, or empty if the cache was cleared
+     * @return Event instance
+     */
+    static CacheRpc.Event event(CacheRpc.EventType type,
+                                String             key)
+    {
+        return CacheRpc.Event.newBuilder().setType(type).setKey(key).build();
+    }
+
+
+    /**
+     * Factory method for SubscribeResponse.
+     *
+     * @param events    the events in the batch
+     * @param sequence  the sequence number of the last event in the batch
+     * @param reset     true if the changes since the requested sequence number are no longer held
+     * @return SubscribeResponse instance
+     */
+    static CacheRpc.SubscribeResponse subscribeResponse(Iterable<CacheRpc.Event> events,
+                                                        long                     sequence,
+                                                        boolean                  reset)
+    {
+        return CacheRpc.SubscribeResponse.newBuilder().addAllEvents(events).setSequence(sequence).setReset(reset)
+        .build();
+    }
+
+
     /**
      * A empty response that can be used by any message that does not return a response.
      *
@@ -293,4 +785,19 @@ class CacheProtocol
     {
         return EMPTY;
     }
+
+
+    /**
+     * Returns a {@link ByteString} backed by the specified bytes, rather than a copy of them.
+     * The bytes passed to the factory methods are either freshly serialized or, for binary
+     * cache values, owned by the caller, and in either case are not modified once handed to
+     * the transport, so copying them would only add to the cost of each request.
+     *
+     * @param bytes the bytes to wrap
+     * @return a ByteString backed by the bytes
+     */
+    private static ByteString wrap(byte[] bytes)
+    {
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * File: AppendToList.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An {@link EntryProcessor} that appends elements to a list field of a value,
+ * creating the list if the field is not present.
+ */
+public class AppendToList extends EntryProcessor
+{
+    /**
+     * The name of the list field.
+     */
+    @JsonProperty("field")
+    private final String field;
+
+    /**
+     * The elements to append.
+     */
+    @JsonProperty("values")
+    private final ArrayNode values;
+
+
+    /**
+     * Constructs an AppendToList processor.
+     *
+     * @param field   the name of the list field
+     * @param values  the elements to append
+     */
+    @JsonCreator
+    private AppendToList(@JsonProperty("field")  String    field,
+                         @JsonProperty("values") ArrayNode values)
+    {
+        this.field  = field;
+        this.values = values;
+    }
+
+
+    /**
+     * Returns a processor that appends the specified elements to the specified list field.
+     *
+     * @param field   the name of the list field
+     * @param values  the elements to append
+     *
+     * @return the AppendToList processor
+     */
+    public static AppendToList of(String    field,
+                                  Object... values)
+    {
+        if (field == null)
+        {
+            throw new IllegalArgumentException("field must be specified");
+        }
+
+        return new AppendToList(field, (ArrayNode) toNode(values));
+    }
+
+
+    @Override
+    public JsonNode process(JsonNode value)
+    {
+        ObjectNode result = copyOf(value);
+        JsonNode   list   = result.get(field);
+
+        if (list == null || list.isNull())
+        {
+            result.putArray(field).addAll(values);
+        }
+        else if (list.isArray())
+        {
+            ((ArrayNode) list).addAll(values);
+        }
+        else
+        {
+            throw new IllegalStateException("Field " + field + " is not a list: " + list);
+        }
+
+        return result;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "AppendToList{" + "field='" + field + '\'' + ", values=" + values + '}';
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * File: ConditionalUpdate.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/**
+ * An {@link EntryProcessor} that applies another processor only if a field of
+ * the value has an expected value, leaving the value unchanged otherwise.
+ */
+public class ConditionalUpdate extends EntryProcessor
+{
+    /**
+     * The name of the field to test.
+     */
+    @JsonProperty("field")
+    private final String field;
+
+    /**
+     * The expected value of the field.
+     */
+    @JsonProperty("expected")
+    private final JsonNode expected;
+
+    /**
+     * The processor to apply if the field has the expected value.
+     */
+    @JsonProperty("then")
+    private final EntryProcessor processor;
+
+
+    /**
+     * Constructs a ConditionalUpdate processor.
+     *
+     * @param field      the name of the field to test
+     * @param expected   the expected value of the field
+     * @param processor  the processor to apply if the field has the expected value
+     */
+    @JsonCreator
+    private ConditionalUpdate(@JsonProperty("field")    String         field,
+                              @JsonProperty("expected") JsonNode       expected,
+                              @JsonProperty("then")     EntryProcessor processor)
+    {
+        this.field     = field;
+        this.expected  = expected == null ? NullNode.getInstance() : expected;
+        this.processor = processor;
+    }
+
+
+    /**
+     * Returns a processor that applies the specified processor only if the specified
+     * field has the expected value. A field that is not present is treated as null.
+     *
+     * @param field      the name of the field to test
+     * @param expected   the expected value of the field
+     * @param processor  the processor to apply if the field has the expected value
+     *
+     * @return the ConditionalUpdate processor
+     */
+    public static ConditionalUpdate when(String         field,
+                                         Object         expected,
+                                         EntryProcessor processor)
+    {
+        if (field == null || processor == null)
+        {
+            throw new IllegalArgumentException("field and processor must be specified");
+        }
+
+        return new ConditionalUpdate(field, toNode(expected), processor);
+    }
+
+
+    @Override
+    public JsonNode process(JsonNode value)
+    {
+        JsonNode actual = value == null ? null : value.get(field);
+
+        return expected.equals(actual == null ? NullNode.getInstance() : actual) ? processor.process(value) : value;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "ConditionalUpdate{" + "field='" + field + '\'' + ", expected=" + expected + ", processor="
+               + processor + '}';
+    }
+}
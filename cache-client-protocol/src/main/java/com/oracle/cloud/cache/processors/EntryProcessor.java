@@ -0,0 +1,166 @@
+/*
+ * File: EntryProcessor.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An immutable, serializable update of a single cache entry, which is applied
+ * atomically wherever the entry is stored, so that small changes to large values
+ * do not require the value to be read, modified and written back by the client.
+ * <p>
+ * Processors operate on the JSON representation of a value, and are themselves
+ * sent to the server as JSON (for example
+ * <code>{"processor":"set-field","field":"name","value":"Tim"}</code>), so that
+ * any server can apply them without access to application classes.
+ * </p>
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "processor")
+@JsonSubTypes({@JsonSubTypes.Type(value = SetField.class, name = "set-field"),
+               @JsonSubTypes.Type(value = AppendToList.class, name = "append-to-list"),
+               @JsonSubTypes.Type(value = MergeMap.class, name = "merge-map"),
+               @JsonSubTypes.Type(value = ConditionalUpdate.class, name = "conditional-update")})
+public abstract class EntryProcessor
+{
+    /**
+     * The {@link ObjectMapper} used to convert values and processors to and from JSON.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+
+    /**
+     * Applies this processor to the JSON representation of an entry value.
+     *
+     * @param value  the current value, which is not modified
+     *
+     * @return the updated value, which is equal to the current value if the
+     *         processor made no change
+     *
+     * @throws IllegalStateException if the processor cannot be applied to the value
+     */
+    public abstract JsonNode process(JsonNode value);
+
+
+    /**
+     * Applies this processor to an entry value.
+     *
+     * @param value  the current value, which is not modified
+     * @param type   the type of the value
+     * @param <T>    the type of the value
+     *
+     * @return the updated value, or the current value itself if the processor made no change
+     *
+     * @throws IllegalStateException if the processor cannot be applied to the value
+     */
+    public <T> T process(T        value,
+                         Class<T> type)
+    {
+        JsonNode node   = MAPPER.valueToTree(value);
+        JsonNode result = process(node);
+
+        try
+        {
+            return result.equals(node) ? value : MAPPER.treeToValue(result, type);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("Processed value is not a valid " + type.getName(), e);
+        }
+    }
+
+
+    /**
+     * Serializes this processor to JSON.
+     *
+     * @return the JSON representation of this processor
+     */
+    public byte[] toBytes()
+    {
+        try
+        {
+            return MAPPER.writeValueAsBytes(this);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    /**
+     * Deserializes a processor from JSON.
+     *
+     * @param bytes  the JSON representation of a processor
+     *
+     * @return the processor
+     *
+     * @throws IllegalArgumentException if the bytes do not represent a known processor
+     */
+    public static EntryProcessor fromBytes(byte[] bytes)
+    {
+        try
+        {
+            return MAPPER.readValue(bytes, EntryProcessor.class);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalArgumentException("Invalid entry processor", e);
+        }
+    }
+
+
+    /**
+     * Converts an object to JSON.
+     *
+     * @param value  the object to convert
+     *
+     * @return the JSON representation of the object
+     */
+    static JsonNode toNode(Object value)
+    {
+        return value == null ? NullNode.getInstance() : MAPPER.valueToTree(value);
+    }
+
+
+    /**
+     * Returns a copy of the specified value, which must be a JSON object.
+     *
+     * @param value  the value to copy
+     *
+     * @return the copy
+     *
+     * @throws IllegalStateException if the value is not a JSON object
+     */
+    static ObjectNode copyOf(JsonNode value)
+    {
+        if (value == null || !value.isObject())
+        {
+            throw new IllegalStateException("Value is not a JSON object: " + value);
+        }
+
+        return ((ObjectNode) value).deepCopy();
+    }
+}
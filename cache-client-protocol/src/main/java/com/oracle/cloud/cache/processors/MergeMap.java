@@ -0,0 +1,140 @@
+/*
+ * File: MergeMap.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An {@link EntryProcessor} that merges entries into a value, or into a map field
+ * of a value, replacing the existing entries with the same keys.
+ */
+public class MergeMap extends EntryProcessor
+{
+    /**
+     * The name of the map field, or null to merge into the value itself.
+     */
+    @JsonProperty("field")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final String field;
+
+    /**
+     * The entries to merge.
+     */
+    @JsonProperty("entries")
+    private final ObjectNode entries;
+
+
+    /**
+     * Constructs a MergeMap processor.
+     *
+     * @param field    the name of the map field, or null to merge into the value itself
+     * @param entries  the entries to merge
+     */
+    @JsonCreator
+    private MergeMap(@JsonProperty("field")   String     field,
+                     @JsonProperty("entries") ObjectNode entries)
+    {
+        this.field   = field;
+        this.entries = entries;
+    }
+
+
+    /**
+     * Returns a processor that merges the specified entries into the value itself,
+     * setting each of the corresponding fields.
+     *
+     * @param entries  the entries to merge
+     *
+     * @return the MergeMap processor
+     */
+    public static MergeMap of(Map<String, ?> entries)
+    {
+        if (entries == null)
+        {
+            throw new IllegalArgumentException("entries must be specified");
+        }
+
+        return new MergeMap(null, (ObjectNode) toNode(entries));
+    }
+
+
+    /**
+     * Returns a processor that merges the specified entries into the specified map
+     * field, creating the map if the field is not present.
+     *
+     * @param field    the name of the map field
+     * @param entries  the entries to merge
+     *
+     * @return the MergeMap processor
+     */
+    public static MergeMap of(String         field,
+                              Map<String, ?> entries)
+    {
+        if (field == null || entries == null)
+        {
+            throw new IllegalArgumentException("field and entries must be specified");
+        }
+
+        return new MergeMap(field, (ObjectNode) toNode(entries));
+    }
+
+
+    @Override
+    public JsonNode process(JsonNode value)
+    {
+        ObjectNode result = copyOf(value);
+
+        if (field == null)
+        {
+            result.setAll(entries);
+
+            return result;
+        }
+
+        JsonNode map = result.get(field);
+
+        if (map == null || map.isNull())
+        {
+            result.putObject(field).setAll(entries);
+        }
+        else if (map.isObject())
+        {
+            ((ObjectNode) map).setAll(entries);
+        }
+        else
+        {
+            throw new IllegalStateException("Field " + field + " is not a map: " + map);
+        }
+
+        return result;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "MergeMap{" + "field='" + field + '\'' + ", entries=" + entries + '}';
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * File: SetField.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * An {@link EntryProcessor} that sets a field of a value, adding the field if
+ * it is not present.
+ */
+public class SetField extends EntryProcessor
+{
+    /**
+     * The name of the field.
+     */
+    @JsonProperty("field")
+    private final String field;
+
+    /**
+     * The new value of the field.
+     */
+    @JsonProperty("value")
+    private final JsonNode value;
+
+
+    /**
+     * Constructs a SetField processor.
+     *
+     * @param field  the name of the field
+     * @param value  the new value of the field
+     */
+    @JsonCreator
+    private SetField(@JsonProperty("field") String   field,
+                     @JsonProperty("value") JsonNode value)
+    {
+        this.field = field;
+        this.value = value;
+    }
+
+
+    /**
+     * Returns a processor that sets the specified field to the specified value.
+     *
+     * @param field  the name of the field
+     * @param value  the new value of the field
+     *
+     * @return the SetField processor
+     */
+    public static SetField of(String field,
+                              Object value)
+    {
+        if (field == null)
+        {
+            throw new IllegalArgumentException("field must be specified");
+        }
+
+        return new SetField(field, toNode(value));
+    }
+
+
+    @Override
+    public JsonNode process(JsonNode value)
+    {
+        ObjectNode result = copyOf(value);
+
+        result.set(field, this.value);
+
+        return result;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "SetField{" + "field='" + field + '\'' + ", value=" + value + '}';
+    }
+}
@@ -191,6 +191,17 @@ public class MultiValue
     }
 
 
+    /**
+     * Returns the number of values.
+     *
+     * @return the number of values
+     */
+    public int getCount()
+    {
+        return values.size();
+    }
+
+
     /**
      * Class to read {@link MultiValue}.
      */
@@ -18,10 +18,14 @@
 
 package com.oracle.cloud.cache.basic;
 
+import java.util.Collections;
+
 import com.oracle.cloud.cache.ServerCacheMetrics;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
                                             
 /**
  * Tests for CacheProtocol.
@@ -41,6 +45,9 @@ public class CacheProtocolTest
 
         assertEquals("cache", getRequest.getCache());
         assertEquals("key", getRequest.getKey());
+        assertFalse(getRequest.getTouch());
+        assertTrue(CacheProtocol.getRequest("cache", "key", true).getTouch());
+        assertTrue(CacheProtocol.getRequest(7, "key", true).getTouch());
 
         // test empty get response
         CacheRpc.GetResponse getResponse = CacheProtocol.getResponse(null);
@@ -161,4 +168,149 @@ public class CacheProtocolTest
         assertEquals(0L, metricsResponse.getCount());
         assertEquals(0L, metricsResponse.getSize());
     }
+
+
+    /**
+     * Test {@link CacheProtocol} messages that use a cache handle in place of the cache name.
+     */
+    @Test
+    public void testCacheHandleMessages()
+    {
+        // test open request and response
+        assertEquals("cache", CacheProtocol.openRequest("cache").getCache());
+        assertEquals(7, CacheProtocol.openResponse(7).getHandle());
+
+        byte[] value = "value".getBytes();
+
+        // test that the handle replaces the cache name
+        CacheRpc.GetRequest getRequest = CacheProtocol.getRequest(7, "key");
+
+        assertEquals(7, getRequest.getHandle());
+        assertEquals("", getRequest.getCache());
+        assertEquals(CacheRpc.GetRequest.TargetCase.HANDLE, getRequest.getTargetCase());
+        assertEquals(CacheRpc.GetRequest.TargetCase.CACHE, CacheProtocol.getRequest("cache", "key").getTargetCase());
+
+        assertEquals(7, CacheProtocol.putRequest(7, "key", value, 1L, false).getHandle());
+        assertEquals(7, CacheProtocol.removeRequest(7, "key", false).getHandle());
+        assertEquals(7, CacheProtocol.removeValueRequest(7, "key", value).getHandle());
+        assertEquals(7, CacheProtocol.replaceRequest(7, "key", value, 1L, false).getHandle());
+        assertEquals(7, CacheProtocol.replaceValueRequest(7, "key", value, value, 1L).getHandle());
+        assertEquals(7, CacheProtocol.clearRequest(7).getHandle());
+        assertEquals(7, CacheProtocol.metricsRequest(7).getHandle());
+
+        // a request using a handle is smaller than one using the cache name
+        assertTrue(getRequest.getSerializedSize()
+                   < CacheProtocol.getRequest("a-typical-cache-name", "key").getSerializedSize());
+    }
+
+
+    /**
+     * Test {@link CacheProtocol} messages for versioned entries.
+     */
+    @Test
+    public void testVersionMessages()
+    {
+        CacheRpc.VersionedResponse versionedResponse = CacheProtocol.versionedResponse("value".getBytes(), 3L);
+
+        assertEquals("value", versionedResponse.getValue().toStringUtf8());
+        assertEquals(3L, versionedResponse.getVersion());
+
+        versionedResponse = CacheProtocol.versionedResponse(null, 0L);
+        assertEquals(0, versionedResponse.getValue().size());
+
+        CacheRpc.ReplaceVersionRequest replaceVersionRequest =
+            CacheProtocol.replaceVersionRequest("cache", "key", 3L, "new-value".getBytes(), 1000L);
+
+        assertEquals("cache", replaceVersionRequest.getCache());
+        assertEquals("key", replaceVersionRequest.getKey());
+        assertEquals(3L, replaceVersionRequest.getVersion());
+        assertEquals("new-value", replaceVersionRequest.getNewValue().toStringUtf8());
+        assertEquals(1000L, replaceVersionRequest.getTtl());
+        assertEquals(7, CacheProtocol.replaceVersionRequest(7, "key", 3L, new byte[0], 0L).getHandle());
+
+        CacheRpc.RemoveVersionRequest removeVersionRequest = CacheProtocol.removeVersionRequest("cache", "key", 3L);
+
+        assertEquals("cache", removeVersionRequest.getCache());
+        assertEquals("key", removeVersionRequest.getKey());
+        assertEquals(3L, removeVersionRequest.getVersion());
+        assertEquals(7, CacheProtocol.removeVersionRequest(7, "key", 3L).getHandle());
+    }
+
+
+    /**
+     * Test {@link CacheProtocol} messages for counters.
+     */
+    @Test
+    public void testAddMessages()
+    {
+        CacheRpc.AddRequest addRequest = CacheProtocol.addRequest("cache", "key", -5L, 1000L);
+
+        assertEquals("cache", addRequest.getCache());
+        assertEquals("key", addRequest.getKey());
+        assertEquals(-5L, addRequest.getDelta());
+        assertEquals(1000L, addRequest.getTtl());
+        assertEquals(7, CacheProtocol.addRequest(7, "key", 1L, 0L).getHandle());
+        assertEquals(42L, CacheProtocol.addResponse(42L).getValue());
+    }
+
+
+    /**
+     * Test {@link CacheProtocol} messages for entry processors.
+     */
+    @Test
+    public void testProcessMessages()
+    {
+        CacheRpc.ProcessRequest processRequest = CacheProtocol.processRequest("cache", "key", "{}".getBytes(), 1000L);
+
+        assertEquals("cache", processRequest.getCache());
+        assertEquals("key", processRequest.getKey());
+        assertEquals("{}", processRequest.getProcessor().toStringUtf8());
+        assertEquals(1000L, processRequest.getTtl());
+        assertEquals(7, CacheProtocol.processRequest(7, "key", new byte[0], 0L).getHandle());
+    }
+
+
+    /**
+     * Test {@link CacheProtocol} messages for scans.
+     */
+    @Test
+    public void testScanMessages()
+    {
+        CacheRpc.ScanRequest  scanRequest  = CacheProtocol.scanRequest("cache", "order-", 50, new byte[] {1, 2});
+        CacheRpc.ScanEntry    scanEntry    = CacheProtocol.scanEntry("order-1", "value".getBytes());
+        CacheRpc.ScanResponse scanResponse = CacheProtocol.scanResponse(Collections.singletonList(scanEntry),
+                                                                        new byte[0]);
+
+        assertEquals("cache", scanRequest.getCache());
+        assertEquals("order-", scanRequest.getPrefix());
+        assertEquals(50, scanRequest.getPageSize());
+        assertEquals(2, scanRequest.getCursor().size());
+        assertEquals(7, CacheProtocol.scanRequest(7, "", 1, new byte[0]).getHandle());
+        assertEquals(1, scanResponse.getEntriesCount());
+        assertEquals("order-1", scanResponse.getEntries(0).getKey());
+        assertEquals("value", scanResponse.getEntries(0).getValue().toStringUtf8());
+        assertTrue(scanResponse.getCursor().isEmpty());
+    }
+
+
+    /**
+     * Test {@link CacheProtocol} messages for subscriptions.
+     */
+    @Test
+    public void testSubscribeMessages()
+    {
+        CacheRpc.SubscribeRequest  subscribeRequest  = CacheProtocol.subscribeRequest("cache", 42L);
+        CacheRpc.Event             event             = CacheProtocol.event(CacheRpc.EventType.REMOVED, "key");
+        CacheRpc.SubscribeResponse subscribeResponse = CacheProtocol.subscribeResponse(Collections.singletonList(event),
+                                                                                       43L,
+                                                                                       true);
+
+        assertEquals("cache", subscribeRequest.getCache());
+        assertEquals(42L, subscribeRequest.getSequence());
+        assertEquals(7, CacheProtocol.subscribeRequest(7, 0L).getHandle());
+        assertEquals(CacheRpc.EventType.REMOVED, subscribeResponse.getEvents(0).getType());
+        assertEquals("key", subscribeResponse.getEvents(0).getKey());
+        assertEquals(43L, subscribeResponse.getSequence());
+        assertTrue(subscribeResponse.getReset());
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * File: EntryProcessorTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.oracle.cloud.cache.processors;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the built-in {@link EntryProcessor}s.
+ */
+public class EntryProcessorTest
+{
+    /**
+     * Ensures {@link SetField} sets existing and new fields.
+     */
+    @Test
+    public void testSetField()
+    {
+        Person person = new Person("Tim", 40);
+        Person result = SetField.of("age", 41).process(person, Person.class);
+
+        assertEquals("Tim", result.name);
+        assertEquals(41, result.age);
+
+        // the original value is not modified
+        assertEquals(40, person.age);
+
+        // an unchanged value is returned as is
+        assertSame(person, SetField.of("name", "Tim").process(person, Person.class));
+    }
+
+
+    /**
+     * Ensures {@link AppendToList} appends to existing and missing lists.
+     */
+    @Test
+    public void testAppendToList()
+    {
+        Person person = new Person("Tim", 40);
+
+        person = AppendToList.of("tags", "a").process(person, Person.class);
+        person = AppendToList.of("tags", "b", "c").process(person, Person.class);
+
+        assertEquals(Arrays.asList("a", "b", "c"), person.tags);
+    }
+
+
+    /**
+     * Ensures {@link MergeMap} merges into the value and into map fields.
+     */
+    @Test
+    public void testMergeMap()
+    {
+        Map<String, Object> entries = new HashMap<>();
+
+        entries.put("name", "Aleks");
+        entries.put("age", 42);
+
+        Person person = MergeMap.of(entries).process(new Person("Tim", 40), Person.class);
+
+        assertEquals("Aleks", person.name);
+        assertEquals(42, person.age);
+
+        person = MergeMap.of("attributes", Collections.singletonMap("a", "1")).process(person, Person.class);
+        person = MergeMap.of("attributes", Collections.singletonMap("b", "2")).process(person, Person.class);
+
+        assertEquals(2, person.attributes.size());
+        assertEquals("2", person.attributes.get("b"));
+    }
+
+
+    /**
+     * Ensures {@link ConditionalUpdate} only applies its processor when the field matches.
+     */
+    @Test
+    public void testConditionalUpdate()
+    {
+        Person         person    = new Person("Tim", 40);
+        EntryProcessor processor = ConditionalUpdate.when("age", 40, SetField.of("age", 41));
+
+        assertEquals(41, processor.process(person, Person.class).age);
+        assertSame(person, ConditionalUpdate.when("age", 39, SetField.of("age", 41)).process(person, Person.class));
+        assertEquals(1, ConditionalUpdate.when("tags", null, AppendToList.of("tags", "a"))
+                .process(person, Person.class).tags.size());
+    }
+
+
+    /**
+     * Ensures processors can be serialized and deserialized.
+     */
+    @Test
+    public void testSerialization()
+    {
+        EntryProcessor processor = ConditionalUpdate.when("name",
+                                                          "Tim",
+                                                          MergeMap.of(Collections.singletonMap("age", 41)));
+        EntryProcessor copy      = EntryProcessor.fromBytes(processor.toBytes());
+
+        assertEquals(processor.toString(), copy.toString());
+        assertEquals(41, copy.process(new Person("Tim", 40), Person.class).age);
+    }
+
+
+    /**
+     * Ensures processors fail on values that are not JSON objects.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testNonObjectValue()
+    {
+        SetField.of("name", "Tim").process("Tim", String.class);
+    }
+
+
+    /**
+     * A simple value class.
+     */
+    public static class Person
+    {
+        public String              name;
+        public int                 age;
+        public List<String>        tags;
+        public Map<String, String> attributes;
+
+
+        /**
+         * Constructs a Person for deserialization.
+         */
+        public Person()
+        {
+        }
+
+
+        /**
+         * Constructs a Person.
+         *
+         * @param name  the name
+         * @param age   the age
+         */
+        Person(String name,
+               int    age)
+        {
+            this.name = name;
+            this.age  = age;
+        }
+    }
+}
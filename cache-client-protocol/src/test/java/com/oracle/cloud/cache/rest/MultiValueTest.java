@@ -105,6 +105,7 @@ public class MultiValueTest
 
         MultiValue multiValue = MultiValue.from(abBytes);
 
+        assertEquals(2, multiValue.getCount());
         assertEquals("{\"customerId\": \"key3\", \"name\": \"Tim Middleton - VERSION 2\"}",
                      new String(multiValue.get(0)));
         assertEquals("{\"customerId\": \"key3\", \"name\": \"Tim Middleton - VERSION 3\"}",
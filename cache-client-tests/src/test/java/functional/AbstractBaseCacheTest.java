@@ -19,18 +19,49 @@
 package functional;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.oracle.cloud.cache.basic.Cache;
+import com.oracle.cloud.cache.basic.CacheEvent;
+import com.oracle.cloud.cache.basic.CacheListener;
+import com.oracle.cloud.cache.basic.CacheLoader;
+import com.oracle.cloud.cache.basic.CacheWriter;
+import com.oracle.cloud.cache.basic.CounterCache;
+import com.oracle.cloud.cache.basic.Versioned;
+import com.oracle.cloud.cache.basic.options.Capacity;
+import com.oracle.cloud.cache.basic.options.EarlyExpiry;
+import com.oracle.cloud.cache.basic.options.EventDelivery;
 import com.oracle.cloud.cache.basic.options.Expiry;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.KeyPrefix;
+import com.oracle.cloud.cache.basic.options.NegativeCaching;
+import com.oracle.cloud.cache.basic.options.PageSize;
 import com.oracle.cloud.cache.basic.options.Return;
 import com.oracle.cloud.cache.basic.options.ValueType;
+import com.oracle.cloud.cache.processors.ConditionalUpdate;
+import com.oracle.cloud.cache.processors.SetField;
 import functional.model.Person;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * A set of tests that can be run using either Remote or Local session providers.
@@ -332,4 +363,464 @@ public abstract class AbstractBaseCacheTest extends AbstractTest
         // should be gone now
         assertNull(cache.get("tim"));
     }
+
+
+    /**
+     * Ensures versioned replace and remove work correctly.
+     */
+    @Test
+    public void testVersioned()
+    {
+        Cache<String> cache = getSession().getCache("versioned");
+
+        cache.clear();
+        assertNull(cache.getWithVersion("tim"));
+        addAndAssert(cache, "tim", "Tim Middleton");
+
+        Versioned<String> versioned = cache.getWithVersion("tim");
+
+        assertNotNull(versioned);
+        assertEquals("Tim Middleton", versioned.getValue());
+
+        // should work as the version matches
+        assertTrue(cache.replace("tim", versioned, "New Tim Middleton"));
+        assertEquals("New Tim Middleton", cache.get("tim"));
+
+        // should not work as the entry has changed since the version was read
+        assertFalse(cache.replace("tim", versioned, "Newer Tim Middleton"));
+        assertFalse(cache.remove("tim", versioned));
+
+        Versioned<String> versionedNew = cache.getWithVersion("tim");
+
+        assertNotEquals(versioned.getVersion(), versionedNew.getVersion());
+        assertTrue(cache.remove("tim", versionedNew));
+        assertNull(cache.get("tim"));
+    }
+
+
+    /**
+     * Ensures counters are updated atomically.
+     */
+    @Test
+    public void testCounters() throws Exception
+    {
+        CounterCache cache = getSession().getCounterCache("counters");
+
+        cache.clear();
+
+        assertEquals(1L, cache.incrementAndGet("hits"));
+        assertEquals(11L, cache.addAndGet("hits", 10L));
+        assertEquals(10L, cache.decrementAndGet("hits"));
+        assertEquals(Long.valueOf(10L), cache.get("hits"));
+        assertEquals(-5L, cache.addAndGet("balance", -5L));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            executor.submit(() -> cache.incrementAndGet("concurrent"));
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(Long.valueOf(1000L), cache.get("concurrent"));
+    }
+
+
+    /**
+     * Ensures a counter whose expiry has passed counts from zero again, even if the
+     * expired entry has not been removed yet.
+     */
+    @Test
+    public void testCounterExpiry() throws Exception
+    {
+        CounterCache cache  = getSession().getCounterCache("expiring-counters");
+        Expiry       expiry = Expiry.of(200, TimeUnit.MILLISECONDS);
+
+        cache.clear();
+
+        assertEquals(5L, cache.addAndGet("requests", 5L, expiry));
+
+        Thread.sleep(180);
+
+        // removes any entries expired by now, so that the counter is not removed before it is updated
+        cache.get("other");
+
+        Thread.sleep(40);
+
+        assertEquals(1L, cache.incrementAndGet("requests", expiry));
+        assertEquals(Long.valueOf(1L), cache.get("requests"));
+    }
+
+
+    /**
+     * Ensures entry processors update entries in place.
+     */
+    @Test
+    public void testProcess()
+    {
+        Cache<Person> cache = getSession().getCache("processed-people", ValueType.of(Person.class));
+
+        cache.clear();
+        cache.put("tim", new Person("Tim"));
+
+        assertTrue(cache.process("tim", SetField.of("name", "Tim Middleton")));
+        assertEquals(new Person("Tim Middleton"), cache.get("tim"));
+
+        // the condition does not match, so the entry is unchanged
+        assertFalse(cache.process("tim", ConditionalUpdate.when("name", "Tim", SetField.of("name", "Timothy"))));
+        assertEquals(new Person("Tim Middleton"), cache.get("tim"));
+
+        // missing entries are not processed
+        assertFalse(cache.process("aleks", SetField.of("name", "Aleks")));
+        assertNull(cache.get("aleks"));
+    }
+
+
+    /**
+     * Ensures computeIfAbsent, computeIfPresent and merge work correctly.
+     */
+    @Test
+    public void testCompute() throws Exception
+    {
+        Cache<Integer> cache = getSession().getCache("compute", ValueType.of(Integer.class));
+
+        cache.clear();
+
+        assertEquals(Integer.valueOf(1), cache.computeIfAbsent("one", k -> 1));
+        assertEquals(Integer.valueOf(1), cache.computeIfAbsent("one", k -> 2));
+        assertNull(cache.computeIfAbsent("none", k -> null));
+        assertNull(cache.get("none"));
+
+        assertEquals(Integer.valueOf(11), cache.computeIfPresent("one", (k, v) -> v + 10));
+        assertNull(cache.computeIfPresent("two", (k, v) -> v + 10));
+        assertNull(cache.get("two"));
+        assertNull(cache.computeIfPresent("one", (k, v) -> null));
+        assertNull(cache.get("one"));
+
+        assertEquals(Integer.valueOf(5), cache.merge("sum", 5, Integer::sum));
+        assertEquals(Integer.valueOf(8), cache.merge("sum", 3, Integer::sum));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        for (int i = 0; i < 100; i++)
+        {
+            executor.submit(() -> cache.merge("concurrent", 1, Integer::sum));
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(Integer.valueOf(100), cache.get("concurrent"));
+    }
+
+
+    /**
+     * Ensures changes are written through to a cache writer, and rolled back if it fails.
+     */
+    @Test
+    public void testWriteThrough()
+    {
+        Map<String, String> store  = new ConcurrentHashMap<>();
+        CacheWriter<String> writer = CacheWriter.of((key, value) -> {
+                                                        if (value.startsWith("bad"))
+                                                        {
+                                                            throw new IllegalStateException("rejected " + value);
+                                                        }
+
+                                                        store.put(key, value);
+                                                    },
+                                                    store::remove);
+        Cache<String>       cache  = getSession().getCache("write-through", writer);
+
+        cache.clear();
+
+        cache.put("one", "1");
+        cache.putIfAbsent("two", "2");
+        assertEquals("1", store.get("one"));
+        assertEquals("2", store.get("two"));
+
+        cache.remove("two");
+        assertNull(store.get("two"));
+
+        try
+        {
+            cache.put("one", "bad");
+            fail("expected the write to be rejected");
+        }
+        catch (IllegalStateException e)
+        {
+            // the failed change is rolled back
+            assertEquals("1", cache.get("one"));
+            assertEquals("1", store.get("one"));
+        }
+
+        try
+        {
+            cache.putIfAbsent("three", "bad");
+            fail("expected the write to be rejected");
+        }
+        catch (IllegalStateException e)
+        {
+            assertNull(cache.get("three"));
+        }
+
+        Map<String, String> entries = new HashMap<>();
+
+        entries.put("four", "4");
+        entries.put("five", "5");
+        cache.putAll(entries);
+        assertEquals("4", store.get("four"));
+        assertEquals("5", store.get("five"));
+        assertEquals("5", cache.get("five"));
+
+        assertTrue(cache.getMetrics().getWriteMetrics().getCount() > 0);
+    }
+
+
+    /**
+     * Ensures values read through from a cache loader are not written back to the cache
+     * writer, and that removing a missing key does not delete it from the cache writer.
+     */
+    @Test
+    public void testReadThroughNotWrittenBack()
+    {
+        AtomicInteger       writes  = new AtomicInteger();
+        AtomicInteger       deletes = new AtomicInteger();
+        CacheWriter<String> writer  = CacheWriter.of((key, value) -> writes.incrementAndGet(),
+                                                     key -> deletes.incrementAndGet());
+        CacheLoader<String> loader  = CacheLoader.of(key -> "loaded-" + key);
+        Cache<String>       cache   = getSession().getCache("read-through", writer, loader);
+
+        cache.clear();
+
+        assertEquals("loaded-one", cache.get("one"));
+        assertEquals("loaded-one", cache.get("one"));
+        assertEquals(0, writes.get());
+        assertEquals(0, cache.getMetrics().getPutMetrics().getCount());
+
+        cache.remove("missing");
+        assertEquals(0, deletes.get());
+
+        cache.remove("one");
+        assertEquals(1, deletes.get());
+    }
+
+
+    /**
+     * Ensures repeated misses are answered without invoking the cache loader.
+     */
+    @Test
+    public void testNegativeCaching()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        Cache<String> cache = getSession().getCache("negative",
+                                                    CacheLoader.of(key -> {
+                                                        loads.incrementAndGet();
+
+                                                        return null;
+                                                    }),
+                                                    NegativeCaching.of(100, Duration.ofMillis(500)));
+
+        cache.clear();
+
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getMetrics().getNegativeHitCount());
+        assertEquals(3, cache.getMetrics().getMissCount());
+
+        // a value put through the cache is seen immediately
+        cache.put("missing", "found");
+        assertEquals("found", cache.get("missing"));
+
+        cache.remove("missing");
+        assertNull(cache.get("missing"));
+        assertEquals(2, loads.get());
+
+        sleep(600L);
+        assertNull(cache.get("missing"));
+        assertEquals(3, loads.get());
+    }
+
+
+    /**
+     * Ensures entries that are about to expire are refreshed by reads.
+     */
+    @Test
+    public void testEarlyExpiry()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        Cache<String> cache = getSession().getCache("early-expiry",
+                                                    CacheLoader.of(key -> {
+                                                        sleep(5L);
+
+                                                        return key + "-" + loads.incrementAndGet();
+                                                    }),
+                                                    Expiry.of(10, TimeUnit.SECONDS),
+                                                    EarlyExpiry.of(100000.0));
+
+        cache.clear();
+
+        assertEquals("key-1", cache.get("key"));
+
+        // the load time is weighted so heavily that reads almost always refresh the entry
+        for (int i = 0; i < 5; i++)
+        {
+            assertNotNull(cache.get("key"));
+        }
+
+        assertTrue(loads.get() > 1);
+        assertEquals(loads.get() - 1, cache.getMetrics().getEarlyRefreshCount());
+    }
+
+
+    /**
+     * Ensures entries expire once they have not been read for the idle timeout, but not
+     * while they are being read.
+     */
+    @Test
+    public void testIdleExpiry()
+    {
+        Cache<String> cache = getSession().getCache("idle-expiry", IdleExpiry.of(Duration.ofMillis(400L)));
+
+        cache.clear();
+
+        cache.put("read", "value");
+        cache.put("idle", "value");
+
+        for (int i = 0; i < 8; i++)
+        {
+            sleep(100L);
+            assertEquals("value", cache.get("read"));
+        }
+
+        assertNull(cache.get("idle"));
+        assertEquals("value", cache.get("read"));
+
+        sleep(600L);
+        assertNull(cache.get("read"));
+    }
+
+
+    /**
+     * Ensures a scan returns every entry, a page at a time, and may be restricted to the
+     * keys with a prefix or abandoned before it is exhausted.
+     */
+    @Test
+    public void testScan()
+    {
+        Cache<String> cache = getSession().getCache("scan-cache");
+
+        cache.clear();
+
+        for (int i = 0; i < 250; i++)
+        {
+            cache.put((i % 2 == 0 ? "even-" : "odd-") + i, "value-" + i);
+        }
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(7)))
+        {
+            Map<String, String> entries = scan.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+            assertEquals(250, entries.size());
+            assertEquals("value-42", entries.get("even-42"));
+        }
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(KeyPrefix.of("odd-"), PageSize.of(10)))
+        {
+            assertEquals(125, scan.map(Map.Entry::getKey).filter(key -> key.startsWith("odd-")).count());
+        }
+
+        try (Stream<Map.Entry<String, String>> scan = cache.scan(PageSize.of(10)))
+        {
+            assertEquals(5, scan.limit(5).count());
+        }
+    }
+
+
+    /**
+     * Ensures listeners are notified of the changes made to the entries of the cache until
+     * they are removed, and that a failing listener does not prevent delivery to others.
+     */
+    @Test
+    public void testListeners()
+    {
+        Cache<String>         cache    = getSession().getCache("listener-cache");
+        List<CacheEvent<?>>   events   = new ArrayList<>();
+        CacheListener<String> listener = events::add;
+
+        cache.clear();
+        cache.addListener(event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        cache.addListener(listener);
+
+        cache.put("one", "1");
+        cache.put("one", "2");
+        cache.remove("one");
+        cache.clear();
+
+        assertEquals(4, events.size());
+        assertEquals(CacheEvent.Type.CREATED, events.get(0).getType());
+        assertEquals("1", events.get(0).getValue());
+        assertEquals(CacheEvent.Type.UPDATED, events.get(1).getType());
+        assertEquals("2", events.get(1).getValue());
+        assertEquals(CacheEvent.Type.REMOVED, events.get(2).getType());
+        assertEquals("one", events.get(2).getKey());
+        assertEquals(CacheEvent.Type.CLEARED, events.get(3).getType());
+        assertNull(events.get(3).getKey());
+        assertEquals(4, cache.getMetrics().getListenerFailureCount());
+
+        cache.removeListener(listener);
+        cache.put("two", "2");
+
+        assertEquals(4, events.size());
+    }
+
+
+    /**
+     * Ensures listeners are notified, asynchronously, of entries that are evicted or expire,
+     * with their values.
+     */
+    @Test
+    public void testRemovalEvents() throws InterruptedException
+    {
+        BlockingQueue<CacheEvent<?>> events = new LinkedBlockingQueue<>();
+        Cache<String>                cache  = getSession().getCache("removal-cache",
+                                                                    Capacity.of(2),
+                                                                    Expiry.of(Duration.ofMillis(200L)),
+                                                                    EventDelivery.asynchronous(10));
+
+        cache.clear();
+        cache.addListener(events::add);
+
+        cache.put("one", "1");
+        cache.put("two", "2");
+        cache.put("three", "3");
+
+        Map<CacheEvent.Type, Integer> types = new HashMap<>();
+
+        for (int i = 0; i < 4; i++)
+        {
+            types.merge(events.poll(5, TimeUnit.SECONDS).getType(), 1, Integer::sum);
+        }
+
+        assertEquals(3, (int) types.get(CacheEvent.Type.CREATED));
+        assertEquals(1, (int) types.get(CacheEvent.Type.EVICTED));
+
+        sleep(400L);
+        assertNull(cache.get("three"));
+
+        for (int i = 0; i < 2; i++)
+        {
+            CacheEvent<?> event = events.poll(5, TimeUnit.SECONDS);
+
+            assertEquals(CacheEvent.Type.EXPIRED, event.getType());
+            assertNotNull(event.getValue());
+        }
+
+        assertEquals(0, cache.getMetrics().getListenerQueueDepth());
+        assertEquals(0, cache.getMetrics().getListenerDroppedCount());
+    }
 }
@@ -0,0 +1,82 @@
+package functional;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.oracle.cloud.cache.basic.io.BinarySerializer;
+import com.oracle.cloud.cache.basic.io.Serializer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link BinarySerializer}.
+ */
+public class BinarySerializerTest
+{
+    /**
+     * Serializer to be used for tests.
+     */
+    private Serializer serializer = Serializer.binary();
+
+
+    /**
+     * Ensures that byte[] values are passed through without being copied or encoded.
+     *
+     * @throws IOException if any I/O related issues.
+     */
+    @Test
+    public void testByteArray() throws IOException
+    {
+        byte[] value = "{\"name\":\"Tim\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertSame(value, serializer.serialize(value));
+        assertSame(value, serializer.deserialize(value, byte[].class));
+        assertNull(serializer.deserialize(new byte[0], byte[].class));
+        assertNull(serializer.deserialize((byte[]) null, byte[].class));
+    }
+
+
+    /**
+     * Ensures that only the remaining bytes of a ByteBuffer are serialized, and that a
+     * buffer is read in place.
+     *
+     * @throws IOException if any I/O related issues.
+     */
+    @Test
+    public void testByteBuffer() throws IOException
+    {
+        byte[]     bytes  = {1, 2, 3, 4, 5};
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        assertSame(bytes, serializer.serialize(buffer));
+
+        buffer.position(1).limit(4);
+        assertArrayEquals(new byte[] {2, 3, 4}, serializer.serialize(buffer));
+        assertEquals(1, buffer.position());
+
+        ByteBuffer result = serializer.deserialize(buffer.asReadOnlyBuffer(), ByteBuffer.class);
+
+        assertEquals(buffer, result);
+        assertEquals(1, buffer.position());
+        assertArrayEquals(new byte[] {2, 3, 4}, serializer.deserialize(buffer, byte[].class));
+        assertEquals(ByteBuffer.wrap(bytes), serializer.deserialize(bytes, ByteBuffer.class));
+        assertNull(serializer.deserialize(ByteBuffer.allocate(0), ByteBuffer.class));
+    }
+
+
+    /**
+     * Ensures that values which are not binary are rejected.
+     *
+     * @throws IOException if any I/O related issues.
+     */
+    @Test(expected = IOException.class)
+    public void testNotBinary() throws IOException
+    {
+        serializer.serialize("a string");
+    }
+}
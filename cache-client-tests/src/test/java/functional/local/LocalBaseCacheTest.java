@@ -18,9 +18,15 @@
 
 package functional.local;
 
+import com.oracle.cloud.cache.basic.Cache;
 import com.oracle.cloud.cache.basic.LocalSession;
+import com.oracle.cloud.cache.basic.options.Capacity;
 import functional.AbstractBaseCacheTest;
 import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 /**
  * Base cache tests using {@link com.oracle.cloud.cache.basic.LocalSessionProvider}.
@@ -37,5 +43,24 @@ public class LocalBaseCacheTest extends AbstractBaseCacheTest
     {
         setSession(new LocalSession());
     }
+
+
+    /**
+     * Ensures that a bounded cache evicts entries that have not been read recently.
+     */
+    @Test
+    public void testCapacity()
+    {
+        Cache<String> cache = getSession().getCache("bounded", Capacity.of(2));
+
+        cache.put("one", "one");
+        cache.put("two", "two");
+        assertEquals("one", cache.get("one"));
+
+        cache.put("three", "three");
+
+        assertEquals("one", cache.get("one"));
+        assertNull(cache.get("two"));
+        assertEquals("three", cache.get("three"));
+    }
 }
- 
\ No newline at end of file
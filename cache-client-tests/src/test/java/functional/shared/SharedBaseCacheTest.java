@@ -0,0 +1,90 @@
+/*
+ * File: SharedBaseCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package functional.shared;
+
+import java.time.Duration;
+
+import com.oracle.cloud.cache.basic.Cache;
+import com.oracle.cloud.cache.basic.SharedSession;
+import com.oracle.cloud.cache.basic.options.IdleExpiry;
+import com.oracle.cloud.cache.basic.options.SharedMemory;
+import functional.AbstractBaseCacheTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Base cache tests using {@link com.oracle.cloud.cache.basic.SharedSessionProvider}.
+ */
+public class SharedBaseCacheTest extends AbstractBaseCacheTest
+{
+    /**
+     * The folder holding the shared memory file.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    /**
+     * Initializes the {@link com.oracle.cloud.cache.basic.Session} over a new shared memory file.
+     */
+    @Before
+    public void initialize()
+    {
+        setSession(new SharedSession(SharedMemory.at(folder.getRoot().toPath().resolve("shared"))
+                                                 .withSize(16 * 1024 * 1024)));
+    }
+
+
+    /**
+     * Ensures idle expiry is rejected, as reads do not change the shared entries.
+     */
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIdleExpiry()
+    {
+        getSession().getCache("idle-expiry", IdleExpiry.of(Duration.ofMillis(400L)));
+    }
+
+
+    /**
+     * Ensures listeners are rejected, as the changes made by other processes are not observed.
+     */
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void testListeners()
+    {
+        Cache<String> cache = getSession().getCache("listener-cache");
+
+        cache.addListener(event -> { });
+    }
+
+
+    /**
+     * Ensures listeners are rejected, as the changes made by other processes are not observed.
+     */
+    @Override
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemovalEvents()
+    {
+        testListeners();
+    }
+}
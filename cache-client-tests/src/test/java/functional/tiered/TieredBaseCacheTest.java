@@ -0,0 +1,95 @@
+/*
+ * File: TieredBaseCacheTest.java
+ *
+ * Copyright (c) 2017 Oracle and/or its affiliates. All rights reserved.
+ *
+ * You may not use this file except in compliance with the Universal Permissive
+ * License (UPL), Version 1.0 (the "License.")
+ *
+ * You may obtain a copy of the License at https://opensource.org/licenses/UPL.
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package functional.tiered;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.oracle.cloud.cache.basic.Cache;
+import com.oracle.cloud.cache.basic.CacheLoader;
+import com.oracle.cloud.cache.basic.LocalSession;
+import com.oracle.cloud.cache.basic.TieredSession;
+import com.oracle.cloud.cache.basic.options.EarlyExpiry;
+import com.oracle.cloud.cache.basic.options.Expiry;
+import functional.AbstractBaseCacheTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Base cache tests using a {@link TieredSession} over a {@link LocalSession}.
+ */
+public class TieredBaseCacheTest extends AbstractBaseCacheTest
+{
+    /**
+     * Initializes the {@link com.oracle.cloud.cache.basic.Session}.
+     */
+    @Before
+    public void initialize()
+    {
+        setSession(new TieredSession(new LocalSession()));
+    }
+
+
+    /**
+     * Ensures repeated reads are served by the L1 tier.
+     */
+    @Test
+    public void testNearHits()
+    {
+        Cache<String> cache = getSession().getCache("near-hits");
+
+        cache.put("one", "1");
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("1", cache.get("one"));
+        }
+
+        assertEquals(4, cache.getMetrics().getNearHitCount());
+        assertEquals(1, cache.getMetrics().getHitCount());
+    }
+
+
+    /**
+     * Ensures reads served by the L1 tier do not refresh the L2 entry early, which is only
+     * refreshed by the reads that miss the L1 tier.
+     */
+    @Test
+    @Override
+    public void testEarlyExpiry()
+    {
+        AtomicInteger loads = new AtomicInteger();
+        Cache<String> cache = getSession().getCache("early-expiry",
+                                                    CacheLoader.of(key -> key + "-" + loads.incrementAndGet()),
+                                                    Expiry.of(10, TimeUnit.SECONDS),
+                                                    EarlyExpiry.of(100000.0));
+
+        cache.clear();
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("key-1", cache.get("key"));
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(4, cache.getMetrics().getNearHitCount());
+    }
+}